@@ -14,6 +14,8 @@
 package ai.startree.thirdeye;
 
 import ai.startree.thirdeye.config.CacheConfig;
+import ai.startree.thirdeye.config.DataSourceCacheConfiguration;
+import ai.startree.thirdeye.config.ExecutorsConfiguration;
 import ai.startree.thirdeye.config.TimeConfiguration;
 import ai.startree.thirdeye.config.UiConfiguration;
 import ai.startree.thirdeye.datalayer.ThirdEyePersistenceModule;
@@ -33,18 +35,24 @@ public class ThirdEyeCoreModule extends AbstractModule {
   private final RcaConfiguration rcaConfiguration;
   private final UiConfiguration uiConfiguration;
   private final TimeConfiguration timeConfiguration;
+  private final DataSourceCacheConfiguration dataSourceCacheConfiguration;
+  private final ExecutorsConfiguration executorsConfiguration;
 
   public ThirdEyeCoreModule(final DataSource dataSource,
       final CacheConfig cacheConfig,
       final RcaConfiguration rcaConfiguration,
       final UiConfiguration uiConfiguration,
-      final TimeConfiguration timeConfiguration) {
+      final TimeConfiguration timeConfiguration,
+      final DataSourceCacheConfiguration dataSourceCacheConfiguration,
+      final ExecutorsConfiguration executorsConfiguration) {
     this.dataSource = dataSource;
 
     this.cacheConfig = cacheConfig;
     this.rcaConfiguration = rcaConfiguration;
     this.uiConfiguration = uiConfiguration;
     this.timeConfiguration = timeConfiguration;
+    this.dataSourceCacheConfiguration = dataSourceCacheConfiguration;
+    this.executorsConfiguration = executorsConfiguration;
   }
 
   @Override
@@ -58,5 +66,7 @@ public class ThirdEyeCoreModule extends AbstractModule {
     bind(RcaConfiguration.class).toInstance(rcaConfiguration);
     bind(UiConfiguration.class).toInstance(uiConfiguration);
     bind(TimeConfiguration.class).toInstance(timeConfiguration);
+    bind(DataSourceCacheConfiguration.class).toInstance(dataSourceCacheConfiguration);
+    bind(ExecutorsConfiguration.class).toInstance(executorsConfiguration);
   }
 }
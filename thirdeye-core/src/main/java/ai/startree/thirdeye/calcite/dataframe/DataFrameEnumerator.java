@@ -15,36 +15,38 @@ package ai.startree.thirdeye.calcite.dataframe;
 
 import static org.apache.calcite.linq4j.Nullness.castNonNull;
 
-import ai.startree.thirdeye.spi.dataframe.DataFrame;
+import ai.startree.thirdeye.spi.dataframe.Series;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 import org.apache.calcite.linq4j.Enumerator;
-import org.apache.calcite.util.ImmutableNullableList;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 /**
- * Enumerator that reads from a DataFrame.
+ * Enumerator that reads from the columns of a DataFrame.
+ *
+ * Only the projected columns are read. Rows that are not selected by the filter mask are skipped
+ * without being materialized.
  */
 public class DataFrameEnumerator implements Enumerator<Object[]> {
 
-  private final DataFrame dataFrame;
-  private final @Nullable List<@Nullable Object> filterValues;
+  private final Series[] columns;
+  private final boolean @Nullable [] selectedRows;
+  private final int size;
   private final AtomicBoolean cancelFlag;
   private @Nullable Object[] current;
   private int currentIndex = -1;
-  List<String> columnNames;
-
-  public DataFrameEnumerator(DataFrame dataFrame, AtomicBoolean cancelFlag) {
-    this(dataFrame, cancelFlag, null);
-  }
 
-  public DataFrameEnumerator(DataFrame dataFrame, AtomicBoolean cancelFlag,
-      @Nullable Object @Nullable [] filterValues) {
+  /**
+   * @param columns the projected columns, in the order of the output rows
+   * @param size the number of rows
+   * @param selectedRows mask of the rows to enumerate. If null, all rows are enumerated.
+   */
+  public DataFrameEnumerator(final List<Series> columns, final int size,
+      final boolean @Nullable [] selectedRows, final AtomicBoolean cancelFlag) {
+    this.columns = columns.toArray(new Series[0]);
+    this.size = size;
+    this.selectedRows = selectedRows;
     this.cancelFlag = cancelFlag;
-    this.filterValues = filterValues == null ? null
-        : ImmutableNullableList.copyOf(filterValues);
-    this.dataFrame = dataFrame;
-    this.columnNames = dataFrame.getSeriesNames();
   }
 
   @Override
@@ -54,29 +56,20 @@ public class DataFrameEnumerator implements Enumerator<Object[]> {
 
   @Override
   public boolean moveNext() {
-    outer:
     for (; ; ) {
       if (cancelFlag.get()) {
         return false;
       }
       currentIndex++;
-      if (currentIndex == dataFrame.size()) {
+      if (currentIndex == size) {
         return false;
       }
-      Object[] values = columnNames.stream()
-          .map(name -> dataFrame.getObject(name, currentIndex))
-          .toArray(Object[]::new);
-
-      // works with string - long - boolean - double
-      if (filterValues != null) {
-        for (int i = 0; i < values.length; i++) {
-          Object filterValue = filterValues.get(i);
-          if (filterValue != null) {
-            if (!filterValue.equals(values[i])) {
-              continue outer;
-            }
-          }
-        }
+      if (selectedRows != null && !selectedRows[currentIndex]) {
+        continue;
+      }
+      final Object[] values = new Object[columns.length];
+      for (int i = 0; i < columns.length; i++) {
+        values[i] = columns[i].getObject(currentIndex);
       }
       current = values;
       return true;
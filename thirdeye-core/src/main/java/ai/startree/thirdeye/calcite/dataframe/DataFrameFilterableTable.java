@@ -14,33 +14,32 @@
 package ai.startree.thirdeye.calcite.dataframe;
 
 import ai.startree.thirdeye.spi.dataframe.DataFrame;
+import ai.startree.thirdeye.spi.dataframe.Series;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 import org.apache.calcite.DataContext;
-import org.apache.calcite.adapter.java.JavaTypeFactory;
 import org.apache.calcite.linq4j.AbstractEnumerable;
 import org.apache.calcite.linq4j.Enumerable;
 import org.apache.calcite.linq4j.Enumerator;
 import org.apache.calcite.rel.type.RelProtoDataType;
-import org.apache.calcite.rex.RexCall;
-import org.apache.calcite.rex.RexInputRef;
-import org.apache.calcite.rex.RexLiteral;
 import org.apache.calcite.rex.RexNode;
-import org.apache.calcite.schema.FilterableTable;
-import org.apache.calcite.sql.SqlKind;
-import org.apache.calcite.sql.type.SqlTypeName;
+import org.apache.calcite.schema.ProjectableFilterableTable;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 /**
- * Table based on a DataFrame. Implements simple equal filtering.
+ * Table based on a DataFrame. Implements projection and filtering.
  *
- * <p>It implements the {@link FilterableTable} interface, so Calcite gets
- * data by calling the {@link #scan(DataContext, List)} method.
+ * <p>It implements the {@link ProjectableFilterableTable} interface, so Calcite gets
+ * data by calling the {@link #scan(DataContext, List, int[])} method. Only the projected columns
+ * are materialized. Supported filters (see {@link DataFrameFilters}) are evaluated column-wise
+ * before the rows are enumerated, and removed from the filters Calcite has to evaluate.
  *
  * Resource: https://github.com/apache/calcite/blob/4bc916619fd286b2c0cc4d5c653c96a68801d74e/example/csv/src/main/java/org/apache/calcite/adapter/csv/CsvFilterableTable.java
  */
 public class DataFrameFilterableTable extends DataFrameTable
-    implements FilterableTable {
+    implements ProjectableFilterableTable {
 
   public DataFrameFilterableTable(DataFrame dataFrame, RelProtoDataType protoRowType) {
     super(dataFrame, protoRowType);
@@ -52,59 +51,50 @@ public class DataFrameFilterableTable extends DataFrameTable
   }
 
   @Override
-  public Enumerable<@Nullable Object[]> scan(DataContext root, List<RexNode> filters) {
-    JavaTypeFactory typeFactory = root.getTypeFactory();
-    final List<DataFrameFieldType> fieldTypes = getFieldTypes(typeFactory);
-    final @Nullable Object[] filterValues = new Object[fieldTypes.size()];
-    filters.removeIf(filter -> addFilter(filter, filterValues));
+  public Enumerable<@Nullable Object[]> scan(final DataContext root, final List<RexNode> filters,
+      final int @Nullable [] projects) {
+    final List<DataFrameFieldType> fieldTypes = getFieldTypes(root.getTypeFactory());
+    final List<Series> columns = new ArrayList<>(dataFrame.getSeries().values());
+    final boolean[] selectedRows = applyFilters(filters, columns, fieldTypes);
+    final List<Series> projectedColumns;
+    if (projects == null) {
+      projectedColumns = columns;
+    } else {
+      projectedColumns = new ArrayList<>(projects.length);
+      for (final int project : projects) {
+        projectedColumns.add(columns.get(project));
+      }
+    }
+    final int size = dataFrame.size();
     final AtomicBoolean cancelFlag = DataContext.Variable.CANCEL_FLAG.get(root);
     return new AbstractEnumerable<@Nullable Object[]>() {
       @Override
       public Enumerator<@Nullable Object[]> enumerator() {
-        return new DataFrameEnumerator(dataFrame, cancelFlag, filterValues);
+        return new DataFrameEnumerator(projectedColumns, size, selectedRows, cancelFlag);
       }
     };
   }
 
   /**
-   * Push down equal filter for STRING, LONG and DOUBLE.
+   * Evaluates the supported filters and removes them from the list of filters.
+   *
+   * @return the mask of the rows passing all the evaluated filters, or null if no filter was
+   *     evaluated
    */
-  private static boolean addFilter(RexNode filter, @Nullable Object[] filterValues) {
-
-    if (filter.isA(SqlKind.AND)) {
-      // We cannot refine(remove) the operands of AND,
-      // it will cause o.a.c.i.TableScanNode.createFilterable filters check failed.
-      ((RexCall) filter).getOperands().forEach(subFilter -> addFilter(subFilter, filterValues));
-    } else if (filter.isA(SqlKind.EQUALS)) {
-      final RexCall call = (RexCall) filter;
-      RexNode left = call.getOperands().get(0);
-      if (left.isA(SqlKind.CAST)) {
-        left = ((RexCall) left).operands.get(0);
+  private boolean @Nullable [] applyFilters(final List<RexNode> filters,
+      final List<Series> columns, final List<DataFrameFieldType> fieldTypes) {
+    final boolean[] selectedRows = new boolean[dataFrame.size()];
+    Arrays.fill(selectedRows, true);
+    final boolean anyApplied = filters.removeIf(filter -> {
+      final boolean[] mask = DataFrameFilters.evaluate(filter, columns, fieldTypes);
+      if (mask == null) {
+        return false;
       }
-      final RexNode right = call.getOperands().get(1);
-      if (left instanceof RexInputRef
-          && right instanceof RexLiteral) {
-        final int index = ((RexInputRef) left).getIndex();
-        if (filterValues[index] == null) {
-          filterValues[index] = customGetValue((RexLiteral) right);
-          return true;
-        }
+      for (int i = 0; i < selectedRows.length; i++) {
+        selectedRows[i] &= mask[i];
       }
-    }
-    return false;
-  }
-
-  private static Object customGetValue(RexLiteral literal) {
-    // only tested with SeriesType DOUBLE, BOOLEAN, STRING, LONG
-    SqlTypeName preciseSqlType = literal.getType().getSqlTypeName();
-    switch (preciseSqlType) {
-      case DOUBLE:
-        return literal.getValueAs(Double.class);
-      case BOOLEAN:
-        return literal.getValueAs(Boolean.class);
-      default:
-        // sensible defaults: STRING and LONG managed correctly
-        return literal.getValue2();
-    }
+      return true;
+    });
+    return anyApplied ? selectedRows : null;
   }
 }
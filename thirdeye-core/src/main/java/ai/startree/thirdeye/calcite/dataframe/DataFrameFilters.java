@@ -0,0 +1,371 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.calcite.dataframe;
+
+import ai.startree.thirdeye.spi.dataframe.BooleanSeries;
+import ai.startree.thirdeye.spi.dataframe.DoubleSeries;
+import ai.startree.thirdeye.spi.dataframe.LongSeries;
+import ai.startree.thirdeye.spi.dataframe.Series;
+import ai.startree.thirdeye.spi.dataframe.StringSeries;
+import com.google.common.collect.BoundType;
+import com.google.common.collect.ImmutableRangeSet;
+import com.google.common.collect.Range;
+import com.google.common.collect.RangeSet;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import org.apache.calcite.rex.RexCall;
+import org.apache.calcite.rex.RexInputRef;
+import org.apache.calcite.rex.RexLiteral;
+import org.apache.calcite.rex.RexNode;
+import org.apache.calcite.rex.RexUnknownAs;
+import org.apache.calcite.sql.SqlKind;
+import org.apache.calcite.util.NlsString;
+import org.apache.calcite.util.Sarg;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Evaluates Calcite filters on the columns of a DataFrame.
+ *
+ * Supported filters are comparisons between a column and a literal, SEARCH (IN lists and
+ * ranges), IS NULL, IS NOT NULL, and AND/OR combinations of them. A filter is evaluated column-wise
+ * on the primitive values of the column, into a mask of the rows that pass the filter.
+ */
+class DataFrameFilters {
+
+  private DataFrameFilters() {
+  }
+
+  /**
+   * Returns the mask of the rows that pass the filter, or null if the filter is not supported.
+   * In a WHERE clause, UNKNOWN is FALSE: rows for which the filter is UNKNOWN are not in the mask.
+   */
+  static boolean @Nullable [] evaluate(final RexNode filter, final List<Series> columns,
+      final List<DataFrameFieldType> fieldTypes) {
+    switch (filter.getKind()) {
+      case AND:
+      case OR:
+        return evaluateAndOr((RexCall) filter, columns, fieldTypes);
+      case IS_NULL:
+      case IS_NOT_NULL:
+        return evaluateIsNull((RexCall) filter, columns);
+      case SEARCH:
+        return evaluateSearch((RexCall) filter, columns, fieldTypes);
+      case EQUALS:
+      case NOT_EQUALS:
+      case LESS_THAN:
+      case LESS_THAN_OR_EQUAL:
+      case GREATER_THAN:
+      case GREATER_THAN_OR_EQUAL:
+        return evaluateComparison((RexCall) filter, columns, fieldTypes);
+      default:
+        return null;
+    }
+  }
+
+  private static boolean @Nullable [] evaluateAndOr(final RexCall call, final List<Series> columns,
+      final List<DataFrameFieldType> fieldTypes) {
+    final boolean isAnd = call.isA(SqlKind.AND);
+    boolean[] mask = null;
+    for (final RexNode operand : call.getOperands()) {
+      final boolean[] operandMask = evaluate(operand, columns, fieldTypes);
+      if (operandMask == null) {
+        return null;
+      }
+      if (mask == null) {
+        mask = operandMask;
+      } else {
+        for (int i = 0; i < mask.length; i++) {
+          mask[i] = isAnd ? mask[i] && operandMask[i] : mask[i] || operandMask[i];
+        }
+      }
+    }
+    return mask;
+  }
+
+  private static boolean @Nullable [] evaluateIsNull(final RexCall call,
+      final List<Series> columns) {
+    final RexNode operand = call.getOperands().get(0);
+    if (!(operand instanceof RexInputRef)) {
+      return null;
+    }
+    final boolean matchNull = call.isA(SqlKind.IS_NULL);
+    final Series series = columns.get(((RexInputRef) operand).getIndex());
+    final boolean[] mask = new boolean[series.size()];
+    for (int i = 0; i < mask.length; i++) {
+      mask[i] = series.isNull(i) == matchNull;
+    }
+    return mask;
+  }
+
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  private static boolean @Nullable [] evaluateSearch(final RexCall call,
+      final List<Series> columns, final List<DataFrameFieldType> fieldTypes) {
+    final RexNode left = call.getOperands().get(0);
+    final RexNode right = call.getOperands().get(1);
+    if (!(left instanceof RexInputRef) || !(right instanceof RexLiteral)) {
+      return null;
+    }
+    final Sarg sarg = ((RexLiteral) right).getValueAs(Sarg.class);
+    if (sarg == null) {
+      return null;
+    }
+    final int index = ((RexInputRef) left).getIndex();
+    return evaluateRanges(columns.get(index),
+        fieldTypes.get(index),
+        (RangeSet<Comparable>) sarg.rangeSet,
+        sarg.nullAs == RexUnknownAs.TRUE);
+  }
+
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  private static boolean @Nullable [] evaluateComparison(final RexCall call,
+      final List<Series> columns, final List<DataFrameFieldType> fieldTypes) {
+    SqlKind kind = call.getKind();
+    RexNode left = call.getOperands().get(0);
+    RexNode right = call.getOperands().get(1);
+    if (left instanceof RexLiteral) {
+      // literal op column --> column reversed-op literal
+      final RexNode literal = left;
+      left = right;
+      right = literal;
+      kind = kind.reverse();
+    }
+    if (left.isA(SqlKind.CAST) && (kind == SqlKind.EQUALS || kind == SqlKind.NOT_EQUALS)) {
+      left = ((RexCall) left).operands.get(0);
+    }
+    if (!(left instanceof RexInputRef) || !(right instanceof RexLiteral)) {
+      return null;
+    }
+    final Comparable value = ((RexLiteral) right).getValue();
+    if (value == null) {
+      // comparison with NULL is UNKNOWN - let calcite manage it
+      return null;
+    }
+    final Range<Comparable> range;
+    switch (kind) {
+      case EQUALS:
+      case NOT_EQUALS:
+        range = Range.singleton(value);
+        break;
+      case LESS_THAN:
+        range = Range.lessThan(value);
+        break;
+      case LESS_THAN_OR_EQUAL:
+        range = Range.atMost(value);
+        break;
+      case GREATER_THAN:
+        range = Range.greaterThan(value);
+        break;
+      case GREATER_THAN_OR_EQUAL:
+        range = Range.atLeast(value);
+        break;
+      default:
+        return null;
+    }
+    RangeSet<Comparable> rangeSet = ImmutableRangeSet.of(range);
+    if (kind == SqlKind.NOT_EQUALS) {
+      rangeSet = rangeSet.complement();
+    }
+    final int index = ((RexInputRef) left).getIndex();
+    return evaluateRanges(columns.get(index), fieldTypes.get(index), rangeSet, false);
+  }
+
+  /**
+   * Values of the ranges are calcite literal values: BigDecimal for numbers, NlsString for
+   * strings and Boolean for booleans.
+   */
+  @SuppressWarnings("rawtypes")
+  private static boolean @Nullable [] evaluateRanges(final Series series,
+      final DataFrameFieldType fieldType, final RangeSet<Comparable> rangeSet,
+      final boolean matchNull) {
+    final List<Range<Comparable>> ranges = new ArrayList<>(rangeSet.asRanges());
+    for (final Range<Comparable> range : ranges) {
+      if (!isSupportedEndpoint(range.hasLowerBound() ? range.lowerEndpoint() : null, fieldType)
+          || !isSupportedEndpoint(range.hasUpperBound() ? range.upperEndpoint() : null,
+          fieldType)) {
+        return null;
+      }
+    }
+    switch (fieldType) {
+      case LONG:
+        return evaluateLongRanges(((LongSeries) series).values(), ranges, matchNull);
+      case DOUBLE:
+        return evaluateDoubleRanges(((DoubleSeries) series).values(), ranges, matchNull);
+      case STRING:
+        return evaluateStringRanges(((StringSeries) series).values(), ranges, matchNull);
+      case BOOLEAN:
+        return evaluateBooleanRanges(((BooleanSeries) series).values(), ranges, matchNull);
+      default:
+        return null;
+    }
+  }
+
+  private static boolean isSupportedEndpoint(final @Nullable Object endpoint,
+      final DataFrameFieldType fieldType) {
+    if (endpoint == null) {
+      return true;
+    }
+    switch (fieldType) {
+      case LONG:
+      case DOUBLE:
+        return endpoint instanceof BigDecimal;
+      case STRING:
+        // CHAR literals of different lengths are padded with spaces by calcite - not supported
+        return endpoint instanceof NlsString && !((NlsString) endpoint).getValue().endsWith(" ");
+      case BOOLEAN:
+        return endpoint instanceof Boolean;
+      default:
+        return false;
+    }
+  }
+
+  @SuppressWarnings("rawtypes")
+  private static boolean[] evaluateLongRanges(final long[] values,
+      final List<Range<Comparable>> ranges, final boolean matchNull) {
+    // ranges are converted to closed long intervals
+    final long[] lowers = new long[ranges.size()];
+    final long[] uppers = new long[ranges.size()];
+    int nIntervals = 0;
+    for (final Range<Comparable> range : ranges) {
+      final BigDecimal lower = range.hasLowerBound()
+          ? ((BigDecimal) range.lowerEndpoint()).setScale(0,
+          range.lowerBoundType() == BoundType.CLOSED ? RoundingMode.CEILING : RoundingMode.FLOOR)
+          .add(range.lowerBoundType() == BoundType.CLOSED ? BigDecimal.ZERO : BigDecimal.ONE)
+          : BigDecimal.valueOf(Long.MIN_VALUE);
+      final BigDecimal upper = range.hasUpperBound()
+          ? ((BigDecimal) range.upperEndpoint()).setScale(0,
+          range.upperBoundType() == BoundType.CLOSED ? RoundingMode.FLOOR : RoundingMode.CEILING)
+          .subtract(range.upperBoundType() == BoundType.CLOSED ? BigDecimal.ZERO : BigDecimal.ONE)
+          : BigDecimal.valueOf(Long.MAX_VALUE);
+      final BigDecimal clampedLower = lower.max(BigDecimal.valueOf(Long.MIN_VALUE));
+      final BigDecimal clampedUpper = upper.min(BigDecimal.valueOf(Long.MAX_VALUE));
+      if (clampedLower.compareTo(clampedUpper) <= 0) {
+        lowers[nIntervals] = clampedLower.longValueExact();
+        uppers[nIntervals] = clampedUpper.longValueExact();
+        nIntervals++;
+      }
+    }
+
+    final boolean[] mask = new boolean[values.length];
+    for (int i = 0; i < values.length; i++) {
+      final long value = values[i];
+      if (LongSeries.isNull(value)) {
+        mask[i] = matchNull;
+        continue;
+      }
+      for (int r = 0; r < nIntervals; r++) {
+        if (lowers[r] <= value && value <= uppers[r]) {
+          mask[i] = true;
+          break;
+        }
+      }
+    }
+    return mask;
+  }
+
+  @SuppressWarnings("rawtypes")
+  private static boolean[] evaluateDoubleRanges(final double[] values,
+      final List<Range<Comparable>> ranges, final boolean matchNull) {
+    final int nRanges = ranges.size();
+    final double[] lowers = new double[nRanges];
+    final boolean[] lowerClosed = new boolean[nRanges];
+    final double[] uppers = new double[nRanges];
+    final boolean[] upperClosed = new boolean[nRanges];
+    for (int r = 0; r < nRanges; r++) {
+      final Range<Comparable> range = ranges.get(r);
+      lowers[r] = range.hasLowerBound()
+          ? ((BigDecimal) range.lowerEndpoint()).doubleValue()
+          : Double.NEGATIVE_INFINITY;
+      lowerClosed[r] = !range.hasLowerBound() || range.lowerBoundType() == BoundType.CLOSED;
+      uppers[r] = range.hasUpperBound()
+          ? ((BigDecimal) range.upperEndpoint()).doubleValue()
+          : Double.POSITIVE_INFINITY;
+      upperClosed[r] = !range.hasUpperBound() || range.upperBoundType() == BoundType.CLOSED;
+    }
+
+    final boolean[] mask = new boolean[values.length];
+    for (int i = 0; i < values.length; i++) {
+      final double value = values[i];
+      if (DoubleSeries.isNull(value)) {
+        mask[i] = matchNull;
+        continue;
+      }
+      for (int r = 0; r < nRanges; r++) {
+        if ((lowerClosed[r] ? lowers[r] <= value : lowers[r] < value)
+            && (upperClosed[r] ? value <= uppers[r] : value < uppers[r])) {
+          mask[i] = true;
+          break;
+        }
+      }
+    }
+    return mask;
+  }
+
+  @SuppressWarnings("rawtypes")
+  private static boolean[] evaluateStringRanges(final String[] values,
+      final List<Range<Comparable>> ranges, final boolean matchNull) {
+    final ImmutableRangeSet.Builder<String> builder = ImmutableRangeSet.builder();
+    for (final Range<Comparable> range : ranges) {
+      builder.add(mapRange(range, endpoint -> ((NlsString) endpoint).getValue()));
+    }
+    final RangeSet<String> stringRanges = builder.build();
+
+    final boolean[] mask = new boolean[values.length];
+    for (int i = 0; i < values.length; i++) {
+      final String value = values[i];
+      mask[i] = StringSeries.isNull(value) ? matchNull : stringRanges.contains(value);
+    }
+    return mask;
+  }
+
+  @SuppressWarnings("rawtypes")
+  private static boolean[] evaluateBooleanRanges(final byte[] values,
+      final List<Range<Comparable>> ranges, final boolean matchNull) {
+    boolean matchFalse = false;
+    boolean matchTrue = false;
+    for (final Range<Comparable> range : ranges) {
+      final Range<Boolean> booleanRange = mapRange(range, endpoint -> (Boolean) endpoint);
+      matchFalse |= booleanRange.contains(false);
+      matchTrue |= booleanRange.contains(true);
+    }
+
+    final boolean[] mask = new boolean[values.length];
+    for (int i = 0; i < values.length; i++) {
+      final byte value = values[i];
+      if (BooleanSeries.isNull(value)) {
+        mask[i] = matchNull;
+      } else {
+        mask[i] = BooleanSeries.isTrue(value) ? matchTrue : matchFalse;
+      }
+    }
+    return mask;
+  }
+
+  @SuppressWarnings("rawtypes")
+  private static <T extends Comparable<? super T>> Range<T> mapRange(
+      final Range<Comparable> range,
+      final Function<Comparable, T> mapper) {
+    if (range.hasLowerBound() && range.hasUpperBound()) {
+      return Range.range(mapper.apply(range.lowerEndpoint()), range.lowerBoundType(),
+          mapper.apply(range.upperEndpoint()), range.upperBoundType());
+    } else if (range.hasLowerBound()) {
+      return Range.downTo(mapper.apply(range.lowerEndpoint()), range.lowerBoundType());
+    } else if (range.hasUpperBound()) {
+      return Range.upTo(mapper.apply(range.upperEndpoint()), range.upperBoundType());
+    }
+    return Range.all();
+  }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.config;
+
+import java.time.Duration;
+
+public class DataSourceCacheConfiguration {
+
+  /**
+   * Interval at which the update times of data sources are polled from the database. A cached
+   * data source updated by another instance is reloaded after at most this interval.
+   */
+  private Duration refreshInterval = Duration.ofSeconds(30);
+
+  public Duration getRefreshInterval() {
+    return refreshInterval;
+  }
+
+  public DataSourceCacheConfiguration setRefreshInterval(final Duration refreshInterval) {
+    this.refreshInterval = refreshInterval;
+    return this;
+  }
+}
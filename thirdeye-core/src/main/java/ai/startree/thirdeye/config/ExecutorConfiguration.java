@@ -0,0 +1,64 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.config;
+
+/**
+ * Settings of a pool of {@link ai.startree.thirdeye.util.ExecutorRegistry}. Null values keep the
+ * default of the pool.
+ */
+public class ExecutorConfiguration {
+
+  /**
+   * Maximum number of tasks of the pool running concurrently.
+   */
+  private Integer threads;
+
+  /**
+   * Maximum number of tasks waiting for a thread. When the queue is full, tasks run in the
+   * submitting thread.
+   */
+  private Integer queueSize;
+
+  /**
+   * Run the tasks of the pool on virtual threads. Overrides the global setting.
+   */
+  private Boolean virtualThreads;
+
+  public Integer getThreads() {
+    return threads;
+  }
+
+  public ExecutorConfiguration setThreads(final Integer threads) {
+    this.threads = threads;
+    return this;
+  }
+
+  public Integer getQueueSize() {
+    return queueSize;
+  }
+
+  public ExecutorConfiguration setQueueSize(final Integer queueSize) {
+    this.queueSize = queueSize;
+    return this;
+  }
+
+  public Boolean getVirtualThreads() {
+    return virtualThreads;
+  }
+
+  public ExecutorConfiguration setVirtualThreads(final Boolean virtualThreads) {
+    this.virtualThreads = virtualThreads;
+    return this;
+  }
+}
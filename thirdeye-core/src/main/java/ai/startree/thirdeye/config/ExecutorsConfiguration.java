@@ -0,0 +1,49 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.config;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class ExecutorsConfiguration {
+
+  /**
+   * Run the I/O-bound pools on virtual threads. Requires a JVM supporting virtual threads (JDK 21
+   * or more). Ignored with a warning otherwise.
+   */
+  private boolean virtualThreads = false;
+
+  /**
+   * Settings of the pools, by pool name. Pools not listed here use their defaults.
+   */
+  private Map<String, ExecutorConfiguration> pools = new HashMap<>();
+
+  public boolean isVirtualThreads() {
+    return virtualThreads;
+  }
+
+  public ExecutorsConfiguration setVirtualThreads(final boolean virtualThreads) {
+    this.virtualThreads = virtualThreads;
+    return this;
+  }
+
+  public Map<String, ExecutorConfiguration> getPools() {
+    return pools;
+  }
+
+  public ExecutorsConfiguration setPools(final Map<String, ExecutorConfiguration> pools) {
+    this.pools = pools;
+    return this;
+  }
+}
@@ -21,10 +21,12 @@ import ai.startree.thirdeye.spi.datalayer.dto.DataSourceDTO;
 import ai.startree.thirdeye.spi.datasource.ThirdEyeDataSource;
 import ai.startree.thirdeye.spi.datasource.ThirdEyeDataSourceContext;
 import ai.startree.thirdeye.spi.datasource.ThirdEyeDataSourceFactory;
+import ai.startree.thirdeye.util.ExecutorRegistry;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Executor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -35,11 +37,14 @@ import org.slf4j.LoggerFactory;
 public class DataSourcesLoader {
 
   private static final Logger LOG = LoggerFactory.getLogger(DataSourcesLoader.class);
+  private static final String ASYNC_EXECUTOR_NAME = "datasource-async";
 
   private final Map<String, ThirdEyeDataSourceFactory> dataSourceFactoryMap = new HashMap<>();
+  private final ExecutorRegistry executorRegistry;
 
   @Inject
-  public DataSourcesLoader() {
+  public DataSourcesLoader(final ExecutorRegistry executorRegistry) {
+    this.executorRegistry = executorRegistry;
   }
 
   public void addThirdEyeDataSourceFactory(ThirdEyeDataSourceFactory f) {
@@ -73,6 +78,18 @@ public class DataSourcesLoader {
   }
 
   private ThirdEyeDataSourceContext buildContext(final DataSourceDTO dataSource) {
-    return new ThirdEyeDataSourceContext().setDataSourceDTO(dataSource);
+    return new ThirdEyeDataSourceContext()
+        .setDataSourceDTO(dataSource)
+        .setExecutor(asyncExecutor());
+  }
+
+  /**
+   * Shared by all data sources. Continuations parse responses: CPU-bound, sized on the cores.
+   * Rejects continuations when full instead of running them on the I/O threads of the async
+   * clients. Looked up on each load: the registry recreates the pool if it was shut down.
+   */
+  private Executor asyncExecutor() {
+    return executorRegistry.getAsyncExecutor(ASYNC_EXECUTOR_NAME,
+        Runtime.getRuntime().availableProcessors());
   }
 }
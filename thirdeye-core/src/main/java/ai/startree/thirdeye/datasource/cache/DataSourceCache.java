@@ -19,12 +19,12 @@
 package ai.startree.thirdeye.datasource.cache;
 
 import static ai.startree.thirdeye.datalayer.util.PersistenceUtils.shutdownExecutionService;
-import static ai.startree.thirdeye.datalayer.util.PersistenceUtils.threadsNamed;
 import static ai.startree.thirdeye.spi.Constants.METRICS_CACHE_TIMEOUT;
 import static ai.startree.thirdeye.spi.util.SpiUtils.optional;
 import static com.google.common.base.Preconditions.checkState;
 import static java.util.Objects.requireNonNull;
 
+import ai.startree.thirdeye.config.DataSourceCacheConfiguration;
 import ai.startree.thirdeye.datasource.DataSourcesLoader;
 import ai.startree.thirdeye.spi.ThirdEyeException;
 import ai.startree.thirdeye.spi.ThirdEyeStatus;
@@ -32,51 +32,94 @@ import ai.startree.thirdeye.spi.datalayer.Predicate;
 import ai.startree.thirdeye.spi.datalayer.bao.DataSourceManager;
 import ai.startree.thirdeye.spi.datalayer.dto.DataSourceDTO;
 import ai.startree.thirdeye.spi.datasource.ThirdEyeDataSource;
-import ai.startree.thirdeye.spi.util.Pair;
+import ai.startree.thirdeye.util.ExecutorRegistry;
 import com.codahale.metrics.CachedGauge;
 import com.codahale.metrics.Gauge;
 import com.codahale.metrics.MetricRegistry;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import java.sql.Timestamp;
-import java.util.HashMap;
+import java.time.Duration;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
-import java.util.concurrent.SynchronousQueue;
-import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Cache of ThirdEyeDataSource instances by name.
+ *
+ * Lookups are lock-free in-memory reads. A data source is loaded on first access, with one loader
+ * per name. Loading happens outside of the cache map: lookups of other names are never blocked by
+ * database or network calls. Staleness is detected by a background task that polls the data
+ * sources at a configurable interval: it only reads the data sources whose update_time changed
+ * since the previous poll, and the ids of all the data sources. Updated data sources are
+ * reloaded, deleted data sources are evicted. Replaced instances are closed.
+ */
 @Singleton
 public class DataSourceCache {
 
   private static final Logger LOG = LoggerFactory.getLogger(DataSourceCache.class);
+  private static final String EXECUTOR_NAME = "datasource-cache";
+  private static final int EXECUTOR_THREADS = 10;
+  /**
+   * update_time is set by the clock of the instance that writes the data source. The margin covers
+   * clock skew between instances and transactions committing after the previous poll.
+   */
+  private static final Duration CLOCK_SKEW_MARGIN = Duration.ofMinutes(5);
 
   private final DataSourceManager dataSourceManager;
   private final DataSourcesLoader dataSourcesLoader;
   private final MetricRegistry metricRegistry;
 
-  private final Map<String, Pair<DataSourceWrapper, Timestamp>> cache = new HashMap<>();
+  private final Map<String, CachedDataSource> cache = new ConcurrentHashMap<>();
+  /**
+   * Loads in progress, keyed by name.
+   */
+  private final Map<String, CompletableFuture<CachedDataSource>> loads =
+      new ConcurrentHashMap<>();
+
+  private final ExecutorService executorService;
+
+  private final ScheduledExecutorService refreshExecutorService = Executors.newSingleThreadScheduledExecutor(
+      new ThreadFactoryBuilder()
+          .setNameFormat("DataSourceCache-refresh-%d")
+          .setDaemon(true)
+          .build());
 
-  private final ExecutorService executorService = new ThreadPoolExecutor(0, 10,
-      60L,
-      TimeUnit.SECONDS,
-      new SynchronousQueue<>(),
-      threadsNamed("DataSourceCache-%d"));
+  /**
+   * Data sources updated after this time are reloaded by the next refresh. Only accessed by the
+   * refresh task.
+   */
+  private long lastRefreshTime;
 
   @Inject
   public DataSourceCache(
       final DataSourceManager dataSourceManager,
       final DataSourcesLoader dataSourcesLoader,
-      final MetricRegistry metricRegistry) {
+      final MetricRegistry metricRegistry,
+      final DataSourceCacheConfiguration configuration,
+      final ExecutorRegistry executorRegistry) {
     this.dataSourceManager = dataSourceManager;
     this.dataSourcesLoader = dataSourcesLoader;
     this.metricRegistry = metricRegistry;
+    executorService = executorRegistry.getExecutor(EXECUTOR_NAME, EXECUTOR_THREADS, true);
+    // data sources are loaded after this time: older updates are already loaded
+    lastRefreshTime = System.currentTimeMillis();
 
     metricRegistry.register("healthyDatasourceCount",
         new CachedGauge<Integer>(METRICS_CACHE_TIMEOUT.toMinutes(), TimeUnit.MINUTES) {
@@ -86,6 +129,12 @@ public class DataSourceCache {
           }
         });
     metricRegistry.register("cachedDatasourceCount", (Gauge<Integer>) cache::size);
+
+    final long refreshIntervalMillis = configuration.getRefreshInterval().toMillis();
+    refreshExecutorService.scheduleWithFixedDelay(this::refreshSafe,
+        refreshIntervalMillis,
+        refreshIntervalMillis,
+        TimeUnit.MILLISECONDS);
   }
 
   private Integer getHealthyDatasourceCount() {
@@ -111,26 +160,63 @@ public class DataSourceCache {
     }
   }
 
-  public synchronized ThirdEyeDataSource getDataSource(final String name) {
+  public ThirdEyeDataSource getDataSource(final String name) {
+    final CachedDataSource cachedEntry = cache.get(name);
+    if (cachedEntry != null) {
+      return cachedEntry.dataSource; // cache hit
+    }
+
+    // cache miss. Only one thread loads a given data source, the other threads wait for it.
+    final CompletableFuture<CachedDataSource> load = new CompletableFuture<>();
+    final CompletableFuture<CachedDataSource> ongoingLoad = loads.putIfAbsent(name, load);
+    if (ongoingLoad != null) {
+      return join(ongoingLoad).dataSource;
+    }
+    try {
+      CachedDataSource loaded = load(name);
+      final CachedDataSource concurrentlyLoaded = cache.putIfAbsent(name, loaded);
+      if (concurrentlyLoaded != null) {
+        close(loaded.dataSource);
+        loaded = concurrentlyLoaded;
+      }
+      load.complete(loaded);
+      return loaded.dataSource;
+    } catch (final RuntimeException e) {
+      load.completeExceptionally(e);
+      throw e;
+    } finally {
+      loads.remove(name, load);
+    }
+  }
+
+  private static CachedDataSource join(final CompletableFuture<CachedDataSource> load) {
+    try {
+      return load.join();
+    } catch (final CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  private CachedDataSource load(final String name) {
     final Optional<DataSourceDTO> dataSource = findByName(name);
 
     // datasource absent in DB
     if (dataSource.isEmpty()) {
-      // remove redundant cache if datasource was recently deleted
-      removeDataSource(name);
       throw new ThirdEyeException(ThirdEyeStatus.ERR_DATASOURCE_NOT_FOUND, name);
     }
-    final Pair<DataSourceWrapper, Timestamp> cachedEntry = cache.get(name);
-    final DataSourceDTO dataSourceDTO = dataSource.get();
-    if (cachedEntry != null) {
-      final Timestamp updateTimeCached = cachedEntry.getSecond();
-      if (updateTimeCached.equals(dataSourceDTO.getUpdateTime())) {
-        return cachedEntry.getFirst(); // cache hit
-      }
-    }
+    return load(dataSource.get());
+  }
 
-    // cache miss
-    return loadDataSource(dataSourceDTO);
+  private CachedDataSource load(final DataSourceDTO dataSource) {
+    requireNonNull(dataSource);
+    final String dataSourceName = dataSource.getName();
+    final DataSourceWrapper wrapped = wrap(
+        requireNonNull(dataSourcesLoader.loadDataSource(dataSource),
+            "Failed to construct a data source object! " + dataSourceName));
+    return new CachedDataSource(wrapped, dataSource.getId(), dataSource.getUpdateTime());
   }
 
   private Optional<DataSourceDTO> findByName(final String name) {
@@ -141,17 +227,68 @@ public class DataSourceCache {
     return results.stream().findFirst();
   }
 
-  private ThirdEyeDataSource loadDataSource(final DataSourceDTO dataSource) {
-    requireNonNull(dataSource);
-    final String dataSourceName = dataSource.getName();
-    final DataSourceWrapper wrapped = wrap(
-        requireNonNull(dataSourcesLoader.loadDataSource(dataSource),
-            "Failed to construct a data source object! " + dataSourceName));
+  private void refreshSafe() {
+    try {
+      refresh();
+    } catch (final Exception e) {
+      LOG.error("Failed to refresh the data source cache", e);
+    }
+  }
+
+  /**
+   * Reload cached data sources that were updated in the database and evict the ones that were
+   * deleted. Only the data sources updated since the previous refresh and the ids of all the data
+   * sources are read.
+   */
+  void refresh() {
+    final long now = System.currentTimeMillis();
+    if (cache.isEmpty()) {
+      lastRefreshTime = now;
+      return;
+    }
+    final List<Long> ids = dataSourceManager.findIds();
+    if (ids == null) {
+      // the id query failed: retry from the same point on the next refresh
+      return;
+    }
+    final List<DataSourceDTO> updated = dataSourceManager.findByPredicate(Predicate.GE(
+        "updateTime",
+        new Timestamp(lastRefreshTime - CLOCK_SKEW_MARGIN.toMillis())));
+
+    final Set<Long> existingIds = new HashSet<>(ids);
+    for (final Entry<String, CachedDataSource> entry : cache.entrySet()) {
+      if (!existingIds.contains(entry.getValue().id)) {
+        removeDataSource(entry.getKey());
+      }
+    }
+    for (final DataSourceDTO dto : updated) {
+      for (final Entry<String, CachedDataSource> entry : cache.entrySet()) {
+        final CachedDataSource cached = entry.getValue();
+        if (!Objects.equals(cached.id, dto.getId())) {
+          continue;
+        }
+        if (!entry.getKey().equals(dto.getName())) {
+          // renamed: the old name does not exist anymore
+          removeDataSource(entry.getKey());
+        } else if (!Objects.equals(cached.updateTime, dto.getUpdateTime())) {
+          reload(entry.getKey(), cached, dto);
+        }
+      }
+    }
+    lastRefreshTime = now;
+  }
 
-    // remove outdated cached datasource
-    removeDataSource(dataSourceName);
-    cache.put(dataSourceName, new Pair<>(wrapped, dataSource.getUpdateTime()));
-    return wrapped;
+  private void reload(final String name,
+      final CachedDataSource outdated,
+      final DataSourceDTO dto) {
+    LOG.info("Data source {} was updated. Reloading.", name);
+    final CachedDataSource reloaded = load(dto);
+    // the entry may have been removed or reloaded concurrently: only replace the outdated entry
+    if (cache.replace(name, outdated, reloaded)) {
+      close(outdated.dataSource);
+    } else {
+      close(reloaded.dataSource);
+    }
   }
 
   private DataSourceWrapper wrap(final ThirdEyeDataSource thirdEyeDataSource) {
@@ -160,23 +297,43 @@ public class DataSourceCache {
 
   public void removeDataSource(final String name) {
     optional(cache.remove(name))
-        .map(Pair::getFirst)
+        .map(cached -> cached.dataSource)
         .ifPresent(this::close);
   }
 
   public void clear() {
-    cache.values().stream()
-        .map(Pair::getFirst)
-        .forEach(this::close);
-    cache.clear();
+    for (final String name : List.copyOf(cache.keySet())) {
+      removeDataSource(name);
+    }
+  }
+
+  /**
+   * Stops the refresh task and closes the cached data sources.
+   */
+  public void close() {
+    shutdownExecutionService(refreshExecutorService);
+    clear();
   }
 
   private void close(final ThirdEyeDataSource dataSource) {
     try {
       dataSource.close();
-      shutdownExecutionService(executorService);
     } catch (final Exception e) {
       LOG.error("Datasource {} was not flushed gracefully.", dataSource.getName());
     }
   }
+
+  private static class CachedDataSource {
+
+    private final DataSourceWrapper dataSource;
+    private final Long id;
+    private final Timestamp updateTime;
+
+    private CachedDataSource(final DataSourceWrapper dataSource, final Long id,
+        final Timestamp updateTime) {
+      this.dataSource = dataSource;
+      this.id = id;
+      this.updateTime = updateTime;
+    }
+  }
 }
@@ -14,6 +14,7 @@
 package ai.startree.thirdeye.datasource.cache;
 
 import ai.startree.thirdeye.spi.datalayer.dto.DatasetConfigDTO;
+import ai.startree.thirdeye.spi.datasource.BreakdownStrategy;
 import ai.startree.thirdeye.spi.datasource.DataSourceRequest;
 import ai.startree.thirdeye.spi.datasource.ThirdEyeDataSource;
 import ai.startree.thirdeye.spi.datasource.ThirdEyeDataSourceContext;
@@ -24,6 +25,7 @@ import com.codahale.metrics.Meter;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.Timer;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * This class intercepts all data source calls and helps with telemetry, etc.
@@ -77,6 +79,24 @@ public class DataSourceWrapper implements ThirdEyeDataSource {
     }
   }
 
+  @Override
+  public CompletableFuture<DataTable> fetchDataTableAsync(final DataSourceRequest request) {
+    final Timer.Context timerContext = fetchTableTimer.time();
+    CompletableFuture<DataTable> future;
+    try {
+      future = delegate.fetchDataTableAsync(request);
+    } catch (RuntimeException e) {
+      future = CompletableFuture.failedFuture(e);
+    }
+    return future.whenComplete((dataTable, throwable) -> {
+      timerContext.stop();
+      if (throwable != null) {
+        // track exceptions
+        fetchTableExceptionMeter.mark();
+      }
+    });
+  }
+
   @Override
   public boolean validate() {
     return delegate.validate();
@@ -92,6 +112,11 @@ public class DataSourceWrapper implements ThirdEyeDataSource {
     return delegate.getSqlExpressionBuilder();
   }
 
+  @Override
+  public BreakdownStrategy getBreakdownStrategy() {
+    return delegate.getBreakdownStrategy();
+  }
+
   @Override
   public void clear() throws Exception {
     delegate.clear();
@@ -21,6 +21,7 @@ import static ai.startree.thirdeye.util.CalciteUtils.addDesc;
 import static ai.startree.thirdeye.util.CalciteUtils.expressionToNode;
 import static ai.startree.thirdeye.util.CalciteUtils.identifierOf;
 import static ai.startree.thirdeye.util.CalciteUtils.symbolLiteralOf;
+import static com.google.common.base.Preconditions.checkState;
 
 import ai.startree.thirdeye.spi.datalayer.dto.MetricConfigDTO;
 import ai.startree.thirdeye.spi.datasource.macro.SqlExpressionBuilder;
@@ -96,6 +97,37 @@ public class QueryProjection {
     return new QueryProjection(this.operator, this.operands, this.quantifier, this.alias, true);
   }
 
+  /**
+   * Conditional aggregation is supported for SUM and COUNT(*): rows not matching the condition
+   * count as 0.
+   */
+  public boolean supportsConditionalAggregation() {
+    if (operator == null || quantifier != null || operands.size() != 1) {
+      return false;
+    }
+    final String operatorUpper = operator.toUpperCase(DEFAULT_LOCALE);
+    return MetricAggFunction.SUM.name().equals(operatorUpper)
+        || (MetricAggFunction.COUNT.name().equals(operatorUpper) && operands.get(0).equals("*"));
+  }
+
+  /**
+   * Returns the aggregation computed only on the rows matching the predicate.
+   * SUM(col) becomes SUM(CASE WHEN predicate THEN col ELSE 0 END).
+   * COUNT(*) becomes SUM(CASE WHEN predicate THEN 1 ELSE 0 END).
+   */
+  public QueryProjection filteredBy(final String sqlPredicate) {
+    checkState(supportsConditionalAggregation(),
+        "Conditional aggregation is not supported for projection: %s",
+        this);
+    final String conditionalOperand = MetricAggFunction.SUM.name()
+        .equals(operator.toUpperCase(DEFAULT_LOCALE)) ? operands.get(0) : "1";
+    return new QueryProjection(MetricAggFunction.SUM.name(),
+        List.of(String.format("CASE WHEN %s THEN %s ELSE 0 END", sqlPredicate, conditionalOperand)),
+        null,
+        alias,
+        isDescOrder);
+  }
+
   private SqlNode toSqlNode(final Config sqlParserConfig) {
     if (operator != null) {
       return applySpecialOperators(new SqlBasicCall(
@@ -24,6 +24,7 @@ import ai.startree.thirdeye.spi.datalayer.dto.MetricConfigDTO;
 import ai.startree.thirdeye.spi.datasource.macro.SqlExpressionBuilder;
 import ai.startree.thirdeye.spi.metric.DimensionType;
 import ai.startree.thirdeye.spi.metric.MetricSlice;
+import ai.startree.thirdeye.spi.util.Pair;
 import java.util.ArrayList;
 import java.util.List;
 import org.apache.calcite.sql.SqlNode;
@@ -36,6 +37,7 @@ public class SelectQuery {
   final List<QueryProjection> selectProjections = new ArrayList<>();
   final List<String> freeTextSelectProjections = new ArrayList<>();
   final List<SqlNode> slqNodeSelectProjections = new ArrayList<>();
+  final List<Pair<QueryProjection, Interval>> timeFilteredSelectProjections = new ArrayList<>();
 
   String database = null;
   final String table;
@@ -46,7 +48,7 @@ public class SelectQuery {
   boolean timeAggregationOrderBy = false;
   String timeAggregationTimezone = null;
 
-  Interval timeFilterInterval = null;
+  List<Interval> timeFilterIntervals = null;
   String timeFilterColumn = null;
   String timeFilterColumnFormat = null;
 
@@ -137,6 +139,23 @@ public class SelectQuery {
     return this;
   }
 
+  /**
+   * Add an aggregation projection computed only on the rows of the given interval, with a
+   * conditional aggregation: AGG(CASE WHEN timeFilter THEN operand ELSE 0 END).
+   * Used to compute the values of several intervals in a single query.
+   *
+   * Requires a time filter: the time column and format of the time filter are used.
+   * See {@link QueryProjection#supportsConditionalAggregation()} for supported aggregations.
+   */
+  public SelectQuery selectInInterval(final QueryProjection aggregation,
+      final Interval interval) {
+    checkArgument(aggregation.supportsConditionalAggregation(),
+        "Conditional aggregation is not supported for projection: %s",
+        aggregation);
+    this.timeFilteredSelectProjections.add(Pair.pair(aggregation, requireNonNull(interval)));
+    return this;
+  }
+
   /**
    * Add a predicate. Predicates are combined with the AND operator.
    */
@@ -177,7 +196,19 @@ public class SelectQuery {
   public SelectQuery whereTimeFilter(final Interval timeFilterInterval,
       final String timeFilterColumn,
       final String timeFilterColumnFormat) {
-    this.timeFilterInterval = requireNonNull(timeFilterInterval);
+    return whereTimeFilter(List.of(timeFilterInterval), timeFilterColumn, timeFilterColumnFormat);
+  }
+
+  /**
+   * Add a timeFilter on multiple intervals. Rows in any of the intervals are selected.
+   *
+   * See {@link #whereTimeFilter(Interval, String, String)}.
+   */
+  public SelectQuery whereTimeFilter(final List<Interval> timeFilterIntervals,
+      final String timeFilterColumn,
+      final String timeFilterColumnFormat) {
+    checkArgument(!timeFilterIntervals.isEmpty(), "Time filter intervals are empty.");
+    this.timeFilterIntervals = List.copyOf(timeFilterIntervals);
     this.timeFilterColumn = requireNonNull(timeFilterColumn);
     this.timeFilterColumnFormat = requireNonNull(timeFilterColumnFormat);
 
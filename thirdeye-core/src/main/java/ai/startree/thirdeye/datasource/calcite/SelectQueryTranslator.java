@@ -25,6 +25,7 @@ import static com.google.common.base.Preconditions.checkArgument;
 import ai.startree.thirdeye.detectionpipeline.sql.SqlLanguageTranslator;
 import ai.startree.thirdeye.spi.datasource.macro.SqlExpressionBuilder;
 import ai.startree.thirdeye.spi.datasource.macro.SqlLanguage;
+import ai.startree.thirdeye.spi.util.Pair;
 import com.google.common.base.MoreObjects;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -35,6 +36,7 @@ import org.apache.calcite.sql.SqlIdentifier;
 import org.apache.calcite.sql.SqlNode;
 import org.apache.calcite.sql.SqlNodeList;
 import org.apache.calcite.sql.SqlSelect;
+import org.apache.calcite.sql.fun.SqlStdOperatorTable;
 import org.apache.calcite.sql.parser.SqlParser;
 import org.apache.calcite.sql.parser.SqlParser.Config;
 import org.apache.calcite.sql.parser.SqlParserPos;
@@ -54,6 +56,7 @@ public class SelectQueryTranslator {
   final private List<QueryProjection> selectProjections;
   final private List<String> freeTextSelectProjections;
   final private List<SqlNode> sqlNodeSelectProjections;
+  final private List<Pair<QueryProjection, Interval>> timeFilteredSelectProjections;
 
   // aggregation - in SELECT, GROUP BY, ORDER BY?
   final private Period timeAggregationGranularity;
@@ -70,7 +73,7 @@ public class SelectQueryTranslator {
   final private String table;
 
   // time filter in WHERE clause
-  final private Interval timeFilterInterval;
+  final private List<Interval> timeFilterIntervals;
   final private String timeFilterColumn;
   final private String timeFilterColumnFormat;
   // todo cyril add a partitionTimeFilterColumn with a period granularity - for partition constraint - to be used by Presto/BQ
@@ -101,12 +104,17 @@ public class SelectQueryTranslator {
     checkArgument(selectQuery.selectProjections.size() > 0
             || selectQuery.freeTextSelectProjections.size() > 0
             || selectQuery.slqNodeSelectProjections.size() > 0
+            || selectQuery.timeFilteredSelectProjections.size() > 0
             || selectQuery.timeAggregationGranularity != null,
         "Projection (selection) lists are empty. Invalid SQL request.");
+    checkArgument(selectQuery.timeFilteredSelectProjections.isEmpty()
+            || selectQuery.timeFilterColumn != null,
+        "Projections on time intervals require a time filter. Invalid SQL request.");
 
     selectProjections = List.copyOf(selectQuery.selectProjections);
     freeTextSelectProjections = List.copyOf(selectQuery.freeTextSelectProjections);
     sqlNodeSelectProjections = List.copyOf(selectQuery.slqNodeSelectProjections);
+    timeFilteredSelectProjections = List.copyOf(selectQuery.timeFilteredSelectProjections);
     timeAggregationGranularity = selectQuery.timeAggregationGranularity;
     timeAggregationColumnFormat = selectQuery.timeAggregationColumnFormat;
     timeAggregationColumn = selectQuery.timeAggregationColumn;
@@ -115,7 +123,7 @@ public class SelectQueryTranslator {
     database = selectQuery.database;
     table = selectQuery.table;
 
-    timeFilterInterval = selectQuery.timeFilterInterval;
+    timeFilterIntervals = selectQuery.timeFilterIntervals;
     timeFilterColumn = selectQuery.timeFilterColumn;
     timeFilterColumnFormat = selectQuery.timeFilterColumnFormat;
 
@@ -170,6 +178,16 @@ public class SelectQueryTranslator {
     final List<SqlNode> selectIdentifiers = mergeProjectionsLists(sqlParserConfig, expressionBuilder,
         selectProjections, freeTextSelectProjections, sqlNodeSelectProjections
     );
+    // add projections computed on a time interval
+    for (final Pair<QueryProjection, Interval> entry : timeFilteredSelectProjections) {
+      final String timeFilterExpression = timeFilterExpression(entry.getSecond(),
+          sqlParserConfig,
+          expressionBuilder,
+          dialect);
+      selectIdentifiers.add(entry.getFirst()
+          .filteredBy(timeFilterExpression)
+          .toDialectSpecificSqlNode(sqlParserConfig, expressionBuilder));
+    }
     // add time aggregation projection
     if (timeAggregationGranularity != null) {
       final String timeGroupExpression = expressionBuilder.getTimeGroupExpression(
@@ -194,16 +212,21 @@ public class SelectQueryTranslator {
       final SqlExpressionBuilder expressionBuilder,
       final SqlDialect dialect) {
     final List<SqlNode> predicates = new ArrayList<>();
-    if (timeFilterInterval != null) {
-      final String preparedTimeColumn = quoteIdentifierIfReserved(timeFilterColumn,
-          sqlParserConfig,
-          dialect);
-      final String timeFilterExpression = expressionBuilder.getTimeFilterExpression(
-          preparedTimeColumn,
-          timeFilterInterval,
-          timeFilterColumnFormat);
-      final SqlNode timeGroupNode = expressionToNode(timeFilterExpression, sqlParserConfig);
-      predicates.add(timeGroupNode);
+    SqlNode timeFiltersUnion = null;
+    if (timeFilterIntervals != null) {
+      final List<SqlNode> timeFilterNodes = new ArrayList<>();
+      for (final Interval timeFilterInterval : timeFilterIntervals) {
+        final String timeFilterExpression = timeFilterExpression(timeFilterInterval,
+            sqlParserConfig,
+            expressionBuilder,
+            dialect);
+        timeFilterNodes.add(expressionToNode(timeFilterExpression, sqlParserConfig));
+      }
+      if (timeFilterNodes.size() == 1) {
+        predicates.add(timeFilterNodes.get(0));
+      } else {
+        timeFiltersUnion = SqlStdOperatorTable.OR.createCall(SqlParserPos.ZERO, timeFilterNodes);
+      }
     }
     this.predicates.stream().map(QueryPredicate::toSqlNode).forEach(predicates::add);
     for (final String freeTextPredicate : freeTextPredicates) {
@@ -213,7 +236,28 @@ public class SelectQueryTranslator {
     }
     predicates.addAll(sqlNodePredicates);
 
-    return combinePredicates(predicates);
+    final SqlNode combinedPredicates = combinePredicates(predicates);
+    if (timeFiltersUnion == null) {
+      return combinedPredicates;
+    }
+    // the standard AND operator ensures the OR of the time filters is wrapped in parenthesis
+    return combinedPredicates == null
+        ? timeFiltersUnion
+        : SqlStdOperatorTable.AND.createCall(SqlParserPos.ZERO,
+            timeFiltersUnion,
+            combinedPredicates);
+  }
+
+  private String timeFilterExpression(final Interval interval,
+      final SqlParser.Config sqlParserConfig,
+      final SqlExpressionBuilder expressionBuilder,
+      final SqlDialect dialect) {
+    final String preparedTimeColumn = quoteIdentifierIfReserved(timeFilterColumn,
+        sqlParserConfig,
+        dialect);
+    return expressionBuilder.getTimeFilterExpression(preparedTimeColumn,
+        interval,
+        timeFilterColumnFormat);
   }
 
   private SqlNode having() {
@@ -295,6 +339,7 @@ public class SelectQueryTranslator {
         .add("selectProjections", selectProjections)
         .add("freeTextSelectProjections", freeTextSelectProjections)
         .add("sqlNodeSelectProjections", sqlNodeSelectProjections)
+        .add("timeFilteredSelectProjections", timeFilteredSelectProjections)
         .add("timeAggregationGranularity", timeAggregationGranularity)
         .add("timeAggregationColumnFormat", timeAggregationColumnFormat)
         .add("timeAggregationColumn", timeAggregationColumn)
@@ -302,7 +347,7 @@ public class SelectQueryTranslator {
         .add("timeAggregationTimezone", timeAggregationTimezone)
         .add("database", database)
         .add("table", table)
-        .add("timeFilterInterval", timeFilterInterval)
+        .add("timeFilterIntervals", timeFilterIntervals)
         .add("timeFilterColumn", timeFilterColumn)
         .add("timeFilterColumnFormat", timeFilterColumnFormat)
         .add("predicates", predicates)
@@ -15,6 +15,7 @@ package ai.startree.thirdeye.datasource.loader;
 
 import static ai.startree.thirdeye.datasource.calcite.QueryProjection.getFunctionName;
 import static ai.startree.thirdeye.spi.util.SpiUtils.optional;
+import static ai.startree.thirdeye.util.CalciteUtils.addAlias;
 import static ai.startree.thirdeye.util.CalciteUtils.identifierDescOf;
 import static ai.startree.thirdeye.util.CalciteUtils.identifierOf;
 
@@ -22,18 +23,27 @@ import ai.startree.thirdeye.datasource.cache.DataSourceCache;
 import ai.startree.thirdeye.datasource.calcite.QueryProjection;
 import ai.startree.thirdeye.datasource.calcite.SelectQuery;
 import ai.startree.thirdeye.datasource.calcite.SelectQueryTranslator;
+import ai.startree.thirdeye.rootcause.configuration.BreakdownConfiguration;
+import ai.startree.thirdeye.rootcause.configuration.RcaConfiguration;
 import ai.startree.thirdeye.spi.Constants;
 import ai.startree.thirdeye.spi.dataframe.DataFrame;
+import ai.startree.thirdeye.spi.dataframe.Grouping;
 import ai.startree.thirdeye.spi.dataframe.LongSeries;
 import ai.startree.thirdeye.spi.dataframe.StringSeries;
 import ai.startree.thirdeye.spi.datalayer.Predicate;
 import ai.startree.thirdeye.spi.datalayer.Templatable;
 import ai.startree.thirdeye.spi.datalayer.dto.DatasetConfigDTO;
+import ai.startree.thirdeye.spi.datasource.BreakdownStrategy;
 import ai.startree.thirdeye.spi.datasource.DataSourceRequest;
 import ai.startree.thirdeye.spi.datasource.ThirdEyeDataSource;
 import ai.startree.thirdeye.spi.datasource.loader.AggregationLoader;
+import ai.startree.thirdeye.spi.detection.v2.DataTable;
+import ai.startree.thirdeye.spi.metric.MetricAggFunction;
 import ai.startree.thirdeye.spi.metric.MetricSlice;
-import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import ai.startree.thirdeye.spi.util.Pair;
+import ai.startree.thirdeye.util.ExecutorRegistry;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import java.util.ArrayList;
@@ -41,13 +51,16 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import org.apache.calcite.sql.SqlIdentifier;
+import org.apache.calcite.sql.SqlNode;
+import org.apache.calcite.sql.fun.SqlStdOperatorTable;
+import org.apache.calcite.sql.parser.SqlParserPos;
 import org.apache.commons.collections4.MapUtils;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -58,15 +71,36 @@ public class DefaultAggregationLoader implements AggregationLoader {
 
   private static final long TIMEOUT = 600000;
   private static final String ROLLUP_NAME = "OTHER";
+  private static final String EXECUTOR_NAME = "aggregation-loader";
+  private static final int EXECUTOR_THREADS = 32;
+  private static final String COL_CURRENT_VALUE = "currentValue";
+  private static final String COL_BASELINE_VALUE = "baselineValue";
+  // GROUPING(dimension) of the GROUPING SETS breakdown: 0 in the rows of the dimension's set
+  private static final String COL_GROUPING_PREFIX = "groupingOf";
 
   private final DataSourceCache dataSourceCache;
   private final ExecutorService executorService;
+  private final boolean singleQueryBreakdowns;
+  private final int singleScanMaxRows;
+  /**
+   * Breakdown query results, keyed by data source and query. Shared by the RCA features that
+   * break down the same anomaly, for instance the heatmap and the top contributors.
+   */
+  private final Cache<String, CompletableFuture<DataFrame>> breakdownCache;
 
   @Inject
-  public DefaultAggregationLoader(final DataSourceCache dataSourceCache) {
+  public DefaultAggregationLoader(final DataSourceCache dataSourceCache,
+      final ExecutorRegistry executorRegistry,
+      final RcaConfiguration rcaConfiguration) {
     this.dataSourceCache = dataSourceCache;
-    executorService = Executors.newCachedThreadPool(new ThreadFactoryBuilder().setNameFormat(
-        "aggregation-loader-%d").build());
+    executorService = executorRegistry.getExecutor(EXECUTOR_NAME, EXECUTOR_THREADS, true);
+    final BreakdownConfiguration breakdownConfiguration = rcaConfiguration.getBreakdown();
+    singleQueryBreakdowns = breakdownConfiguration.isSingleQuery();
+    singleScanMaxRows = breakdownConfiguration.getSingleScanMaxRows();
+    breakdownCache = CacheBuilder.newBuilder()
+        .maximumSize(breakdownConfiguration.getCacheSize())
+        .expireAfterWrite(breakdownConfiguration.getCacheTtl().toMillis(), TimeUnit.MILLISECONDS)
+        .build();
   }
 
   /**
@@ -116,28 +150,49 @@ public class DefaultAggregationLoader implements AggregationLoader {
 
   @Override
   public DataFrame loadBreakdown(final MetricSlice slice, final int limit) throws Exception {
-    final DatasetConfigDTO datasetConfigDTO = slice.getDatasetConfigDTO();
-
-    final List<String> dimensions = new ArrayList<>(optional(datasetConfigDTO.getDimensions()).map(
-        Templatable::getValue).orElse(List.of()));
-    dimensions.removeAll(slice.getPredicates()
-        .stream()
-        .map(Predicate::getLhs)
-        .collect(Collectors.toList()));
-    dimensions.remove(datasetConfigDTO.getTimeColumn());
+    return loadBreakdownAsync(slice, limit).get(TIMEOUT, TimeUnit.MILLISECONDS);
+  }
 
-    LOG.info("Querying breakdown '{}' for dimensions '{}'", slice, dimensions);
+  @Override
+  public Pair<DataFrame, DataFrame> loadBreakdowns(final MetricSlice currentSlice,
+      final MetricSlice baselineSlice, final int limit) throws Exception {
+    if (singleQueryBreakdowns && QueryProjection.fromMetricConfig(
+        currentSlice.getMetricConfigDTO()).supportsConditionalAggregation()) {
+      return loadBreakdownsInSingleQueries(currentSlice, baselineSlice, limit)
+          .get(TIMEOUT, TimeUnit.MILLISECONDS);
+    }
+    final CompletableFuture<DataFrame> current = loadBreakdownAsync(currentSlice, limit);
+    final CompletableFuture<DataFrame> baseline = loadBreakdownAsync(baselineSlice, limit);
+    CompletableFuture.allOf(current, baseline).get(TIMEOUT, TimeUnit.MILLISECONDS);
 
-    final DataFrame dfAll = DataFrame
-        .builder(COL_DIMENSION_NAME + ":STRING",
-            COL_DIMENSION_VALUE + ":STRING",
-            Constants.COL_VALUE + ":DOUBLE")
-        .build()
-        .setIndex(COL_DIMENSION_NAME, COL_DIMENSION_VALUE);
+    return Pair.pair(current.join(), baseline.join());
+  }
 
-    final Map<String, Future<DataFrame>> responses = new HashMap<>();
+  private CompletableFuture<DataFrame> loadBreakdownAsync(final MetricSlice slice,
+      final int limit) {
+    final List<String> dimensions = breakdownDimensions(slice);
+    final String dataSource = slice.getDatasetConfigDTO().getDataSource();
+    return CompletableFuture.supplyAsync(() -> dataSourceCache.getDataSource(dataSource),
+            executorService)
+        .thenCompose(thirdEyeDataSource -> {
+          final BreakdownStrategy strategy = breakdownStrategy(thirdEyeDataSource,
+              slice,
+              dimensions);
+          LOG.info("Querying breakdown '{}' for dimensions '{}' with strategy {}",
+              slice,
+              dimensions,
+              strategy);
+          if (strategy == BreakdownStrategy.PER_DIMENSION) {
+            return loadBreakdownPerDimension(slice, dimensions, limit);
+          }
+          return loadBreakdownInSingleScan(slice, dimensions, limit, strategy);
+        });
+  }
 
+  private CompletableFuture<DataFrame> loadBreakdownPerDimension(final MetricSlice slice,
+      final List<String> dimensions, final int limit) {
     // submit requests
+    final List<CompletableFuture<DataFrame>> responses = new ArrayList<>();
     for (final String dimension : dimensions) {
       final SqlIdentifier dimensionIdentifier = identifierOf(dimension);
       final SelectQueryTranslator request = SelectQuery.from(slice)
@@ -147,24 +202,209 @@ public class DefaultAggregationLoader implements AggregationLoader {
           .orderBy(identifierDescOf(Constants.COL_VALUE))
           .limit(limit)
           .build();
-      final Future<DataFrame> res = getQueryResultAsync(request,
-          datasetConfigDTO.getDataSource());
-
-      responses.put(dimension, res);
+      responses.add(getBreakdownResultAsync(request, slice.getDatasetConfigDTO().getDataSource())
+          .thenApply(res -> dimensionBreakdown(dimension, res, Constants.COL_VALUE)));
     }
 
     // collect responses
-    final List<DataFrame> results = new ArrayList<>();
+    return CompletableFuture.allOf(responses.toArray(CompletableFuture[]::new))
+        .thenApply(v -> toBreakdown(responses, slice));
+  }
+
+  /**
+   * Loads the breakdowns of all the dimensions with a single query. The rows are split by
+   * dimension and the top values of each dimension are selected locally. Falls back to one query
+   * per dimension if the row limit of the query is reached.
+   */
+  private CompletableFuture<DataFrame> loadBreakdownInSingleScan(final MetricSlice slice,
+      final List<String> dimensions, final int limit, final BreakdownStrategy strategy) {
+    final SelectQuery query = SelectQuery.from(slice);
+    final List<SqlNode> dimensionIdentifiers = new ArrayList<>();
     for (final String dimension : dimensions) {
-      final DataFrame res = responses.get(dimension).get(TIMEOUT, TimeUnit.MILLISECONDS);
-      final DataFrame dfResult = new DataFrame()
-          .addSeries(COL_DIMENSION_NAME, StringSeries.fillValues(res.size(), dimension))
-          .addSeries(COL_DIMENSION_VALUE, res.get(dimension))
-          .addSeries(Constants.COL_VALUE, res.get(Constants.COL_VALUE));
-      results.add(dfResult);
+      final SqlIdentifier dimensionIdentifier = identifierOf(dimension);
+      query.select(dimensionIdentifier);
+      dimensionIdentifiers.add(dimensionIdentifier);
     }
+    if (strategy == BreakdownStrategy.GROUPING_SETS) {
+      for (int i = 0; i < dimensions.size(); i++) {
+        query.select(addAlias(SqlStdOperatorTable.GROUPING.createCall(SqlParserPos.ZERO,
+            dimensionIdentifiers.get(i)), groupingColumn(i)));
+      }
+      query.groupBy(SqlStdOperatorTable.GROUPING_SETS.createCall(SqlParserPos.ZERO,
+          dimensionIdentifiers));
+    } else {
+      dimensionIdentifiers.forEach(query::groupBy);
+    }
+    final SelectQueryTranslator request = query.limit(singleScanMaxRows).build();
+    // with GROUPING SETS there is a single row per dimension value: no rollup is necessary
+    final String rollupOperation = strategy == BreakdownStrategy.GROUPING_SETS
+        ? Grouping.OP_FIRST
+        : rollupOperation(slice);
+
+    return getBreakdownResultAsync(request, slice.getDatasetConfigDTO().getDataSource())
+        .thenCompose(res -> {
+          if (res.size() >= singleScanMaxRows) {
+            LOG.warn("Breakdown query of '{}' reached the row limit {}. Querying per dimension.",
+                slice,
+                singleScanMaxRows);
+            return loadBreakdownPerDimension(slice, dimensions, limit);
+          }
+          final List<CompletableFuture<DataFrame>> responses = new ArrayList<>();
+          for (int i = 0; i < dimensions.size(); i++) {
+            final DataFrame rows = strategy == BreakdownStrategy.GROUPING_SETS
+                ? res.filterEquals(groupingColumn(i), 0L).dropNull(groupingColumn(i))
+                : res;
+            responses.add(CompletableFuture.completedFuture(
+                dimensionTopValues(dimensions.get(i), rows, rollupOperation, limit)));
+          }
+          return CompletableFuture.completedFuture(toBreakdown(responses, slice));
+        });
+  }
 
-    final DataFrame breakdown = dfAll.append(results);
+  private static BreakdownStrategy breakdownStrategy(final ThirdEyeDataSource thirdEyeDataSource,
+      final MetricSlice slice, final List<String> dimensions) {
+    final BreakdownStrategy strategy = optional(thirdEyeDataSource.getBreakdownStrategy())
+        .orElse(BreakdownStrategy.PER_DIMENSION);
+    if (dimensions.size() < 2) {
+      // nothing to gain
+      return BreakdownStrategy.PER_DIMENSION;
+    }
+    if (strategy == BreakdownStrategy.SINGLE_GROUP_BY && rollupOperation(slice) == null) {
+      return BreakdownStrategy.PER_DIMENSION;
+    }
+    return strategy;
+  }
+
+  /**
+   * Returns the DataFrame aggregation that rolls up the groups of a multi-dimension GROUP BY into
+   * the groups of a single dimension. Returns null if the metric cannot be rolled up exactly.
+   */
+  private static @Nullable String rollupOperation(final MetricSlice slice) {
+    final String aggFunction = optional(slice.getMetricConfigDTO().getDefaultAggFunction())
+        .map(f -> f.toUpperCase(Constants.DEFAULT_LOCALE))
+        .orElse("");
+    if (aggFunction.equals(MetricAggFunction.SUM.name())
+        || aggFunction.equals(MetricAggFunction.COUNT.name())) {
+      return Grouping.OP_SUM;
+    } else if (aggFunction.equals(MetricAggFunction.MIN.name())) {
+      return Grouping.OP_MIN;
+    } else if (aggFunction.equals(MetricAggFunction.MAX.name())) {
+      return Grouping.OP_MAX;
+    }
+    return null;
+  }
+
+  private static String groupingColumn(final int dimensionIndex) {
+    return COL_GROUPING_PREFIX + dimensionIndex;
+  }
+
+  /**
+   * Returns the top values of a dimension from the rows of a single scan breakdown query.
+   *
+   * <p>A null value is a genuine group of the dimension and is kept, as in the PER_DIMENSION
+   * breakdown. With GROUPING_SETS, the rows must be restricted to the grouping set of the
+   * dimension first: in the rows of the other sets, the dimension is null too.
+   */
+  private static DataFrame dimensionTopValues(final String dimension, final DataFrame rows,
+      final String rollupOperation, final int limit) {
+    final DataFrame values = rows.groupByValue(dimension)
+        .aggregate(Constants.COL_VALUE + ":" + rollupOperation)
+        .sortedBy(Constants.COL_VALUE)
+        .reverse()
+        .head(limit);
+    return dimensionBreakdown(dimension, values, Constants.COL_VALUE);
+  }
+
+  /**
+   * Loads the current and baseline breakdowns with one query per dimension, using conditional
+   * aggregation. The top values of a dimension are ranked on the sum of the current and
+   * baseline values.
+   */
+  private CompletableFuture<Pair<DataFrame, DataFrame>> loadBreakdownsInSingleQueries(
+      final MetricSlice currentSlice, final MetricSlice baselineSlice, final int limit) {
+    final DatasetConfigDTO datasetConfigDTO = currentSlice.getDatasetConfigDTO();
+    final List<String> dimensions = breakdownDimensions(currentSlice);
+    LOG.info("Querying breakdowns '{}' and '{}' for dimensions '{}' in single queries",
+        currentSlice,
+        baselineSlice,
+        dimensions);
+
+    final QueryProjection metricProjection = QueryProjection.fromMetricConfig(
+        currentSlice.getMetricConfigDTO());
+    final List<CompletableFuture<DataFrame>> currentResponses = new ArrayList<>();
+    final List<CompletableFuture<DataFrame>> baselineResponses = new ArrayList<>();
+    for (final String dimension : dimensions) {
+      final SqlIdentifier dimensionIdentifier = identifierOf(dimension);
+      final SelectQueryTranslator request = SelectQuery.from(currentSlice)
+          .whereTimeFilter(List.of(currentSlice.getInterval(), baselineSlice.getInterval()),
+              datasetConfigDTO.getTimeColumn(),
+              datasetConfigDTO.getTimeFormat())
+          .selectInInterval(metricProjection.withAlias(COL_CURRENT_VALUE),
+              currentSlice.getInterval())
+          .selectInInterval(metricProjection.withAlias(COL_BASELINE_VALUE),
+              baselineSlice.getInterval())
+          .select(dimensionIdentifier)
+          .groupBy(dimensionIdentifier)
+          .orderBy(identifierDescOf(Constants.COL_VALUE))
+          .limit(limit)
+          .build();
+      final CompletableFuture<DataFrame> response = getBreakdownResultAsync(request,
+          datasetConfigDTO.getDataSource());
+      currentResponses.add(response.thenApply(res -> dimensionBreakdown(dimension,
+          res,
+          COL_CURRENT_VALUE)));
+      baselineResponses.add(response.thenApply(res -> dimensionBreakdown(dimension,
+          res,
+          COL_BASELINE_VALUE)));
+    }
+
+    final List<CompletableFuture<DataFrame>> allResponses = new ArrayList<>(currentResponses);
+    allResponses.addAll(baselineResponses);
+    return CompletableFuture.allOf(allResponses.toArray(CompletableFuture[]::new))
+        .thenApply(v -> Pair.pair(toBreakdown(currentResponses, currentSlice),
+            toBreakdown(baselineResponses, baselineSlice)));
+  }
+
+  private static List<String> breakdownDimensions(final MetricSlice slice) {
+    final DatasetConfigDTO datasetConfigDTO = slice.getDatasetConfigDTO();
+    final List<String> dimensions = new ArrayList<>(optional(datasetConfigDTO.getDimensions()).map(
+        Templatable::getValue).orElse(List.of()));
+    dimensions.removeAll(slice.getPredicates()
+        .stream()
+        .map(Predicate::getLhs)
+        .collect(Collectors.toList()));
+    dimensions.remove(datasetConfigDTO.getTimeColumn());
+    return dimensions;
+  }
+
+  /**
+   * Returns the breakdown of a dimension. Rows with a value of 0 in the conditional aggregation
+   * columns are values not observed in the interval: they are dropped.
+   */
+  private static DataFrame dimensionBreakdown(final String dimension, final DataFrame res,
+      final String valueColumn) {
+    DataFrame dfResult = new DataFrame()
+        .addSeries(COL_DIMENSION_NAME, StringSeries.fillValues(res.size(), dimension))
+        .addSeries(COL_DIMENSION_VALUE, res.get(dimension))
+        .addSeries(Constants.COL_VALUE, res.get(valueColumn));
+    if (!valueColumn.equals(Constants.COL_VALUE)) {
+      dfResult = dfResult.filter(dfResult.getDoubles(Constants.COL_VALUE).ne(0)).dropNull();
+    }
+    return dfResult;
+  }
+
+  private static DataFrame toBreakdown(final List<CompletableFuture<DataFrame>> responses,
+      final MetricSlice slice) {
+    final List<DataFrame> results = responses.stream()
+        .map(CompletableFuture::join)
+        .collect(Collectors.toList());
+    final DataFrame breakdown = DataFrame
+        .builder(COL_DIMENSION_NAME + ":STRING",
+            COL_DIMENSION_VALUE + ":STRING",
+            Constants.COL_VALUE + ":DOUBLE")
+        .build()
+        .setIndex(COL_DIMENSION_NAME, COL_DIMENSION_VALUE)
+        .append(results);
     // add time column containing start time of slice
     return breakdown
         .addSeries(Constants.COL_TIME,
@@ -173,7 +413,7 @@ public class DefaultAggregationLoader implements AggregationLoader {
   }
 
   @Override
-  public Future<DataFrame> loadAggregateAsync(final MetricSlice slice,
+  public CompletableFuture<DataFrame> loadAggregateAsync(final MetricSlice slice,
       final List<String> dimensions, final int limit) {
     LOG.info("Aggregating '{}'", slice);
     final SelectQuery requestBuilder = SelectQuery
@@ -201,19 +441,57 @@ public class DefaultAggregationLoader implements AggregationLoader {
     return getQueryResultAsync(requestBuilder.build(), dataSource);
   }
 
-  private Future<DataFrame> getQueryResultAsync(final SelectQueryTranslator request,
+  /**
+   * Prepares the request in the executor, then composes the non-blocking fetch of the data source.
+   * The executor thread is released as soon as the query is sent.
+   */
+  private CompletableFuture<DataFrame> getQueryResultAsync(final SelectQueryTranslator request,
       final String dataSource) {
-    return executorService.submit(() -> getQueryResult(request, dataSource));
+    return CompletableFuture.supplyAsync(() -> dataSourceCache.getDataSource(dataSource),
+            executorService)
+        .thenCompose(thirdEyeDataSource -> thirdEyeDataSource.fetchDataTableAsync(
+            toDataSourceRequest(request, thirdEyeDataSource)))
+        .thenApply(DataTable::getDataFrame);
+  }
+
+  /**
+   * Same as {@link #getQueryResultAsync}, with results cached in the breakdown cache. Concurrent
+   * identical queries share the same pending result. Failed queries are not cached.
+   */
+  private CompletableFuture<DataFrame> getBreakdownResultAsync(
+      final SelectQueryTranslator request, final String dataSource) {
+    return CompletableFuture.supplyAsync(() -> dataSourceCache.getDataSource(dataSource),
+            executorService)
+        .thenCompose(thirdEyeDataSource -> {
+          final DataSourceRequest dataSourceRequest = toDataSourceRequest(request,
+              thirdEyeDataSource);
+          final String cacheKey = dataSource + "\n" + dataSourceRequest.getQuery();
+          final CompletableFuture<DataFrame> result = breakdownCache.asMap()
+              .computeIfAbsent(cacheKey, k -> thirdEyeDataSource
+                  .fetchDataTableAsync(dataSourceRequest)
+                  .thenApply(DataTable::getDataFrame));
+          result.whenComplete((df, e) -> {
+            if (e != null) {
+              breakdownCache.asMap().remove(cacheKey, result);
+            }
+          });
+          return result;
+        });
   }
 
   public DataFrame getQueryResult(final SelectQueryTranslator request, final String dataSource)
       throws Exception {
     final ThirdEyeDataSource thirdEyeDataSource = dataSourceCache.getDataSource(dataSource);
+    return thirdEyeDataSource.fetchDataTable(toDataSourceRequest(request, thirdEyeDataSource))
+        .getDataFrame();
+  }
+
+  private static DataSourceRequest toDataSourceRequest(final SelectQueryTranslator request,
+      final ThirdEyeDataSource thirdEyeDataSource) {
     final String query = request.getSql(thirdEyeDataSource.getSqlLanguage(),
         thirdEyeDataSource.getSqlExpressionBuilder());
     final Map<String, String> customOptions = Map.of(); // custom query options not implemented in MinMaxTimeLoader
     // table info is only used with legacy Pinot client - should be removed
-    final DataSourceRequest requestV2 = new DataSourceRequest(null, query, customOptions, Map.of());
-    return thirdEyeDataSource.fetchDataTable(requestV2).getDataFrame();
+    return new DataSourceRequest(null, query, customOptions, Map.of());
   }
 }
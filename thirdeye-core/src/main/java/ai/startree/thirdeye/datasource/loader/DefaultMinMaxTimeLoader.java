@@ -28,13 +28,13 @@ import ai.startree.thirdeye.spi.datasource.loader.MinMaxTimeLoader;
 import ai.startree.thirdeye.spi.datasource.macro.SqlExpressionBuilder;
 import ai.startree.thirdeye.spi.datasource.macro.SqlLanguage;
 import ai.startree.thirdeye.util.CalciteUtils;
-import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import ai.startree.thirdeye.util.ExecutorRegistry;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import org.apache.calcite.sql.SqlDialect;
 import org.apache.calcite.sql.SqlNode;
@@ -54,42 +54,58 @@ public class DefaultMinMaxTimeLoader implements MinMaxTimeLoader {
   private static final Logger LOG = LoggerFactory.getLogger(DefaultMinMaxTimeLoader.class);
 
   private static final String TIME_ALIAS = "timeMillis";
+  private static final String EXECUTOR_NAME = "minmax-loader";
+  private static final int EXECUTOR_THREADS = 8;
 
   private final DataSourceCache dataSourceCache;
   private final ExecutorService executorService;
 
   @Inject
-  public DefaultMinMaxTimeLoader(final DataSourceCache dataSourceCache) {
+  public DefaultMinMaxTimeLoader(final DataSourceCache dataSourceCache,
+      final ExecutorRegistry executorRegistry) {
     this.dataSourceCache = dataSourceCache;
-    executorService = Executors.newCachedThreadPool(
-        new ThreadFactoryBuilder().setNameFormat("minmax-loader-%d").build());
+    executorService = executorRegistry.getExecutor(EXECUTOR_NAME, EXECUTOR_THREADS, true);
   }
 
   @Override
   public Future<@Nullable Long> fetchMinTimeAsync(final DatasetConfigDTO datasetConfigDTO,
       final @Nullable Interval timeFilterInterval) throws Exception {
-    return executorService.submit(() -> fetchExtremumTime(Extremum.MIN, datasetConfigDTO,
-        timeFilterInterval));
+    return fetchExtremumTimeAsync(Extremum.MIN, datasetConfigDTO, timeFilterInterval);
   }
 
   @Override
   public Future<@Nullable Long> fetchMaxTimeAsync(final DatasetConfigDTO datasetConfigDTO,
       final @Nullable Interval timeFilterInterval) throws Exception {
-    return executorService.submit(
-        () -> fetchExtremumTime(Extremum.MAX, datasetConfigDTO, timeFilterInterval));
+    return fetchExtremumTimeAsync(Extremum.MAX, datasetConfigDTO, timeFilterInterval);
   }
 
-  private @Nullable Long fetchExtremumTime(final Extremum extremum,
-      final DatasetConfigDTO datasetConfigDTO, final @Nullable Interval timeFilterInterval)
-      throws Exception {
+  /**
+   * Prepares the query in the executor, then composes the non-blocking fetch of the data source.
+   */
+  private CompletableFuture<@Nullable Long> fetchExtremumTimeAsync(final Extremum extremum,
+      final DatasetConfigDTO datasetConfigDTO, final @Nullable Interval timeFilterInterval) {
     final String dataSourceName = Objects.requireNonNull(datasetConfigDTO.getDataSource());
-    final @NonNull ThirdEyeDataSource dataSource = dataSourceCache.getDataSource(dataSourceName);
+    return CompletableFuture.supplyAsync(() -> dataSourceCache.getDataSource(dataSourceName),
+            executorService)
+        .thenCompose(dataSource -> dataSource.fetchDataTableAsync(
+            extremumTimeRequest(datasetConfigDTO, dataSource, extremum, timeFilterInterval)))
+        .thenApply(dataTable -> extremumTime(dataTable.getDataFrame(),
+            extremum,
+            datasetConfigDTO,
+            timeFilterInterval));
+  }
+
+  private DataSourceRequest extremumTimeRequest(final DatasetConfigDTO datasetConfigDTO,
+      final ThirdEyeDataSource dataSource, final Extremum extremum,
+      final @Nullable Interval timeFilterInterval) {
     final String sqlQuery = extremumTimeSqlQuery(datasetConfigDTO, dataSource, extremum,
         timeFilterInterval);
     final Map<String, String> customOptions = Map.of(); // custom query options not implemented in MinMaxTimeLoader
-    final DataSourceRequest request = new DataSourceRequest(null, sqlQuery, customOptions,
-        Map.of());
-    final DataFrame df = dataSource.fetchDataTable(request).getDataFrame();
+    return new DataSourceRequest(null, sqlQuery, customOptions, Map.of());
+  }
+
+  private static @Nullable Long extremumTime(final DataFrame df, final Extremum extremum,
+      final DatasetConfigDTO datasetConfigDTO, final @Nullable Interval timeFilterInterval) {
     if (df == null || df.size() == 0) {
       LOG.warn(
           "Empty dataframe for {} time query on dataset {} on interval {}. Dataset is empty or unknown SQL error. Could not fetch start time.",
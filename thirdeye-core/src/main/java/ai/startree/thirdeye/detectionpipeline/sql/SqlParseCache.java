@@ -0,0 +1,135 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.detectionpipeline.sql;
+
+import static ai.startree.thirdeye.util.CalciteUtils.expressionToNode;
+import static ai.startree.thirdeye.util.CalciteUtils.queryToNode;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import org.apache.calcite.sql.SqlCall;
+import org.apache.calcite.sql.SqlNode;
+import org.apache.calcite.sql.SqlNodeList;
+import org.apache.calcite.sql.parser.SqlParser;
+import org.apache.calcite.sql.util.SqlShuttle;
+
+/**
+ * Bounded cache of parsed Calcite SqlNode trees, keyed by sql text and parser config.
+ *
+ * Many alerts share the same template queries, and alerts scheduled with the same cron expand
+ * macros to the same expressions, so most parsing can be skipped.
+ * SqlNode trees are mutable: cached trees are never returned. Callers get a deep copy they can
+ * modify freely.
+ */
+public class SqlParseCache {
+
+  private static final int MAX_CACHED_QUERIES = 1_000;
+  private static final int MAX_CACHED_EXPRESSIONS = 10_000;
+
+  private static final Cache<CacheKey, SqlNode> QUERY_CACHE = CacheBuilder.newBuilder()
+      .maximumSize(MAX_CACHED_QUERIES)
+      .build();
+  private static final Cache<CacheKey, SqlNode> EXPRESSION_CACHE = CacheBuilder.newBuilder()
+      .maximumSize(MAX_CACHED_EXPRESSIONS)
+      .build();
+
+  public static SqlNode parseQuery(final String sql, final SqlParser.Config sqlParserConfig) {
+    final CacheKey key = new CacheKey(sql, sqlParserConfig);
+    SqlNode node = QUERY_CACHE.getIfPresent(key);
+    if (node == null) {
+      // parsing errors are thrown and not cached
+      node = queryToNode(sql, sqlParserConfig);
+      QUERY_CACHE.put(key, node);
+    }
+    return deepCopy(node);
+  }
+
+  public static SqlNode parseExpression(final String sqlExpression,
+      final SqlParser.Config sqlParserConfig) {
+    final CacheKey key = new CacheKey(sqlExpression, sqlParserConfig);
+    SqlNode node = EXPRESSION_CACHE.getIfPresent(key);
+    if (node == null) {
+      node = expressionToNode(sqlExpression, sqlParserConfig);
+      EXPRESSION_CACHE.put(key, node);
+    }
+    return deepCopy(node);
+  }
+
+  @VisibleForTesting
+  public static void invalidateAll() {
+    QUERY_CACHE.invalidateAll();
+    EXPRESSION_CACHE.invalidateAll();
+  }
+
+  private static SqlNode deepCopy(final SqlNode node) {
+    return node.accept(DeepCopyShuttle.INSTANCE);
+  }
+
+  /**
+   * Copies all the calls and node lists of a tree. Leaves - identifiers, literals, etc. - are
+   * shared: they are not modified in place by the sql engines.
+   */
+  private static class DeepCopyShuttle extends SqlShuttle {
+
+    private static final DeepCopyShuttle INSTANCE = new DeepCopyShuttle();
+
+    @Override
+    public SqlNode visit(final SqlCall call) {
+      final CallCopyingArgHandler argHandler = new CallCopyingArgHandler(call, true);
+      call.getOperator().acceptCall(this, call, false, argHandler);
+      return argHandler.result();
+    }
+
+    @Override
+    public SqlNode visit(final SqlNodeList nodeList) {
+      final List<SqlNode> copiedNodes = new ArrayList<>(nodeList.size());
+      for (final SqlNode node : nodeList) {
+        copiedNodes.add(node == null ? null : node.accept(this));
+      }
+      return new SqlNodeList(copiedNodes, nodeList.getParserPosition());
+    }
+  }
+
+  private static class CacheKey {
+
+    private final String sql;
+    private final SqlParser.Config sqlParserConfig;
+
+    private CacheKey(final String sql, final SqlParser.Config sqlParserConfig) {
+      this.sql = sql;
+      this.sqlParserConfig = sqlParserConfig;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      final CacheKey cacheKey = (CacheKey) o;
+      return sql.equals(cacheKey.sql) && sqlParserConfig.equals(cacheKey.sqlParserConfig);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(sql, sqlParserConfig);
+    }
+  }
+}
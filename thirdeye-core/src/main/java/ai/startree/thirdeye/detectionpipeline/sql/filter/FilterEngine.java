@@ -15,11 +15,11 @@ package ai.startree.thirdeye.detectionpipeline.sql.filter;
 
 import static ai.startree.thirdeye.util.CalciteUtils.addPredicates;
 import static ai.startree.thirdeye.util.CalciteUtils.nodeToQuery;
-import static ai.startree.thirdeye.util.CalciteUtils.queryToNode;
 import static com.google.common.base.Preconditions.checkArgument;
 
 import ai.startree.thirdeye.datasource.calcite.QueryPredicate;
 import ai.startree.thirdeye.detectionpipeline.sql.SqlLanguageTranslator;
+import ai.startree.thirdeye.detectionpipeline.sql.SqlParseCache;
 import ai.startree.thirdeye.spi.datalayer.Predicate.OPER;
 import ai.startree.thirdeye.spi.datasource.macro.SqlLanguage;
 import java.util.List;
@@ -61,7 +61,7 @@ public class FilterEngine {
   }
 
   public String prepareQuery() {
-    final SqlNode rootNode = queryToNode(query, sqlParserConfig);
+    final SqlNode rootNode = SqlParseCache.parseQuery(query, sqlParserConfig);
     final SqlNode rootNodeWithFilters = rootNode.accept(new FilterVisitor());
     final String preparedQuery = nodeToQuery(rootNodeWithFilters, sqlDialect, QUOTE_IDENTIFIERS);
 
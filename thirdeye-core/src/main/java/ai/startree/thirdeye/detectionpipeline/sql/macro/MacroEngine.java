@@ -14,11 +14,10 @@
 package ai.startree.thirdeye.detectionpipeline.sql.macro;
 
 import static ai.startree.thirdeye.spi.util.SpiUtils.optional;
-import static ai.startree.thirdeye.util.CalciteUtils.expressionToNode;
 import static ai.startree.thirdeye.util.CalciteUtils.nodeToQuery;
-import static ai.startree.thirdeye.util.CalciteUtils.queryToNode;
 
 import ai.startree.thirdeye.detectionpipeline.sql.SqlLanguageTranslator;
+import ai.startree.thirdeye.detectionpipeline.sql.SqlParseCache;
 import ai.startree.thirdeye.detectionpipeline.sql.macro.function.TimeFilterFunction;
 import ai.startree.thirdeye.detectionpipeline.sql.macro.function.TimeGroupFunction;
 import ai.startree.thirdeye.detectionpipeline.sql.macro.function.TimeGroupKeyFunction;
@@ -83,8 +82,17 @@ public class MacroEngine {
     }
   }
 
+  /**
+   * Restricts the time filter macro to the given interval, whatever the detection interval and the
+   * lookbacks of the query.
+   */
+  public MacroEngine setTimeFilterInterval(final @Nullable Interval timeFilterInterval) {
+    macroFunctionContext.setTimeFilterInterval(timeFilterInterval);
+    return this;
+  }
+
   public DataSourceRequest prepareRequest() {
-    final SqlNode rootNode = queryToNode(query, sqlParserConfig);
+    final SqlNode rootNode = SqlParseCache.parseQuery(query, sqlParserConfig);
     final SqlNode appliedMacrosNode = applyMacros(rootNode);
     final String preparedQuery = nodeToQuery(appliedMacrosNode, sqlDialect, QUOTE_IDENTIFIERS);
 
@@ -124,7 +132,7 @@ public class MacroEngine {
       if (macroFunction != null) {
         List<String> macroParams = paramsFromCall(call);
         String expandedMacro = macroFunction.expandMacro(macroParams, macroFunctionContext);
-        return expressionToNode(expandedMacro, sqlParserConfig);
+        return SqlParseCache.parseExpression(expandedMacro, sqlParserConfig);
       }
       // not a macro OR macro expansion parsing failed: return input unchanged
       return call;
@@ -61,12 +61,11 @@ public class TimeFilterFunction implements MacroFunction {
     }
 
     // compute timeLimits
-    final Interval detectionInterval = context.getDetectionInterval();
-    final DateTime filterLowerBound = detectionInterval.getStart()
-        .minus(isoPeriod(lookbackFromStart));
-    final DateTime filterUpperBound = detectionInterval.getEnd()
-        .minus(isoPeriod(lookbackFromEnd));
-    final Interval filterInterval = new Interval(filterLowerBound, filterUpperBound);
+    final Interval filterInterval = context.getTimeFilterInterval() != null
+        ? context.getTimeFilterInterval()
+        : lookbackInterval(context.getDetectionInterval(), lookbackFromStart, lookbackFromEnd);
+    final DateTime filterLowerBound = filterInterval.getStart();
+    final DateTime filterUpperBound = filterInterval.getEnd();
 
     //write time limits to metadata
     Map<String, String> properties = context.getProperties();
@@ -86,4 +85,10 @@ public class TimeFilterFunction implements MacroFunction {
     return context.getSqlExpressionBuilder()
         .getTimeFilterExpression(timeColumn, filterInterval, timeColumnFormat);
   }
+
+  private static Interval lookbackInterval(final Interval detectionInterval,
+      final String lookbackFromStart, final String lookbackFromEnd) {
+    return new Interval(detectionInterval.getStart().minus(isoPeriod(lookbackFromStart)),
+        detectionInterval.getEnd().minus(isoPeriod(lookbackFromEnd)));
+  }
 }
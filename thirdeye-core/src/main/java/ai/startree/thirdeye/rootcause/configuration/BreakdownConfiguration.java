@@ -0,0 +1,80 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.rootcause.configuration;
+
+import java.time.Duration;
+
+public class BreakdownConfiguration {
+
+  /**
+   * Compute the current and baseline breakdowns in a single query per dimension, with conditional
+   * aggregation. Only applies to SUM and COUNT(*) metrics. In this mode the top values of a
+   * dimension are ranked on the sum of current and baseline values.
+   */
+  private boolean singleQuery = false;
+
+  /**
+   * Breakdown results are cached for this duration, so that the heatmap and the top contributors
+   * of an anomaly share the same queries.
+   */
+  private Duration cacheTtl = Duration.ofMinutes(5);
+
+  /**
+   * Maximum number of cached breakdown results. One result per dimension.
+   */
+  private int cacheSize = 1_000;
+
+  /**
+   * Row limit of the single scan query of the GROUPING_SETS and SINGLE_GROUP_BY breakdown
+   * strategies of a data source. When the limit is reached, the breakdown falls back to one query
+   * per dimension.
+   */
+  private int singleScanMaxRows = 100_000;
+
+  public boolean isSingleQuery() {
+    return singleQuery;
+  }
+
+  public BreakdownConfiguration setSingleQuery(final boolean singleQuery) {
+    this.singleQuery = singleQuery;
+    return this;
+  }
+
+  public Duration getCacheTtl() {
+    return cacheTtl;
+  }
+
+  public BreakdownConfiguration setCacheTtl(final Duration cacheTtl) {
+    this.cacheTtl = cacheTtl;
+    return this;
+  }
+
+  public int getCacheSize() {
+    return cacheSize;
+  }
+
+  public BreakdownConfiguration setCacheSize(final int cacheSize) {
+    this.cacheSize = cacheSize;
+    return this;
+  }
+
+  public int getSingleScanMaxRows() {
+    return singleScanMaxRows;
+  }
+
+  public BreakdownConfiguration setSingleScanMaxRows(final int singleScanMaxRows) {
+    this.singleScanMaxRows = singleScanMaxRows;
+    return this;
+  }
+}
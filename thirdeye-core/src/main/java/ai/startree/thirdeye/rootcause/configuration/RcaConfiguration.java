@@ -28,6 +28,7 @@ public class RcaConfiguration {
   private int parallelism = 1;
   @JsonProperty("topContributors")
   private ContributorsFinderConfiguration contributorsFinderConfiguration = new ContributorsFinderConfiguration();
+  private BreakdownConfiguration breakdown = new BreakdownConfiguration();
 
   public int getParallelism() {
     return parallelism;
@@ -56,4 +57,13 @@ public class RcaConfiguration {
     this.contributorsFinderConfiguration = contributorsFinderConfiguration;
     return this;
   }
+
+  public BreakdownConfiguration getBreakdown() {
+    return breakdown;
+  }
+
+  public RcaConfiguration setBreakdown(final BreakdownConfiguration breakdown) {
+    this.breakdown = breakdown;
+    return this;
+  }
 }
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.util;
+
+import static ai.startree.thirdeye.datalayer.util.PersistenceUtils.threadsNamed;
+
+import ai.startree.thirdeye.config.ExecutorConfiguration;
+import ai.startree.thirdeye.config.ExecutorsConfiguration;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Named, bounded and instrumented thread pools shared by the subsystems.
+ *
+ * Each pool runs at most a fixed number of tasks concurrently, so one subsystem cannot starve the
+ * others. Pending tasks wait in a bounded queue. When the queue is full, the task runs in the
+ * submitting thread: this slows down the producer instead of failing the task. Pools of
+ * continuations of asynchronous calls reject the task instead, see {@link #getAsyncExecutor}.
+ *
+ * I/O-bound pools can run on virtual threads. ThirdEye targets Java 11, so virtual threads are
+ * created by reflection, only when the running JVM supports them.
+ *
+ * Metrics, tagged with the pool name: executorQueueSize, executorActiveThreads,
+ * executorCallerRunsTasks and executorRejectedTasks.
+ */
+@Singleton
+public class ExecutorRegistry {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ExecutorRegistry.class);
+
+  private static final int DEFAULT_QUEUE_SIZE = 1_000;
+  private static final long KEEP_ALIVE_SECONDS = 60;
+
+  private final ExecutorsConfiguration configuration;
+  private final Map<String, ThreadPoolExecutor> executors = new ConcurrentHashMap<>();
+
+  @Inject
+  public ExecutorRegistry(final ExecutorsConfiguration configuration) {
+    this.configuration = configuration;
+  }
+
+  /**
+   * Returns the pool of the given name. The pool is created on first access, or if the previous
+   * one was shut down.
+   *
+   * @param name name of the pool, used for thread names, metrics and configuration
+   * @param defaultThreads maximum number of concurrent tasks, if not configured
+   * @param ioBound whether the tasks mostly wait on I/O. I/O-bound pools run on virtual threads
+   *     if enabled in the configuration.
+   */
+  public ExecutorService getExecutor(final String name, final int defaultThreads,
+      final boolean ioBound) {
+    return getOrCreate(name, defaultThreads, ioBound, false);
+  }
+
+  /**
+   * Returns the pool of the given name, for the continuations of asynchronous calls. Unlike
+   * {@link #getExecutor}, a task submitted when the queue is full is rejected with a
+   * RejectedExecutionException: running it in the submitting thread would block the I/O thread of
+   * the asynchronous client that completed the call. A continuation that is rejected fails its
+   * future.
+   *
+   * @param name name of the pool, used for thread names, metrics and configuration
+   * @param defaultThreads maximum number of concurrent tasks, if not configured
+   */
+  public ExecutorService getAsyncExecutor(final String name, final int defaultThreads) {
+    return getOrCreate(name, defaultThreads, false, true);
+  }
+
+  private ExecutorService getOrCreate(final String name, final int defaultThreads,
+      final boolean ioBound, final boolean rejectWhenFull) {
+    return executors.compute(name, (k, existing) -> existing == null || existing.isShutdown()
+        ? newExecutor(name, defaultThreads, ioBound, rejectWhenFull)
+        : existing);
+  }
+
+  public int getQueueSize(final String name) {
+    final ThreadPoolExecutor executor = executors.get(name);
+    return executor == null ? 0 : executor.getQueue().size();
+  }
+
+  public int getActiveCount(final String name) {
+    final ThreadPoolExecutor executor = executors.get(name);
+    return executor == null ? 0 : executor.getActiveCount();
+  }
+
+  private ThreadPoolExecutor newExecutor(final String name, final int defaultThreads,
+      final boolean ioBound, final boolean rejectWhenFull) {
+    final ExecutorConfiguration poolConfiguration = configuration.getPools()
+        .getOrDefault(name, new ExecutorConfiguration());
+    final int threads = poolConfiguration.getThreads() != null
+        ? poolConfiguration.getThreads()
+        : defaultThreads;
+    final int queueSize = poolConfiguration.getQueueSize() != null
+        ? poolConfiguration.getQueueSize()
+        : DEFAULT_QUEUE_SIZE;
+    final boolean virtualThreads = poolConfiguration.getVirtualThreads() != null
+        ? poolConfiguration.getVirtualThreads()
+        : ioBound && configuration.isVirtualThreads();
+
+    final RejectedExecutionHandler rejectedExecutionHandler = rejectWhenFull
+        ? new CountingAbortPolicy(Metrics.counter("executorRejectedTasks", "pool", name))
+        : new CountingCallerRunsPolicy(Metrics.counter("executorCallerRunsTasks", "pool", name));
+    final ThreadPoolExecutor executor = new ThreadPoolExecutor(threads,
+        threads,
+        KEEP_ALIVE_SECONDS,
+        TimeUnit.SECONDS,
+        new LinkedBlockingQueue<>(queueSize),
+        threadFactory(name, virtualThreads),
+        rejectedExecutionHandler);
+    executor.allowCoreThreadTimeOut(true);
+
+    final Tags tags = Tags.of("pool", name);
+    Metrics.gauge("executorQueueSize", tags, this, r -> r.getQueueSize(name));
+    Metrics.gauge("executorActiveThreads", tags, this, r -> r.getActiveCount(name));
+
+    LOG.info("Created executor {}: threads={}, queueSize={}, virtualThreads={}",
+        name, threads, queueSize, virtualThreads);
+    return executor;
+  }
+
+  private static ThreadFactory threadFactory(final String name, final boolean virtualThreads) {
+    if (virtualThreads) {
+      final ThreadFactory factory = virtualThreadFactory(name + "-");
+      if (factory != null) {
+        return factory;
+      }
+      LOG.warn("Virtual threads are not supported by this JVM. Executor {} uses platform threads.",
+          name);
+    }
+    return threadsNamed(name + "-%d");
+  }
+
+  /**
+   * Returns Thread.ofVirtual().name(prefix, 0).factory(), or null if virtual threads are not
+   * available.
+   */
+  private static @Nullable ThreadFactory virtualThreadFactory(final String prefix) {
+    try {
+      final Method ofVirtual = Thread.class.getMethod("ofVirtual");
+      final Class<?> ofVirtualClass = Class.forName("java.lang.Thread$Builder$OfVirtual");
+      final Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+      final Object builder = ofVirtualClass.getMethod("name", String.class, long.class)
+          .invoke(ofVirtual.invoke(null), prefix, 0L);
+      return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+    } catch (final ReflectiveOperationException | RuntimeException e) {
+      LOG.debug("Virtual threads not available", e);
+      return null;
+    }
+  }
+
+  private static class CountingCallerRunsPolicy implements RejectedExecutionHandler {
+
+    private final Counter callerRunsCounter;
+
+    private CountingCallerRunsPolicy(final Counter callerRunsCounter) {
+      this.callerRunsCounter = callerRunsCounter;
+    }
+
+    @Override
+    public void rejectedExecution(final Runnable r, final ThreadPoolExecutor executor) {
+      if (executor.isShutdown()) {
+        throw new RejectedExecutionException("Executor is shut down");
+      }
+      callerRunsCounter.increment();
+      r.run();
+    }
+  }
+
+  private static class CountingAbortPolicy implements RejectedExecutionHandler {
+
+    private final Counter rejectedCounter;
+
+    private CountingAbortPolicy(final Counter rejectedCounter) {
+      this.rejectedCounter = rejectedCounter;
+    }
+
+    @Override
+    public void rejectedExecution(final Runnable r, final ThreadPoolExecutor executor) {
+      rejectedCounter.increment();
+      throw new RejectedExecutionException(executor.isShutdown()
+          ? "Executor is shut down"
+          : "Executor queue is full");
+    }
+  }
+}
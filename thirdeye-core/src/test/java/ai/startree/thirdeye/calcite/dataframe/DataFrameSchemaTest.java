@@ -14,6 +14,7 @@
 package ai.startree.thirdeye.calcite.dataframe;
 
 import ai.startree.thirdeye.spi.dataframe.DataFrame;
+import ai.startree.thirdeye.spi.dataframe.DoubleSeries;
 import ai.startree.thirdeye.spi.detection.v2.DataTable;
 import ai.startree.thirdeye.spi.detection.v2.SimpleDataTable;
 import com.google.common.collect.ImmutableMap;
@@ -84,6 +85,53 @@ public class DataFrameSchemaTest {
     Assert.assertEquals(outputDf, expectedDf);
   }
 
+  @Test
+  public void testRangeAndInPredicatePushdown() throws Exception {
+    final Map<String, DataFrame> dataframes = ImmutableMap.of(
+        "types_table", dataFrame
+    );
+    final Connection connection = getConnection(new DataFrameSchema(dataframes), properties);
+    final Statement statement = connection.createStatement();
+
+    final ResultSet resultSet = statement.executeQuery(
+        "select double_column "
+            + "from types_table "
+            + "where long_column > 1567631719000 "
+            + "AND long_column <= 1570095890000 "
+            + "AND str_column IN ('PLACED', 'IN_PROGRESS') "
+            + "AND double_column <> 1.4 ");
+    final DataFrame outputDf = DataFrame.fromResultSet(resultSet);
+
+    final DataFrame expectedDf = new DataFrame();
+    expectedDf.addSeries("double_column", 1.2D, 1.3D);
+
+    Assert.assertEquals(outputDf, expectedDf);
+  }
+
+  @Test
+  public void testNullPredicatePushdown() throws Exception {
+    final DataFrame nullsDataFrame = new DataFrame();
+    nullsDataFrame.addSeries("str_column", "PLACED", null, "SHIPPED");
+    nullsDataFrame.addSeries("double_column", 1.1D, 1.2D, DoubleSeries.NULL);
+    final Map<String, DataFrame> dataframes = ImmutableMap.of(
+        "nulls_table", nullsDataFrame
+    );
+    final Connection connection = getConnection(new DataFrameSchema(dataframes), properties);
+    final Statement statement = connection.createStatement();
+
+    final ResultSet resultSet = statement.executeQuery(
+        "select str_column "
+            + "from nulls_table "
+            + "where str_column IS NOT NULL "
+            + "AND (double_column IS NULL OR double_column < 1.15) ");
+    final DataFrame outputDf = DataFrame.fromResultSet(resultSet);
+
+    final DataFrame expectedDf = new DataFrame();
+    expectedDf.addSeries("str_column", "PLACED", "SHIPPED");
+
+    Assert.assertEquals(outputDf, expectedDf);
+  }
+
   @Test
   public void testMultipleTables() throws Exception {
     // test importing multiple dataframe as SQL tables
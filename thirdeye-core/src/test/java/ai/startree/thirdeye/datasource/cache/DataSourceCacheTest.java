@@ -0,0 +1,188 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.datasource.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import ai.startree.thirdeye.config.DataSourceCacheConfiguration;
+import ai.startree.thirdeye.config.ExecutorsConfiguration;
+import ai.startree.thirdeye.datasource.DataSourcesLoader;
+import ai.startree.thirdeye.spi.ThirdEyeException;
+import ai.startree.thirdeye.spi.datalayer.Predicate;
+import ai.startree.thirdeye.spi.datalayer.bao.DataSourceManager;
+import ai.startree.thirdeye.spi.datalayer.dto.DataSourceDTO;
+import ai.startree.thirdeye.spi.datasource.ThirdEyeDataSource;
+import ai.startree.thirdeye.util.ExecutorRegistry;
+import com.codahale.metrics.MetricRegistry;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class DataSourceCacheTest {
+
+  private static final String NAME = "pinot";
+  private static final long ID = 1L;
+
+  private DataSourceManager dataSourceManager;
+  private DataSourcesLoader dataSourcesLoader;
+  private DataSourceCache dataSourceCache;
+
+  private static DataSourceDTO dataSourceDto(final long updateTime) {
+    final DataSourceDTO dto = new DataSourceDTO().setName(NAME);
+    dto.setId(ID);
+    dto.setUpdateTime(new Timestamp(updateTime));
+    return dto;
+  }
+
+  @BeforeMethod
+  public void setUp() {
+    dataSourceManager = mock(DataSourceManager.class);
+    dataSourcesLoader = mock(DataSourcesLoader.class);
+    dataSourceCache = new DataSourceCache(dataSourceManager,
+        dataSourcesLoader,
+        new MetricRegistry(),
+        new DataSourceCacheConfiguration().setRefreshInterval(Duration.ofHours(1)),
+        new ExecutorRegistry(new ExecutorsConfiguration()));
+  }
+
+  @Test
+  public void testLookupIsCached() {
+    final DataSourceDTO dto = dataSourceDto(1000L);
+    when(dataSourceManager.findByPredicate(any())).thenReturn(List.of(dto));
+    when(dataSourcesLoader.loadDataSource(dto)).thenReturn(mock(ThirdEyeDataSource.class));
+
+    final ThirdEyeDataSource first = dataSourceCache.getDataSource(NAME);
+    final ThirdEyeDataSource second = dataSourceCache.getDataSource(NAME);
+
+    assertThat(second).isSameAs(first);
+    verify(dataSourceManager, times(1)).findByPredicate(any());
+    verify(dataSourcesLoader, times(1)).loadDataSource(any());
+  }
+
+  @Test
+  public void testMissingDataSource() {
+    when(dataSourceManager.findByPredicate(any())).thenReturn(List.of());
+
+    assertThatThrownBy(() -> dataSourceCache.getDataSource(NAME))
+        .isInstanceOf(ThirdEyeException.class);
+  }
+
+  @Test
+  public void testRefreshReloadsUpdatedDataSource() throws Exception {
+    final DataSourceDTO dto = dataSourceDto(1000L);
+    final ThirdEyeDataSource outdated = mock(ThirdEyeDataSource.class);
+    when(dataSourceManager.findByPredicate(any())).thenReturn(List.of(dto));
+    when(dataSourcesLoader.loadDataSource(dto)).thenReturn(outdated);
+    final ThirdEyeDataSource first = dataSourceCache.getDataSource(NAME);
+
+    final DataSourceDTO updated = dataSourceDto(2000L);
+    when(dataSourceManager.findIds()).thenReturn(List.of(ID));
+    when(dataSourceManager.findByPredicate(any())).thenReturn(List.of(updated));
+    when(dataSourcesLoader.loadDataSource(updated)).thenReturn(mock(ThirdEyeDataSource.class));
+    dataSourceCache.refresh();
+
+    assertThat(dataSourceCache.getDataSource(NAME)).isNotSameAs(first);
+    verify(outdated, times(1)).close();
+    // only the updated data sources are read
+    verify(dataSourceManager, never()).findAll();
+  }
+
+  @Test
+  public void testRefreshKeepsDataSourceWithoutUpdate() throws Exception {
+    final DataSourceDTO dto = dataSourceDto(1000L);
+    final ThirdEyeDataSource dataSource = mock(ThirdEyeDataSource.class);
+    when(dataSourceManager.findByPredicate(any())).thenReturn(List.of(dto));
+    when(dataSourcesLoader.loadDataSource(dto)).thenReturn(dataSource);
+    final ThirdEyeDataSource first = dataSourceCache.getDataSource(NAME);
+
+    when(dataSourceManager.findIds()).thenReturn(List.of(ID));
+    when(dataSourceManager.findByPredicate(any())).thenReturn(List.of());
+    dataSourceCache.refresh();
+
+    assertThat(dataSourceCache.getDataSource(NAME)).isSameAs(first);
+    verify(dataSource, never()).close();
+    verify(dataSourcesLoader, times(1)).loadDataSource(any());
+  }
+
+  @Test
+  public void testRefreshEvictsDeletedDataSource() throws Exception {
+    final DataSourceDTO dto = dataSourceDto(1000L);
+    final ThirdEyeDataSource deleted = mock(ThirdEyeDataSource.class);
+    when(dataSourceManager.findByPredicate(any())).thenReturn(List.of(dto));
+    when(dataSourcesLoader.loadDataSource(dto)).thenReturn(deleted);
+    dataSourceCache.getDataSource(NAME);
+
+    when(dataSourceManager.findIds()).thenReturn(List.of());
+    when(dataSourceManager.findByPredicate(any())).thenReturn(List.of());
+    dataSourceCache.refresh();
+
+    verify(deleted, times(1)).close();
+    assertThatThrownBy(() -> dataSourceCache.getDataSource(NAME))
+        .isInstanceOf(ThirdEyeException.class);
+  }
+
+  @Test
+  public void testLoadDoesNotBlockLookupsOfOtherNames() throws Exception {
+    final DataSourceDTO slowDto = new DataSourceDTO().setName("slow");
+    final DataSourceDTO dto = dataSourceDto(1000L);
+    final CountDownLatch slowLoadStarted = new CountDownLatch(1);
+    final CountDownLatch releaseSlowLoad = new CountDownLatch(1);
+    when(dataSourceManager.findByPredicate(any())).thenAnswer(invocation -> {
+      final String name = ((Predicate) invocation.getArgument(0)).getRhs().toString();
+      return List.of("slow".equals(name) ? slowDto : dto);
+    });
+    when(dataSourcesLoader.loadDataSource(slowDto)).thenAnswer(invocation -> {
+      slowLoadStarted.countDown();
+      releaseSlowLoad.await();
+      return mock(ThirdEyeDataSource.class);
+    });
+    when(dataSourcesLoader.loadDataSource(dto)).thenReturn(mock(ThirdEyeDataSource.class));
+
+    final CompletableFuture<ThirdEyeDataSource> slowLookup = CompletableFuture.supplyAsync(
+        () -> dataSourceCache.getDataSource("slow"));
+    try {
+      assertThat(slowLoadStarted.await(10, TimeUnit.SECONDS)).isTrue();
+      assertThat(CompletableFuture.supplyAsync(() -> dataSourceCache.getDataSource(NAME))
+          .get(10, TimeUnit.SECONDS)).isNotNull();
+    } finally {
+      releaseSlowLoad.countDown();
+    }
+    assertThat(slowLookup.get(10, TimeUnit.SECONDS)).isNotNull();
+  }
+
+  @Test
+  public void testCloseClosesDataSources() throws Exception {
+    final DataSourceDTO dto = dataSourceDto(1000L);
+    final ThirdEyeDataSource dataSource = mock(ThirdEyeDataSource.class);
+    when(dataSourceManager.findByPredicate(any())).thenReturn(List.of(dto));
+    when(dataSourcesLoader.loadDataSource(dto)).thenReturn(dataSource);
+    dataSourceCache.getDataSource(NAME);
+
+    dataSourceCache.close();
+
+    verify(dataSource, times(1)).close();
+  }
+}
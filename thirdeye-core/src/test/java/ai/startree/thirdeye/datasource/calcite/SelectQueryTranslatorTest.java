@@ -615,6 +615,43 @@ public class SelectQueryTranslatorTest {
     assertEquivalent(output, expected);
   }
 
+  @Test
+  public void testGetSqlWithConditionalAggregationOnTimeFilters() {
+    final String timeColumn = "date_epoch";
+    final Interval currentInterval = new Interval(300L, 400L, DateTimeZone.UTC);
+    final Interval baselineInterval = new Interval(100L, 200L, DateTimeZone.UTC);
+    final SelectQuery builder = new SelectQuery(TABLE).withDatabase(DATABASE)
+        .whereTimeFilter(List.of(currentInterval, baselineInterval),
+            timeColumn,
+            "1:MILLISECONDS:EPOCH")
+        .selectInInterval(STANDARD_AGGREGATION_PROJECTION.withAlias("currentValue"),
+            currentInterval)
+        .selectInInterval(STANDARD_AGGREGATION_PROJECTION.withAlias("baselineValue"),
+            baselineInterval);
+    final SelectQueryTranslator request = builder.build();
+    final String output = request.getSql(SQL_LANGUAGE, SQL_EXPRESSION_BUILDER);
+
+    final String expected = String.format(
+        "SELECT SUM(CASE WHEN \"%1$s\" >= 300 AND \"%1$s\" < 400 THEN \"%2$s\" ELSE 0 END) AS \"currentValue\", "
+            + "SUM(CASE WHEN \"%1$s\" >= 100 AND \"%1$s\" < 200 THEN \"%2$s\" ELSE 0 END) AS \"baselineValue\" "
+            + "FROM \"%3$s\".\"%4$s\" "
+            + "WHERE \"%1$s\" >= 300 AND \"%1$s\" < 400 OR \"%1$s\" >= 100 AND \"%1$s\" < 200",
+        timeColumn,
+        COLUMN_NAME_1,
+        DATABASE,
+        TABLE);
+
+    assertEquivalent(output, expected);
+  }
+
+  @Test
+  public void testConditionalAggregationIsNotSupportedForAvg() {
+    assertThat(QueryProjection.of(MetricAggFunction.AVG.name(), List.of(COLUMN_NAME_1))
+        .supportsConditionalAggregation()).isFalse();
+    assertThat(QueryProjection.of(MetricAggFunction.COUNT.name(), List.of("*"))
+        .supportsConditionalAggregation()).isTrue();
+  }
+
   @Test
   public void testGetSqlWithTimeFilterWithReservedKeyword() {
     final String reservedKeywordTimeAggregationColumn = "date";
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import ai.startree.thirdeye.config.ExecutorConfiguration;
+import ai.startree.thirdeye.config.ExecutorsConfiguration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.testng.annotations.Test;
+
+public class ExecutorRegistryTest {
+
+  @Test
+  public void testExecutorIsSharedByName() {
+    final ExecutorRegistry registry = new ExecutorRegistry(new ExecutorsConfiguration());
+    final ExecutorService executor = registry.getExecutor("test-shared", 2, true);
+
+    assertThat(registry.getExecutor("test-shared", 2, true)).isSameAs(executor);
+
+    executor.shutdown();
+    assertThat(registry.getExecutor("test-shared", 2, true)).isNotSameAs(executor);
+  }
+
+  @Test
+  public void testTaskRunsInCallerThreadWhenQueueIsFull() throws Exception {
+    final ExecutorsConfiguration configuration = new ExecutorsConfiguration()
+        .setPools(Map.of("test-full", new ExecutorConfiguration().setThreads(1).setQueueSize(1)));
+    final ExecutorRegistry registry = new ExecutorRegistry(configuration);
+    final ExecutorService executor = registry.getExecutor("test-full", 10, true);
+
+    final CountDownLatch release = new CountDownLatch(1);
+    final CountDownLatch started = new CountDownLatch(1);
+    executor.submit(() -> {
+      started.countDown();
+      release.await();
+      return null;
+    });
+    started.await();
+    // fills the queue: the single thread is busy
+    executor.submit(() -> {});
+    assertThat(registry.getQueueSize("test-full")).isEqualTo(1);
+    assertThat(registry.getActiveCount("test-full")).isEqualTo(1);
+
+    final AtomicReference<Thread> runner = new AtomicReference<>();
+    executor.submit(() -> runner.set(Thread.currentThread()));
+    assertThat(runner.get()).isSameAs(Thread.currentThread());
+
+    release.countDown();
+    executor.shutdown();
+    assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+  }
+
+  @Test
+  public void testAsyncExecutorRejectsWhenQueueIsFull() throws Exception {
+    final ExecutorsConfiguration configuration = new ExecutorsConfiguration()
+        .setPools(Map.of("test-async", new ExecutorConfiguration().setThreads(1).setQueueSize(1)));
+    final ExecutorRegistry registry = new ExecutorRegistry(configuration);
+    final ExecutorService executor = registry.getAsyncExecutor("test-async", 10);
+
+    final CountDownLatch release = new CountDownLatch(1);
+    final CountDownLatch started = new CountDownLatch(1);
+    executor.submit(() -> {
+      started.countDown();
+      release.await();
+      return null;
+    });
+    started.await();
+    // fills the queue: the single thread is busy
+    executor.submit(() -> {});
+
+    assertThatThrownBy(() -> executor.submit(() -> {}))
+        .isInstanceOf(RejectedExecutionException.class);
+    // a continuation that is rejected fails its future, it does not run in the completing thread
+    final CompletableFuture<Void> completed = new CompletableFuture<>();
+    final CompletableFuture<Thread> continuation = completed.thenApplyAsync(
+        v -> Thread.currentThread(), executor);
+    completed.complete(null);
+    assertThat(continuation).isCompletedExceptionally();
+
+    release.countDown();
+    executor.shutdown();
+    assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+  }
+}
@@ -17,7 +17,6 @@ import ai.startree.thirdeye.datalayer.core.EnumerationItemMaintainer;
 import ai.startree.thirdeye.datasource.cache.DataSourceCache;
 import ai.startree.thirdeye.spi.datalayer.bao.DatasetConfigManager;
 import ai.startree.thirdeye.spi.datalayer.bao.EventManager;
-import java.util.concurrent.ExecutorService;
 
 public class ApplicationContext {
 
@@ -26,24 +25,24 @@ public class ApplicationContext {
   private final PostProcessorRegistry postProcessorRegistry;
   private final EventManager eventManager;
   private final DatasetConfigManager datasetConfigManager;
-  private final ExecutorService subTaskExecutor;
   private final DetectionPipelineConfiguration configuration;
   private final EnumerationItemMaintainer enumerationItemMaintainer;
+  private final IncrementalFetchCache incrementalFetchCache;
 
   public ApplicationContext(final DataSourceCache dataSourceCache,
       final DetectionRegistry detectionRegistry,
       final PostProcessorRegistry postProcessorRegistry,
       final EventManager eventManager,
       final DatasetConfigManager datasetConfigManager,
-      final ExecutorService subTaskExecutor,
       final DetectionPipelineConfiguration detectionPipelineConfiguration,
-      final EnumerationItemMaintainer enumerationItemMaintainer) {
+      final EnumerationItemMaintainer enumerationItemMaintainer,
+      final IncrementalFetchCache incrementalFetchCache) {
     this.dataSourceCache = dataSourceCache;
     this.detectionRegistry = detectionRegistry;
     this.postProcessorRegistry = postProcessorRegistry;
     this.eventManager = eventManager;
-    this.subTaskExecutor = subTaskExecutor;
     this.enumerationItemMaintainer = enumerationItemMaintainer;
+    this.incrementalFetchCache = incrementalFetchCache;
     configuration = detectionPipelineConfiguration;
     this.datasetConfigManager = datasetConfigManager;
   }
@@ -68,10 +67,6 @@ public class ApplicationContext {
     return datasetConfigManager;
   }
 
-  public ExecutorService getSubTaskExecutor() {
-    return subTaskExecutor;
-  }
-
   public DetectionPipelineConfiguration getConfiguration() {
     return configuration;
   }
@@ -79,4 +74,11 @@ public class ApplicationContext {
   public EnumerationItemMaintainer getEnumerationItemMaintainer() {
     return enumerationItemMaintainer;
   }
+
+  /**
+   * Null if incremental fetch is disabled.
+   */
+  public IncrementalFetchCache getIncrementalFetchCache() {
+    return incrementalFetchCache;
+  }
 }
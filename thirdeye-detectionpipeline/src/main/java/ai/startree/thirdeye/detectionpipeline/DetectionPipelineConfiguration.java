@@ -16,6 +16,8 @@ package ai.startree.thirdeye.detectionpipeline;
 public class DetectionPipelineConfiguration {
 
   private ForkJoinConfiguration forkjoin = new ForkJoinConfiguration();
+  private PlanExecutorConfiguration planExecutor = new PlanExecutorConfiguration();
+  private IncrementalFetchConfiguration incrementalFetch = new IncrementalFetchConfiguration();
 
   public ForkJoinConfiguration getForkjoin() {
     return forkjoin;
@@ -26,4 +28,24 @@ public class DetectionPipelineConfiguration {
     this.forkjoin = forkjoin;
     return this;
   }
+
+  public PlanExecutorConfiguration getPlanExecutor() {
+    return planExecutor;
+  }
+
+  public DetectionPipelineConfiguration setPlanExecutor(
+      final PlanExecutorConfiguration planExecutor) {
+    this.planExecutor = planExecutor;
+    return this;
+  }
+
+  public IncrementalFetchConfiguration getIncrementalFetch() {
+    return incrementalFetch;
+  }
+
+  public DetectionPipelineConfiguration setIncrementalFetch(
+      final IncrementalFetchConfiguration incrementalFetch) {
+    this.incrementalFetch = incrementalFetch;
+    return this;
+  }
 }
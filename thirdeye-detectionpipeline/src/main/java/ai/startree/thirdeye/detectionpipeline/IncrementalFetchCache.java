@@ -0,0 +1,130 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.detectionpipeline;
+
+import ai.startree.thirdeye.spi.dataframe.DataFrame;
+import ai.startree.thirdeye.spi.dataframe.LongSeries;
+import ai.startree.thirdeye.spi.util.TimeUtils;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.joda.time.Period;
+
+/**
+ * Keeps the last DataFrame fetched by incremental data fetchers, so that consecutive detection
+ * runs of the same query only fetch the new time range. See {@link IncrementalFetchConfiguration}.
+ */
+public class IncrementalFetchCache {
+
+  private final Cache<String, Entry> cache;
+  private final long mutabilityTailMillis;
+
+  public IncrementalFetchCache(final IncrementalFetchConfiguration configuration) {
+    cache = CacheBuilder.newBuilder()
+        .maximumSize(configuration.getMaxEntries())
+        .expireAfterAccess(configuration.getExpireAfterAccess().toMillis(), TimeUnit.MILLISECONDS)
+        .build();
+    mutabilityTailMillis = configuration.getMutabilityTail().toMillis();
+  }
+
+  public @Nullable Entry get(final String key) {
+    return cache.getIfPresent(key);
+  }
+
+  /**
+   * Stores a copy of the DataFrame: the fetched DataFrame is passed to other operators that may
+   * modify it.
+   */
+  public void put(final String key, final long minTime, final long maxTime,
+      final DataFrame dataFrame) {
+    cache.put(key, new Entry(minTime, maxTime, dataFrame.copy()));
+  }
+
+  /**
+   * Returns the start of the range to fetch for [minTime, maxTime), given the cached entry.
+   * Returns minTime if the cached entry cannot be reused.
+   *
+   * If the query groups rows by time buckets, the start is floored to the start of the bucket
+   * containing the mutability tail start: a range starting inside a bucket would return a
+   * partial value for this bucket.
+   *
+   * @param granularity the bucket size of the query, null if rows are not grouped by time
+   * @param timeZone the time zone of the buckets
+   */
+  public long deltaStart(final Entry cached, final long minTime, final long maxTime,
+      final @Nullable Period granularity, final DateTimeZone timeZone) {
+    if (cached.minTime > minTime || cached.maxTime > maxTime || cached.maxTime <= minTime) {
+      return minTime;
+    }
+    long tailStart = cached.maxTime - mutabilityTailMillis;
+    if (granularity != null) {
+      tailStart = TimeUtils.floorByPeriod(new DateTime(tailStart, timeZone), granularity)
+          .getMillis();
+    }
+    return Math.max(minTime, tailStart);
+  }
+
+  /**
+   * Returns the rows of cached in [minTime, deltaStart) followed by the rows of delta. Cached
+   * rows with a timestamp also present in delta are dropped: the delta value is more recent.
+   * Returns null if the DataFrames do not have the same columns or do not contain the time
+   * column.
+   */
+  public static @Nullable DataFrame splice(final DataFrame cached, final DataFrame delta,
+      final String timeColumn, final long minTime, final long deltaStart) {
+    if (!cached.contains(timeColumn)
+        || !new HashSet<>(cached.getSeriesNames()).equals(new HashSet<>(delta.getSeriesNames()))) {
+      return null;
+    }
+    final LongSeries times = cached.getLongs(timeColumn);
+    final Set<Long> deltaTimes = new HashSet<>(delta.getLongs(timeColumn).toList());
+    final int[] keptRows = IntStream.range(0, cached.size())
+        .filter(i -> !times.isNull(i))
+        .filter(i -> times.getLong(i) >= minTime && times.getLong(i) < deltaStart)
+        .filter(i -> !deltaTimes.contains(times.getLong(i)))
+        .toArray();
+    return cached.project(keptRows).append(delta);
+  }
+
+  public static class Entry {
+
+    private final long minTime;
+    private final long maxTime;
+    private final DataFrame dataFrame;
+
+    private Entry(final long minTime, final long maxTime, final DataFrame dataFrame) {
+      this.minTime = minTime;
+      this.maxTime = maxTime;
+      this.dataFrame = dataFrame;
+    }
+
+    public long getMinTime() {
+      return minTime;
+    }
+
+    public long getMaxTime() {
+      return maxTime;
+    }
+
+    public DataFrame getDataFrame() {
+      return dataFrame;
+    }
+  }
+}
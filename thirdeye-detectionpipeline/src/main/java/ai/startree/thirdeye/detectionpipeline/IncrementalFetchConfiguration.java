@@ -0,0 +1,68 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.detectionpipeline;
+
+import java.time.Duration;
+
+public class IncrementalFetchConfiguration {
+
+  /**
+   * If true, data fetchers with incremental: true in their params keep the data of the previous
+   * run in memory and only query the new time range.
+   */
+  private boolean enabled = false;
+  /**
+   * Data more recent than this delay before the end of the previous fetch is fetched again, to
+   * take late data into account.
+   */
+  private Duration mutabilityTail = Duration.ofHours(1);
+  private long maxEntries = 10000;
+  private Duration expireAfterAccess = Duration.ofDays(1);
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public IncrementalFetchConfiguration setEnabled(final boolean enabled) {
+    this.enabled = enabled;
+    return this;
+  }
+
+  public Duration getMutabilityTail() {
+    return mutabilityTail;
+  }
+
+  public IncrementalFetchConfiguration setMutabilityTail(final Duration mutabilityTail) {
+    this.mutabilityTail = mutabilityTail;
+    return this;
+  }
+
+  public long getMaxEntries() {
+    return maxEntries;
+  }
+
+  public IncrementalFetchConfiguration setMaxEntries(final long maxEntries) {
+    this.maxEntries = maxEntries;
+    return this;
+  }
+
+  public Duration getExpireAfterAccess() {
+    return expireAfterAccess;
+  }
+
+  public IncrementalFetchConfiguration setExpireAfterAccess(final Duration expireAfterAccess) {
+    this.expireAfterAccess = expireAfterAccess;
+    return this;
+  }
+}
@@ -14,7 +14,6 @@
 package ai.startree.thirdeye.detectionpipeline;
 
 import static ai.startree.thirdeye.datalayer.util.PersistenceUtils.shutdownExecutionService;
-import static ai.startree.thirdeye.datalayer.util.PersistenceUtils.threadsNamed;
 import static ai.startree.thirdeye.spi.util.SpiUtils.optional;
 import static com.google.common.base.Preconditions.checkArgument;
 import static java.util.Collections.emptyList;
@@ -27,15 +26,27 @@ import ai.startree.thirdeye.spi.datalayer.bao.EventManager;
 import ai.startree.thirdeye.spi.datalayer.dto.PlanNodeBean;
 import ai.startree.thirdeye.spi.datalayer.dto.PlanNodeBean.InputBean;
 import ai.startree.thirdeye.spi.detection.v2.OperatorResult;
+import ai.startree.thirdeye.util.ExecutorRegistry;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 @Singleton
 public class PlanExecutor implements AutoCloseable {
@@ -52,7 +63,8 @@ public class PlanExecutor implements AutoCloseable {
   private final DetectionPipelineConfiguration detectionPipelineConfiguration;
   private final EnumerationItemMaintainer enumerationItemMaintainer;
 
-  private final ExecutorService subTaskExecutor;
+  private final ExecutorService planNodeExecutor;
+  private final IncrementalFetchCache incrementalFetchCache;
 
   @Inject
   public PlanExecutor(final PlanNodeFactory planNodeFactory,
@@ -62,7 +74,8 @@ public class PlanExecutor implements AutoCloseable {
       final EventManager eventManager,
       final DatasetConfigManager datasetConfigManager,
       final DetectionPipelineConfiguration detectionPipelineConfiguration,
-      final EnumerationItemMaintainer enumerationItemMaintainer) {
+      final EnumerationItemMaintainer enumerationItemMaintainer,
+      final ExecutorRegistry executorRegistry) {
     this.planNodeFactory = planNodeFactory;
     this.dataSourceCache = dataSourceCache;
     this.detectionRegistry = detectionRegistry;
@@ -71,9 +84,19 @@ public class PlanExecutor implements AutoCloseable {
     this.datasetConfigManager = datasetConfigManager;
     this.detectionPipelineConfiguration = detectionPipelineConfiguration;
     this.enumerationItemMaintainer = enumerationItemMaintainer;
+    final IncrementalFetchConfiguration incrementalFetchConfiguration =
+        detectionPipelineConfiguration.getIncrementalFetch();
+    incrementalFetchCache = incrementalFetchConfiguration.isEnabled()
+        ? new IncrementalFetchCache(incrementalFetchConfiguration)
+        : null;
 
-    final int nThreads = detectionPipelineConfiguration.getForkjoin().getParallelism();
-    subTaskExecutor = Executors.newFixedThreadPool(nThreads, threadsNamed("fork-join-%d"));
+    final PlanExecutorConfiguration planExecutorConfiguration = detectionPipelineConfiguration.getPlanExecutor();
+    // each run uses at most parallelism threads of the pool shared by all runs
+    final int poolSize = planExecutorConfiguration.getParallelism()
+        * optional(planExecutorConfiguration.getMaxConcurrentRuns()).orElse(1);
+    planNodeExecutor = planExecutorConfiguration.isParallel()
+        ? executorRegistry.getExecutor("plan-node", poolSize, true)
+        : null;
   }
 
   @VisibleForTesting
@@ -96,6 +119,110 @@ public class PlanExecutor implements AutoCloseable {
       }
       node.setInput(input.getTargetProperty(), resultMap.get(contextKey));
     }
+    runOperator(node, resultMap);
+  }
+
+  /**
+   * Execute the DAG rooted at the given node. Nodes are scheduled on the executor as soon as all
+   * their inputs are available: independent nodes, for instance the current and baseline data
+   * fetchers of a template, run concurrently.
+   *
+   * <p>At most parallelism nodes of the DAG run at the same time. When the execution ends, on
+   * success, failure or timeout, the nodes still running are interrupted and the pending nodes are
+   * not started.
+   *
+   * <p>resultMap must be thread-safe.
+   */
+  @VisibleForTesting
+  public static void executePlanNodeParallel(final Map<String, PlanNode> pipelinePlanNodes,
+      final PlanNode node,
+      final Map<ContextKey, OperatorResult> resultMap,
+      final ExecutorService executor,
+      final int parallelism,
+      final long timeoutMillis) throws Exception {
+    final RunExecutor runExecutor = new RunExecutor(executor, parallelism);
+    final CompletableFuture<Void> rootFuture = scheduleNode(pipelinePlanNodes,
+        node,
+        resultMap,
+        runExecutor,
+        new HashMap<>(),
+        new HashSet<>());
+    try {
+      rootFuture.get(timeoutMillis, TimeUnit.MILLISECONDS);
+    } catch (final ExecutionException e) {
+      // propagate the original exception, as the sequential execution would
+      throw unwrap(e.getCause());
+    } finally {
+      runExecutor.cancel();
+    }
+  }
+
+  private static CompletableFuture<Void> scheduleNode(final Map<String, PlanNode> pipelinePlanNodes,
+      final PlanNode node,
+      final Map<ContextKey, OperatorResult> resultMap,
+      final RunExecutor executor,
+      final Map<String, CompletableFuture<Void>> nodeFutures,
+      final Set<String> visiting) {
+    final CompletableFuture<Void> existing = nodeFutures.get(node.getName());
+    if (existing != null) {
+      return existing;
+    }
+    checkArgument(visiting.add(node.getName()),
+        "Cycle detected at node \"%s\". Template is invalid.",
+        node.getName());
+
+    final List<InputBean> inputs = optional(node.getPlanNodeInputs()).orElse(emptyList());
+    final Map<String, CompletableFuture<Void>> dependencies = new HashMap<>();
+    for (final InputBean input : inputs) {
+      final ContextKey contextKey = key(input.getSourcePlanNode(), input.getSourceProperty());
+      if (resultMap.containsKey(contextKey) || dependencies.containsKey(input.getSourcePlanNode())) {
+        continue;
+      }
+      final PlanNode inputPlanNode = pipelinePlanNodes.get(input.getSourcePlanNode());
+      checkArgument(inputPlanNode != null,
+          "sourcePlanNode \"%s\" found in \"%s\" node configuration does not exist. Template is invalid.",
+          input.getSourcePlanNode(),
+          node.getName());
+      dependencies.put(inputPlanNode.getName(), scheduleNode(pipelinePlanNodes,
+          inputPlanNode,
+          resultMap,
+          executor,
+          nodeFutures,
+          visiting));
+    }
+    visiting.remove(node.getName());
+
+    final CompletableFuture<Void> future = new CompletableFuture<>();
+    CompletableFuture
+        .allOf(dependencies.values().toArray(new CompletableFuture[0]))
+        .whenComplete((ignored, dependencyError) -> {
+          if (dependencyError != null) {
+            future.completeExceptionally(dependencyError);
+            return;
+          }
+          executor.execute(future, () -> {
+            try {
+              for (final InputBean input : inputs) {
+                final ContextKey contextKey = key(input.getSourcePlanNode(),
+                    input.getSourceProperty());
+                if (!resultMap.containsKey(contextKey)) {
+                  throw new RuntimeException("Missing resultMap key - " + contextKey);
+                }
+                node.setInput(input.getTargetProperty(), resultMap.get(contextKey));
+              }
+              runOperator(node, resultMap);
+              future.complete(null);
+            } catch (final Throwable e) {
+              future.completeExceptionally(e);
+            }
+          });
+        });
+    nodeFutures.put(node.getName(), future);
+    return future;
+  }
+
+  private static void runOperator(final PlanNode node,
+      final Map<ContextKey, OperatorResult> resultMap) throws Exception {
     final Operator operator = node.buildOperator();
     operator.execute();
     final Map<String, OperatorResult> outputs = operator.getOutputs();
@@ -104,6 +231,16 @@ public class PlanExecutor implements AutoCloseable {
     }
   }
 
+  private static Exception unwrap(Throwable t) {
+    while (t instanceof CompletionException && t.getCause() != null) {
+      t = t.getCause();
+    }
+    if (t instanceof Exception) {
+      return (Exception) t;
+    }
+    throw (Error) t;
+  }
+
   @VisibleForTesting
   static ContextKey key(final String name, final String key) {
     return new ContextKey(name, key);
@@ -120,6 +257,87 @@ public class PlanExecutor implements AutoCloseable {
     return results;
   }
 
+  /**
+   * Submits the nodes of one run to the shared executor, at most parallelism at a time. Keeps the
+   * futures returned by the executor: cancelling them interrupts the operators still running,
+   * which frees the shared executor when the run ends.
+   */
+  private static class RunExecutor {
+
+    private final ExecutorService executor;
+    private final int parallelism;
+    private final Queue<Runnable> pending = new ArrayDeque<>();
+    private final List<Future<?>> submitted = new ArrayList<>();
+    private int running = 0;
+    private boolean cancelled = false;
+
+    private RunExecutor(final ExecutorService executor, final int parallelism) {
+      checkArgument(parallelism > 0, "parallelism must be positive");
+      this.executor = executor;
+      this.parallelism = parallelism;
+    }
+
+    /**
+     * Runs the task, which completes nodeFuture. nodeFuture is completed exceptionally if the
+     * executor rejects the task.
+     */
+    public void execute(final CompletableFuture<Void> nodeFuture, final Runnable task) {
+      synchronized (this) {
+        if (cancelled) {
+          return;
+        }
+        if (running >= parallelism) {
+          pending.add(() -> submit(nodeFuture, task));
+          return;
+        }
+        running++;
+      }
+      submit(nodeFuture, task);
+    }
+
+    private void submit(final CompletableFuture<Void> nodeFuture, final Runnable task) {
+      final Future<?> future;
+      try {
+        future = executor.submit(() -> {
+          try {
+            task.run();
+          } finally {
+            onTaskDone();
+          }
+        });
+      } catch (final RejectedExecutionException e) {
+        nodeFuture.completeExceptionally(e);
+        onTaskDone();
+        return;
+      }
+      synchronized (this) {
+        submitted.add(future);
+        if (cancelled) {
+          future.cancel(true);
+        }
+      }
+    }
+
+    private void onTaskDone() {
+      final Runnable next;
+      synchronized (this) {
+        next = cancelled ? null : pending.poll();
+        if (next == null) {
+          running--;
+          return;
+        }
+      }
+      // the slot of the finished task is reused by the next task
+      next.run();
+    }
+
+    public synchronized void cancel() {
+      cancelled = true;
+      pending.clear();
+      submitted.forEach(f -> f.cancel(true));
+    }
+  }
+
   @VisibleForTesting
   protected ApplicationContext createApplicationContext() {
     return new ApplicationContext(
@@ -129,9 +347,9 @@ public class PlanExecutor implements AutoCloseable {
         eventManager,
         /* Use a caching instance for pipeline execution. Ensures dataset entity is consistent across nodes and is only fetched once. */
         new CachedDatasetConfigManager(datasetConfigManager),
-        subTaskExecutor,
         detectionPipelineConfiguration,
-        enumerationItemMaintainer);
+        enumerationItemMaintainer,
+        incrementalFetchCache);
   }
 
   /**
@@ -186,11 +404,24 @@ public class PlanExecutor implements AutoCloseable {
         planNodeBeans,
         context);
 
-    /* The context stores all the outputs from all the nodes */
-    final Map<ContextKey, OperatorResult> resultMap = new HashMap<>();
-
     /* Execute the DAG */
     final PlanNode rootNode = pipelinePlanNodes.get(rootNodeName);
+    if (planNodeExecutor != null) {
+      /* The context stores all the outputs from all the nodes. Written concurrently. */
+      final Map<ContextKey, OperatorResult> resultMap = Collections.synchronizedMap(new HashMap<>());
+      final PlanExecutorConfiguration planExecutorConfiguration =
+          detectionPipelineConfiguration.getPlanExecutor();
+      executePlanNodeParallel(pipelinePlanNodes,
+          rootNode,
+          resultMap,
+          planNodeExecutor,
+          planExecutorConfiguration.getParallelism(),
+          planExecutorConfiguration.getTimeout().toMillis());
+      return resultMap;
+    }
+
+    /* The context stores all the outputs from all the nodes */
+    final Map<ContextKey, OperatorResult> resultMap = new HashMap<>();
     executePlanNode(pipelinePlanNodes, rootNode, resultMap);
 
     return resultMap;
@@ -214,6 +445,6 @@ public class PlanExecutor implements AutoCloseable {
 
   @Override
   public void close() throws Exception {
-    shutdownExecutionService(subTaskExecutor);
+    shutdownExecutionService(planNodeExecutor);
   }
 }
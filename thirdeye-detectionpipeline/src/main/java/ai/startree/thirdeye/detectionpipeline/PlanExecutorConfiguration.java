@@ -0,0 +1,72 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.detectionpipeline;
+
+import java.time.Duration;
+
+public class PlanExecutorConfiguration {
+
+  /**
+   * If true, independent plan nodes of a pipeline are executed concurrently. Else the DAG is
+   * evaluated depth-first on the calling thread.
+   */
+  private boolean parallel = false;
+  /**
+   * Maximum number of plan nodes of one pipeline run executed concurrently.
+   */
+  private Integer parallelism = 5;
+  /**
+   * Number of pipeline runs that can execute concurrently. The plan node pool is shared by all the
+   * runs: it has parallelism * maxConcurrentRuns threads. The server defaults it to the
+   * maxParallelTasks of the task driver.
+   */
+  private Integer maxConcurrentRuns;
+  private Duration timeout = Duration.ofHours(1);
+
+  public boolean isParallel() {
+    return parallel;
+  }
+
+  public PlanExecutorConfiguration setParallel(final boolean parallel) {
+    this.parallel = parallel;
+    return this;
+  }
+
+  public Integer getParallelism() {
+    return parallelism;
+  }
+
+  public PlanExecutorConfiguration setParallelism(final Integer parallelism) {
+    this.parallelism = parallelism;
+    return this;
+  }
+
+  public Integer getMaxConcurrentRuns() {
+    return maxConcurrentRuns;
+  }
+
+  public PlanExecutorConfiguration setMaxConcurrentRuns(final Integer maxConcurrentRuns) {
+    this.maxConcurrentRuns = maxConcurrentRuns;
+    return this;
+  }
+
+  public Duration getTimeout() {
+    return timeout;
+  }
+
+  public PlanExecutorConfiguration setTimeout(final Duration timeout) {
+    this.timeout = timeout;
+    return this;
+  }
+}
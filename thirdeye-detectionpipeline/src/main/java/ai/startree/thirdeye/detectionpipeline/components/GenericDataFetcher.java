@@ -13,13 +13,19 @@
  */
 package ai.startree.thirdeye.detectionpipeline.components;
 
+import static ai.startree.thirdeye.spi.datasource.macro.MacroMetadataKeys.GRANULARITY;
+import static ai.startree.thirdeye.spi.datasource.macro.MacroMetadataKeys.MAX_TIME_MILLIS;
+import static ai.startree.thirdeye.spi.datasource.macro.MacroMetadataKeys.MIN_TIME_MILLIS;
+import static ai.startree.thirdeye.spi.util.TimeUtils.isoPeriod;
 import static com.google.common.base.Preconditions.checkArgument;
 import static java.util.Objects.requireNonNull;
 
 import ai.startree.thirdeye.datasource.calcite.QueryPredicate;
+import ai.startree.thirdeye.detectionpipeline.IncrementalFetchCache;
 import ai.startree.thirdeye.detectionpipeline.spec.DataFetcherSpec;
 import ai.startree.thirdeye.detectionpipeline.sql.filter.FilterEngine;
 import ai.startree.thirdeye.detectionpipeline.sql.macro.MacroEngine;
+import ai.startree.thirdeye.spi.dataframe.DataFrame;
 import ai.startree.thirdeye.spi.datalayer.Predicate;
 import ai.startree.thirdeye.spi.datalayer.bao.DatasetConfigManager;
 import ai.startree.thirdeye.spi.datalayer.dto.DatasetConfigDTO;
@@ -29,6 +35,7 @@ import ai.startree.thirdeye.spi.datasource.macro.SqlExpressionBuilder;
 import ai.startree.thirdeye.spi.datasource.macro.SqlLanguage;
 import ai.startree.thirdeye.spi.detection.DataFetcher;
 import ai.startree.thirdeye.spi.detection.v2.DataTable;
+import ai.startree.thirdeye.spi.detection.v2.SimpleDataTable;
 import ai.startree.thirdeye.spi.metric.DimensionType;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableMap;
@@ -36,7 +43,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.stream.Collectors;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.joda.time.Interval;
+import org.joda.time.Period;
 
 public class GenericDataFetcher implements DataFetcher<DataFetcherSpec> {
 
@@ -51,6 +60,12 @@ public class GenericDataFetcher implements DataFetcher<DataFetcherSpec> {
   private ThirdEyeDataSource thirdEyeDataSource;
   private DatasetConfigDTO datasetConfigDTO;
   private List<QueryPredicate> timeseriesFilters = List.of();
+  private String dataSourceName;
+  private String timeColumn;
+  /**
+   * Null if the data fetcher is not incremental.
+   */
+  private IncrementalFetchCache incrementalFetchCache;
 
   public String getQuery() {
     return query;
@@ -86,6 +101,11 @@ public class GenericDataFetcher implements DataFetcher<DataFetcherSpec> {
       this.thirdEyeDataSource = requireNonNull(dataFetcherSpec
           .getDataSourceCache()
           .getDataSource(dataSource), "data source is unavailable");
+      this.dataSourceName = dataSource;
+    }
+    this.timeColumn = dataFetcherSpec.getTimestamp();
+    if (dataFetcherSpec.isIncremental()) {
+      this.incrementalFetchCache = dataFetcherSpec.getIncrementalFetchCache();
     }
 
     if (!dataFetcherSpec.getTimeseriesFilters().isEmpty()) {
@@ -101,12 +121,79 @@ public class GenericDataFetcher implements DataFetcher<DataFetcherSpec> {
   @Override
   public DataTable getDataTable(Interval detectionInterval) throws Exception {
     String queryWithFilters = injectFilters(query);
-    DataSourceRequest preparedRequest = applyMacros(detectionInterval, queryWithFilters);
+    DataSourceRequest preparedRequest = applyMacros(detectionInterval, queryWithFilters, null);
+    if (incrementalFetchCache != null) {
+      return fetchIncrementally(detectionInterval, queryWithFilters, preparedRequest);
+    }
+    return fetch(preparedRequest);
+  }
+
+  private DataTable fetch(final DataSourceRequest preparedRequest) throws Exception {
     DataTable result = thirdEyeDataSource.fetchDataTable(preparedRequest);
     result.addProperties(preparedRequest.getProperties());
     return result;
   }
 
+  /**
+   * Reuses the data fetched by the previous run of the same query, and only fetches the time range
+   * after the end of the previous run, minus the mutability tail.
+   */
+  private DataTable fetchIncrementally(final Interval detectionInterval,
+      final String queryWithFilters, final DataSourceRequest preparedRequest) throws Exception {
+    final Map<String, String> properties = preparedRequest.getProperties();
+    final String minTimeProperty = properties.get(MIN_TIME_MILLIS.toString());
+    final String maxTimeProperty = properties.get(MAX_TIME_MILLIS.toString());
+    if (minTimeProperty == null || maxTimeProperty == null) {
+      // no time filter macro - the time range of the data is unknown
+      return fetch(preparedRequest);
+    }
+    final long minTime = Long.parseLong(minTimeProperty);
+    final long maxTime = Long.parseLong(maxTimeProperty);
+    // set by the __timeGroup macro - null if rows are not grouped by time buckets
+    final String granularityProperty = properties.get(GRANULARITY.toString());
+    final Period granularity = granularityProperty == null ? null : isoPeriod(granularityProperty);
+    final String key = incrementalFetchKey(detectionInterval, queryWithFilters);
+
+    final IncrementalFetchCache.Entry cached = incrementalFetchCache.get(key);
+    if (cached != null) {
+      final long deltaStart = incrementalFetchCache.deltaStart(cached,
+          minTime,
+          maxTime,
+          granularity,
+          detectionInterval.getChronology().getZone());
+      if (deltaStart > minTime) {
+        final DataSourceRequest deltaRequest = applyMacros(detectionInterval,
+            queryWithFilters,
+            new Interval(deltaStart, maxTime, detectionInterval.getChronology()));
+        final DataFrame delta = thirdEyeDataSource.fetchDataTable(deltaRequest).getDataFrame();
+        final DataFrame spliced = IncrementalFetchCache.splice(cached.getDataFrame(),
+            delta,
+            timeColumn,
+            minTime,
+            deltaStart);
+        if (spliced != null) {
+          incrementalFetchCache.put(key, minTime, maxTime, spliced);
+          final DataTable result = SimpleDataTable.fromDataFrame(spliced);
+          result.addProperties(properties);
+          return result;
+        }
+      }
+    }
+
+    final DataTable result = fetch(preparedRequest);
+    incrementalFetchCache.put(key, minTime, maxTime, result.getDataFrame());
+    return result;
+  }
+
+  private String incrementalFetchKey(final Interval detectionInterval,
+      final String queryWithFilters) {
+    return String.join("\n",
+        dataSourceName,
+        String.valueOf(tableName),
+        detectionInterval.getChronology().getZone().getID(),
+        queryWithFilters);
+  }
+
   private String injectFilters(final String query) {
     if (timeseriesFilters.isEmpty()) {
       return query;
@@ -119,7 +206,7 @@ public class GenericDataFetcher implements DataFetcher<DataFetcherSpec> {
   }
 
   private DataSourceRequest applyMacros(final Interval detectionInterval,
-      final String queryWithFilters) {
+      final String queryWithFilters, final @Nullable Interval timeFilterInterval) {
     SqlLanguage sqlLanguage = thirdEyeDataSource.getSqlLanguage();
     SqlExpressionBuilder sqlExpressionBuilder = thirdEyeDataSource.getSqlExpressionBuilder();
     boolean macrosSupported = sqlLanguage != null && sqlExpressionBuilder != null;
@@ -128,7 +215,9 @@ public class GenericDataFetcher implements DataFetcher<DataFetcherSpec> {
           sqlExpressionBuilder,
           detectionInterval,
           datasetConfigDTO,
-          queryWithFilters).prepareRequest();
+          queryWithFilters)
+          .setTimeFilterInterval(timeFilterInterval)
+          .prepareRequest();
     }
 
     final Map<String, String> customOptions = Map.of(); // custom query options not implemented in MinMaxTimeLoader
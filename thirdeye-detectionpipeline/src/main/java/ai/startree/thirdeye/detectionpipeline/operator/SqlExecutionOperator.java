@@ -18,19 +18,25 @@ import static com.google.common.base.Preconditions.checkArgument;
 
 import ai.startree.thirdeye.detectionpipeline.OperatorContext;
 import ai.startree.thirdeye.detectionpipeline.operator.sql.DataTableToSqlAdapterFactory;
+import ai.startree.thirdeye.detectionpipeline.operator.sql.SqlConnectionPool;
+import ai.startree.thirdeye.detectionpipeline.operator.sql.SqlConnectionPool.PooledConnection;
 import ai.startree.thirdeye.spi.dataframe.DataFrame;
 import ai.startree.thirdeye.spi.datalayer.dto.PlanNodeBean.OutputBean;
 import ai.startree.thirdeye.spi.detection.v2.DataTable;
 import ai.startree.thirdeye.spi.detection.v2.DataTableToSqlAdapter;
 import ai.startree.thirdeye.spi.detection.v2.SimpleDataTable;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -74,21 +80,37 @@ public class SqlExecutionOperator extends DetectionPipelineOperator {
 
   @Override
   public final void execute() throws Exception {
-    Connection connection = getConnection();
-    initTables(connection);
-    runQueries(connection);
-    dataTableToSqlAdapter.tearDown(connection);
+    loadDriver();
+    if (dataTableToSqlAdapter.isConnectionReusable()) {
+      final PooledConnection pooledConnection = SqlConnectionPool.acquire(dataTableToSqlAdapter);
+      final Connection connection = pooledConnection.getConnection();
+      try {
+        initTables(connection);
+        runQueries(connection, pooledConnection);
+      } finally {
+        SqlConnectionPool.release(pooledConnection, dataTableToSqlAdapter);
+      }
+    } else {
+      try (final Connection connection = getConnection()) {
+        initTables(connection);
+        runQueries(connection, null);
+        dataTableToSqlAdapter.tearDown(connection);
+      }
+    }
   }
 
-  private Connection getConnection() throws ClassNotFoundException, SQLException {
+  private void loadDriver() throws ClassNotFoundException {
     try {
       Class.forName(dataTableToSqlAdapter.jdbcDriverClassName());
-    } catch (final Exception e) {
+    } catch (final ClassNotFoundException e) {
       LOG.error("ERROR: failed to load JDBC driver class {}.",
           dataTableToSqlAdapter.jdbcDriverClassName(),
           e);
       throw e;
     }
+  }
+
+  private Connection getConnection() throws SQLException {
     final Connection connection = DriverManager.getConnection(dataTableToSqlAdapter.jdbcConnection(),
         dataTableToSqlAdapter.jdbcProperties());
     LOG.debug("Successfully connected to JDBC connection: {} with driver class: {} ",
@@ -100,31 +122,70 @@ public class SqlExecutionOperator extends DetectionPipelineOperator {
 
   private void initTables(final Connection connection) throws SQLException {
     final Map<String, DataTable> datatables = getDataTableMap(inputMap);
+    final long startTime = System.nanoTime();
     try {
       dataTableToSqlAdapter.loadTables(connection, datatables);
     } catch (final SQLException e) {
       LOG.error("Failed to load tables");
       throw e;
     }
+    final long loadTimeNanos = System.nanoTime() - startTime;
+    timer("sqlExecutionLoadTime").record(loadTimeNanos, TimeUnit.NANOSECONDS);
+    LOG.debug("Loaded {} tables in {} ms for node {}",
+        datatables.size(),
+        TimeUnit.NANOSECONDS.toMillis(loadTimeNanos),
+        planNode.getName());
   }
 
-  private void runQueries(final Connection connection) throws SQLException {
+  /**
+   * @param pooledConnection if not null, queries are run with the cached prepared statements of
+   *     the pooled connection.
+   */
+  private void runQueries(final Connection connection, final PooledConnection pooledConnection)
+      throws SQLException {
+    final long startTime = System.nanoTime();
     int i = 0;
     for (final String query : queries) {
       try {
-        DataTable dataTable = runQuery(query, connection);
+        final DataTable dataTable = pooledConnection == null
+            ? runQuery(query, connection)
+            : runPreparedQuery(query, pooledConnection);
         setOutput(Integer.toString(i++), dataTable);
       } catch (final SQLException e) {
         LOG.error("Got exceptions when executing SQL query: {}", query, e);
         throw e;
       }
     }
+    final long queryTimeNanos = System.nanoTime() - startTime;
+    timer("sqlExecutionQueryTime").record(queryTimeNanos, TimeUnit.NANOSECONDS);
+    LOG.debug("Ran {} queries in {} ms for node {}",
+        queries.size(),
+        TimeUnit.NANOSECONDS.toMillis(queryTimeNanos),
+        planNode.getName());
   }
 
   private DataTable runQuery(final String query, final Connection connection) throws SQLException {
-    final Statement stmt = connection.createStatement();
-    final ResultSet resultSet = stmt.executeQuery(query);
-    return SimpleDataTable.fromDataFrame(DataFrame.fromResultSet(resultSet));
+    try (final Statement stmt = connection.createStatement();
+        final ResultSet resultSet = stmt.executeQuery(query)) {
+      return SimpleDataTable.fromDataFrame(DataFrame.fromResultSet(resultSet));
+    }
+  }
+
+  private DataTable runPreparedQuery(final String query, final PooledConnection pooledConnection)
+      throws SQLException {
+    try {
+      final PreparedStatement stmt = pooledConnection.prepareStatement(query);
+      try (final ResultSet resultSet = stmt.executeQuery()) {
+        return SimpleDataTable.fromDataFrame(DataFrame.fromResultSet(resultSet));
+      }
+    } catch (final SQLException e) {
+      pooledConnection.invalidate(query);
+      throw e;
+    }
+  }
+
+  private Timer timer(final String name) {
+    return Metrics.timer(name, "engine", dataTableToSqlAdapter.getClass().getSimpleName());
   }
 
   @Override
@@ -13,31 +13,62 @@
  */
 package ai.startree.thirdeye.detectionpipeline.operator.sql;
 
+import ai.startree.thirdeye.spi.dataframe.BooleanSeries;
 import ai.startree.thirdeye.spi.dataframe.DataFrame;
+import ai.startree.thirdeye.spi.dataframe.Series;
 import ai.startree.thirdeye.spi.dataframe.Series.SeriesType;
 import ai.startree.thirdeye.spi.detection.v2.DataTable;
 import ai.startree.thirdeye.spi.detection.v2.DataTableToSqlAdapter;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Perform SQL on a DataFrame with HyperSQL.
+ * Each pooled connection has its own in-memory database. Connections are reused by the next
+ * executions: loaded tables are kept between executions and truncated instead of being dropped,
+ * and are only re-created if their columns change. When the connection returns to the pool, the
+ * loaded tables are truncated and any other table or view, for instance created by a query, is
+ * dropped. A loaded table that is not loaded again by the next execution is dropped. The database
+ * is shut down when the pool closes the connection.
+ */
 public class HyperSqlDataTableToSqlAdapter implements DataTableToSqlAdapter {
 
-  private final Logger LOG = LoggerFactory.getLogger(getClass());
+  private static final String JDBC_URL_PREFIX = "jdbc:hsqldb:mem:thirdeye_sql_";
+  private static final int INSERT_BATCH_SIZE = 10_000;
+
+  private static final AtomicLong DATABASE_IDS = new AtomicLong();
 
-  private final List<String> insertedTable = new ArrayList<>();
+  /**
+   * Table creation statements of the loaded tables existing in the database of each pooled
+   * connection, keyed by upper-case table name.
+   */
+  private static final Map<Connection, Map<String, String>> TABLE_DEFINITIONS =
+      new ConcurrentHashMap<>();
+
+  private final Logger LOG = LoggerFactory.getLogger(getClass());
 
   private final Properties properties = new Properties();
 
   @Override
   public String jdbcConnection() {
-    return "jdbc:hsqldb:mem";
+    return JDBC_URL_PREFIX + DATABASE_IDS.incrementAndGet();
   }
 
   @Override
@@ -50,28 +81,88 @@ public class HyperSqlDataTableToSqlAdapter implements DataTableToSqlAdapter {
     return properties;
   }
 
+  @Override
+  public boolean isConnectionReusable() {
+    return true;
+  }
+
   @Override
   public void loadTables(final Connection connection, final Map<String, DataTable> dataTables)
       throws SQLException {
+    // the queries must not read a table of a previous execution
+    final Set<String> tableKeys = dataTables.keySet().stream()
+        .map(HyperSqlDataTableToSqlAdapter::tableKey)
+        .collect(Collectors.toSet());
+    for (final String tableName : new ArrayList<>(tableDefinitions(connection).keySet())) {
+      if (!tableKeys.contains(tableName)) {
+        destroyTable(connection, tableName);
+      }
+    }
     for (final Entry<String, DataTable> entry : dataTables.entrySet()) {
       insertInput(connection, entry.getKey(), entry.getValue());
-      insertedTable.add(entry.getKey());
     }
   }
 
   @Override
   public void tearDown(final Connection connection) throws SQLException {
-    // Destroy database
-    LOG.debug("trying to drop all the tables to clean up the environment.");
-    for (final String tableName : insertedTable) {
-      destroyTable(connection, tableName);
+    final Map<String, String> tableDefinitions = tableDefinitions(connection);
+    final List<String> loadedTables = new ArrayList<>();
+    final List<String> otherTables = new ArrayList<>();
+    final List<String> views = new ArrayList<>();
+    try (final ResultSet rs = connection.getMetaData()
+        .getTables(null, null, null, new String[]{"TABLE", "VIEW"})) {
+      while (rs.next()) {
+        final String tableName = rs.getString("TABLE_NAME");
+        if ("VIEW".equals(rs.getString("TABLE_TYPE"))) {
+          views.add(tableName);
+        } else if (tableDefinitions.containsKey(tableName)) {
+          loadedTables.add(tableName);
+        } else {
+          otherTables.add(tableName);
+        }
+      }
+    }
+    // tables and views created by the queries are dropped - names are quoted to keep their case
+    for (final String view : views) {
+      execute(connection, "DROP VIEW \"" + view + "\" IF EXISTS CASCADE");
+    }
+    for (final String tableName : otherTables) {
+      execute(connection, "DROP TABLE \"" + tableName + "\" IF EXISTS CASCADE");
+    }
+    // loaded tables are kept for the next execution - only release the rows
+    LOG.debug("trying to truncate all the tables to clean up the environment.");
+    for (final String tableName : loadedTables) {
+      truncateTable(connection, tableName);
+    }
+  }
+
+  @Override
+  public void closeConnection(final Connection connection) throws SQLException {
+    TABLE_DEFINITIONS.remove(connection);
+    try {
+      // releases the in-memory database: it is not dropped when its last connection is closed
+      execute(connection, "SHUTDOWN");
+    } finally {
+      connection.close();
     }
   }
 
+  private static Map<String, String> tableDefinitions(final Connection c) {
+    return TABLE_DEFINITIONS.computeIfAbsent(c, k -> new HashMap<>());
+  }
+
+  /**
+   * Table names are not quoted in the statements: HyperSQL stores them in upper case.
+   */
+  private static String tableKey(final String tableName) {
+    return tableName.toUpperCase(Locale.ROOT);
+  }
+
   private void destroyTable(final Connection c, final String tableName) throws SQLException {
     final String dropTableStatement = "DROP TABLE " + tableName + " IF EXISTS";
     try {
-      c.prepareCall(dropTableStatement).execute();
+      execute(c, dropTableStatement);
+      tableDefinitions(c).remove(tableKey(tableName));
     } catch (final SQLException e) {
       LOG.error("Failed to drop table: {} with sql: {}",
           tableName,
@@ -81,37 +172,80 @@ public class HyperSqlDataTableToSqlAdapter implements DataTableToSqlAdapter {
     }
   }
 
+  private void truncateTable(final Connection c, final String tableName) throws SQLException {
+    final String truncateTableStatement = "TRUNCATE TABLE " + tableName;
+    try {
+      execute(c, truncateTableStatement);
+    } catch (final SQLException e) {
+      LOG.error("Failed to truncate table: {} with sql: {}",
+          tableName,
+          truncateTableStatement,
+          e);
+      throw e;
+    }
+  }
+
   private void insertInput(final Connection c, final String tableName,
       final DataTable dataTable) throws SQLException {
-    // Drop the table in case.
-    destroyTable(c, tableName);
-
     final DataFrame df = dataTable.getDataFrame();
-    // Create the table.
-    createTable(c, tableName, df);
+    prepareTable(c, tableName, df);
 
     // Insert all rows into the table
-    for (int rowIdx = 0; rowIdx < df.size(); rowIdx++) {
-      final String insertionStatement = getRowInsertionStatement(tableName, rowIdx, df);
-      try {
-        c.prepareCall(insertionStatement).execute();
-      } catch (final SQLException e) {
-        LOG.error("Failed to insert row idx: {}, insertion sql: {}",
-            rowIdx,
-            insertionStatement,
-            e);
-        throw e;
+    final String insertionStatement = getInsertionStatement(tableName, df.getSeriesNames().size());
+    try (final PreparedStatement statement = c.prepareStatement(insertionStatement)) {
+      final List<Series> series = new ArrayList<>();
+      final List<SeriesType> seriesTypes = new ArrayList<>();
+      for (final String seriesName : df.getSeriesNames()) {
+        final Series s = df.get(seriesName);
+        series.add(s);
+        seriesTypes.add(s.type());
+      }
+      for (int rowIdx = 0; rowIdx < df.size(); rowIdx++) {
+        for (int colIdx = 0; colIdx < series.size(); colIdx++) {
+          setParameter(statement, colIdx + 1, series.get(colIdx), seriesTypes.get(colIdx), rowIdx);
+        }
+        statement.addBatch();
+        if ((rowIdx + 1) % INSERT_BATCH_SIZE == 0) {
+          statement.executeBatch();
+        }
       }
+      statement.executeBatch();
+    } catch (final SQLException e) {
+      LOG.error("Failed to insert rows in table: {}, insertion sql: {}",
+          tableName,
+          insertionStatement,
+          e);
+      throw e;
     }
   }
 
-  private void createTable(final Connection c, final String tableName, final DataFrame dataFrame)
-      throws SQLException {
+  /**
+   * Makes sure an empty table with the columns of the dataframe exists. An existing table with the
+   * same columns is truncated, else it is dropped and created again.
+   */
+  private void prepareTable(final Connection c, final String tableName,
+      final DataFrame dataFrame) throws SQLException {
     final String tableCreationStatement = getTableCreationStatement(tableName,
         dataFrame.getSeriesNames(),
         dataFrame.getSeriesTypes());
+    if (tableCreationStatement.equals(tableDefinitions(c).get(tableKey(tableName)))) {
+      try {
+        truncateTable(c, tableName);
+        return;
+      } catch (final SQLException e) {
+        LOG.warn("Failed to truncate table: {}. Re-creating it.", tableName);
+      }
+    }
+    // Drop the table in case.
+    destroyTable(c, tableName);
+    createTable(c, tableName, tableCreationStatement);
+  }
+
+  private void createTable(final Connection c, final String tableName,
+      final String tableCreationStatement) throws SQLException {
     try {
-      c.prepareCall(tableCreationStatement).execute();
+      execute(c, tableCreationStatement);
+      tableDefinitions(c).put(tableKey(tableName), tableCreationStatement);
       LOG.debug("Trying to create table with sql: {}", tableCreationStatement);
     } catch (final SQLException e) {
       LOG.error("Failed to create table: {} with sql: {}",
@@ -122,30 +256,51 @@ public class HyperSqlDataTableToSqlAdapter implements DataTableToSqlAdapter {
     }
   }
 
-  private String getRowInsertionStatement(final String tableName,
-      final int rowIdx,
-      final DataFrame dataFrame) {
+  private static void execute(final Connection c, final String sql) throws SQLException {
+    try (final Statement statement = c.createStatement()) {
+      statement.execute(sql);
+    }
+  }
+
+  private static void setParameter(final PreparedStatement statement, final int parameterIndex,
+      final Series series, final SeriesType seriesType, final int rowIdx) throws SQLException {
+    if (series.isNull(rowIdx)) {
+      statement.setNull(parameterIndex, getSqlType(seriesType));
+      return;
+    }
+    switch (seriesType) {
+      case LONG:
+        statement.setLong(parameterIndex, series.getLong(rowIdx));
+        break;
+      case DOUBLE:
+        statement.setDouble(parameterIndex, series.getDouble(rowIdx));
+        break;
+      case STRING:
+        statement.setString(parameterIndex, series.getString(rowIdx));
+        break;
+      case BOOLEAN:
+        statement.setBoolean(parameterIndex, BooleanSeries.isTrue(series.getBoolean(rowIdx)));
+        break;
+      case OBJECT:
+        statement.setObject(parameterIndex, series.getObject(rowIdx));
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown type " + seriesType.name());
+    }
+  }
+
+  private String getInsertionStatement(final String tableName, final int columnCount) {
     final StringBuilder sb = new StringBuilder(
         "INSERT INTO " + tableName + " VALUES (");
-    final List<String> seriesNames = dataFrame.getSeriesNames();
-    for (int colIdx = 0; colIdx < seriesNames.size(); colIdx++) {
-      final Object value = dataFrame.getObject(seriesNames.get(colIdx), rowIdx);
-
-      // If string, then wrap with quotes
-      final String quoteWith = value instanceof String ? "'" : "";
-      sb
-          .append(quoteWith)
-          .append(value)
-          .append(quoteWith);
-
-      if (colIdx < seriesNames.size() - 1) {
+    for (int colIdx = 0; colIdx < columnCount; colIdx++) {
+      sb.append("?");
+      if (colIdx < columnCount - 1) {
         sb.append(", ");
       }
     }
     sb.append(")");
     return sb.toString();
   }
-
   private String getTableCreationStatement(final String tableName, final List<String> columns,
       final List<SeriesType> seriesTypes) {
     final StringBuilder tableCreationStatement = new StringBuilder(
@@ -178,4 +333,21 @@ public class HyperSqlDataTableToSqlAdapter implements DataTableToSqlAdapter {
         throw new IllegalArgumentException("Unknown type " + seriesType.name());
     }
   }
+
+  private static int getSqlType(final SeriesType seriesType) {
+    switch (seriesType) {
+      case LONG:
+        return Types.BIGINT;
+      case DOUBLE:
+        return Types.DOUBLE;
+      case STRING:
+        return Types.VARCHAR;
+      case BOOLEAN:
+        return Types.BOOLEAN;
+      case OBJECT:
+        return Types.VARBINARY;
+      default:
+        throw new IllegalArgumentException("Unknown type " + seriesType.name());
+    }
+  }
 }
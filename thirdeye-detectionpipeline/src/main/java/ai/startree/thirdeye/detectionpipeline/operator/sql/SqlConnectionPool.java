@@ -0,0 +1,164 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.detectionpipeline.operator.sql;
+
+import ai.startree.thirdeye.spi.detection.v2.DataTableToSqlAdapter;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded pool of JDBC connections for in-memory SQL engines, keyed by adapter and jdbc
+ * properties. Each connection has its own database, given by
+ * {@link DataTableToSqlAdapter#jdbcConnection()}, and a cache of prepared statements, keyed by
+ * query text.
+ *
+ * A connection is used by a single execution at a time: it is acquired for the execution and
+ * released after. At most {@link #MAX_IDLE_CONNECTIONS} idle connections are kept per key. The
+ * connections released when the pool is full are closed with
+ * {@link DataTableToSqlAdapter#closeConnection(Connection)}, which releases their database.
+ */
+public class SqlConnectionPool {
+
+  private static final Logger LOG = LoggerFactory.getLogger(SqlConnectionPool.class);
+  private static final int MAX_CACHED_STATEMENTS = 64;
+  private static final int MAX_IDLE_CONNECTIONS = Runtime.getRuntime().availableProcessors();
+
+  private static final Map<String, Deque<PooledConnection>> IDLE_CONNECTIONS =
+      new ConcurrentHashMap<>();
+
+  public static PooledConnection acquire(final DataTableToSqlAdapter adapter)
+      throws SQLException {
+    final String key = adapter.getClass().getName() + new TreeMap<>(adapter.jdbcProperties());
+    final Deque<PooledConnection> idleConnections = IDLE_CONNECTIONS.computeIfAbsent(key,
+        k -> new ArrayDeque<>());
+    while (true) {
+      final PooledConnection pooledConnection;
+      synchronized (idleConnections) {
+        pooledConnection = idleConnections.pollFirst();
+      }
+      if (pooledConnection == null) {
+        break;
+      }
+      if (!pooledConnection.connection.isClosed()) {
+        return pooledConnection;
+      }
+      close(pooledConnection, adapter);
+    }
+    final String jdbcUrl = adapter.jdbcConnection();
+    final Connection connection = DriverManager.getConnection(jdbcUrl, adapter.jdbcProperties());
+    LOG.debug("Created pooled JDBC connection: {}", jdbcUrl);
+    return new PooledConnection(key, connection);
+  }
+
+  /**
+   * Tears down the execution and returns the connection to the pool. The connection is closed if
+   * the tear down fails or if the pool is full.
+   */
+  public static void release(final PooledConnection pooledConnection,
+      final DataTableToSqlAdapter adapter) throws SQLException {
+    try {
+      adapter.tearDown(pooledConnection.connection);
+    } catch (final SQLException e) {
+      close(pooledConnection, adapter);
+      throw e;
+    }
+    final Deque<PooledConnection> idleConnections = IDLE_CONNECTIONS.get(pooledConnection.key);
+    synchronized (idleConnections) {
+      if (idleConnections.size() < MAX_IDLE_CONNECTIONS) {
+        // most recently used first: the least used connections are closed first
+        idleConnections.addFirst(pooledConnection);
+        return;
+      }
+    }
+    close(pooledConnection, adapter);
+  }
+
+  private static void close(final PooledConnection pooledConnection,
+      final DataTableToSqlAdapter adapter) {
+    pooledConnection.statements.values().forEach(PooledConnection::closeQuietly);
+    pooledConnection.statements.clear();
+    try {
+      adapter.closeConnection(pooledConnection.connection);
+    } catch (final SQLException e) {
+      LOG.warn("Failed to close pooled JDBC connection", e);
+    }
+  }
+
+  public static class PooledConnection {
+
+    private final String key;
+    private final Connection connection;
+    private final Map<String, PreparedStatement> statements = new LinkedHashMap<>(16, 0.75f,
+        true) {
+      @Override
+      protected boolean removeEldestEntry(final Map.Entry<String, PreparedStatement> eldest) {
+        if (size() > MAX_CACHED_STATEMENTS) {
+          closeQuietly(eldest.getValue());
+          return true;
+        }
+        return false;
+      }
+    };
+
+    private PooledConnection(final String key, final Connection connection) {
+      this.key = key;
+      this.connection = connection;
+    }
+
+    public Connection getConnection() {
+      return connection;
+    }
+
+    /**
+     * Returns the prepared statement of the query. Statements are cached: they must not be closed
+     * by the caller.
+     */
+    public PreparedStatement prepareStatement(final String query) throws SQLException {
+      PreparedStatement statement = statements.get(query);
+      if (statement == null || statement.isClosed()) {
+        statement = connection.prepareStatement(query);
+        statements.put(query, statement);
+      }
+      return statement;
+    }
+
+    /**
+     * Removes the prepared statement of the query from the cache, for instance after a failure.
+     */
+    public void invalidate(final String query) {
+      final PreparedStatement statement = statements.remove(query);
+      if (statement != null) {
+        closeQuietly(statement);
+      }
+    }
+
+    private static void closeQuietly(final PreparedStatement statement) {
+      try {
+        statement.close();
+      } catch (final SQLException e) {
+        LOG.warn("Failed to close cached prepared statement", e);
+      }
+    }
+  }
+}
@@ -14,6 +14,7 @@
 package ai.startree.thirdeye.detectionpipeline.spec;
 
 import ai.startree.thirdeye.datasource.cache.DataSourceCache;
+import ai.startree.thirdeye.detectionpipeline.IncrementalFetchCache;
 import ai.startree.thirdeye.spi.datalayer.Predicate;
 import ai.startree.thirdeye.spi.datalayer.bao.DatasetConfigManager;
 import ai.startree.thirdeye.spi.detection.AbstractSpec;
@@ -37,10 +38,20 @@ public class DataFetcherSpec extends AbstractSpec {
    * Optional - only necessary for AUTO mode of macros and better broker choice in pinot client.
    */
   private String tableName;
+  /**
+   * If true and incremental fetch is enabled in the server configuration, the data of the
+   * previous run is reused and only the new time range is fetched. The query must have a single
+   * time filter macro and return one row per timestamp bucket in the timestamp column.
+   */
+  private boolean incremental = false;
   /**
    * Expected to be set during DataFetcherOperator init
    */
   private DataSourceCache dataSourceCache;
+  /**
+   * Expected to be set during DataFetcherOperator init. Null if incremental fetch is disabled.
+   */
+  private IncrementalFetchCache incrementalFetchCache;
   /**
    * Expected to be set during DataFetcherOperator init
    * */
@@ -75,6 +86,25 @@ public class DataFetcherSpec extends AbstractSpec {
     this.tableName = tableName;
   }
 
+  public boolean isIncremental() {
+    return incremental;
+  }
+
+  public DataFetcherSpec setIncremental(final boolean incremental) {
+    this.incremental = incremental;
+    return this;
+  }
+
+  public IncrementalFetchCache getIncrementalFetchCache() {
+    return incrementalFetchCache;
+  }
+
+  public DataFetcherSpec setIncrementalFetchCache(
+      final IncrementalFetchCache incrementalFetchCache) {
+    this.incrementalFetchCache = incrementalFetchCache;
+    return this;
+  }
+
   public DataSourceCache getDataSourceCache() {
     return dataSourceCache;
   }
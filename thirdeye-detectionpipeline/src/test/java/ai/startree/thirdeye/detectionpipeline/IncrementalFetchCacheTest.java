@@ -0,0 +1,152 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.detectionpipeline;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.joda.time.DateTimeZone.UTC;
+
+import ai.startree.thirdeye.spi.dataframe.DataFrame;
+import java.time.Duration;
+import org.joda.time.DateTimeZone;
+import org.joda.time.Period;
+import org.testng.annotations.Test;
+
+public class IncrementalFetchCacheTest {
+
+  private static final long HOUR = 3600_000L;
+  private static final long DAY = 24 * HOUR;
+
+  private static IncrementalFetchCache cache() {
+    return new IncrementalFetchCache(new IncrementalFetchConfiguration()
+        .setEnabled(true)
+        .setMutabilityTail(Duration.ofHours(1)));
+  }
+
+  @Test
+  public void testDeltaStart() {
+    final IncrementalFetchCache cache = cache();
+    cache.put("key", 0, 10 * HOUR, new DataFrame());
+    final IncrementalFetchCache.Entry entry = cache.get("key");
+
+    // next run: range shifted by 1 hour - fetch from the previous end minus the tail
+    assertThat(cache.deltaStart(entry, HOUR, 11 * HOUR, null, UTC)).isEqualTo(9 * HOUR);
+    // tail goes before the range start
+    assertThat(cache.deltaStart(entry, 9 * HOUR + HOUR / 2, 11 * HOUR, null, UTC)).isEqualTo(
+        9 * HOUR + HOUR / 2);
+    // no overlap
+    assertThat(cache.deltaStart(entry, 10 * HOUR, 20 * HOUR, null, UTC)).isEqualTo(10 * HOUR);
+    // range going back in time
+    assertThat(cache.deltaStart(entry, 0, 5 * HOUR, null, UTC)).isEqualTo(0);
+  }
+
+  @Test
+  public void testSplice() {
+    final DataFrame cached = new DataFrame()
+        .addSeries("timestamp", 0L, HOUR, 2 * HOUR, 3 * HOUR)
+        .addSeries("value", 1., 2., 3., 4.);
+    final DataFrame delta = new DataFrame()
+        .addSeries("timestamp", 3 * HOUR, 4 * HOUR)
+        .addSeries("value", 40., 50.);
+
+    final DataFrame spliced = IncrementalFetchCache.splice(cached, delta, "timestamp", HOUR,
+        3 * HOUR);
+
+    assertThat(spliced).isEqualTo(new DataFrame()
+        .addSeries("timestamp", HOUR, 2 * HOUR, 3 * HOUR, 4 * HOUR)
+        .addSeries("value", 2., 3., 40., 50.));
+  }
+
+  @Test
+  public void testDeltaStartIsAlignedOnGranularity() {
+    final IncrementalFetchCache cache = cache();
+    cache.put("key", 0, 10 * DAY, new DataFrame());
+    final IncrementalFetchCache.Entry entry = cache.get("key");
+
+    // the tail starts at 10 days - 1 hour: the whole last daily bucket is fetched again
+    assertThat(cache.deltaStart(entry, DAY, 11 * DAY, Period.days(1), UTC)).isEqualTo(9 * DAY);
+    // buckets are aligned in the time zone of the query
+    final DateTimeZone zone = DateTimeZone.forOffsetHours(-2);
+    assertThat(cache.deltaStart(entry, DAY, 11 * DAY, Period.days(1), zone)).isEqualTo(
+        9 * DAY + 2 * HOUR);
+    // hourly buckets: the tail start is already aligned
+    assertThat(cache.deltaStart(entry, DAY, 11 * DAY, Period.hours(1), UTC)).isEqualTo(
+        10 * DAY - HOUR);
+  }
+
+  @Test
+  public void testSpliceDailyBucketsHasNoDuplicateTimestamps() {
+    final IncrementalFetchCache cache = cache();
+    final DataFrame cachedDf = new DataFrame()
+        .addSeries("timestamp", 0L, DAY, 2 * DAY, 3 * DAY)
+        .addSeries("value", 1., 2., 3., 4.);
+    cache.put("key", 0, 4 * DAY, cachedDf);
+    final IncrementalFetchCache.Entry entry = cache.get("key");
+
+    final long deltaStart = cache.deltaStart(entry, DAY, 5 * DAY, Period.days(1), UTC);
+    assertThat(deltaStart).isEqualTo(3 * DAY);
+    // the datasource returns the last cached bucket again, with its final value
+    final DataFrame delta = new DataFrame()
+        .addSeries("timestamp", 3 * DAY, 4 * DAY)
+        .addSeries("value", 40., 50.);
+
+    final DataFrame spliced = IncrementalFetchCache.splice(entry.getDataFrame(), delta,
+        "timestamp", DAY, deltaStart);
+
+    assertThat(spliced.getLongs("timestamp").unique().size()).isEqualTo(spliced.size());
+    assertThat(spliced).isEqualTo(new DataFrame()
+        .addSeries("timestamp", DAY, 2 * DAY, 3 * DAY, 4 * DAY)
+        .addSeries("value", 2., 3., 40., 50.));
+  }
+
+  @Test
+  public void testSpliceDropsCachedRowsPresentInDelta() {
+    final DataFrame cached = new DataFrame()
+        .addSeries("timestamp", 0L, HOUR, 2 * HOUR)
+        .addSeries("value", 1., 2., 3.);
+    // delta contains a row before deltaStart
+    final DataFrame delta = new DataFrame()
+        .addSeries("timestamp", 2 * HOUR, 3 * HOUR)
+        .addSeries("value", 30., 40.);
+
+    final DataFrame spliced = IncrementalFetchCache.splice(cached, delta, "timestamp", 0,
+        3 * HOUR);
+
+    assertThat(spliced).isEqualTo(new DataFrame()
+        .addSeries("timestamp", 0L, HOUR, 2 * HOUR, 3 * HOUR)
+        .addSeries("value", 1., 2., 30., 40.));
+  }
+
+  @Test
+  public void testSpliceWithDifferentColumns() {
+    final DataFrame cached = new DataFrame()
+        .addSeries("timestamp", 0L, HOUR)
+        .addSeries("value", 1., 2.);
+    final DataFrame delta = new DataFrame()
+        .addSeries("timestamp", HOUR)
+        .addSeries("other", 2.);
+
+    assertThat(IncrementalFetchCache.splice(cached, delta, "timestamp", 0, HOUR)).isNull();
+  }
+
+  @Test
+  public void testPutStoresACopy() {
+    final IncrementalFetchCache cache = cache();
+    final DataFrame dataFrame = new DataFrame().addSeries("timestamp", 0L);
+    cache.put("key", 0, HOUR, dataFrame);
+
+    dataFrame.addSeries("value", 1.);
+
+    assertThat(cache.get("key").getDataFrame().contains("value")).isFalse();
+  }
+}
@@ -14,10 +14,13 @@
 package ai.startree.thirdeye.detectionpipeline;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import ai.startree.thirdeye.config.ExecutorsConfiguration;
 import ai.startree.thirdeye.datalayer.core.EnumerationItemMaintainer;
 import ai.startree.thirdeye.datasource.cache.DataSourceCache;
 import ai.startree.thirdeye.detectionpipeline.operator.EchoOperator;
@@ -29,10 +32,20 @@ import ai.startree.thirdeye.spi.datalayer.bao.EnumerationItemManager;
 import ai.startree.thirdeye.spi.datalayer.bao.EventManager;
 import ai.startree.thirdeye.spi.datalayer.dto.EnumerationItemDTO;
 import ai.startree.thirdeye.spi.datalayer.dto.PlanNodeBean;
+import ai.startree.thirdeye.spi.datalayer.dto.PlanNodeBean.InputBean;
 import ai.startree.thirdeye.spi.detection.Enumerator;
 import ai.startree.thirdeye.spi.detection.v2.OperatorResult;
+import ai.startree.thirdeye.util.ExecutorRegistry;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import org.joda.time.DateTimeZone;
 import org.joda.time.Interval;
 import org.testng.annotations.BeforeMethod;
@@ -64,7 +77,8 @@ public class PlanExecutorTest {
         eventManager,
         datasetConfigManager,
         new DetectionPipelineConfiguration(),
-        mock(EnumerationItemMaintainer.class));
+        mock(EnumerationItemMaintainer.class),
+        new ExecutorRegistry(new ExecutorsConfiguration()));
     enumerator = mock(Enumerator.class);
 
     when(detectionRegistry.buildEnumerator("default")).thenReturn(enumerator);
@@ -100,4 +114,92 @@ public class PlanExecutorTest {
     final EchoResult echoResult = (EchoResult) result;
     assertThat(echoResult.text()).isEqualTo(echoInput);
   }
+
+  @Test
+  public void testExecutePlanNodeParallel() throws Exception {
+    final Map<String, PlanNode> pipelinePlanNodes = new HashMap<>();
+    for (final String name : List.of("current", "baseline")) {
+      pipelinePlanNodes.put(name, echoNode(name, Collections.emptyList()));
+    }
+    final PlanNode root = echoNode("root", List.of(
+        new InputBean()
+            .setTargetProperty("current")
+            .setSourcePlanNode("current")
+            .setSourceProperty(EchoOperator.DEFAULT_OUTPUT_KEY),
+        new InputBean()
+            .setTargetProperty("baseline")
+            .setSourcePlanNode("baseline")
+            .setSourceProperty(EchoOperator.DEFAULT_OUTPUT_KEY)));
+    pipelinePlanNodes.put("root", root);
+
+    final Map<ContextKey, OperatorResult> resultMap = new ConcurrentHashMap<>();
+    final ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      PlanExecutor.executePlanNodeParallel(pipelinePlanNodes,
+          root,
+          resultMap,
+          executor,
+          2,
+          10_000L);
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertThat(resultMap.size()).isEqualTo(3);
+    for (final String name : List.of("current", "baseline", "root")) {
+      final EchoResult echoResult = (EchoResult) resultMap.get(
+          PlanExecutor.key(name, EchoOperator.DEFAULT_OUTPUT_KEY));
+      assertThat(echoResult.text()).isEqualTo(name);
+    }
+  }
+
+  @Test
+  public void testExecutePlanNodeParallelTimeoutInterruptsRunningNodes() throws Exception {
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch interrupted = new CountDownLatch(1);
+    final Operator blockingOperator = mock(Operator.class);
+    doAnswer(invocation -> {
+      started.countDown();
+      try {
+        Thread.sleep(60_000L);
+      } catch (final InterruptedException e) {
+        interrupted.countDown();
+        throw e;
+      }
+      return null;
+    }).when(blockingOperator).execute();
+    final PlanNode root = mock(PlanNode.class);
+    when(root.getName()).thenReturn("root");
+    when(root.buildOperator()).thenReturn(blockingOperator);
+
+    final ExecutorService executor = Executors.newFixedThreadPool(1);
+    try {
+      assertThatThrownBy(() -> PlanExecutor.executePlanNodeParallel(Map.of("root", root),
+          root,
+          new ConcurrentHashMap<>(),
+          executor,
+          1,
+          100L)).isInstanceOf(TimeoutException.class);
+      assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+      // the running operator is interrupted: the thread is given back to the pool
+      assertThat(interrupted.await(10, TimeUnit.SECONDS)).isTrue();
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static PlanNode echoNode(final String name, final List<InputBean> inputs) {
+    final EchoPlanNode node = new EchoPlanNode();
+    node.init(new PlanNodeContext()
+        .setName(name)
+        .setDetectionPipelineContext(new DetectionPipelineContext()
+            .setDetectionInterval(new Interval(0L, 0L, DateTimeZone.UTC)))
+        .setPlanNodeBean(new PlanNodeBean()
+            .setName(name)
+            .setInputs(inputs)
+            .setParams(TemplatableMap.ofValue(EchoOperator.DEFAULT_INPUT_KEY, name))
+        )
+    );
+    return node;
+  }
 }
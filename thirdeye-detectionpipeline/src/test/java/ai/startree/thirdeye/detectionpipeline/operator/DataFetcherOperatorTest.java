@@ -40,7 +40,6 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.ExecutorService;
 import org.joda.time.DateTimeZone;
 import org.joda.time.Interval;
 import org.testng.Assert;
@@ -71,9 +70,9 @@ public class DataFetcherOperatorTest {
                 mock(PostProcessorRegistry.class),
                 mock(EventManager.class),
                 datasetDao,
-                mock(ExecutorService.class),
                 new DetectionPipelineConfiguration(),
-                mock(EnumerationItemMaintainer.class))
+                mock(EnumerationItemMaintainer.class),
+                null)
     ));
   }
 
@@ -40,7 +40,6 @@ import ai.startree.thirdeye.spi.detection.v2.DataTable;
 import com.google.common.collect.ImmutableMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ExecutorService;
 import org.joda.time.DateTimeZone;
 import org.joda.time.Interval;
 import org.testng.annotations.BeforeMethod;
@@ -100,9 +99,9 @@ public class EventFetcherOperatorTest {
                 mock(PostProcessorRegistry.class),
                 eventDao,
                 mock(DatasetConfigManager.class),
-                mock(ExecutorService.class),
                 new DetectionPipelineConfiguration(),
-                mock(EnumerationItemMaintainer.class))
+                mock(EnumerationItemMaintainer.class),
+                null)
         ));
   }
 
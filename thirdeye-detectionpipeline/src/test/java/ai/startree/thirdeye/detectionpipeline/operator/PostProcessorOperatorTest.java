@@ -44,7 +44,6 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.ImmutableMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ExecutorService;
 import org.joda.time.DateTimeZone;
 import org.joda.time.Interval;
 import org.testng.annotations.BeforeClass;
@@ -87,9 +86,9 @@ public class PostProcessorOperatorTest {
                 postProcessorRegistry,
                 mock(EventManager.class),
                 mock(DatasetConfigManager.class),
-                mock(ExecutorService.class),
                 new DetectionPipelineConfiguration(),
-                mock(EnumerationItemMaintainer.class))));
+                mock(EnumerationItemMaintainer.class),
+                null)));
   }
 
   @Test
@@ -16,9 +16,11 @@ package ai.startree.thirdeye.detectionpipeline.operator;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import ai.startree.thirdeye.detectionpipeline.OperatorContext;
+import ai.startree.thirdeye.detectionpipeline.operator.sql.HyperSqlDataTableToSqlAdapter;
 import ai.startree.thirdeye.spi.dataframe.DataFrame;
 import ai.startree.thirdeye.spi.dataframe.DoubleSeries;
 import ai.startree.thirdeye.spi.dataframe.LongSeries;
+import ai.startree.thirdeye.spi.dataframe.StringSeries;
 import ai.startree.thirdeye.spi.datalayer.TemplatableMap;
 import ai.startree.thirdeye.spi.datalayer.dto.PlanNodeBean;
 import ai.startree.thirdeye.spi.datalayer.dto.PlanNodeBean.InputBean;
@@ -27,7 +29,14 @@ import ai.startree.thirdeye.spi.detection.v2.DataTable;
 import ai.startree.thirdeye.spi.detection.v2.SimpleDataTable;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import org.joda.time.DateTimeZone;
 import org.joda.time.Interval;
@@ -50,6 +59,118 @@ public class SqlExecutionOperatorTest {
     testSqlExecution(ImmutableMap.of("sql.engine", "Calcite"));
   }
 
+  @Test
+  public void testSqlExecutionHyperSQLAdapterReusesConnection() throws Exception {
+    // run twice: the pooled connection and the tables of the first execution are reused
+    testSqlExecution(ImmutableMap.of("sql.engine", "HyperSql"));
+    testSqlExecution(ImmutableMap.of("sql.engine", "HyperSql"));
+
+    // same table name with different columns: the table is re-created
+    final Map<String, Object> params = new HashMap<>();
+    params.put("sql.engine", "HyperSql");
+    params.put("sql.queries", ImmutableList.of("SELECT dim, met FROM baseline_data"));
+    final DetectionPipelineOperator sqlExecutionOperator = new SqlExecutionOperator();
+    final PlanNodeBean planNodeBean = new PlanNodeBean().setName("root")
+        .setType("SqlExecution")
+        .setParams(TemplatableMap.fromValueMap(params))
+        .setInputs(ImmutableList.of(new InputBean().setTargetProperty("baseline_data")
+            .setSourceProperty("baselineOutput")
+            .setSourcePlanNode("baselineDataFetcher")))
+        .setOutputs(ImmutableList.of());
+    final OperatorContext context = new OperatorContext()
+        .setDetectionInterval(new Interval(0L, 1000L, DateTimeZone.UTC))
+        .setPlanNode(planNodeBean)
+        .setInputsMap(ImmutableMap.of("baseline_data",
+            SimpleDataTable.fromDataFrame(new DataFrame()
+                .addSeries("dim", StringSeries.buildFrom("a", null))
+                .addSeries("met", DoubleSeries.buildFrom(1.0, 2.0))
+            )))
+        .setProperties(ImmutableMap.of());
+    sqlExecutionOperator.init(context);
+    sqlExecutionOperator.execute();
+    final DataFrame dataFrame = ((DataTable) sqlExecutionOperator.getOutputs()
+        .get("0")).getDataFrame();
+    assertThat(dataFrame.size()).isEqualTo(2);
+    assertThat(dataFrame.getString("dim", 0)).isEqualTo("a");
+    assertThat(dataFrame.isNull("dim", 1)).isTrue();
+    assertThat(dataFrame.getDouble("met", 1)).isEqualTo(2.0);
+  }
+
+  @Test
+  public void testHyperSqlCloseConnectionShutsDownDatabase() throws Exception {
+    final HyperSqlDataTableToSqlAdapter adapter = new HyperSqlDataTableToSqlAdapter();
+    final String jdbcUrl = adapter.jdbcConnection();
+    // each pooled connection has its own database
+    assertThat(adapter.jdbcConnection()).isNotEqualTo(jdbcUrl);
+
+    final Connection connection = DriverManager.getConnection(jdbcUrl, adapter.jdbcProperties());
+    adapter.loadTables(connection, ImmutableMap.of("data",
+        SimpleDataTable.fromDataFrame(new DataFrame()
+            .addSeries("met", DoubleSeries.buildFrom(1.0)))));
+    adapter.closeConnection(connection);
+    assertThat(connection.isClosed()).isTrue();
+
+    // the database was released: connecting again creates an empty database
+    final Connection newConnection = DriverManager.getConnection(jdbcUrl,
+        adapter.jdbcProperties());
+    try (final ResultSet tables = newConnection.getMetaData()
+        .getTables(null, null, null, new String[]{"TABLE"})) {
+      assertThat(tables.next()).isFalse();
+    } finally {
+      adapter.closeConnection(newConnection);
+    }
+  }
+
+  @Test
+  public void testHyperSqlTearDownCleansTablesOfTheExecution() throws Exception {
+    final HyperSqlDataTableToSqlAdapter adapter = new HyperSqlDataTableToSqlAdapter();
+    final Connection connection = DriverManager.getConnection(adapter.jdbcConnection(),
+        adapter.jdbcProperties());
+    try {
+      adapter.loadTables(connection, ImmutableMap.of("first_data",
+          SimpleDataTable.fromDataFrame(new DataFrame()
+              .addSeries("met", DoubleSeries.buildFrom(1.0)))));
+      try (final Statement statement = connection.createStatement()) {
+        statement.execute("CREATE TABLE query_data AS (SELECT met FROM first_data) WITH DATA");
+        statement.execute("CREATE VIEW query_view AS SELECT met FROM first_data");
+      }
+      adapter.tearDown(connection);
+      // the loaded table is kept but empty, the tables and views of the queries are dropped
+      assertThat(tableNames(connection)).containsExactly("FIRST_DATA");
+      assertThat(count(connection, "first_data")).isEqualTo(0);
+
+      // a loaded table that is not loaded again is dropped
+      adapter.loadTables(connection, ImmutableMap.of("second_data",
+          SimpleDataTable.fromDataFrame(new DataFrame()
+              .addSeries("met", DoubleSeries.buildFrom(2.0)))));
+      assertThat(tableNames(connection)).containsExactly("SECOND_DATA");
+      assertThat(count(connection, "second_data")).isEqualTo(1);
+      adapter.tearDown(connection);
+    } finally {
+      adapter.closeConnection(connection);
+    }
+  }
+
+  private static List<String> tableNames(final Connection connection) throws SQLException {
+    final List<String> tableNames = new ArrayList<>();
+    try (final ResultSet tables = connection.getMetaData()
+        .getTables(null, null, null, new String[]{"TABLE", "VIEW"})) {
+      while (tables.next()) {
+        tableNames.add(tables.getString("TABLE_NAME"));
+      }
+    }
+    return tableNames;
+  }
+
+  private static long count(final Connection connection, final String tableName)
+      throws SQLException {
+    try (final Statement statement = connection.createStatement();
+        final ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM " + tableName)) {
+      rs.next();
+      return rs.getLong(1);
+    }
+  }
+
   private void testSqlExecution(Map<String, Object> customParams) throws Exception {
     Map<String, Object> params = new HashMap<>();
     params.put("sql.queries",
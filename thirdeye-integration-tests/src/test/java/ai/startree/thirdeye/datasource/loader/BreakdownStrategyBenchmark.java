@@ -0,0 +1,251 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.datasource.loader;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import ai.startree.thirdeye.config.ExecutorsConfiguration;
+import ai.startree.thirdeye.datasource.cache.DataSourceCache;
+import ai.startree.thirdeye.plugins.datasource.pinot.PinotSqlExpressionBuilder;
+import ai.startree.thirdeye.plugins.datasource.pinot.PinotSqlLanguage;
+import ai.startree.thirdeye.rootcause.configuration.RcaConfiguration;
+import ai.startree.thirdeye.spi.Constants;
+import ai.startree.thirdeye.spi.dataframe.DataFrame;
+import ai.startree.thirdeye.spi.datalayer.Templatable;
+import ai.startree.thirdeye.spi.datalayer.dto.DatasetConfigDTO;
+import ai.startree.thirdeye.spi.datalayer.dto.MetricConfigDTO;
+import ai.startree.thirdeye.spi.datasource.BreakdownStrategy;
+import ai.startree.thirdeye.spi.datasource.DataSourceRequest;
+import ai.startree.thirdeye.spi.datasource.ThirdEyeDataSource;
+import ai.startree.thirdeye.spi.datasource.ThirdEyeDataSourceContext;
+import ai.startree.thirdeye.spi.datasource.macro.SqlExpressionBuilder;
+import ai.startree.thirdeye.spi.datasource.macro.SqlLanguage;
+import ai.startree.thirdeye.spi.detection.v2.DataTable;
+import ai.startree.thirdeye.spi.detection.v2.SimpleDataTable;
+import ai.startree.thirdeye.spi.metric.MetricSlice;
+import ai.startree.thirdeye.util.ExecutorRegistry;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import org.joda.time.DateTimeZone;
+import org.joda.time.Interval;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compares the {@link BreakdownStrategy#PER_DIMENSION} and
+ * {@link BreakdownStrategy#SINGLE_GROUP_BY} breakdowns of {@link DefaultAggregationLoader} on a
+ * dataset with 30 dimensions. The data source is simulated: each query costs a full scan of the
+ * table, and the data source runs a limited number of scans concurrently. Run the main method
+ * manually.
+ */
+public class BreakdownStrategyBenchmark {
+
+  private static final Logger LOG = LoggerFactory.getLogger(BreakdownStrategyBenchmark.class);
+
+  private static final int N_ROUNDS = 15;
+  private static final int N_DIMENSIONS = 30;
+  private static final int N_ROWS = 20_000;
+  private static final int BREAKDOWN_LIMIT = 100;
+  private static final long SCAN_LATENCY_MILLIS = 50;
+  private static final int MAX_CONCURRENT_SCANS = 4;
+  private static final long DAY_MILLIS = 86400_000L;
+  private static final long START_TIME = 1640995200000L; // 2022-01-01 UTC
+
+  private static final SqlLanguage SQL_LANGUAGE = new PinotSqlLanguage();
+  private static final SqlExpressionBuilder SQL_EXPRESSION_BUILDER = new PinotSqlExpressionBuilder();
+
+  private final List<String> dimensions = new ArrayList<>();
+  private final DataFrame table;
+  private final Map<BreakdownStrategy, ScanningDataSource> dataSources = new HashMap<>();
+  private final DefaultAggregationLoader aggregationLoader;
+
+  private int run = 0;
+  private long tStart;
+  private List<Long> times = new ArrayList<>();
+
+  public BreakdownStrategyBenchmark() {
+    for (int i = 0; i < N_DIMENSIONS; i++) {
+      dimensions.add(String.format("dim%02d", i));
+    }
+    table = generateTable(dimensions);
+
+    final DataSourceCache dataSourceCache = mock(DataSourceCache.class);
+    for (final BreakdownStrategy strategy : List.of(BreakdownStrategy.PER_DIMENSION,
+        BreakdownStrategy.SINGLE_GROUP_BY)) {
+      final ScanningDataSource dataSource = new ScanningDataSource(strategy);
+      dataSources.put(strategy, dataSource);
+      when(dataSourceCache.getDataSource(strategy.name())).thenReturn(dataSource);
+    }
+    aggregationLoader = new DefaultAggregationLoader(dataSourceCache,
+        new ExecutorRegistry(new ExecutorsConfiguration()),
+        new RcaConfiguration());
+  }
+
+  private static DataFrame generateTable(final List<String> dimensions) {
+    final Random random = new Random(0);
+    final DataFrame df = new DataFrame();
+    for (int d = 0; d < dimensions.size(); d++) {
+      final int cardinality = 3 + 5 * d;
+      final String[] values = new String[N_ROWS];
+      for (int i = 0; i < N_ROWS; i++) {
+        values[i] = "v" + random.nextInt(cardinality);
+      }
+      df.addSeries(dimensions.get(d), values);
+    }
+    final double[] metricValues = new double[N_ROWS];
+    for (int i = 0; i < N_ROWS; i++) {
+      metricValues[i] = random.nextInt(1000);
+    }
+    return df.addSeries(Constants.COL_VALUE, metricValues);
+  }
+
+  private void benchmark(final BreakdownStrategy strategy) throws Exception {
+    final MetricConfigDTO metricConfigDTO = new MetricConfigDTO()
+        .setName("views")
+        .setDefaultAggFunction("SUM");
+    final DatasetConfigDTO datasetConfigDTO = new DatasetConfigDTO()
+        .setDataset("pageviews")
+        .setDataSource(strategy.name())
+        .setTimeColumn("ts")
+        .setTimeFormat("1:MILLISECONDS:EPOCH")
+        .setDimensions(Templatable.of(dimensions));
+
+    final ScanningDataSource dataSource = dataSources.get(strategy);
+    dataSource.scans.set(0);
+    long checksum = 0;
+    for (int r = 0; r < N_ROUNDS; r++) {
+      // a different interval per run: the breakdown cache must not be hit
+      final long endTime = START_TIME + (run++) * DAY_MILLIS;
+      final MetricSlice slice = MetricSlice.from(metricConfigDTO,
+          new Interval(endTime - DAY_MILLIS, endTime, DateTimeZone.UTC),
+          datasetConfigDTO);
+      startTimer();
+      final DataFrame breakdown = aggregationLoader.loadBreakdown(slice, BREAKDOWN_LIMIT);
+      stopTimer();
+      checksum += (long) breakdown.getDoubles(Constants.COL_VALUE).sum().fillNull().doubleValue();
+    }
+    logResults(strategy.name(), checksum, dataSource.scans.get());
+  }
+
+  private void startTimer() {
+    this.tStart = System.nanoTime();
+  }
+
+  private void stopTimer() {
+    this.times.add(System.nanoTime() - this.tStart);
+  }
+
+  private void logResults(final String name, final long checksum, final int scans) {
+    Collections.sort(this.times);
+    final long tMid = this.times.get(this.times.size() / 2);
+    final long tMin = Collections.min(this.times);
+    final long tMax = Collections.max(this.times);
+    LOG.info("{}: min/mid/max = {}ms {}ms {}ms [chk={}, cnt={}, scans={}]", name, tMin / 1000000,
+        tMid / 1000000, tMax / 1000000, checksum, this.times.size(), scans);
+
+    // reset timer stats
+    this.times = new ArrayList<>();
+  }
+
+  /**
+   * Simulated data source. Queries grouping by a single dimension are aggregated from the table,
+   * queries grouping by all the dimensions return the table.
+   */
+  private class ScanningDataSource implements ThirdEyeDataSource {
+
+    private final BreakdownStrategy strategy;
+    private final Semaphore scanSlots = new Semaphore(MAX_CONCURRENT_SCANS);
+    private final AtomicInteger scans = new AtomicInteger();
+
+    private ScanningDataSource(final BreakdownStrategy strategy) {
+      this.strategy = strategy;
+    }
+
+    @Override
+    public String getName() {
+      return strategy.name();
+    }
+
+    @Override
+    public void init(final ThirdEyeDataSourceContext context) {
+    }
+
+    @Override
+    public DataTable fetchDataTable(final DataSourceRequest request) throws Exception {
+      scanSlots.acquire();
+      try {
+        scans.incrementAndGet();
+        Thread.sleep(SCAN_LATENCY_MILLIS);
+      } finally {
+        scanSlots.release();
+      }
+      final List<String> queriedDimensions = dimensions.stream()
+          .filter(d -> Pattern.compile("\\b" + d + "\\b").matcher(request.getQuery()).find())
+          .collect(Collectors.toList());
+      if (queriedDimensions.size() == 1) {
+        final String dimension = queriedDimensions.get(0);
+        return SimpleDataTable.fromDataFrame(table.groupByValue(dimension)
+            .aggregate(Constants.COL_VALUE + ":SUM")
+            .sortedBy(Constants.COL_VALUE)
+            .reverse()
+            .head(BREAKDOWN_LIMIT));
+      }
+      return SimpleDataTable.fromDataFrame(table);
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public SqlLanguage getSqlLanguage() {
+      return SQL_LANGUAGE;
+    }
+
+    @Override
+    public SqlExpressionBuilder getSqlExpressionBuilder() {
+      return SQL_EXPRESSION_BUILDER;
+    }
+
+    @Override
+    public BreakdownStrategy getBreakdownStrategy() {
+      return strategy;
+    }
+  }
+
+  public static void main(final String[] args) throws Exception {
+    LOG.info("Press Enter key to start.");
+    System.in.read();
+
+    LOG.info("Running breakdown benchmark with {} dimensions ...", N_DIMENSIONS);
+    final BreakdownStrategyBenchmark b = new BreakdownStrategyBenchmark();
+    // warm up both paths before measuring
+    b.benchmark(BreakdownStrategy.PER_DIMENSION);
+    b.benchmark(BreakdownStrategy.SINGLE_GROUP_BY);
+
+    b.benchmark(BreakdownStrategy.PER_DIMENSION);
+    b.benchmark(BreakdownStrategy.SINGLE_GROUP_BY);
+    LOG.info("done.");
+    System.exit(0);
+  }
+}
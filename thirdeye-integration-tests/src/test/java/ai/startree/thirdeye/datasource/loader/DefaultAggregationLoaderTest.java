@@ -0,0 +1,251 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.datasource.loader;
+
+import static ai.startree.thirdeye.spi.datasource.loader.AggregationLoader.COL_DIMENSION_NAME;
+import static ai.startree.thirdeye.spi.datasource.loader.AggregationLoader.COL_DIMENSION_VALUE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import ai.startree.thirdeye.config.ExecutorsConfiguration;
+import ai.startree.thirdeye.datasource.cache.DataSourceCache;
+import ai.startree.thirdeye.plugins.datasource.pinot.PinotSqlExpressionBuilder;
+import ai.startree.thirdeye.plugins.datasource.pinot.PinotSqlLanguage;
+import ai.startree.thirdeye.rootcause.configuration.BreakdownConfiguration;
+import ai.startree.thirdeye.rootcause.configuration.RcaConfiguration;
+import ai.startree.thirdeye.spi.Constants;
+import ai.startree.thirdeye.spi.dataframe.DataFrame;
+import ai.startree.thirdeye.spi.dataframe.LongSeries;
+import ai.startree.thirdeye.spi.dataframe.StringSeries;
+import ai.startree.thirdeye.spi.datalayer.Templatable;
+import ai.startree.thirdeye.spi.datalayer.dto.DatasetConfigDTO;
+import ai.startree.thirdeye.spi.datalayer.dto.MetricConfigDTO;
+import ai.startree.thirdeye.spi.datasource.BreakdownStrategy;
+import ai.startree.thirdeye.spi.datasource.DataSourceRequest;
+import ai.startree.thirdeye.spi.datasource.ThirdEyeDataSource;
+import ai.startree.thirdeye.spi.datasource.ThirdEyeDataSourceContext;
+import ai.startree.thirdeye.spi.datasource.macro.SqlExpressionBuilder;
+import ai.startree.thirdeye.spi.datasource.macro.SqlLanguage;
+import ai.startree.thirdeye.spi.detection.v2.DataTable;
+import ai.startree.thirdeye.spi.detection.v2.SimpleDataTable;
+import ai.startree.thirdeye.spi.metric.MetricSlice;
+import ai.startree.thirdeye.util.ExecutorRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import org.joda.time.DateTimeZone;
+import org.joda.time.Interval;
+import org.testng.annotations.Test;
+
+public class DefaultAggregationLoaderTest {
+
+  private static final List<String> DIMENSIONS = List.of("country", "browser", "device");
+  private static final int LIMIT = 3;
+  private static final Pattern LIMIT_PATTERN = Pattern.compile("\\bLIMIT\\s+(\\d+)",
+      Pattern.CASE_INSENSITIVE);
+
+  private static final SqlLanguage SQL_LANGUAGE = new PinotSqlLanguage();
+  private static final SqlExpressionBuilder SQL_EXPRESSION_BUILDER =
+      new PinotSqlExpressionBuilder();
+
+  // the sums of the values of a dimension are all different: the top values are not ambiguous
+  private static final DataFrame TABLE = new DataFrame()
+      .addSeries("country", "US", "US", "FR", "FR", "DE", null, "US")
+      .addSeries("browser", "chrome", "firefox", "chrome", null, "safari", "chrome", "safari")
+      .addSeries("device", "mobile", "desktop", "desktop", "mobile", null, "mobile", "desktop")
+      .addSeries(Constants.COL_VALUE, 1., 2., 4., 8., 16., 32., 64.);
+
+  private static final List<String> EXPECTED_BREAKDOWN = List.of(
+      "country=US:67.0",
+      "country=null:32.0",
+      "country=DE:16.0",
+      "browser=safari:80.0",
+      "browser=chrome:37.0",
+      "browser=null:8.0",
+      "device=desktop:70.0",
+      "device=mobile:41.0",
+      "device=null:16.0");
+
+  private static MetricSlice slice(final BreakdownStrategy strategy) {
+    final MetricConfigDTO metricConfigDTO = new MetricConfigDTO()
+        .setName("views")
+        .setDefaultAggFunction("SUM");
+    final DatasetConfigDTO datasetConfigDTO = new DatasetConfigDTO()
+        .setDataset("pageviews")
+        .setDataSource(strategy.name())
+        .setTimeColumn("ts")
+        .setTimeFormat("1:MILLISECONDS:EPOCH")
+        .setDimensions(Templatable.of(DIMENSIONS));
+    return MetricSlice.from(metricConfigDTO,
+        new Interval(0L, 86400_000L, DateTimeZone.UTC),
+        datasetConfigDTO);
+  }
+
+  private static DefaultAggregationLoader aggregationLoader(final int singleScanMaxRows,
+      final ThirdEyeDataSource... dataSources) {
+    final DataSourceCache dataSourceCache = mock(DataSourceCache.class);
+    for (final ThirdEyeDataSource dataSource : dataSources) {
+      when(dataSourceCache.getDataSource(dataSource.getName())).thenReturn(dataSource);
+    }
+    final RcaConfiguration rcaConfiguration = new RcaConfiguration()
+        .setBreakdown(new BreakdownConfiguration().setSingleScanMaxRows(singleScanMaxRows));
+    return new DefaultAggregationLoader(dataSourceCache,
+        new ExecutorRegistry(new ExecutorsConfiguration()),
+        rcaConfiguration);
+  }
+
+  private static List<String> rows(final DataFrame breakdown) {
+    final List<String> rows = new ArrayList<>();
+    for (int i = 0; i < breakdown.size(); i++) {
+      rows.add(breakdown.getString(COL_DIMENSION_NAME, i)
+          + "=" + breakdown.getString(COL_DIMENSION_VALUE, i)
+          + ":" + breakdown.getDouble(Constants.COL_VALUE, i));
+    }
+    return rows;
+  }
+
+  @Test
+  public void testSingleGroupByBreakdownEqualsPerDimensionBreakdown() throws Exception {
+    final TableDataSource perDimension = new TableDataSource(BreakdownStrategy.PER_DIMENSION);
+    final TableDataSource singleGroupBy = new TableDataSource(BreakdownStrategy.SINGLE_GROUP_BY);
+    final DefaultAggregationLoader loader = aggregationLoader(100, perDimension, singleGroupBy);
+
+    final DataFrame expected = loader.loadBreakdown(slice(BreakdownStrategy.PER_DIMENSION), LIMIT);
+    final DataFrame output = loader.loadBreakdown(slice(BreakdownStrategy.SINGLE_GROUP_BY), LIMIT);
+
+    assertThat(rows(expected)).containsExactlyInAnyOrderElementsOf(EXPECTED_BREAKDOWN);
+    assertThat(rows(output)).containsExactlyInAnyOrderElementsOf(rows(expected));
+    assertThat(perDimension.queries.get()).isEqualTo(DIMENSIONS.size());
+    assertThat(singleGroupBy.queries.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void testSingleGroupByBreakdownFallsBackToPerDimensionOnRowLimit() throws Exception {
+    final TableDataSource singleGroupBy = new TableDataSource(BreakdownStrategy.SINGLE_GROUP_BY);
+    // the single scan query returns 5 of the 7 rows of the table
+    final DefaultAggregationLoader loader = aggregationLoader(5, singleGroupBy);
+
+    final DataFrame output = loader.loadBreakdown(slice(BreakdownStrategy.SINGLE_GROUP_BY), LIMIT);
+
+    assertThat(rows(output)).containsExactlyInAnyOrderElementsOf(EXPECTED_BREAKDOWN);
+    assertThat(singleGroupBy.queries.get()).isEqualTo(1 + DIMENSIONS.size());
+  }
+
+  @Test
+  public void testGroupingSetsBreakdownKeepsNullDimensionValues() throws Exception {
+    final TableDataSource groupingSets = new TableDataSource(BreakdownStrategy.GROUPING_SETS);
+    final DefaultAggregationLoader loader = aggregationLoader(100, groupingSets);
+
+    final DataFrame output = loader.loadBreakdown(slice(BreakdownStrategy.GROUPING_SETS), LIMIT);
+
+    assertThat(rows(output)).containsExactlyInAnyOrderElementsOf(EXPECTED_BREAKDOWN);
+    assertThat(groupingSets.queries.get()).isEqualTo(1);
+  }
+
+  /**
+   * Returns the result of a GROUPING SETS query on {@link #TABLE}, with a grouping set per
+   * dimension. In the rows of a set, the other dimensions are null and their GROUPING() column,
+   * named as in DefaultAggregationLoader, is 1.
+   */
+  private static DataFrame groupingSetsResult() {
+    final List<DataFrame> sets = new ArrayList<>();
+    for (int i = 0; i < DIMENSIONS.size(); i++) {
+      final DataFrame aggregated = TABLE.groupByValue(DIMENSIONS.get(i))
+          .aggregate(Constants.COL_VALUE + ":SUM");
+      final DataFrame set = new DataFrame();
+      for (int j = 0; j < DIMENSIONS.size(); j++) {
+        set.addSeries(DIMENSIONS.get(j), i == j
+            ? aggregated.get(DIMENSIONS.get(j))
+            : StringSeries.nulls(aggregated.size()));
+      }
+      for (int j = 0; j < DIMENSIONS.size(); j++) {
+        set.addSeries("groupingOf" + j, LongSeries.fillValues(aggregated.size(), i == j ? 0 : 1));
+      }
+      sets.add(set.addSeries(Constants.COL_VALUE, aggregated.get(Constants.COL_VALUE)));
+    }
+    return sets.get(0).append(sets.subList(1, sets.size()));
+  }
+
+  /**
+   * Data source backed by {@link #TABLE}. Queries grouping by a single dimension are aggregated
+   * from the table, queries grouping by all the dimensions return the rows of the table. GROUPING
+   * SETS queries return {@link #groupingSetsResult()}.
+   */
+  private static class TableDataSource implements ThirdEyeDataSource {
+
+    private final BreakdownStrategy strategy;
+    private final AtomicInteger queries = new AtomicInteger();
+
+    private TableDataSource(final BreakdownStrategy strategy) {
+      this.strategy = strategy;
+    }
+
+    @Override
+    public String getName() {
+      return strategy.name();
+    }
+
+    @Override
+    public void init(final ThirdEyeDataSourceContext context) {
+    }
+
+    @Override
+    public DataTable fetchDataTable(final DataSourceRequest request) {
+      queries.incrementAndGet();
+      final String query = request.getQuery();
+      if (query.toUpperCase(Locale.ROOT).contains("GROUPING SETS")) {
+        return SimpleDataTable.fromDataFrame(groupingSetsResult());
+      }
+      final Matcher limitMatcher = LIMIT_PATTERN.matcher(query);
+      final int limit = limitMatcher.find()
+          ? Integer.parseInt(limitMatcher.group(1))
+          : TABLE.size();
+      final List<String> queriedDimensions = DIMENSIONS.stream()
+          .filter(d -> Pattern.compile("\\b" + d + "\\b").matcher(query).find())
+          .collect(Collectors.toList());
+      if (queriedDimensions.size() == 1) {
+        return SimpleDataTable.fromDataFrame(TABLE.groupByValue(queriedDimensions.get(0))
+            .aggregate(Constants.COL_VALUE + ":SUM")
+            .sortedBy(Constants.COL_VALUE)
+            .reverse()
+            .head(limit));
+      }
+      return SimpleDataTable.fromDataFrame(TABLE.head(limit));
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public SqlLanguage getSqlLanguage() {
+      return SQL_LANGUAGE;
+    }
+
+    @Override
+    public SqlExpressionBuilder getSqlExpressionBuilder() {
+      return SQL_EXPRESSION_BUILDER;
+    }
+
+    @Override
+    public BreakdownStrategy getBreakdownStrategy() {
+      return strategy;
+    }
+  }
+}
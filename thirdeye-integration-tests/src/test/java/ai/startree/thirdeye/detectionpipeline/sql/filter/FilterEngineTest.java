@@ -58,6 +58,26 @@ public class FilterEngineTest {
         .isEqualTo(IntegrationTestUtils.cleanSql(expected));
   }
 
+  @Test
+  public void testCachedQueryIsNotModifiedByFilterInjection() {
+    final String query = "SELECT timeCol AS ts, metric AS met FROM tableName WHERE ts >= 1232456765 AND ts < 5432987654";
+    final String quotedQuery = "SELECT \"timeCol\" AS \"ts\", \"metric\" AS \"met\" FROM \"tableName\" WHERE \"ts\" >= 1232456765 AND \"ts\" < 5432987654";
+
+    final String output1 = new FilterEngine(TEST_SQL_LANGUAGE,
+        query,
+        List.of(STRING_FILTER_EQUAL)).prepareQuery();
+    // same query text: the parsed query is served from the cache
+    final String output2 = new FilterEngine(TEST_SQL_LANGUAGE,
+        query,
+        List.of(STRING_FILTER_NOT_EQUAL)).prepareQuery();
+
+    Assertions.assertThat(IntegrationTestUtils.cleanSql(output1))
+        .isEqualTo(IntegrationTestUtils.cleanSql(quotedQuery + QUOTED_STRING_FILTER_EQUAL_TO_STRING));
+    Assertions.assertThat(IntegrationTestUtils.cleanSql(output2))
+        .isEqualTo(IntegrationTestUtils.cleanSql(
+            quotedQuery + QUOTED_STRING_FILTER_NOT_EQUAL_TO_STRING));
+  }
+
   @Test
   public void testSingleFilterEqualString() {
     final String query = "SELECT timeCol AS ts, metric AS met FROM tableName WHERE ts >= 1232456765 AND ts < 5432987654";
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.detectionpipeline.sql.macro;
+
+import ai.startree.thirdeye.detectionpipeline.sql.SqlParseCache;
+import ai.startree.thirdeye.plugins.datasource.pinot.PinotSqlExpressionBuilder;
+import ai.startree.thirdeye.plugins.datasource.pinot.PinotSqlLanguage;
+import ai.startree.thirdeye.spi.datalayer.dto.DatasetConfigDTO;
+import ai.startree.thirdeye.spi.datasource.macro.SqlExpressionBuilder;
+import ai.startree.thirdeye.spi.datasource.macro.SqlLanguage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.joda.time.DateTimeZone;
+import org.joda.time.Interval;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Measures the cost of {@link MacroEngine#prepareRequest()} for many alerts sharing the same
+ * template query, with and without the {@link SqlParseCache}. Run the main method manually.
+ */
+public class MacroEngineBenchmark {
+
+  private static final Logger LOG = LoggerFactory.getLogger(MacroEngineBenchmark.class);
+
+  private static final int N_ROUNDS = 15;
+  private static final int N_ALERTS = 5_000;
+  private static final long HOUR_MILLIS = 3600_000L;
+  private static final long START_TIME = 1640995200000L; // 2022-01-01 UTC
+
+  private static final SqlLanguage SQL_LANGUAGE = new PinotSqlLanguage();
+  private static final SqlExpressionBuilder SQL_EXPRESSION_BUILDER = new PinotSqlExpressionBuilder();
+  private static final DatasetConfigDTO DATASET_CONFIG_DTO = new DatasetConfigDTO()
+      .setDataset("pageviews")
+      .setTimeColumn("ts")
+      .setTimeFormat("1:MILLISECONDS:EPOCH");
+  private static final String QUERY = "SELECT __timeGroup(ts, '1:MILLISECONDS:EPOCH', 'PT1H') AS ts,"
+      + " SUM(views) AS met FROM pageviews"
+      + " WHERE __timeFilter(ts, '1:MILLISECONDS:EPOCH', 'P7D')"
+      + " AND country IN ('us', 'fr', 'de') AND browser <> 'bot'"
+      + " GROUP BY ts ORDER BY ts LIMIT 100000";
+
+  private long tStart;
+  private List<Long> times = new ArrayList<>();
+
+  private void benchmark(final String name, final boolean useCache) {
+    long checksum = 0;
+    for (int r = 0; r < N_ROUNDS; r++) {
+      startTimer();
+      for (int i = 0; i < N_ALERTS; i++) {
+        if (!useCache) {
+          SqlParseCache.invalidateAll();
+        }
+        // alerts run on a few cron schedules: intervals are shared by groups of alerts
+        final long endTime = START_TIME + (i % 24) * HOUR_MILLIS;
+        final Interval interval = new Interval(endTime - HOUR_MILLIS, endTime, DateTimeZone.UTC);
+        checksum += new MacroEngine(SQL_LANGUAGE,
+            SQL_EXPRESSION_BUILDER,
+            interval,
+            DATASET_CONFIG_DTO,
+            QUERY).prepareRequest().getQuery().length();
+      }
+      stopTimer();
+    }
+    logResults(name, checksum);
+  }
+
+  private void startTimer() {
+    this.tStart = System.nanoTime();
+  }
+
+  private void stopTimer() {
+    this.times.add(System.nanoTime() - this.tStart);
+  }
+
+  private void logResults(final String name, final long checksum) {
+    Collections.sort(this.times);
+    final long tMid = this.times.get(this.times.size() / 2);
+    final long tMin = Collections.min(this.times);
+    final long tMax = Collections.max(this.times);
+    LOG.info("{}: min/mid/max = {}ms {}ms {}ms [chk={}, cnt={}]", name, tMin / 1000000,
+        tMid / 1000000, tMax / 1000000, checksum % 1000, this.times.size());
+
+    // reset timer stats
+    this.times = new ArrayList<>();
+  }
+
+  public static void main(final String[] args) throws Exception {
+    LOG.info("Press Enter key to start.");
+    System.in.read();
+
+    LOG.info("Running MacroEngine benchmark ...");
+    final MacroEngineBenchmark b = new MacroEngineBenchmark();
+    // warm up both paths before measuring
+    b.benchmark("warmupNoCache", false);
+    b.benchmark("warmupCache", true);
+
+    b.benchmark("noCache", false);
+    b.benchmark("cache", true);
+    LOG.info("done.");
+  }
+}
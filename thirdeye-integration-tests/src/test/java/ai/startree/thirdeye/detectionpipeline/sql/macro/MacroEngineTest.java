@@ -123,6 +123,36 @@ public class MacroEngineTest {
     prepareRequestAndAssert(inputQuery, INPUT_INTERVAL, expectedQuery, expectedProperties);
   }
 
+  @Test
+  public void testTimeFilterMacroWithTimeFilterInterval() {
+    // the time filter interval replaces the detection interval and the lookback
+    final String inputQuery = String.format(
+        "select * from tableName where __timeFilter(timeCol, '%s', 'P7D')",
+        INPUT_TIME_COLUMN_FORMAT);
+    final Interval timeFilterInterval = new Interval(INPUT_END_TIME - 3600_000L, INPUT_END_TIME,
+        DateTimeZone.UTC);
+
+    final DataSourceRequest output = new MacroEngine(MOCK_SQL_LANGUAGE,
+        MOCK_SQL_EXPRESSION_BUILDER,
+        INPUT_INTERVAL,
+        DATASET_CONFIG_DTO,
+        inputQuery)
+        .setTimeFilterInterval(timeFilterInterval)
+        .prepareRequest();
+
+    final String expectedQuery = String.format("SELECT * FROM tableName WHERE %s",
+        MOCK_SQL_EXPRESSION_BUILDER.getTimeFilterExpression("timeCol",
+            timeFilterInterval,
+            INPUT_TIME_COLUMN_FORMAT));
+    assertThat(IntegrationTestUtils.cleanSql(output.getQuery())).isEqualTo(
+        IntegrationTestUtils.cleanSql(expectedQuery));
+    assertThat(output.getProperties()).isEqualTo(ImmutableMap.of(
+        MacroMetadataKeys.MIN_TIME_MILLIS.toString(),
+        String.valueOf(INPUT_END_TIME - 3600_000L),
+        MacroMetadataKeys.MAX_TIME_MILLIS.toString(),
+        String.valueOf(INPUT_END_TIME)));
+  }
+
   @Test
   public void testTimeFilterMacroWithAutoTimeConfig() {
     final String inputQuery = String.format("select * from tableName where __timeFilter(%s, '%s')",
@@ -28,13 +28,20 @@ import ai.startree.thirdeye.spi.datalayer.dto.AlertDTO;
 import ai.startree.thirdeye.spi.datalayer.dto.AnomalyDTO;
 import ai.startree.thirdeye.spi.datalayer.dto.SubscriptionGroupDTO;
 import ai.startree.thirdeye.spi.detection.AnomalyResultSource;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
-import java.util.Collection;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.joda.time.Interval;
 
 /**
@@ -48,6 +55,10 @@ public class SubscriptionGroupFilter {
       AnomalyResultSource.DEFAULT_ANOMALY_DETECTION,
       AnomalyResultSource.ANOMALY_REPLAY
   );
+  // bounds the size of the IN clause of the anomaly queries
+  private static final int ALERT_IDS_BATCH_SIZE = 500;
+  // alerts whose start times are within this duration are fetched in the same query
+  private static final long START_TIME_GROUPING_MILLIS = TimeUnit.HOURS.toMillis(1);
 
   private final AnomalyManager anomalyManager;
   private final AlertManager alertManager;
@@ -88,6 +99,11 @@ public class SubscriptionGroupFilter {
   /**
    * Find anomalies for the given subscription group given an end time.
    *
+   * Alerts are fetched in a single query. Candidate anomalies of the associations are fetched
+   * with one range query per group of alerts with close start times, then matched to the
+   * associations and their vector clocks in memory. The feedback is loaded with the candidates,
+   * only the children of the anomalies to notify are loaded afterwards.
+   *
    * @param sg subscription group
    * @param endTime end time
    * @return set of anomalies
@@ -98,13 +114,89 @@ public class SubscriptionGroupFilter {
 
     // Fetch all the anomalies to be notified to the recipients
     final Map<Long, Long> vectorClocks = newVectorClocks(alertAssociations, sg.getVectorClocks());
-    return alertAssociations.stream()
-        .filter(aa -> isAlertActive(aa.getAlert().getId()))
-        .map(alertAssociation -> findAnomaliesForAlertAssociation(alertAssociation,
-            vectorClocks,
-            endTime))
-        .flatMap(Collection::stream)
-        .collect(toSet());
+    final Set<Long> activeAlertIds = findActiveAlertIds(alertAssociations);
+
+    // alert id -> enumeration item ids to notify. null means all the anomalies of the alert
+    final Map<Long, Set<Long>> enumerationItemIdsByAlertId = new HashMap<>();
+    for (final AlertAssociationDto aa : alertAssociations) {
+      final long alertId = aa.getAlert().getId();
+      if (!activeAlertIds.contains(alertId)) {
+        continue;
+      }
+      final Long enumerationItemId = optional(aa.getEnumerationItem())
+          .map(AbstractDTO::getId)
+          .orElse(null);
+      if (enumerationItemId == null) {
+        enumerationItemIdsByAlertId.put(alertId, null);
+      } else if (!enumerationItemIdsByAlertId.containsKey(alertId)
+          || enumerationItemIdsByAlertId.get(alertId) != null) {
+        enumerationItemIdsByAlertId.computeIfAbsent(alertId, k -> new HashSet<>())
+            .add(enumerationItemId);
+      }
+    }
+    if (enumerationItemIdsByAlertId.isEmpty()) {
+      return Set.of();
+    }
+
+    final Map<Long, Long> startTimes = new HashMap<>();
+    for (final Long alertId : enumerationItemIdsByAlertId.keySet()) {
+      startTimes.put(alertId, findStartTime(vectorClocks, endTime, alertId));
+    }
+
+    final List<AnomalyDTO> anomalies = new ArrayList<>();
+    for (final List<Long> alertIds : groupByStartTime(startTimes)) {
+      final long groupStartTime = startTimes.get(alertIds.get(0));
+      final AnomalyFilter anomalyFilter = new AnomalyFilter()
+          .setCreateTimeWindow(new Interval(groupStartTime + 1, endTime))
+          .setAlertIds(alertIds)
+          .setIsChild(false);
+      for (final AnomalyDTO anomaly : anomalyManager.filterWithFeedback(anomalyFilter)) {
+        final Long alertId = anomaly.getDetectionConfigId();
+        if (isNotifiable(anomaly, enumerationItemIdsByAlertId.get(alertId))
+            && shouldFilter(anomaly, startTimes.get(alertId))) {
+          anomalies.add(anomaly);
+        }
+      }
+    }
+    return new HashSet<>(anomalyManager.decorateWithChildren(anomalies));
+  }
+
+  /**
+   * Groups the alert ids by increasing start time. A group is fetched from the start time of its
+   * first alert, so an alert fetches at most START_TIME_GROUPING_MILLIS of anomalies before its
+   * own start time. The groups are bounded by ALERT_IDS_BATCH_SIZE.
+   */
+  @VisibleForTesting
+  static List<List<Long>> groupByStartTime(final Map<Long, Long> startTimes) {
+    final List<Long> alertIds = new ArrayList<>(startTimes.keySet());
+    alertIds.sort(Comparator.comparing(startTimes::get));
+
+    final List<List<Long>> groups = new ArrayList<>();
+    List<Long> group = new ArrayList<>();
+    for (final Long alertId : alertIds) {
+      if (!group.isEmpty() && (group.size() == ALERT_IDS_BATCH_SIZE
+          || startTimes.get(alertId) - startTimes.get(group.get(0))
+          > START_TIME_GROUPING_MILLIS)) {
+        groups.add(group);
+        group = new ArrayList<>();
+      }
+      group.add(alertId);
+    }
+    if (!group.isEmpty()) {
+      groups.add(group);
+    }
+    return groups;
+  }
+
+  private static boolean isNotifiable(final AnomalyDTO anomaly,
+      final @Nullable Set<Long> enumerationItemIds) {
+    if (enumerationItemIds == null) {
+      return true;
+    }
+    return optional(anomaly.getEnumerationItem())
+        .map(AbstractDTO::getId)
+        .map(enumerationItemIds::contains)
+        .orElse(false);
   }
 
   /**
@@ -122,30 +214,18 @@ public class SubscriptionGroupFilter {
         .collect(Collectors.toList());
   }
 
-  private boolean isAlertActive(final long alertId) {
-    final AlertDTO alert = alertManager.findById(alertId);
-    return alert != null && alert.isActive();
-  }
-
-  private Set<AnomalyDTO> findAnomaliesForAlertAssociation(
-      final AlertAssociationDto aa,
-      final Map<Long, Long> vectorClocks,
-      final long endTime) {
-    final long alertId = aa.getAlert().getId();
-    final long startTime = findStartTime(vectorClocks, endTime, alertId);
-
-    final AnomalyFilter anomalyFilter = new AnomalyFilter()
-        .setCreateTimeWindow(new Interval(startTime + 1, endTime))
-        .setAlertId(alertId);
-
-    optional(aa.getEnumerationItem())
+  private Set<Long> findActiveAlertIds(final List<AlertAssociationDto> alertAssociations) {
+    final List<Long> alertIds = alertAssociations.stream()
+        .map(aa -> aa.getAlert().getId())
+        .distinct()
+        .collect(Collectors.toList());
+    if (alertIds.isEmpty()) {
+      return Set.of();
+    }
+    return alertManager.findByIds(alertIds).stream()
+        .filter(Objects::nonNull)
+        .filter(AlertDTO::isActive)
         .map(AbstractDTO::getId)
-        .ifPresent(anomalyFilter::setEnumerationItemId);
-
-    final Collection<AnomalyDTO> candidates = anomalyManager.filter(anomalyFilter);
-
-    return candidates.stream()
-        .filter(anomaly -> shouldFilter(anomaly, startTime))
         .collect(toSet());
   }
 }
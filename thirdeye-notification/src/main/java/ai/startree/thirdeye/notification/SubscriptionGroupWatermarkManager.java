@@ -15,8 +15,11 @@
 package ai.startree.thirdeye.notification;
 
 import static ai.startree.thirdeye.spi.util.SpiUtils.optional;
+import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toMap;
 
+import ai.startree.thirdeye.datalayer.DatabaseTransactionService;
+import ai.startree.thirdeye.datalayer.dao.GenericPojoDao;
 import ai.startree.thirdeye.spi.Constants;
 import ai.startree.thirdeye.spi.datalayer.bao.SubscriptionGroupManager;
 import ai.startree.thirdeye.spi.datalayer.dto.AbstractDTO;
@@ -25,6 +28,7 @@ import ai.startree.thirdeye.spi.datalayer.dto.AnomalyDTO;
 import ai.startree.thirdeye.spi.datalayer.dto.SubscriptionGroupDTO;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.util.Collection;
 import java.util.HashMap;
@@ -43,11 +47,17 @@ public class SubscriptionGroupWatermarkManager {
   private static final Logger LOG = LoggerFactory.getLogger(SubscriptionGroupWatermarkManager.class);
 
   private final SubscriptionGroupManager subscriptionGroupManager;
+  private final GenericPojoDao genericPojoDao;
+  private final DatabaseTransactionService transactionService;
 
   @Inject
   public SubscriptionGroupWatermarkManager(
-      final SubscriptionGroupManager subscriptionGroupManager) {
+      final SubscriptionGroupManager subscriptionGroupManager,
+      final GenericPojoDao genericPojoDao,
+      final DatabaseTransactionService transactionService) {
     this.subscriptionGroupManager = subscriptionGroupManager;
+    this.genericPojoDao = genericPojoDao;
+    this.transactionService = transactionService;
   }
 
   public static Map<Long, Long> buildVectorClock(Collection<AnomalyDTO> anomalies) {
@@ -114,4 +124,46 @@ public class SubscriptionGroupWatermarkManager {
     LOG.info("Updating watermarks for subscription config : {}", sg.getId());
     subscriptionGroupManager.save(sg);
   }
+
+  /**
+   * Marks the anomalies as notified and updates the watermarks of the subscription group, in a
+   * single transaction. Only the notified flag of the anomalies and the vectorClocks of the
+   * subscription group are written. If the transaction fails, nothing is written and the anomalies
+   * may be notified again.
+   */
+  public void markNotifiedAndUpdateWatermarks(final SubscriptionGroupDTO sg,
+      final Collection<AnomalyDTO> anomalies) {
+    if (anomalies.isEmpty()) {
+      return;
+    }
+    final List<Long> anomalyIds = anomalies.stream().map(AbstractDTO::getId).collect(toList());
+    final var merged = mergeWatermarks(sg.getVectorClocks(), buildVectorClock(anomalies));
+    LOG.info("Updating {} anomalies and watermarks for subscription config : {}",
+        anomalies.size(),
+        sg.getId());
+    boolean success;
+    try {
+      success = transactionService.executeTransaction(connection -> {
+        genericPojoDao.updatePartial(AnomalyDTO.class,
+            anomalyIds,
+            Map.of("notified", true),
+            connection);
+        genericPojoDao.updatePartial(SubscriptionGroupDTO.class,
+            List.of(sg.getId()),
+            Map.of("vectorClocks", merged),
+            connection);
+        return true;
+      }, false);
+    } catch (final SQLException e) {
+      LOG.error("Could not open a transaction for subscription config : {}", sg.getId(), e);
+      success = false;
+    }
+    if (!success) {
+      LOG.error("Could not mark anomalies as notified and update watermarks for subscription "
+          + "config : {}. The anomalies may be notified again.", sg.getId());
+      return;
+    }
+    anomalies.forEach(a -> a.setNotified(true));
+    sg.setVectorClocks(merged);
+  }
 }
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.notification;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import ai.startree.thirdeye.spi.datalayer.AnomalyFilter;
+import ai.startree.thirdeye.spi.datalayer.bao.AlertManager;
+import ai.startree.thirdeye.spi.datalayer.bao.AnomalyManager;
+import ai.startree.thirdeye.spi.datalayer.dto.AlertAssociationDto;
+import ai.startree.thirdeye.spi.datalayer.dto.AlertDTO;
+import ai.startree.thirdeye.spi.datalayer.dto.AnomalyDTO;
+import ai.startree.thirdeye.spi.datalayer.dto.EnumerationItemDTO;
+import ai.startree.thirdeye.spi.datalayer.dto.SubscriptionGroupDTO;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.mockito.ArgumentCaptor;
+import org.testng.annotations.Test;
+
+public class SubscriptionGroupFilterTest {
+
+  private static final long END_TIME = 100_000L;
+
+  private static AlertDTO alert(final long id, final boolean active) {
+    final AlertDTO alert = new AlertDTO();
+    alert.setId(id);
+    alert.setActive(active);
+    return alert;
+  }
+
+  private static EnumerationItemDTO enumerationItem(final long id) {
+    final EnumerationItemDTO enumerationItem = new EnumerationItemDTO();
+    enumerationItem.setId(id);
+    return enumerationItem;
+  }
+
+  private static AnomalyDTO anomaly(final long id, final long alertId,
+      final EnumerationItemDTO enumerationItem, final long createTime) {
+    final AnomalyDTO anomaly = new AnomalyDTO()
+        .setDetectionConfigId(alertId)
+        .setEnumerationItem(enumerationItem)
+        .setStartTime(id);
+    anomaly.setId(id);
+    anomaly.setCreateTime(new Timestamp(createTime));
+    return anomaly;
+  }
+
+  @Test
+  public void testFilterMatchesAssociationsAndVectorClocksInMemory() {
+    final AlertManager alertManager = mock(AlertManager.class);
+    final AnomalyManager anomalyManager = mock(AnomalyManager.class);
+    when(alertManager.findByIds(anyList()))
+        .thenReturn(List.of(alert(1L, true), alert(2L, true), alert(3L, false)));
+
+    final AnomalyDTO notified1 = anomaly(11L, 1L, enumerationItem(7L), 60_000L);
+    // before the vector clock of alert 1
+    final AnomalyDTO tooOld = anomaly(12L, 1L, enumerationItem(7L), 40_000L);
+    // enumeration item not subscribed
+    final AnomalyDTO otherItem = anomaly(13L, 1L, enumerationItem(8L), 60_000L);
+    // alert 2 is subscribed without enumeration item: all anomalies match
+    final AnomalyDTO notified2 = anomaly(21L, 2L, enumerationItem(9L), 20_000L);
+    when(anomalyManager.filterWithFeedback(any(AnomalyFilter.class)))
+        .thenReturn(List.of(notified1, tooOld, otherItem, notified2));
+    when(anomalyManager.decorateWithChildren(anyList())).thenAnswer(i -> i.getArgument(0));
+
+    final SubscriptionGroupDTO sg = new SubscriptionGroupDTO()
+        .setAlertAssociations(List.of(
+            new AlertAssociationDto()
+                .setAlert(alert(1L, true))
+                .setEnumerationItem(enumerationItem(7L)),
+            new AlertAssociationDto().setAlert(alert(2L, true)),
+            new AlertAssociationDto().setAlert(alert(3L, true))))
+        .setVectorClocks(Map.of(1L, 50_000L, 2L, 10_000L));
+
+    final Set<AnomalyDTO> anomalies = new SubscriptionGroupFilter(anomalyManager, alertManager)
+        .filter(sg, END_TIME);
+
+    assertThat(anomalies).containsExactlyInAnyOrder(notified1, notified2);
+    verify(alertManager, times(1)).findByIds(anyList());
+    verify(anomalyManager, times(1)).filterWithFeedback(any(AnomalyFilter.class));
+    // the feedback loaded with the candidates is not loaded again
+    verify(anomalyManager, never()).decorate(anyList());
+  }
+
+  @Test
+  public void testFilterQueriesEachGroupFromItsStartTime() {
+    final AlertManager alertManager = mock(AlertManager.class);
+    final AnomalyManager anomalyManager = mock(AnomalyManager.class);
+    when(alertManager.findByIds(anyList())).thenReturn(List.of(alert(1L, true), alert(2L, true)));
+    when(anomalyManager.filterWithFeedback(any(AnomalyFilter.class))).thenReturn(List.of());
+    when(anomalyManager.decorateWithChildren(anyList())).thenAnswer(i -> i.getArgument(0));
+
+    // alert 1 was never notified: it is looked back far in the past, alert 2 is not
+    final SubscriptionGroupDTO sg = new SubscriptionGroupDTO()
+        .setAlertAssociations(List.of(
+            new AlertAssociationDto().setAlert(alert(1L, true)),
+            new AlertAssociationDto().setAlert(alert(2L, true))))
+        .setVectorClocks(Map.of(2L, 50_000L));
+
+    new SubscriptionGroupFilter(anomalyManager, alertManager).filter(sg, END_TIME);
+
+    final ArgumentCaptor<AnomalyFilter> captor = ArgumentCaptor.forClass(AnomalyFilter.class);
+    verify(anomalyManager, times(2)).filterWithFeedback(captor.capture());
+    // groups are queried by increasing start time
+    final AnomalyFilter alert2Filter = captor.getAllValues().get(1);
+    assertThat(alert2Filter.getAlertIds()).containsExactly(2L);
+    assertThat(alert2Filter.getCreateTimeWindow().getStartMillis()).isEqualTo(50_001L);
+  }
+
+  @Test
+  public void testGroupByStartTime() {
+    final long hour = TimeUnit.HOURS.toMillis(1);
+    final Map<Long, Long> startTimes = Map.of(
+        1L, 0L,
+        2L, hour,
+        3L, hour + 1,
+        4L, 10 * hour,
+        5L, 10 * hour);
+
+    final List<List<Long>> groups = SubscriptionGroupFilter.groupByStartTime(startTimes);
+    assertThat(groups).hasSize(3);
+    assertThat(groups.get(0)).containsExactly(1L, 2L);
+    assertThat(groups.get(1)).containsExactly(3L);
+    assertThat(groups.get(2)).containsExactlyInAnyOrder(4L, 5L);
+  }
+
+  @Test
+  public void testFilterWithNoActiveAlertDoesNotQueryAnomalies() {
+    final AlertManager alertManager = mock(AlertManager.class);
+    final AnomalyManager anomalyManager = mock(AnomalyManager.class);
+    when(alertManager.findByIds(anyList())).thenReturn(List.of(alert(1L, false)));
+
+    final SubscriptionGroupDTO sg = new SubscriptionGroupDTO()
+        .setAlertAssociations(List.of(new AlertAssociationDto().setAlert(alert(1L, false))));
+
+    assertThat(new SubscriptionGroupFilter(anomalyManager, alertManager).filter(sg, END_TIME))
+        .isEmpty();
+    verify(anomalyManager, times(0)).filterWithFeedback(any(AnomalyFilter.class));
+  }
+}
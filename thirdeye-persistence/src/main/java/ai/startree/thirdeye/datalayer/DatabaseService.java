@@ -13,6 +13,8 @@
  */
 package ai.startree.thirdeye.datalayer;
 
+import static com.google.common.base.Preconditions.checkState;
+
 import ai.startree.thirdeye.datalayer.entity.AbstractEntity;
 import ai.startree.thirdeye.datalayer.entity.AbstractIndexEntity;
 import ai.startree.thirdeye.datalayer.util.GenericResultSetMapper;
@@ -26,6 +28,10 @@ import com.google.inject.Singleton;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import org.checkerframework.checker.nullness.qual.Nullable;
@@ -105,6 +111,37 @@ public class DatabaseService {
     }
   }
 
+  /**
+   * Insert the entities with a single JDBC batch. All entities must be of the same class.
+   * With MySQL, set rewriteBatchedStatements=true in the jdbc url: the driver then sends the batch
+   * as multi-row INSERT statements instead of one INSERT per entity.
+   *
+   * @return the generated ids, in the order of the entities
+   */
+  public <E extends AbstractEntity> List<Long> saveAll(final List<E> entities,
+      final Connection connection) throws Exception {
+    final long tStart = System.nanoTime();
+    try {
+      try (final PreparedStatement batchInsertStmt = sqlQueryBuilder
+          .createBatchInsertStatement(connection, entities)) {
+        batchInsertStmt.executeBatch();
+        final List<Long> generatedIds = new ArrayList<>(entities.size());
+        try (final ResultSet generatedKeys = batchInsertStmt.getGeneratedKeys()) {
+          while (generatedKeys.next()) {
+            generatedIds.add(generatedKeys.getLong(1));
+          }
+        }
+        checkState(generatedIds.size() == entities.size(),
+            "Batch insert of %s entities returned %s generated keys", entities.size(),
+            generatedIds.size());
+        return generatedIds;
+      }
+    } finally {
+      dbWriteCallCounter.inc();
+      dbWriteDuration.update(System.nanoTime() - tStart);
+    }
+  }
+
   public <E extends AbstractEntity> Integer update(final E entity, final Predicate predicate,
       final Connection connection)
       throws Exception {
@@ -117,19 +154,117 @@ public class DatabaseService {
       finalPredicate = Predicate.AND(predicate, Predicate.EQ(idCol, entity.getId()));
     }
     if (dbEntity != null) {
-      final long tStart = System.nanoTime();
       entity.setCreateTime(dbEntity.getCreateTime());
-      try {
-        try (final PreparedStatement baseTableInsertStmt = sqlQueryBuilder
-            .createUpdateStatement(connection, entity, null, finalPredicate)) {
-          return baseTableInsertStmt.executeUpdate();
+      return updateRow(entity, finalPredicate, connection);
+    }
+    return 0;
+  }
+
+  /**
+   * Update the entities by id with JDBC batches. All entities must be of the same class.
+   * Like {@link #update}, entities that do not exist in the database are ignored and createTime is
+   * preserved, but the existing rows are read with a single query.
+   *
+   * @return an upper bound of the number of rows updated. Drivers may not report the count of
+   *     each statement of a batch, for instance MySQL with rewriteBatchedStatements=true: such a
+   *     statement counts as one row updated.
+   */
+  public <E extends AbstractEntity> int updateAll(final List<E> entities,
+      final Connection connection) throws Exception {
+    if (entities.isEmpty()) {
+      return 0;
+    }
+    final Class<? extends AbstractEntity> clazz = entities.get(0).getClass();
+    final String idCol = getIdColumnName(clazz);
+    final Map<Long, Timestamp> createTimes = new HashMap<>();
+    findAll(Predicate.IN(idCol, entities.stream().map(AbstractEntity::getId).toArray()),
+        null,
+        null,
+        clazz,
+        connection).forEach(dbEntity -> createTimes.put(idOf(dbEntity), dbEntity.getCreateTime()));
+
+    final List<E> existingEntities = new ArrayList<>();
+    final List<Predicate> predicates = new ArrayList<>();
+    for (final E entity : entities) {
+      if (createTimes.containsKey(entity.getId())) {
+        entity.setCreateTime(createTimes.get(entity.getId()));
+        existingEntities.add(entity);
+        predicates.add(Predicate.EQ(idCol, entity.getId()));
+      }
+    }
+    if (existingEntities.isEmpty()) {
+      return 0;
+    }
+
+    final long tStart = System.nanoTime();
+    final List<PreparedStatement> statements = sqlQueryBuilder.createBatchUpdateStatements(
+        connection, existingEntities, predicates);
+    try {
+      int updateCounter = 0;
+      for (final PreparedStatement statement : statements) {
+        for (final int count : statement.executeBatch()) {
+          updateCounter += count == Statement.SUCCESS_NO_INFO ? 1 : count;
         }
-      } finally {
-        dbWriteCallCounter.inc();
-        dbWriteDuration.update(System.nanoTime() - tStart);
       }
+      return updateCounter;
+    } finally {
+      for (final PreparedStatement statement : statements) {
+        statement.close();
+      }
+      dbWriteCallCounter.inc();
+      dbWriteDuration.update(System.nanoTime() - tStart);
+    }
+  }
+
+  private static Long idOf(final AbstractEntity entity) {
+    return entity instanceof AbstractIndexEntity
+        ? ((AbstractIndexEntity) entity).getBaseId()
+        : entity.getId();
+  }
+
+  /**
+   * Update the row matching the predicate without reading it first. The caller is responsible for
+   * setting every column of the entity, including createTime.
+   */
+  public <E extends AbstractEntity> Integer updateRow(final E entity, final Predicate predicate,
+      final Connection connection) throws Exception {
+    final long tStart = System.nanoTime();
+    try {
+      try (final PreparedStatement baseTableInsertStmt = sqlQueryBuilder
+          .createUpdateStatement(connection, entity, null, predicate)) {
+        return baseTableInsertStmt.executeUpdate();
+      }
+    } finally {
+      dbWriteCallCounter.inc();
+      dbWriteDuration.update(System.nanoTime() - tStart);
+    }
+  }
+
+  /**
+   * Update some columns and some json fields of the rows matching the predicate. Unlike
+   * {@link #update}, the rows are not read first and the other columns are not rewritten.
+   * See {@link SqlQueryBuilder#createPartialUpdateStatement}.
+   *
+   * @return the number of rows updated
+   */
+  public int updatePartial(final Class<? extends AbstractEntity> entityClass,
+      final Map<String, Object> columnValues, final Map<String, String> jsonValues,
+      final Predicate predicate, final Connection connection) throws Exception {
+    final long tStart = System.nanoTime();
+    try {
+      try (final PreparedStatement updateStmt = sqlQueryBuilder.createPartialUpdateStatement(
+          connection,
+          entityClass,
+          columnValues,
+          jsonValues,
+          new Timestamp(System.currentTimeMillis()),
+          predicate)) {
+        return updateStmt.executeUpdate();
+      }
+    } finally {
+      dbWriteCallCounter.inc();
+      dbWriteDuration.update(System.nanoTime() - tStart);
     }
-    return 0;
   }
 
   public <E extends AbstractEntity> String getIdColumnName(final Class<E> clazz) {
@@ -21,6 +21,7 @@ import ai.startree.thirdeye.spi.datalayer.dto.AbstractDTO;
 import com.google.inject.persist.Transactional;
 import java.sql.Timestamp;
 import java.util.List;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
 
@@ -133,4 +134,9 @@ public abstract class AbstractManagerImpl<E extends AbstractDTO> implements Abst
   public long count(final Predicate predicate) {
     return genericPojoDao.count(predicate, dtoClass);
   }
+
+  @Override
+  public @Nullable List<Long> findIds() {
+    return genericPojoDao.findIds(null, dtoClass);
+  }
 }
@@ -25,6 +25,7 @@ import com.codahale.metrics.MetricRegistry;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 @Singleton
@@ -90,4 +91,12 @@ public class AlertManagerImpl extends AbstractManagerImpl<AlertDTO> implements
   public Long countActive() {
     return count(Predicate.EQ("active", true));
   }
+
+  @Override
+  public int updateLastTimestamp(final Long id, final long lastTimestamp) {
+    return genericPojoDao.updatePartial(AlertDTO.class,
+        id,
+        Map.of("lastTimestamp", lastTimestamp),
+        null);
+  }
 }
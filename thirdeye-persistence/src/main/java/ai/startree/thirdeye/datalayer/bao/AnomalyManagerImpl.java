@@ -31,6 +31,7 @@ import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -86,6 +87,73 @@ public class AnomalyManagerImpl extends AbstractManagerImpl<AnomalyDTO>
     }
   }
 
+  @Override
+  public void saveAll(final List<AnomalyDTO> anomalies, final int batchSize) {
+    // children are saved before their parent, because the parent references the child ids.
+    // anomalies are grouped by height in the anomaly tree: leaves first, then their parents, etc.
+    final List<List<AnomalyDTO>> anomaliesByHeight = new ArrayList<>();
+    final Map<AnomalyDTO, Integer> heights = new IdentityHashMap<>();
+    final Set<AnomalyDTO> ancestors = Collections.newSetFromMap(new IdentityHashMap<>());
+    for (final AnomalyDTO anomaly : anomalies) {
+      collectByHeight(anomaly, ancestors, heights, anomaliesByHeight);
+    }
+
+    for (final List<AnomalyDTO> sameHeightAnomalies : anomaliesByHeight) {
+      final List<AnomalyDTO> toCreate = new ArrayList<>();
+      final List<AnomalyDTO> toUpdate = new ArrayList<>();
+      for (final AnomalyDTO anomaly : sameHeightAnomalies) {
+        final AnomalyDTO mergeAnomalyBean = convertMergeAnomalyDTO2Bean(anomaly);
+        mergeAnomalyBean.setChildIds(optional(anomaly.getChildren())
+            .orElse(Collections.emptySet())
+            .stream()
+            .map(AnomalyDTO::getId)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toSet()));
+        if (mergeAnomalyBean.getId() == null) {
+          toCreate.add(mergeAnomalyBean);
+        } else {
+          toUpdate.add(mergeAnomalyBean);
+        }
+      }
+      genericPojoDao.createAll(toCreate, batchSize);
+      genericPojoDao.updateAll(toUpdate, batchSize);
+      toCreate.stream()
+          .filter(anomaly -> anomaly.getId() == null)
+          .forEach(anomaly -> LOG.error("Failed to store anomaly: {}", anomaly));
+    }
+  }
+
+  /**
+   * Returns the height of the anomaly in the anomaly tree: 0 for an anomaly without children. Adds
+   * the anomaly and its descendants to the list of anomalies of their height.
+   */
+  private int collectByHeight(final AnomalyDTO anomaly, final Set<AnomalyDTO> ancestors,
+      final Map<AnomalyDTO, Integer> heights, final List<List<AnomalyDTO>> anomaliesByHeight) {
+    final Integer knownHeight = heights.get(anomaly);
+    if (knownHeight != null) {
+      return knownHeight;
+    }
+    ancestors.add(anomaly);
+    int height = 0;
+    for (final AnomalyDTO child : optional(anomaly.getChildren()).orElse(Collections.emptySet())) {
+      if (ancestors.contains(child)) {
+        throw new IllegalArgumentException("Loop detected! Child anomaly referencing ancestor");
+      }
+      child.setAuth(anomaly.getAuth());
+      child.setChild(true);
+      height = Math.max(height,
+          1 + collectByHeight(child, ancestors, heights, anomaliesByHeight));
+    }
+    ancestors.remove(anomaly);
+
+    heights.put(anomaly, height);
+    while (anomaliesByHeight.size() <= height) {
+      anomaliesByHeight.add(new ArrayList<>());
+    }
+    anomaliesByHeight.get(height).add(anomaly);
+    return height;
+  }
+
   private Long saveAnomaly(final AnomalyDTO anomalyDTO,
       final Set<AnomalyDTO> visitedAnomalies) {
     Preconditions.checkNotNull(anomalyDTO);
@@ -244,8 +312,18 @@ public class AnomalyManagerImpl extends AbstractManagerImpl<AnomalyDTO>
 
   @Override
   public List<AnomalyDTO> decorate(final List<AnomalyDTO> l) {
+    return decorateAll(l, anomaly -> decorate(anomaly, new HashSet<>()));
+  }
+
+  @Override
+  public List<AnomalyDTO> decorateWithChildren(final List<AnomalyDTO> anomalies) {
+    return decorateAll(anomalies, anomaly -> decorateChildren(anomaly, new HashSet<>()));
+  }
+
+  private List<AnomalyDTO> decorateAll(final List<AnomalyDTO> l,
+      final Function<AnomalyDTO, AnomalyDTO> decorator) {
     final List<Future<AnomalyDTO>> fList = l.stream()
-        .map(anomalyDTO -> EXECUTOR_SERVICE.submit(() -> decorate(anomalyDTO, new HashSet<>())))
+        .map(anomalyDTO -> EXECUTOR_SERVICE.submit(() -> decorator.apply(anomalyDTO)))
         .collect(Collectors.toList());
 
     final List<AnomalyDTO> outList = new ArrayList<>(l.size());
@@ -267,6 +345,11 @@ public class AnomalyManagerImpl extends AbstractManagerImpl<AnomalyDTO>
       anomaly.setFeedback(anomalyFeedbackDTO);
     }
 
+    return decorateChildren(anomaly, visitedAnomalyIds);
+  }
+
+  private AnomalyDTO decorateChildren(final AnomalyDTO anomaly,
+      final Set<Long> visitedAnomalyIds) {
     visitedAnomalyIds.add(anomaly.getId());
     anomaly.setChildren(getChildAnomalies(anomaly, visitedAnomalyIds));
 
@@ -320,6 +403,11 @@ public class AnomalyManagerImpl extends AbstractManagerImpl<AnomalyDTO>
     return decorate(list);
   }
 
+  @Override
+  public List<AnomalyDTO> filterWithFeedback(final AnomalyFilter af) {
+    return filter(new DaoFilter().setPredicate(toPredicate(af)));
+  }
+
   @Override
   public long countParentAnomalies(final Predicate predicate) {
     Predicate finalPredicate = toPredicate(new AnomalyFilter().setIsChild(false));
@@ -359,6 +447,10 @@ public class AnomalyManagerImpl extends AbstractManagerImpl<AnomalyDTO>
         .map(id -> Predicate.EQ("detectionConfigId", id))
         .ifPresent(predicates::add);
 
+    optional(af.getAlertIds())
+        .map(ids -> Predicate.IN("detectionConfigId", ids.toArray()))
+        .ifPresent(predicates::add);
+
     optional(af.getEnumerationItemId())
         .map(id -> Predicate.EQ("enumerationItemId", id))
         .ifPresent(predicates::add);
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.datalayer.bao;
+
+import static ai.startree.thirdeye.datalayer.mapper.GenericJsonEntityDtoMapper.toDto;
+import static ai.startree.thirdeye.datalayer.mapper.GenericJsonEntityDtoMapper.toGenericJsonEntity;
+
+import ai.startree.thirdeye.datalayer.dao.GenericPojoDao;
+import ai.startree.thirdeye.spi.datalayer.DaoFilter;
+import ai.startree.thirdeye.spi.datalayer.Predicate;
+import ai.startree.thirdeye.spi.datalayer.dto.EventDTO;
+import ai.startree.thirdeye.spi.datastructures.StaticIntervalSearchTree;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * In-memory index of the events by event type and time interval.
+ *
+ * Lookups are served from an immutable snapshot, without database access. The snapshot is
+ * refreshed at the first lookup after REFRESH_INTERVAL: events updated since the previous
+ * refresh are fetched and merged. Deletions are detected with the count of events and trigger a
+ * full reload. The index is also fully reloaded every FULL_RELOAD_INTERVAL, in case a change was
+ * missed, for instance a deletion compensated by an insertion with an update time older than the
+ * refresh window. Writes done through this instance invalidate the snapshot, so they are visible
+ * to the next lookup. Writes done by other instances are visible after at most REFRESH_INTERVAL.
+ *
+ * Event types are matched case-insensitively, like the IN predicate of MySQL. Returned events are
+ * copies: they can be modified by the caller.
+ */
+class EventIntervalIndex {
+
+  private static final Logger LOG = LoggerFactory.getLogger(EventIntervalIndex.class);
+  private static final Duration REFRESH_INTERVAL = Duration.ofMinutes(1);
+  private static final Duration FULL_RELOAD_INTERVAL = Duration.ofHours(1);
+  // update times are set by the clock of the instance doing the write
+  private static final Duration CLOCK_SKEW_MARGIN = Duration.ofMinutes(5);
+
+  private final GenericPojoDao genericPojoDao;
+  private final ReentrantLock refreshLock = new ReentrantLock();
+
+  private volatile @Nullable Snapshot snapshot = null;
+  private volatile boolean invalidated = false;
+
+  EventIntervalIndex(final GenericPojoDao genericPojoDao) {
+    this.genericPojoDao = genericPojoDao;
+  }
+
+  /**
+   * Returns the events intersecting [startTime, endTime), ordered by id. If eventTypes is null
+   * or empty, events of all types are returned.
+   */
+  List<EventDTO> find(final long startTime, final long endTime,
+      @Nullable final Collection<@NonNull String> eventTypes) {
+    final Snapshot current = currentSnapshot();
+    final Collection<String> types = eventTypes == null || eventTypes.isEmpty()
+        ? current.treesByType.keySet()
+        : eventTypes.stream().map(EventIntervalIndex::typeKey).collect(Collectors.toSet());
+    final Set<Long> matchingIds = new TreeSet<>();
+    for (final String type : types) {
+      final StaticIntervalSearchTree<Long> tree = current.treesByType.get(type);
+      if (tree != null) {
+        matchingIds.addAll(tree.searchAll(startTime, endTime));
+      }
+    }
+    final List<EventDTO> events = new ArrayList<>(matchingIds.size());
+    for (final Long id : matchingIds) {
+      events.add(copy(current.eventsById.get(id)));
+    }
+    return events;
+  }
+
+  /**
+   * Makes the next lookup refresh the index.
+   */
+  void invalidate() {
+    invalidated = true;
+  }
+
+  private Snapshot currentSnapshot() {
+    final Snapshot current = snapshot;
+    if (current != null && !invalidated) {
+      if (System.currentTimeMillis() - current.refreshTime < REFRESH_INTERVAL.toMillis()) {
+        return current;
+      }
+      // periodic refresh: if another thread is refreshing, the current snapshot is served
+      if (!refreshLock.tryLock()) {
+        return current;
+      }
+    } else {
+      // writes of this instance must be visible: wait for the refresh
+      refreshLock.lock();
+    }
+    try {
+      final Snapshot latest = snapshot;
+      if (latest != null && !invalidated
+          && System.currentTimeMillis() - latest.refreshTime < REFRESH_INTERVAL.toMillis()) {
+        // refreshed by another thread in the meantime
+        return latest;
+      }
+      // reset before reading: a write happening during the refresh invalidates again
+      invalidated = false;
+      final Snapshot refreshed = latest == null
+          || System.currentTimeMillis() - latest.loadTime >= FULL_RELOAD_INTERVAL.toMillis()
+          ? load()
+          : refresh(latest);
+      snapshot = refreshed;
+      return refreshed;
+    } finally {
+      refreshLock.unlock();
+    }
+  }
+
+  private Snapshot load() {
+    final long refreshTime = System.currentTimeMillis();
+    final Map<Long, EventDTO> eventsById = new HashMap<>();
+    for (final EventDTO event : genericPojoDao.getAll(EventDTO.class)) {
+      eventsById.put(event.getId(), event);
+    }
+    LOG.info("Loaded {} events in the event index.", eventsById.size());
+    return new Snapshot(eventsById, refreshTime, refreshTime);
+  }
+
+  private Snapshot refresh(final Snapshot previous) {
+    final long refreshTime = System.currentTimeMillis();
+    final Timestamp updatedSince = new Timestamp(
+        previous.refreshTime - CLOCK_SKEW_MARGIN.toMillis());
+    final List<EventDTO> updatedEvents = genericPojoDao.get(new DaoFilter()
+        .setPredicate(Predicate.GE("updateTime", updatedSince))
+        .setBeanClass(EventDTO.class));
+    final Map<Long, EventDTO> eventsById = new HashMap<>(previous.eventsById);
+    for (final EventDTO event : updatedEvents) {
+      eventsById.put(event.getId(), event);
+    }
+    if (eventsById.size() != genericPojoDao.count(EventDTO.class)) {
+      // some events were deleted
+      return load();
+    }
+    if (updatedEvents.isEmpty()) {
+      return new Snapshot(previous, refreshTime);
+    }
+    return new Snapshot(eventsById, refreshTime, previous.loadTime);
+  }
+
+  private static @Nullable String typeKey(final @Nullable String eventType) {
+    return eventType == null ? null : eventType.toUpperCase(Locale.ROOT);
+  }
+
+  private static EventDTO copy(final EventDTO event) {
+    try {
+      return toDto(toGenericJsonEntity(event), EventDTO.class);
+    } catch (final JsonProcessingException e) {
+      throw new RuntimeException("Could not copy event " + event.getId(), e);
+    }
+  }
+
+  private static class Snapshot {
+
+    private final Map<Long, EventDTO> eventsById;
+    // keyed by upper case event type
+    private final Map<String, StaticIntervalSearchTree<Long>> treesByType;
+    private final long refreshTime;
+    // time of the last full reload
+    private final long loadTime;
+
+    private Snapshot(final Map<Long, EventDTO> eventsById, final long refreshTime,
+        final long loadTime) {
+      this.eventsById = eventsById;
+      this.refreshTime = refreshTime;
+      this.loadTime = loadTime;
+      final Map<String, List<EventDTO>> eventsByType = new HashMap<>();
+      for (final EventDTO event : eventsById.values()) {
+        eventsByType.computeIfAbsent(typeKey(event.getEventType()), t -> new ArrayList<>())
+            .add(event);
+      }
+      treesByType = new HashMap<>();
+      for (final Map.Entry<String, List<EventDTO>> e : eventsByType.entrySet()) {
+        treesByType.put(e.getKey(), buildTree(e.getValue()));
+      }
+    }
+
+    // same events as the previous snapshot
+    private Snapshot(final Snapshot previous, final long refreshTime) {
+      this.eventsById = previous.eventsById;
+      this.treesByType = previous.treesByType;
+      this.refreshTime = refreshTime;
+      this.loadTime = previous.loadTime;
+    }
+
+    private static StaticIntervalSearchTree<Long> buildTree(final List<EventDTO> events) {
+      final long[] starts = new long[events.size()];
+      final long[] ends = new long[events.size()];
+      final List<Long> ids = new ArrayList<>(events.size());
+      for (int i = 0; i < events.size(); i++) {
+        starts[i] = events.get(i).getStartTime();
+        ends[i] = events.get(i).getEndTime();
+        ids.add(events.get(i).getId());
+      }
+      return StaticIntervalSearchTree.of(starts, ends, ids);
+    }
+  }
+}
@@ -19,6 +19,7 @@ import ai.startree.thirdeye.datalayer.dao.GenericPojoDao;
 import ai.startree.thirdeye.spi.datalayer.Predicate;
 import ai.startree.thirdeye.spi.datalayer.bao.EventManager;
 import ai.startree.thirdeye.spi.datalayer.dto.EventDTO;
+import com.codahale.metrics.MetricRegistry;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import java.util.List;
@@ -28,12 +29,70 @@ import org.checkerframework.checker.nullness.qual.Nullable;
 @Singleton
 public class EventManagerImpl extends AbstractManagerImpl<EventDTO> implements EventManager {
 
-  private final SqlFilterRunner<EventDTO> sqlFilterRunner = new SqlFilterRunner<>(
-      new EventToRelationAdapter());
+  private final SqlFilterRunner<EventDTO> sqlFilterRunner;
+  private final EventIntervalIndex eventIndex;
 
   @Inject
-  public EventManagerImpl(GenericPojoDao genericPojoDao) {
+  public EventManagerImpl(GenericPojoDao genericPojoDao, final MetricRegistry metricRegistry) {
     super(EventDTO.class, genericPojoDao);
+    sqlFilterRunner = new SqlFilterRunner<>(new EventToRelationAdapter(), metricRegistry);
+    eventIndex = new EventIntervalIndex(genericPojoDao);
+  }
+
+  @Override
+  public Long save(final EventDTO entity) {
+    final Long id = super.save(entity);
+    eventIndex.invalidate();
+    return id;
+  }
+
+  @Override
+  public int update(final EventDTO entity, final Predicate predicate) {
+    final int updated = super.update(entity, predicate);
+    eventIndex.invalidate();
+    return updated;
+  }
+
+  @Override
+  public int update(final EventDTO entity) {
+    final int updated = super.update(entity);
+    eventIndex.invalidate();
+    return updated;
+  }
+
+  @Override
+  public int update(final List<EventDTO> entities) {
+    final int updated = super.update(entities);
+    eventIndex.invalidate();
+    return updated;
+  }
+
+  @Override
+  public int delete(final EventDTO entity) {
+    final int deleted = super.delete(entity);
+    eventIndex.invalidate();
+    return deleted;
+  }
+
+  @Override
+  public int deleteById(final Long id) {
+    final int deleted = super.deleteById(id);
+    eventIndex.invalidate();
+    return deleted;
+  }
+
+  @Override
+  public int deleteByIds(final List<Long> ids) {
+    final int deleted = super.deleteByIds(ids);
+    eventIndex.invalidate();
+    return deleted;
+  }
+
+  @Override
+  public int deleteByPredicate(final Predicate predicate) {
+    final int deleted = super.deleteByPredicate(predicate);
+    eventIndex.invalidate();
+    return deleted;
   }
 
   public List<EventDTO> findByEventType(String eventType) {
@@ -65,7 +124,7 @@ public class EventManagerImpl extends AbstractManagerImpl<EventDTO> implements E
   @Override
   public List<EventDTO> findEventsBetweenTimeRange(final long startTime, final long endTime,
       @Nullable final List<@NonNull String> eventTypes, @Nullable final String freeTextSqlFilter) {
-    final List<EventDTO> events = findEventsBetweenTimeRange(startTime, endTime, eventTypes);
+    final List<EventDTO> events = eventIndex.find(startTime, endTime, eventTypes);
 
     return sqlFilterRunner.applyFilter(events, freeTextSqlFilter);
   }
@@ -68,6 +68,9 @@ public class TaskManagerImpl implements TaskManager {
   private static final String FIND_BY_NAME_ORDER_BY_CREATE_TIME_DESC =
       " WHERE name = :name order by createTime desc limit ";
 
+  private static final String CLAIM_BY_STATUS_ORDER_BY_CREATE_TIME_ASC =
+      " WHERE status = :status order by createTime asc limit %d for update skip locked";
+
   private static final Logger LOG = LoggerFactory.getLogger(TaskManagerImpl.class);
 
   private final Meter orphanTasksCount;
@@ -146,6 +149,20 @@ public class TaskManagerImpl implements TaskManager {
     }
   }
 
+  @Override
+  public List<TaskDTO> acquireTasks(final Long workerId, final int limit) {
+    final Map<String, Object> parameterMap = new HashMap<>();
+    parameterMap.put("status", TaskStatus.WAITING.toString());
+    final String queryClause = String.format(CLAIM_BY_STATUS_ORDER_BY_CREATE_TIME_ASC, limit);
+    return dao.claim(queryClause, parameterMap, task -> {
+      final long now = System.currentTimeMillis();
+      task.setStatus(TaskStatus.RUNNING);
+      task.setWorkerId(workerId);
+      task.setStartTime(now);
+      task.setLastActive(new Timestamp(now));
+    });
+  }
+
   @Override
   public void updateStatusAndTaskEndTime(final Long id, final TaskStatus oldStatus,
       final TaskStatus newStatus,
@@ -168,9 +185,7 @@ public class TaskManagerImpl implements TaskManager {
 
   @Override
   public void updateLastActive(final Long id) {
-    final TaskDTO task = findById(id);
-    task.setLastActive(new Timestamp(System.currentTimeMillis()));
-    save(task);
+    dao.updatePartial(id, Map.of("lastActive", new Timestamp(System.currentTimeMillis())), null);
   }
 
   @Override
@@ -19,15 +19,35 @@ import static com.google.common.base.Preconditions.checkArgument;
 
 import ai.startree.thirdeye.datalayer.calcite.object.ObjectSchema;
 import ai.startree.thirdeye.spi.ThirdEyeException;
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
+import java.util.TimeZone;
 import java.util.stream.Collectors;
+import org.apache.calcite.DataContext;
+import org.apache.calcite.adapter.java.JavaTypeFactory;
+import org.apache.calcite.jdbc.JavaTypeFactoryImpl;
+import org.apache.calcite.linq4j.QueryProvider;
+import org.apache.calcite.linq4j.function.Function1;
 import org.apache.calcite.rel.RelNode;
 import org.apache.calcite.rel.RelRoot;
+import org.apache.calcite.rel.core.Filter;
+import org.apache.calcite.rel.core.Project;
+import org.apache.calcite.rel.core.TableScan;
+import org.apache.calcite.rex.RexBuilder;
+import org.apache.calcite.rex.RexExecutorImpl;
+import org.apache.calcite.rex.RexNode;
+import org.apache.calcite.rex.RexUtil;
 import org.apache.calcite.schema.SchemaPlus;
 import org.apache.calcite.sql.SqlNode;
 import org.apache.calcite.sql.parser.SqlParseException;
@@ -45,13 +65,35 @@ import org.checkerframework.checker.nullness.qual.Nullable;
 
 /**
  * Run sql filter predicates on any list of objects with a given ObjectWithIdToRelationAdapter
+ *
+ * Predicates are planned once per filter text and cached. A predicate on the columns of the
+ * relation is compiled to a function evaluated row by row. Other predicates - for instance with
+ * MULTISET constructors, that Calcite plans as joins - are planned against the elements at each
+ * call.
  */
 public class SqlFilterRunner<T> {
 
+  private static final int MAX_CACHED_FILTERS = 1_000;
+  // name of the DataContext variable the code generated by RexExecutorImpl reads the row from
+  private static final String INPUT_RECORD_VARIABLE = "inputRecord";
+  private static final JavaTypeFactory TYPE_FACTORY = new JavaTypeFactoryImpl();
+
   private final ObjectWithIdToRelationAdapter<T> adapter;
+  private final Cache<String, CompiledFilter<T>> compiledFilters = CacheBuilder.newBuilder()
+      .maximumSize(MAX_CACHED_FILTERS)
+      .build();
+  private final Counter cacheHitCounter;
+  private final Counter cacheMissCounter;
 
   public SqlFilterRunner(final ObjectWithIdToRelationAdapter<T> adapter) {
+    this(adapter, new MetricRegistry());
+  }
+
+  public SqlFilterRunner(final ObjectWithIdToRelationAdapter<T> adapter,
+      final MetricRegistry metricRegistry) {
     this.adapter = adapter;
+    cacheHitCounter = metricRegistry.counter("sqlFilterCacheHitCounter");
+    cacheMissCounter = metricRegistry.counter("sqlFilterCacheMissCounter");
   }
 
   public List<T> applyFilter(@NonNull final List<T> elements, @Nullable final String queryFilter) {
@@ -65,19 +107,95 @@ public class SqlFilterRunner<T> {
           e);
     }
 
+    final String predicate = cleanFreeTextPredicate(queryFilter);
+    CompiledFilter<T> compiledFilter = compiledFilters.getIfPresent(predicate);
+    if (compiledFilter == null) {
+      cacheMissCounter.inc();
+      // invalid predicates are thrown and not cached
+      compiledFilter = compile(predicate);
+      compiledFilters.put(predicate, compiledFilter);
+    } else {
+      cacheHitCounter.inc();
+    }
+    return compiledFilter.apply(elements);
+  }
+
+  private CompiledFilter<T> compile(final String predicate) {
+    // planning only needs the row type of the relation
+    final RelNode relNode;
+    try {
+      relNode = toRelNode(new ObjectSchema<>(List.of(), adapter), predicate);
+    } catch (RelConversionException | ValidationException e) {
+      throw new ThirdEyeException(e, ERR_CALCITE_FILTERING, predicate);
+    }
+    if (relNode instanceof Project) {
+      final RelNode input = ((Project) relNode).getInput();
+      if (input instanceof TableScan) {
+        // the predicate is always true
+        return elements -> elements;
+      }
+      if (input instanceof Filter
+          && ((Filter) input).getInput() instanceof TableScan
+          && RexUtil.SubQueryFinder.find(((Filter) input).getCondition()) == null
+          && !RexUtil.containsCorrelation(((Filter) input).getCondition())) {
+        final Function1<DataContext, @Nullable Object @Nullable []> condition =
+            compileCondition((Filter) input);
+        return elements -> filterRows(elements, condition);
+      }
+    }
+    return elements -> filterWithQuery(elements, predicate);
+  }
+
+  private static Function1<DataContext, @Nullable Object @Nullable []> compileCondition(
+      final Filter filter) {
+    final RexBuilder rexBuilder = filter.getCluster().getRexBuilder();
+    final RexNode condition = RexUtil.expandSearch(rexBuilder, null, filter.getCondition());
+    return RexExecutorImpl.getExecutable(rexBuilder,
+        List.of(condition),
+        filter.getInput().getRowType()).getFunction();
+  }
+
+  private List<T> filterRows(final List<T> elements,
+      final Function1<DataContext, @Nullable Object @Nullable []> condition) {
+    final Map<String, Object> variables = queryVariables();
+    final List<T> filtered = new ArrayList<>();
+    for (final T e : elements) {
+      final @Nullable Object @Nullable [] values = condition.apply(
+          new RowDataContext(variables, adapter.getRow(e)));
+      // same semantics as WHERE: a null condition does not match
+      if (values != null && Boolean.TRUE.equals(values[0])) {
+        filtered.add(e);
+      }
+    }
+    return filtered;
+  }
+
+  /**
+   * Variables that Calcite sets at the start of a query, with the defaults of the connection used
+   * by {@link #filterWithQuery}: functions like CURRENT_TIMESTAMP read them from the DataContext.
+   * The time is taken once for all the rows, as in a query.
+   */
+  private static Map<String, Object> queryVariables() {
+    final long time = System.currentTimeMillis();
+    final TimeZone timeZone = TimeZone.getDefault();
+    final long offset = timeZone.getOffset(time);
+    return Map.of(DataContext.Variable.UTC_TIMESTAMP.camelName, time,
+        DataContext.Variable.CURRENT_TIMESTAMP.camelName, time + offset,
+        DataContext.Variable.LOCAL_TIMESTAMP.camelName, time + offset,
+        DataContext.Variable.TIME_ZONE.camelName, timeZone,
+        DataContext.Variable.LOCALE.camelName, Locale.ROOT);
+  }
+
+  private List<T> filterWithQuery(final List<T> elements, final String predicate) {
     final ObjectSchema<T> objectSchema = new ObjectSchema<>(elements, adapter);
-    final SchemaPlus querySchema = Frameworks.createRootSchema(true)
-        .add(objectSchema.singleTableName(), objectSchema);
-    final Planner planner = buildPlanner(querySchema);
-    final String sqlQuery = buildQueryString(queryFilter, objectSchema.singleTableName());
-    try (final ResultSet resultSet = runQuery(planner, sqlQuery)) {
+    try (final ResultSet resultSet = runQuery(toRelNode(objectSchema, predicate))) {
       final Set<Long> matchingIds = getIdsFrom(resultSet);
       //return the original collection filtered by the matching ids
       return elements.stream()
           .filter(e -> matchingIds.contains(adapter.idOf(e)))
           .collect(Collectors.toList());
     } catch (RelConversionException | SQLException | ValidationException e) {
-      throw new ThirdEyeException(e, ERR_CALCITE_FILTERING, queryFilter);
+      throw new ThirdEyeException(e, ERR_CALCITE_FILTERING, predicate);
     }
   }
 
@@ -91,8 +209,12 @@ public class SqlFilterRunner<T> {
     return matchingIds;
   }
 
-  private static ResultSet runQuery(final Planner planner, final String sqlQuery)
-      throws ValidationException, RelConversionException, SQLException {
+  private RelNode toRelNode(final ObjectSchema<T> objectSchema, final String predicate)
+      throws ValidationException, RelConversionException {
+    final SchemaPlus querySchema = Frameworks.createRootSchema(true)
+        .add(objectSchema.singleTableName(), objectSchema);
+    final Planner planner = buildPlanner(querySchema);
+    final String sqlQuery = buildQueryString(predicate, objectSchema.singleTableName());
     final SqlNode sqlNode;
     try {
       sqlNode = planner.parse(sqlQuery);
@@ -101,17 +223,17 @@ public class SqlFilterRunner<T> {
     }
     final SqlNode sqlNodeValidated = planner.validate(sqlNode);
     final RelRoot relRoot = planner.rel(sqlNodeValidated);
-    final RelNode relNode = relRoot.project();
+    return relRoot.project();
+  }
+
+  private static ResultSet runQuery(final RelNode relNode) throws SQLException {
     final PreparedStatement run = RelRunners.run(relNode);
     return run.executeQuery();
   }
 
   @NonNull
-  private String buildQueryString(final String queryFilter, final String tableName) {
-    final String cleanTextPredicate = cleanFreeTextPredicate(
-        queryFilter);
-
-    return "select " + adapter.idColumn() + " from " + tableName + " WHERE " + cleanTextPredicate;
+  private String buildQueryString(final String predicate, final String tableName) {
+    return "select " + adapter.idColumn() + " from " + tableName + " WHERE " + predicate;
   }
 
   @NonNull
@@ -131,4 +253,47 @@ public class SqlFilterRunner<T> {
   public static String cleanFreeTextPredicate(final String freeTextPredicate) {
     return freeTextPredicate.replaceFirst("^ *[aA][nN][dD] +", "");
   }
+
+  @FunctionalInterface
+  private interface CompiledFilter<T> {
+
+    List<T> apply(List<T> elements);
+  }
+
+  /**
+   * Exposes a single row and the query variables to a compiled condition.
+   */
+  private static class RowDataContext implements DataContext {
+
+    private final Map<String, Object> variables;
+    private final Object[] row;
+
+    private RowDataContext(final Map<String, Object> variables, final Object[] row) {
+      this.variables = variables;
+      this.row = row;
+    }
+
+    @Override
+    public @Nullable SchemaPlus getRootSchema() {
+      return null;
+    }
+
+    @Override
+    public JavaTypeFactory getTypeFactory() {
+      return TYPE_FACTORY;
+    }
+
+    @Override
+    public QueryProvider getQueryProvider() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public @Nullable Object get(final String name) {
+      if (INPUT_RECORD_VARIABLE.equals(name)) {
+        return row;
+      }
+      return variables.get(name);
+    }
+  }
 }
@@ -17,6 +17,7 @@ import static ai.startree.thirdeye.datalayer.dao.SubEntities.BEAN_INDEX_MAP;
 import static ai.startree.thirdeye.datalayer.mapper.DtoIndexMapper.toAbstractIndexEntity;
 import static ai.startree.thirdeye.datalayer.mapper.GenericJsonEntityDtoMapper.toDto;
 import static ai.startree.thirdeye.datalayer.mapper.GenericJsonEntityDtoMapper.toGenericJsonEntity;
+import static ai.startree.thirdeye.datalayer.mapper.GenericJsonEntityDtoMapper.toJsonValues;
 import static ai.startree.thirdeye.spi.ThirdEyeStatus.ERR_NEGATIVE_LIMIT_VALUE;
 import static ai.startree.thirdeye.spi.ThirdEyeStatus.ERR_NEGATIVE_OFFSET_VALUE;
 import static ai.startree.thirdeye.spi.ThirdEyeStatus.ERR_OFFSET_WITHOUT_LIMIT;
@@ -40,15 +41,20 @@ import ai.startree.thirdeye.spi.datalayer.Predicate;
 import ai.startree.thirdeye.spi.datalayer.dto.AbstractDTO;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import java.lang.reflect.Field;
+import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
 import org.apache.commons.collections4.CollectionUtils;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.reflections.ReflectionUtils;
@@ -131,6 +137,166 @@ public class GenericPojoDao {
     }
   }
 
+  /**
+   * Create the pojos with JDBC batch inserts. Every transaction contains batchSize pojos and
+   * inserts both the json entities and the index entities. If a transaction fails, the pojos of
+   * the batch are created one-by-one (i.e., in separated transactions).
+   *
+   * @param pojos the pojos to create, whose ID must be null. Ids are set on the pojos.
+   */
+  public <E extends AbstractDTO> void createAll(final List<E> pojos, final int batchSize) {
+    checkArgument(batchSize > 0, "batchSize must be strictly positive");
+    for (final List<E> pojosOfClass : groupByClass(pojos)) {
+      for (final List<E> batch : Lists.partition(pojosOfClass, batchSize)) {
+        if (!createBatch(batch)) {
+          LOG.warn("Batch create of {} entities failed. Creating entities one by one.",
+              batch.size());
+          batch.forEach(this::create);
+        }
+      }
+    }
+  }
+
+  private <E extends AbstractDTO> boolean createBatch(final List<E> pojos) {
+    final Class<? extends AbstractIndexEntity> indexClass = BEAN_INDEX_MAP.get(
+        pojos.get(0).getClass());
+    final List<GenericJsonEntity> jsonEntities = new ArrayList<>(pojos.size());
+    for (final E pojo : pojos) {
+      checkArgument(pojo.getId() == null, "id must be null for create flow.");
+      /* Populate createTime before DB insert if not present already */
+      if (pojo.getCreateTime() == null) {
+        pojo.setCreateTime(new Timestamp(System.currentTimeMillis()));
+      }
+      try {
+        jsonEntities.add(toGenericJsonEntity(pojo));
+      } catch (final JsonProcessingException e) {
+        LOG.error(e.getMessage(), e);
+        return false;
+      }
+    }
+    try {
+      final boolean success = transactionService.executeTransaction((connection) -> {
+        final List<Long> generatedKeys = databaseService.saveAll(jsonEntities, connection);
+        for (int i = 0; i < pojos.size(); i++) {
+          pojos.get(i).setId(generatedKeys.get(i));
+        }
+        if (indexClass != null) {
+          final List<AbstractIndexEntity> indexEntities = new ArrayList<>(pojos.size());
+          for (int i = 0; i < pojos.size(); i++) {
+            final E pojo = pojos.get(i);
+            final AbstractIndexEntity abstractIndexEntity = toAbstractIndexEntity(pojo,
+                indexClass,
+                jsonEntities.get(i).getJsonVal());
+            abstractIndexEntity.setVersion(1);
+            abstractIndexEntity.setCreateTime(pojo.getCreateTime());
+            indexEntities.add(abstractIndexEntity);
+          }
+          databaseService.saveAll(indexEntities, connection);
+        }
+        return true;
+      }, false);
+      if (!success) {
+        // the transaction was rolled back - ids are not valid
+        pojos.forEach(pojo -> pojo.setId(null));
+      }
+      return success;
+    } catch (final SQLException e) {
+      LOG.error(e.getMessage(), e);
+      pojos.forEach(pojo -> pojo.setId(null));
+      return false;
+    }
+  }
+
+  /**
+   * Update the pojos with JDBC batch updates. Every transaction contains batchSize pojos and
+   * updates both the json entities and the index entities. If a transaction fails, the pojos of
+   * the batch are updated one-by-one (i.e., in separated transactions).
+   *
+   * @param pojos the pojos to update, whose ID cannot be null.
+   * @return an upper bound of the number of rows that are affected, see
+   *     {@link DatabaseService#updateAll}.
+   */
+  public <E extends AbstractDTO> int updateAll(final List<E> pojos, final int batchSize) {
+    checkArgument(batchSize > 0, "batchSize must be strictly positive");
+    int updateCounter = 0;
+    for (final List<E> pojosOfClass : groupByClass(pojos)) {
+      for (final List<E> batch : Lists.partition(pojosOfClass, batchSize)) {
+        final Integer batchUpdateCount = updateAllInTransaction(batch);
+        if (batchUpdateCount != null) {
+          updateCounter += batchUpdateCount;
+        } else {
+          LOG.warn("Batch update of {} entities failed. Updating entities one by one.",
+              batch.size());
+          updateCounter += update(batch);
+        }
+      }
+    }
+    return updateCounter;
+  }
+
+  /**
+   * Update the pojos in a single transaction. The pojos can be of different classes. The json
+   * entities and the index entities of each class are updated with JDBC batch updates. If the
+   * transaction fails, no pojo is updated.
+   *
+   * @param pojos the pojos to update, whose ID cannot be null.
+   * @return an upper bound of the number of json rows that are affected, or null if the
+   *     transaction failed.
+   */
+  private @Nullable Integer updateAllInTransaction(final List<? extends AbstractDTO> pojos) {
+    if (pojos.isEmpty()) {
+      return 0;
+    }
+    /* Update updateTime before DB update. Restore if update fails */
+    final List<Timestamp> lastUpdateTimes = new ArrayList<>(pojos.size());
+    final Timestamp updateTime = new Timestamp(System.currentTimeMillis());
+    for (final AbstractDTO pojo : pojos) {
+      checkNotNull(pojo.getId(), "An id is required to update the entity: %s", pojo);
+      lastUpdateTimes.add(pojo.getUpdateTime());
+      pojo.setUpdateTime(updateTime);
+    }
+    try {
+      final List<GenericJsonEntity> jsonEntities = new ArrayList<>(pojos.size());
+      final Map<Class<? extends AbstractIndexEntity>, List<AbstractIndexEntity>> indexEntities =
+          new LinkedHashMap<>();
+      for (final AbstractDTO pojo : pojos) {
+        final GenericJsonEntity jsonEntity = toGenericJsonEntity(pojo);
+        jsonEntities.add(jsonEntity);
+        final Class<? extends AbstractIndexEntity> indexClass = BEAN_INDEX_MAP.get(
+            pojo.getClass());
+        if (indexClass != null) {
+          indexEntities.computeIfAbsent(indexClass, c -> new ArrayList<>())
+              .add(toAbstractIndexEntity(pojo, indexClass, jsonEntity.getJsonVal()));
+        }
+      }
+      final Integer updateCount = transactionService.executeTransaction((connection) -> {
+        final int ret = databaseService.updateAll(jsonEntities, connection);
+        for (final List<AbstractIndexEntity> sameClassIndexEntities : indexEntities.values()) {
+          //updates all columns in the index table by default
+          databaseService.updateAll(sameClassIndexEntities, connection);
+        }
+        return ret;
+      }, null);
+      if (updateCount != null) {
+        return updateCount;
+      }
+    } catch (final Exception e) {
+      LOG.error("Could not update {} entities", pojos.size(), e);
+    }
+    for (int i = 0; i < pojos.size(); i++) {
+      pojos.get(i).setUpdateTime(lastUpdateTimes.get(i));
+    }
+    return null;
+  }
+
+  private static <E extends AbstractDTO> Collection<List<E>> groupByClass(final List<E> pojos) {
+    final Map<Class<?>, List<E>> pojosByClass = new LinkedHashMap<>();
+    for (final E pojo : pojos) {
+      pojosByClass.computeIfAbsent(pojo.getClass(), c -> new ArrayList<>()).add(pojo);
+    }
+    return pojosByClass.values();
+  }
+
   public <E extends AbstractDTO> int update(final E pojo) {
     return update(List.of(pojo));
   }
@@ -196,6 +362,104 @@ public class GenericPojoDao {
     }
   }
 
+  /**
+   * Update some fields of a pojo without reading it first and without serializing the whole pojo.
+   * The fields are set in the json entity. Fields that are columns of the index table are also
+   * set in the index entity, in the same transaction. The version is incremented.
+   *
+   * The index entity is not touched if none of the fields is indexed: its update_time and version
+   * only change with the indexed fields and with full updates. Runtime state that is written
+   * often, like the last timestamp of an alert, then does not look like a configuration change
+   * to the readers that poll the update_time of the index table.
+   *
+   * @param fieldValues values of the fields to update, keyed by pojo field name
+   * @param expectedVersion if not null, the pojo is updated only if its version in the
+   *     database is expectedVersion.
+   * @return 1 if the pojo was updated, 0 if it does not exist, if the version did not match or if
+   *     the update failed.
+   */
+  public <E extends AbstractDTO> int updatePartial(final Class<E> beanClass, final Long id,
+      final Map<String, Object> fieldValues, final @Nullable Integer expectedVersion) {
+    checkNotNull(id, "An id is required to update the entity");
+    try {
+      final Map<String, String> jsonValues = toJsonValues(fieldValues);
+      final Class<? extends AbstractIndexEntity> indexClass = BEAN_INDEX_MAP.get(beanClass);
+      final Map<String, Object> indexValues = indexValues(beanClass, fieldValues);
+      Predicate predicate = Predicate.EQ("id", id);
+      if (expectedVersion != null) {
+        predicate = Predicate.AND(predicate, Predicate.EQ("version", expectedVersion));
+      }
+      final Predicate jsonPredicate = predicate;
+      return transactionService.executeTransaction((connection) -> {
+        final int ret = databaseService.updatePartial(GenericJsonEntity.class,
+            Map.of(),
+            jsonValues,
+            jsonPredicate,
+            connection);
+        if (ret == 1 && !indexValues.isEmpty()) {
+          // also updates update_time and version of the index entity
+          databaseService.updatePartial(indexClass,
+              indexValues,
+              Map.of(),
+              Predicate.EQ("baseId", id),
+              connection);
+        }
+        if (ret > 1) {
+          throw new ThirdEyeException(ThirdEyeStatus.ERR_UNKNOWN, "Too many rows updated");
+        }
+        return ret;
+      }, 0);
+    } catch (final Exception e) {
+      LOG.error("Could not update fields {} of entity {} with id {}",
+          fieldValues.keySet(),
+          beanClass.getSimpleName(),
+          id,
+          e);
+      return 0;
+    }
+  }
+
+  /**
+   * Update some fields of the pojos with the given ids, in the transaction of the given
+   * connection. See {@link #updatePartial(Class, Long, Map, Integer)}. The version is not checked.
+   *
+   * @return the number of pojos that were updated
+   */
+  public <E extends AbstractDTO> int updatePartial(final Class<E> beanClass,
+      final Collection<Long> ids, final Map<String, Object> fieldValues,
+      final Connection connection) throws Exception {
+    if (ids.isEmpty()) {
+      return 0;
+    }
+    final Object[] idArray = ids.toArray();
+    final int ret = databaseService.updatePartial(GenericJsonEntity.class,
+        Map.of(),
+        toJsonValues(fieldValues),
+        Predicate.IN("id", idArray),
+        connection);
+    final Map<String, Object> indexValues = indexValues(beanClass, fieldValues);
+    if (ret > 0 && !indexValues.isEmpty()) {
+      databaseService.updatePartial(BEAN_INDEX_MAP.get(beanClass),
+          indexValues,
+          Map.of(),
+          Predicate.IN("baseId", idArray),
+          connection);
+    }
+    return ret;
+  }
+
+  private <E extends AbstractDTO> Map<String, Object> indexValues(final Class<E> beanClass,
+      final Map<String, Object> fieldValues) {
+    final Map<String, Object> indexValues = new LinkedHashMap<>();
+    if (BEAN_INDEX_MAP.get(beanClass) != null) {
+      final List<String> indexedColumns = getIndexedColumns(beanClass);
+      fieldValues.entrySet().stream()
+          .filter(e -> indexedColumns.contains(e.getKey()))
+          .forEach(e -> indexValues.put(e.getKey(), e.getValue()));
+    }
+    return indexValues;
+  }
+
   public <E extends AbstractDTO> List<E> list(final Class<E> beanClass, final long limit,
       final long offset) {
     try {
@@ -236,6 +500,32 @@ public class GenericPojoDao {
     }
   }
 
+  /**
+   * Find the ids of the entities matching the predicate. Only reads the index table.
+   *
+   * @return the ids, or null if the query failed
+   */
+  public <E extends AbstractDTO> @Nullable List<Long> findIds(final @Nullable Predicate predicate,
+      final Class<E> beanClass) {
+    final Class<? extends AbstractIndexEntity> indexClass = BEAN_INDEX_MAP.get(beanClass);
+    try {
+      final List<? extends AbstractIndexEntity> indexEntities =
+          transactionService.executeTransaction(
+              (connection) -> databaseService.findAll(predicate, null, null, indexClass,
+                  connection),
+              null);
+      if (indexEntities == null) {
+        return null;
+      }
+      return indexEntities.stream()
+          .map(AbstractIndexEntity::getBaseId)
+          .collect(Collectors.toList());
+    } catch (final SQLException e) {
+      LOG.error(e.getMessage(), e);
+      return null;
+    }
+  }
+
   public <E extends AbstractDTO> E get(final Long id, final Class<E> pojoClass) {
     try {
       final GenericJsonEntity genericJsonEntity = transactionService.executeTransaction(
@@ -13,6 +13,7 @@
  */
 package ai.startree.thirdeye.datalayer.dao;
 
+import static ai.startree.thirdeye.datalayer.mapper.GenericJsonEntityDtoMapper.toJsonValues;
 import static java.util.Objects.requireNonNull;
 
 import ai.startree.thirdeye.datalayer.DatabaseService;
@@ -28,14 +29,21 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Preconditions;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import java.lang.reflect.Field;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 import org.apache.commons.collections4.CollectionUtils;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -45,6 +53,10 @@ public class TaskDao {
   private static final Logger LOG = LoggerFactory.getLogger(TaskDao.class);
   private static final boolean IS_DEBUG = LOG.isDebugEnabled();
   private static final ObjectMapper OBJECT_MAPPER = ThirdEyeSerialization.getObjectMapper();
+  private static final Set<String> TASK_ENTITY_COLUMNS = Arrays.stream(
+          TaskEntity.class.getDeclaredFields())
+      .map(Field::getName)
+      .collect(Collectors.toSet());
 
   private final DatabaseService databaseService;
   private final DatabaseTransactionService transactionService;
@@ -155,6 +167,85 @@ public class TaskDao {
     }
   }
 
+  /**
+   * Update some fields of a task without reading it first and without serializing the whole task.
+   * Fields that are columns of the task table are set in the column and in the json. The version
+   * is incremented.
+   *
+   * @param fieldValues values of the fields to update, keyed by TaskDTO field name
+   * @param expectedVersion if not null, the task is updated only if its version in the
+   *     database is expectedVersion.
+   * @return 1 if the task was updated, 0 otherwise.
+   */
+  public int updatePartial(final Long id, final Map<String, Object> fieldValues,
+      final @Nullable Integer expectedVersion) {
+    Preconditions.checkNotNull(id);
+    try {
+      final Map<String, String> jsonValues = toJsonValues(fieldValues);
+      final Map<String, Object> columnValues = new LinkedHashMap<>(fieldValues);
+      columnValues.keySet().retainAll(TASK_ENTITY_COLUMNS);
+      Predicate predicate = Predicate.EQ("id", id);
+      if (expectedVersion != null) {
+        predicate = Predicate.AND(predicate, Predicate.EQ("version", expectedVersion));
+      }
+      final Predicate finalPredicate = predicate;
+      return transactionService.executeTransaction(
+          (connection) -> databaseService.updatePartial(TaskEntity.class,
+              columnValues,
+              jsonValues,
+              finalPredicate,
+              connection),
+          0);
+    } catch (JsonProcessingException | SQLException e) {
+      LOG.error(e.getMessage(), e);
+      return 0;
+    }
+  }
+
+  /**
+   * Claim up to limit WAITING tasks for the worker in a single transaction. Candidate rows are
+   * locked with SELECT ... FOR UPDATE SKIP LOCKED so that concurrent workers claim disjoint
+   * batches instead of racing on the same rows.
+   *
+   * @param parameterizedSQL second part of the select sql (omit select from table section). Must
+   *     end with a locking clause.
+   * @param updateFn applied to each candidate before it is written back. The version is
+   *     incremented by this method.
+   * @return the claimed tasks
+   */
+  public List<TaskDTO> claim(final String parameterizedSQL,
+      final Map<String, Object> parameterMap,
+      final Consumer<TaskDTO> updateFn) {
+    try {
+      final List<TaskEntity> claimed = transactionService.executeTransaction(connection -> {
+        final List<TaskEntity> candidates = databaseService.runSQL(parameterizedSQL,
+            parameterMap,
+            TaskEntity.class,
+            connection);
+        final List<TaskEntity> updated = new ArrayList<>(candidates.size());
+        for (final TaskEntity candidate : candidates) {
+          final TaskDTO dto = toDto(candidate);
+          updateFn.accept(dto);
+          dto.setVersion(candidate.getVersion() + 1);
+
+          final TaskEntity entity = toEntity(dto);
+          entity.setCreateTime(candidate.getCreateTime());
+          final Predicate predicate = Predicate.AND(
+              Predicate.EQ("id", candidate.getId()),
+              Predicate.EQ("version", candidate.getVersion()));
+          if (databaseService.updateRow(entity, predicate, connection) == 1) {
+            updated.add(entity);
+          }
+        }
+        return updated;
+      }, Collections.emptyList());
+      return toDto(claimed);
+    } catch (final JsonProcessingException | SQLException e) {
+      LOG.error(e.getMessage(), e);
+      return Collections.emptyList();
+    }
+  }
+
   public List<TaskDTO> getAll() {
     try {
       final List<TaskEntity> entities = transactionService.executeTransaction(
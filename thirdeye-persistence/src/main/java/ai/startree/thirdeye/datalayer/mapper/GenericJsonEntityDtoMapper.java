@@ -20,6 +20,9 @@ import ai.startree.thirdeye.spi.datalayer.dto.AbstractDTO;
 import ai.startree.thirdeye.spi.json.ThirdEyeSerialization;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
 
 public class GenericJsonEntityDtoMapper {
 
@@ -30,6 +33,18 @@ public class GenericJsonEntityDtoMapper {
     return OBJECT_MAPPER.writeValueAsString(pojo);
   }
 
+  /**
+   * Serializes each value to its json literal, as it would appear in the json of a pojo.
+   */
+  public static Map<String, String> toJsonValues(final Map<String, Object> fieldValues)
+      throws JsonProcessingException {
+    final Map<String, String> jsonValues = new LinkedHashMap<>();
+    for (final Entry<String, Object> e : fieldValues.entrySet()) {
+      jsonValues.put(e.getKey(), OBJECT_MAPPER.writeValueAsString(e.getValue()));
+    }
+    return jsonValues;
+  }
+
   public static <E extends AbstractDTO> GenericJsonEntity toGenericJsonEntity(final E pojo)
       throws JsonProcessingException {
     final int version = pojo.getVersion() == 0 ? 1 : pojo.getVersion();
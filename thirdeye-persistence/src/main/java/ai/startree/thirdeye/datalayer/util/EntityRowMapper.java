@@ -0,0 +1,224 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.datalayer.util;
+
+import ai.startree.thirdeye.datalayer.entity.AbstractEntity;
+import ai.startree.thirdeye.spi.json.ThirdEyeSerialization;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.sql.Clob;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Maps the rows of a table to entities. The column readers are built once per entity class from
+ * the {@link ColumnInfo} of the table: each reader reads a typed JDBC column and writes it in the
+ * entity field with a method handle.
+ */
+class EntityRowMapper<E extends AbstractEntity> {
+
+  private static final ObjectMapper OBJECT_MAPPER = ThirdEyeSerialization.getObjectMapper();
+  private static final MethodType OBJECT_SETTER_TYPE = MethodType.methodType(void.class,
+      AbstractEntity.class,
+      Object.class);
+
+  private final MethodHandle constructor;
+  // db column name -> reader
+  private final Map<String, ColumnReader> readers;
+
+  EntityRowMapper(final Class<E> entityClass, final Map<String, ColumnInfo> columnInfoMap) {
+    try {
+      final MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(entityClass,
+          MethodHandles.lookup());
+      constructor = lookup.findConstructor(entityClass, MethodType.methodType(void.class))
+          .asType(MethodType.methodType(AbstractEntity.class));
+      readers = new HashMap<>();
+      for (final ColumnInfo columnInfo : columnInfoMap.values()) {
+        final Field field = columnInfo.getField();
+        if (field != null) {
+          readers.put(columnInfo.getColumnNameInDB(),
+              columnReader(lookup, field, columnInfo.getSqlType()));
+        }
+      }
+    } catch (final ReflectiveOperationException e) {
+      throw new IllegalStateException("Cannot build row mapper for " + entityClass.getName(), e);
+    }
+  }
+
+  private static ColumnReader columnReader(final MethodHandles.Lookup lookup, final Field field,
+      final int sqlType) throws ReflectiveOperationException {
+    final MethodHandle setter = lookup.unreflectSetter(field);
+    final Class<?> type = field.getType();
+    if (type == long.class) {
+      final MethodHandle s = setter.asType(MethodType.methodType(void.class,
+          AbstractEntity.class, long.class));
+      return (rs, i, entity) -> {
+        final long val = rs.getLong(i);
+        if (!rs.wasNull()) {
+          s.invokeExact(entity, val);
+        }
+      };
+    }
+    if (type == int.class) {
+      final MethodHandle s = setter.asType(MethodType.methodType(void.class,
+          AbstractEntity.class, int.class));
+      return (rs, i, entity) -> {
+        final int val = rs.getInt(i);
+        if (!rs.wasNull()) {
+          s.invokeExact(entity, val);
+        }
+      };
+    }
+    if (type == boolean.class) {
+      final MethodHandle s = setter.asType(MethodType.methodType(void.class,
+          AbstractEntity.class, boolean.class));
+      return (rs, i, entity) -> {
+        final boolean val = rs.getBoolean(i);
+        if (!rs.wasNull()) {
+          s.invokeExact(entity, val);
+        }
+      };
+    }
+    final MethodHandle s = setter.asType(OBJECT_SETTER_TYPE);
+    final ValueReader valueReader = valueReader(lookup, type, sqlType);
+    return (rs, i, entity) -> {
+      final Object val = valueReader.read(rs, i);
+      if (val != null) {
+        s.invokeExact(entity, val);
+      }
+    };
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private static ValueReader valueReader(final MethodHandles.Lookup lookup, final Class<?> type,
+      final int sqlType) throws ReflectiveOperationException {
+    if (type == String.class) {
+      if (sqlType == Types.CLOB) {
+        return (rs, i) -> {
+          final Clob clob = rs.getClob(i);
+          return clob == null ? null : clob.getSubString(1, (int) clob.length());
+        };
+      }
+      return ResultSet::getString;
+    }
+    if (type == Long.class) {
+      return (rs, i) -> {
+        final long val = rs.getLong(i);
+        return rs.wasNull() ? null : val;
+      };
+    }
+    if (type == Integer.class) {
+      return (rs, i) -> {
+        final int val = rs.getInt(i);
+        return rs.wasNull() ? null : val;
+      };
+    }
+    if (type == Boolean.class) {
+      return (rs, i) -> {
+        final boolean val = rs.getBoolean(i);
+        return rs.wasNull() ? null : val;
+      };
+    }
+    if (type == Timestamp.class) {
+      return (rs, i) -> {
+        final Timestamp val = rs.getTimestamp(i);
+        // millisecond precision, like the values written by the entities
+        return val == null ? null : new Timestamp(val.getTime());
+      };
+    }
+    if (type.isEnum()) {
+      final Class<? extends Enum> enumType = (Class<? extends Enum>) type;
+      return (rs, i) -> {
+        final String val = rs.getString(i);
+        return val == null ? null : Enum.valueOf(enumType, val);
+      };
+    }
+    // other types are built from their string representation
+    final MethodHandle stringConstructor = stringConstructor(lookup, type);
+    if (stringConstructor != null) {
+      return (rs, i) -> {
+        final String val = rs.getString(i);
+        return val == null ? null : (Object) stringConstructor.invoke(val);
+      };
+    }
+    return (rs, i) -> {
+      final String val = rs.getString(i);
+      return val == null ? null : OBJECT_MAPPER.convertValue(val, type);
+    };
+  }
+
+  private static @Nullable MethodHandle stringConstructor(final MethodHandles.Lookup lookup,
+      final Class<?> type) {
+    try {
+      return lookup.findConstructor(type, MethodType.methodType(void.class, String.class));
+    } catch (final ReflectiveOperationException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Maps all the rows of the result set. The columns of the result set are resolved once.
+   */
+  @SuppressWarnings("unchecked")
+  List<E> mapAll(final ResultSet rs) throws SQLException {
+    final ResultSetMetaData resultSetMetaData = rs.getMetaData();
+    final int numColumns = resultSetMetaData.getColumnCount();
+    final ColumnReader[] columnReaders = new ColumnReader[numColumns + 1];
+    for (int i = 1; i <= numColumns; i++) {
+      columnReaders[i] = readers.get(resultSetMetaData.getColumnLabel(i).toLowerCase());
+    }
+
+    final List<E> entities = new ArrayList<>();
+    try {
+      while (rs.next()) {
+        final AbstractEntity entity = (AbstractEntity) constructor.invokeExact();
+        for (int i = 1; i <= numColumns; i++) {
+          final ColumnReader columnReader = columnReaders[i];
+          if (columnReader != null) {
+            columnReader.read(rs, i, entity);
+          }
+        }
+        entities.add((E) entity);
+      }
+    } catch (final SQLException | RuntimeException | Error e) {
+      throw e;
+    } catch (final Throwable e) {
+      throw new IllegalStateException("Unexpected exception while mapping rows", e);
+    }
+    return entities;
+  }
+
+  @FunctionalInterface
+  private interface ColumnReader {
+
+    void read(ResultSet rs, int columnIndex, AbstractEntity entity) throws Throwable;
+  }
+
+  @FunctionalInterface
+  private interface ValueReader {
+
+    @Nullable Object read(ResultSet rs, int columnIndex) throws Throwable;
+  }
+}
@@ -14,73 +14,41 @@
 package ai.startree.thirdeye.datalayer.util;
 
 import ai.startree.thirdeye.datalayer.entity.AbstractEntity;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
-import java.lang.reflect.Field;
-import java.sql.Clob;
 import java.sql.ResultSet;
-import java.sql.ResultSetMetaData;
-import java.sql.Timestamp;
-import java.sql.Types;
-import java.util.ArrayList;
-import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Maps result sets to entities. The row mapper of an entity class is built on first use from
+ * the column mapping of its table, then reused.
+ */
 @Singleton
 public class GenericResultSetMapper {
 
   private final EntityMappingHolder entityMappingHolder;
+  private final Map<Class<?>, EntityRowMapper<?>> rowMappers = new ConcurrentHashMap<>();
 
   @Inject
   public GenericResultSetMapper(final EntityMappingHolder entityMappingHolder) {
     this.entityMappingHolder = entityMappingHolder;
   }
 
+  @SuppressWarnings("unchecked")
   public <E extends AbstractEntity> List<E> mapAll(final ResultSet rs,
       final Class<E> entityClass) throws Exception {
-    return toEntityList(rs, entityClass);
+    final EntityRowMapper<E> rowMapper = (EntityRowMapper<E>) rowMappers.computeIfAbsent(
+        entityClass,
+        c -> newRowMapper(entityClass));
+    return rowMapper.mapAll(rs);
   }
 
-  private <E extends AbstractEntity> List<E> toEntityList(final ResultSet rs,
-      final Class<E> entityClass) throws Exception {
+  private <E extends AbstractEntity> EntityRowMapper<E> newRowMapper(final Class<E> entityClass) {
     final String tableName =
         entityMappingHolder.tableToEntityNameMap.inverse().get(entityClass.getSimpleName());
-    final LinkedHashMap<String, ColumnInfo> columnInfoMap =
-        entityMappingHolder.columnInfoPerTable.get(tableName);
-    final List<E> entityList = new ArrayList<>();
-
-    final ObjectMapper mapper = new ObjectMapper();
-    while (rs.next()) {
-      final AbstractEntity entityObj;
-      final ResultSetMetaData resultSetMetaData = rs.getMetaData();
-      final int numColumns = resultSetMetaData.getColumnCount();
-      final ObjectNode objectNode = mapper.createObjectNode();
-      for (int i = 1; i <= numColumns; i++) {
-        final String dbColumnName = resultSetMetaData.getColumnLabel(i).toLowerCase();
-        final ColumnInfo columnInfo = columnInfoMap.get(dbColumnName);
-        final Field field = columnInfo.getField();
-        final Object val;
-        if (columnInfo.getSqlType() == Types.CLOB) {
-          final Clob clob = rs.getClob(i);
-          val = clob.getSubString(1, (int) clob.length());
-        } else {
-          val = rs.getObject(i);
-        }
-        if (val == null) {
-          continue;
-        }
-        if (field.getType().isAssignableFrom(Timestamp.class)) {
-          objectNode.put(field.getName(), ((Timestamp) val).getTime());
-        } else {
-          objectNode.put(field.getName(), val.toString());
-        }
-      }
-      entityObj = mapper.treeToValue(objectNode, entityClass);
-      entityList.add((E) entityObj);
-    }
-
-    return entityList;
+    return new EntityRowMapper<>(entityClass,
+        entityMappingHolder.columnInfoPerTable.get(tableName));
   }
 }
@@ -13,6 +13,7 @@
  */
 package ai.startree.thirdeye.datalayer.util;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static java.util.Objects.requireNonNull;
 
@@ -26,7 +27,9 @@ import java.lang.reflect.Array;
 import java.sql.Clob;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
+import java.sql.SQLException;
 import java.sql.Statement;
+import java.sql.Timestamp;
 import java.sql.Types;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -54,6 +57,7 @@ public class SqlQueryBuilder {
       Pattern.compile(PARAM_REGEX, Pattern.CASE_INSENSITIVE);
   private static final Set<String> AUTO_UPDATE_COLUMN_SET =
       Sets.newHashSet("id", "last_modified");
+  private static final String JSON_VAL_COLUMN = "json_val";
   //insert sql per table
   private final Map<String, String> insertSqlMap = new HashMap<>();
   private final EntityMappingHolder entityMappingHolder;
@@ -96,15 +100,49 @@ public class SqlQueryBuilder {
 
   public PreparedStatement createInsertStatement(final Connection conn, final String tableName,
       final AbstractEntity entity) throws Exception {
+    final PreparedStatement preparedStatement =
+        conn.prepareStatement(insertSql(tableName), Statement.RETURN_GENERATED_KEYS);
+    setInsertParameters(conn, preparedStatement, tableName, entity);
+    return preparedStatement;
+  }
+
+  /**
+   * Create an insert statement with one batch entry per entity. All entities must be of the same
+   * class. Run it with executeBatch.
+   */
+  public PreparedStatement createBatchInsertStatement(final Connection conn,
+      final List<? extends AbstractEntity> entities) throws Exception {
+    checkArgument(!entities.isEmpty(), "no entity to insert");
+    final String tableName = requireNonNull(entityMappingHolder.tableToEntityNameMap.inverse()
+        .get(entities.get(0).getClass().getSimpleName()));
+    final PreparedStatement preparedStatement =
+        conn.prepareStatement(insertSql(tableName), Statement.RETURN_GENERATED_KEYS);
+    try {
+      for (final AbstractEntity entity : entities) {
+        checkArgument(entity.getClass().equals(entities.get(0).getClass()),
+            "entities of a batch insert must be of the same class");
+        setInsertParameters(conn, preparedStatement, tableName, entity);
+        preparedStatement.addBatch();
+      }
+    } catch (final Exception e) {
+      preparedStatement.close();
+      throw e;
+    }
+    return preparedStatement;
+  }
+
+  private String insertSql(final String tableName) {
     if (!insertSqlMap.containsKey(tableName)) {
       final String insertSql = generateInsertSql(tableName,
           entityMappingHolder.columnInfoPerTable.get(tableName.toLowerCase()));
       insertSqlMap.put(tableName, insertSql);
     }
+    return insertSqlMap.get(tableName);
+  }
 
-    final String sql = insertSqlMap.get(tableName);
-    final PreparedStatement preparedStatement =
-        conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+  private void setInsertParameters(final Connection conn,
+      final PreparedStatement preparedStatement, final String tableName,
+      final AbstractEntity entity) throws Exception {
     final LinkedHashMap<String, ColumnInfo> columnInfoMap =
         entityMappingHolder.columnInfoPerTable.get(tableName);
     int parameterIndex = 1;
@@ -127,19 +165,124 @@ public class SqlQueryBuilder {
         }
       }
     }
-    return preparedStatement;
   }
 
   public PreparedStatement createUpdateStatement(final Connection connection, final AbstractEntity entity,
       final Set<String> fieldsToUpdate, final Predicate predicate) throws Exception {
     final String tableName =
         entityMappingHolder.tableToEntityNameMap.inverse().get(entity.getClass().getSimpleName());
+    final List<Pair<String, Object>> parametersList = new ArrayList<>();
+    final String sql = generateUpdateSql(tableName, entity, fieldsToUpdate, predicate,
+        parametersList);
+    final PreparedStatement prepareStatement = connection.prepareStatement(sql);
+    setParameters(prepareStatement, tableName, parametersList);
+    return prepareStatement;
+  }
+
+  /**
+   * Create the update statements of a list of entities of the same class, with one batch entry
+   * per entity. Null fields are not updated, so entities with different null fields need
+   * different statements: one statement is created per distinct update query. Run them with
+   * executeBatch.
+   *
+   * @param predicates the predicate of each entity, in the order of the entities
+   */
+  public List<PreparedStatement> createBatchUpdateStatements(final Connection connection,
+      final List<? extends AbstractEntity> entities, final List<Predicate> predicates)
+      throws Exception {
+    checkArgument(entities.size() == predicates.size(),
+        "there should be exactly one predicate per entity");
+    final Map<String, PreparedStatement> statements = new LinkedHashMap<>();
+    try {
+      for (int i = 0; i < entities.size(); i++) {
+        final AbstractEntity entity = entities.get(i);
+        final String tableName = entityMappingHolder.tableToEntityNameMap.inverse()
+            .get(entity.getClass().getSimpleName());
+        final List<Pair<String, Object>> parametersList = new ArrayList<>();
+        final String sql = generateUpdateSql(tableName, entity, null, predicates.get(i),
+            parametersList);
+        PreparedStatement statement = statements.get(sql);
+        if (statement == null) {
+          statement = connection.prepareStatement(sql);
+          statements.put(sql, statement);
+        }
+        setParameters(statement, tableName, parametersList);
+        statement.addBatch();
+      }
+    } catch (final Exception e) {
+      for (final PreparedStatement statement : statements.values()) {
+        statement.close();
+      }
+      throw e;
+    }
+    return new ArrayList<>(statements.values());
+  }
+
+  /**
+   * Create a statement that updates some columns and some json fields of the rows matching the
+   * predicate, without the other columns. Json fields are set with JSON_SET on the json_val
+   * column. update_time is set and version is incremented.
+   *
+   * @param columnValues values of the columns to set, keyed by entity field name
+   * @param jsonValues json literals of the top-level json fields to set, keyed by field name
+   */
+  public PreparedStatement createPartialUpdateStatement(final Connection connection,
+      final Class<? extends AbstractEntity> entityClass, final Map<String, Object> columnValues,
+      final Map<String, String> jsonValues, final Timestamp updateTime,
+      final Predicate predicate) throws Exception {
+    final String tableName = entityMappingHolder.tableToEntityNameMap.inverse()
+        .get(entityClass.getSimpleName());
     final LinkedHashMap<String, ColumnInfo> columnInfoMap =
         entityMappingHolder.columnInfoPerTable.get(tableName);
+    final BiMap<String, String> entityNameToDBNameMapping =
+        entityMappingHolder.columnMappingPerTable.get(tableName).inverse();
 
     final StringBuilder sqlBuilder = new StringBuilder("UPDATE " + tableName + " SET ");
-    String delim = "";
     final List<Pair<String, Object>> parametersList = new ArrayList<>();
+    for (final Entry<String, Object> e : columnValues.entrySet()) {
+      final String columnNameInDB = checkNotNull(entityNameToDBNameMapping.get(e.getKey()),
+          "Found field '%s' but expected %s", e.getKey(), entityNameToDBNameMapping.keySet());
+      checkArgument(!AUTO_UPDATE_COLUMN_SET.contains(columnNameInDB),
+          "Column %s cannot be updated", columnNameInDB);
+      Object val = e.getValue();
+      if (val != null && Enum.class.isAssignableFrom(val.getClass())) {
+        val = val.toString();
+      }
+      sqlBuilder.append(columnNameInDB).append("=?,");
+      parametersList.add(new ImmutablePair<>(columnNameInDB, val));
+    }
+    if (!jsonValues.isEmpty()) {
+      checkArgument(columnInfoMap.containsKey(JSON_VAL_COLUMN),
+          "Table %s has no json column", tableName);
+      sqlBuilder.append(JSON_VAL_COLUMN).append("=JSON_SET(").append(JSON_VAL_COLUMN);
+      for (final Entry<String, String> e : jsonValues.entrySet()) {
+        // path and value are parameters of the statement - they are bound as strings
+        sqlBuilder.append(", ?, CAST(? AS JSON)");
+        parametersList.add(new ImmutablePair<>(JSON_VAL_COLUMN, "$." + e.getKey()));
+        parametersList.add(new ImmutablePair<>(JSON_VAL_COLUMN, e.getValue()));
+      }
+      sqlBuilder.append("),");
+    }
+    sqlBuilder.append("update_time=?, version=version+1");
+    parametersList.add(new ImmutablePair<>("update_time", updateTime));
+
+    final StringBuilder whereClause = new StringBuilder(" WHERE ");
+    generateWhereClause(entityNameToDBNameMapping, predicate, parametersList, whereClause);
+    sqlBuilder.append(whereClause);
+
+    final PreparedStatement prepareStatement = connection.prepareStatement(sqlBuilder.toString());
+    setParameters(prepareStatement, tableName, parametersList);
+    return prepareStatement;
+  }
+
+  private String generateUpdateSql(final String tableName, final AbstractEntity entity,
+      final Set<String> fieldsToUpdate, final Predicate predicate,
+      final List<Pair<String, Object>> parametersList) throws IllegalAccessException {
+    final LinkedHashMap<String, ColumnInfo> columnInfoMap =
+        entityMappingHolder.columnInfoPerTable.get(tableName);
+
+    final StringBuilder sqlBuilder = new StringBuilder("UPDATE " + tableName + " SET ");
+    String delim = "";
     for (final ColumnInfo columnInfo : columnInfoMap.values()) {
       final String columnNameInDB = columnInfo.getColumnNameInDB();
       if (!AUTO_UPDATE_COLUMN_SET.contains(columnNameInDB)
@@ -163,14 +306,19 @@ public class SqlQueryBuilder {
     final StringBuilder whereClause = new StringBuilder(" WHERE ");
     generateWhereClause(entityNameToDBNameMapping, predicate, parametersList, whereClause);
     sqlBuilder.append(whereClause);
+    return sqlBuilder.toString();
+  }
+
+  private void setParameters(final PreparedStatement preparedStatement, final String tableName,
+      final List<Pair<String, Object>> parametersList) throws SQLException {
+    final LinkedHashMap<String, ColumnInfo> columnInfoMap =
+        entityMappingHolder.columnInfoPerTable.get(tableName);
     int parameterIndex = 1;
-    final PreparedStatement prepareStatement = connection.prepareStatement(sqlBuilder.toString());
     for (final Pair<String, Object> paramEntry : parametersList) {
       final String dbFieldName = paramEntry.getKey();
       final ColumnInfo info = columnInfoMap.get(dbFieldName);
-      prepareStatement.setObject(parameterIndex++, paramEntry.getValue(), info.getSqlType());
+      preparedStatement.setObject(parameterIndex++, paramEntry.getValue(), info.getSqlType());
     }
-    return prepareStatement;
   }
 
   public PreparedStatement createDeleteStatement(final Connection connection,
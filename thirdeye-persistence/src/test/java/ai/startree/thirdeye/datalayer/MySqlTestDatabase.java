@@ -95,7 +95,9 @@ public class MySqlTestDatabase {
 
     return new DatabaseConfiguration()
         .setUrl(jdbcUrl.replace(defaultDatabaseName, databaseName)
-            + "?autoReconnect=true&allowPublicKeyRetrieval=true&sslMode=DISABLED")
+            + "?autoReconnect=true&allowPublicKeyRetrieval=true&sslMode=DISABLED"
+            // same batching behavior as the default deployments
+            + "&rewriteBatchedStatements=true")
         .setUser(USERNAME)
         .setPassword(PASSWORD)
         .setDriver(persistenceDbContainer.getDriverClassName());
@@ -270,6 +270,25 @@ public class TestAnomalyManager {
     assertThat(findAnomalyById(filterAnomalies, id2).getFeedback()).isNull();
   }
 
+  @Test
+  public void testDecorateWithChildrenKeepsFeedback() {
+    final AnomalyDTO parent = anomaly(20000, 22000);
+    parent.setChildren(new HashSet<>(Arrays.asList(anomaly(20000, 21000))));
+    final Long id = mergedAnomalyResultDAO.save(parent);
+    provideFeedbackToAnomaly(id, AnomalyFeedbackType.ANOMALY, "test feedback");
+
+    final DaoFilter filter = new DaoFilter().setPredicate(Predicate.EQ("startTime", 20000));
+    final AnomalyDTO read = findAnomalyById(mergedAnomalyResultDAO.filter(filter), id);
+    assertThat(read.getChildren().size()).isEqualTo(0);
+    // a feedback that is reloaded would lose this in-memory change
+    read.getFeedback().setComment("in memory");
+
+    final List<AnomalyDTO> decorated = mergedAnomalyResultDAO.decorateWithChildren(List.of(read));
+    assertThat(decorated.size()).isEqualTo(1);
+    assertThat(decorated.get(0).getFeedback().getComment()).isEqualTo("in memory");
+    assertThat(decorated.get(0).getChildren().size()).isEqualTo(1);
+  }
+
   @Test
   public void testSaveChildren() {
     mergedResult = anomaly(1000, 2000);
@@ -464,6 +483,42 @@ public class TestAnomalyManager {
         .getStartTime(), 1600);
   }
 
+  @Test
+  public void testSaveAll() {
+    final AnomalyDTO existing = anomaly(1000, 2000);
+    mergedAnomalyResultDAO.save(existing);
+    existing.setEndTime(2500);
+
+    final AnomalyDTO parent = anomaly(3000, 4000);
+    final AnomalyDTO child1 = anomaly(3000, 3500);
+    final AnomalyDTO child2 = anomaly(3500, 4000);
+    final AnomalyDTO child3 = anomaly(3600, 3800);
+    child2.setChildren(new HashSet<>(Arrays.asList(child3)));
+    parent.setChildren(new HashSet<>(Arrays.asList(child1, child2)));
+    final List<AnomalyDTO> others = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      others.add(anomaly(5000 + i, 6000 + i));
+    }
+    final List<AnomalyDTO> anomalies = new ArrayList<>(List.of(existing, parent));
+    anomalies.addAll(others);
+
+    // batch size smaller than the number of anomalies to write multiple transactions
+    mergedAnomalyResultDAO.saveAll(anomalies, 2);
+
+    assertThat(mergedAnomalyResultDAO.findById(existing.getId()).getEndTime()).isEqualTo(2500);
+    for (final AnomalyDTO other : others) {
+      assertThat(other.getId()).isNotNull();
+      assertThat(mergedAnomalyResultDAO.findById(other.getId()).getStartTime())
+          .isEqualTo(other.getStartTime());
+    }
+    final AnomalyDTO read = mergedAnomalyResultDAO.findById(parent.getId());
+    assertThat(read.isChild()).isFalse();
+    assertThat(collectIds(read.getChildren())).isEqualTo(collectIds(List.of(child1, child2)));
+    final AnomalyDTO readChild2 = mergedAnomalyResultDAO.findById(child2.getId());
+    assertThat(readChild2.isChild()).isTrue();
+    assertThat(collectIds(readChild2.getChildren())).isEqualTo(collectIds(List.of(child3)));
+  }
+
   @Test
   public void testFindParent() {
     final AnomalyDTO top = new AnomalyDTO();
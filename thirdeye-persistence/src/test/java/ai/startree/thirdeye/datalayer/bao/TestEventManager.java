@@ -19,7 +19,9 @@ import ai.startree.thirdeye.spi.datalayer.dto.EventDTO;
 import ai.startree.thirdeye.spi.events.EventType;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.stream.Collectors;
 import org.testng.Assert;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
@@ -79,4 +81,52 @@ public class TestEventManager {
     EventDTO testEventDTO = eventDAO.findById(testEventId);
     Assert.assertNull(testEventDTO);
   }
+
+  @Test(dependsOnMethods = {"testDelete"})
+  public void testFindEventsBetweenTimeRangeWithFilterSeesWrites() {
+    final List<String> types = List.of(EventType.HOLIDAY.name());
+    final EventDTO event1 = new EventDTO()
+        .setName("event1")
+        .setEventType(EventType.HOLIDAY.name())
+        .setStartTime(1000)
+        .setEndTime(2000);
+    final Long id1 = eventDAO.save(event1);
+    Assert.assertEquals(ids(eventDAO.findEventsBetweenTimeRange(1500, 3000, types, null)),
+        List.of(id1));
+    // intervals are half-open
+    Assert.assertEquals(eventDAO.findEventsBetweenTimeRange(2000, 3000, types, null).size(), 0);
+
+    final Long id2 = eventDAO.save(new EventDTO()
+        .setName("event2")
+        .setEventType(EventType.HOLIDAY.name())
+        .setStartTime(1500)
+        .setEndTime(2500));
+    Assert.assertEquals(ids(eventDAO.findEventsBetweenTimeRange(1500, 3000, types, null)),
+        List.of(id1, id2));
+    Assert.assertEquals(ids(eventDAO.findEventsBetweenTimeRange(1500, 3000, types,
+        "name = 'event2'")), List.of(id2));
+    Assert.assertEquals(eventDAO.findEventsBetweenTimeRange(1500, 3000,
+        List.of(EventType.DEPLOYMENT.name()), null).size(), 0);
+    // event types are case-insensitive
+    Assert.assertEquals(ids(eventDAO.findEventsBetweenTimeRange(1500, 3000,
+        List.of(EventType.HOLIDAY.name().toLowerCase(Locale.ROOT)), null)), List.of(id1, id2));
+    // returned events are copies
+    eventDAO.findEventsBetweenTimeRange(1500, 3000, types, null).get(0).setName("modified");
+    Assert.assertEquals(eventDAO.findEventsBetweenTimeRange(1500, 3000, types, null).get(0)
+        .getName(), "event1");
+
+    event1.setEndTime(1200);
+    eventDAO.update(event1);
+    Assert.assertEquals(ids(eventDAO.findEventsBetweenTimeRange(1500, 3000, types, null)),
+        List.of(id2));
+
+    eventDAO.deleteById(id2);
+    Assert.assertEquals(ids(eventDAO.findEventsBetweenTimeRange(0, 3000, null, null)),
+        List.of(id1));
+    eventDAO.deleteById(id1);
+  }
+
+  private static List<Long> ids(final List<EventDTO> events) {
+    return events.stream().map(EventDTO::getId).collect(Collectors.toList());
+  }
 }
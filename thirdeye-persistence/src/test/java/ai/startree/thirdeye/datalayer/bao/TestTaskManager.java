@@ -124,4 +124,60 @@ public class TestTaskManager {
     assertThat(byId).isNotNull();
     assertThat(byId.getRefId()).isEqualTo(refId);
   }
+
+  @Test(dependsOnMethods = "testRefId")
+  public void testAcquireTasks() throws JsonProcessingException {
+    final TaskInfo taskInfo = new TaskInfo() {
+      @SuppressWarnings("unused")
+      public final int dummyVariable = 0; // required for jackson json serialization
+
+      @Override
+      public Long getRefId() {
+        return 1L;
+      }
+    };
+    taskManager.createTaskDto(1L, taskInfo, TaskType.DETECTION);
+    taskManager.createTaskDto(2L, taskInfo, TaskType.DETECTION);
+    final long waiting = taskManager.countByStatus(TaskStatus.WAITING);
+
+    final long workerId = 42L;
+    final List<TaskDTO> claimed = taskManager.acquireTasks(workerId, 2);
+    assertThat(claimed.size()).isEqualTo(2);
+    for (final TaskDTO task : claimed) {
+      assertThat(task.getStatus()).isEqualTo(TaskStatus.RUNNING);
+      assertThat(task.getWorkerId()).isEqualTo(workerId);
+
+      final TaskDTO persisted = taskManager.findById(task.getId());
+      assertThat(persisted.getStatus()).isEqualTo(TaskStatus.RUNNING);
+      assertThat(persisted.getWorkerId()).isEqualTo(workerId);
+      assertThat(persisted.getVersion()).isEqualTo(task.getVersion());
+    }
+    assertThat(taskManager.countByStatus(TaskStatus.WAITING)).isEqualTo(waiting - 2);
+  }
+
+  @Test(dependsOnMethods = "testRefId")
+  public void testUpdateLastActive() throws JsonProcessingException {
+    final TaskDTO task = taskManager.createTaskDto(3L, new TaskInfo() {
+      @SuppressWarnings("unused")
+      public final int dummyVariable = 0; // required for jackson json serialization
+
+      @Override
+      public Long getRefId() {
+        return 3L;
+      }
+    }, TaskType.DETECTION);
+    final TaskDTO before = taskManager.findById(task.getId());
+
+    taskManager.updateLastActive(task.getId());
+
+    final TaskDTO after = taskManager.findById(task.getId());
+    assertThat(after.getLastActive()).isNotNull();
+    assertThat(after.getVersion()).isEqualTo(before.getVersion() + 1);
+    assertThat(after.getJobName()).isEqualTo(before.getJobName());
+    assertThat(after.getStatus()).isEqualTo(TaskStatus.WAITING);
+    // the lastActive column is set too - it is null before the first heartbeat
+    final Timestamp epoch = new Timestamp(0L);
+    assertThat(taskManager.findByPredicate(Predicate.AND(Predicate.EQ("id", task.getId()),
+        Predicate.GE("lastActive", epoch))).size()).isEqualTo(1);
+  }
 }
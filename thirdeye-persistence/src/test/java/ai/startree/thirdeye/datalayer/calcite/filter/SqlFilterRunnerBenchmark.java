@@ -0,0 +1,104 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.datalayer.calcite.filter;
+
+import ai.startree.thirdeye.datalayer.calcite.object.adapter.EventToRelationAdapter;
+import ai.startree.thirdeye.spi.datalayer.dto.EventDTO;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Measures the cost of {@link SqlFilterRunner#applyFilter} on 10k events, when the filter is
+ * planned at each call and when the compiled filter is reused. Run the main method manually.
+ */
+public class SqlFilterRunnerBenchmark {
+
+  private static final Logger LOG = LoggerFactory.getLogger(SqlFilterRunnerBenchmark.class);
+
+  private static final int N_ROUNDS = 15;
+  private static final int N_CALLS = 20;
+  private static final int N_EVENTS = 10_000;
+  private static final String SQL_FILTER =
+      "type = 'HOLIDAY' AND 'US' member of dimensionMap['country']";
+  private static final List<String> COUNTRIES = List.of("US", "FR", "DE", "IN");
+
+  private final List<EventDTO> events = new ArrayList<>();
+
+  private long tStart;
+  private List<Long> times = new ArrayList<>();
+
+  public SqlFilterRunnerBenchmark() {
+    for (int i = 0; i < N_EVENTS; i++) {
+      events.add((EventDTO) new EventDTO().setName("event" + i)
+          .setEventType(i % 2 == 0 ? "HOLIDAY" : "CUSTOM")
+          .setTargetDimensionMap(Map.of("country", List.of(COUNTRIES.get(i % COUNTRIES.size()))))
+          .setId((long) i));
+    }
+  }
+
+  private void benchmark(final String name, final boolean reuseCompiledFilter) {
+    long checksum = 0;
+    SqlFilterRunner<EventDTO> filterRunner = new SqlFilterRunner<>(new EventToRelationAdapter());
+    for (int r = 0; r < N_ROUNDS; r++) {
+      startTimer();
+      for (int i = 0; i < N_CALLS; i++) {
+        if (!reuseCompiledFilter) {
+          filterRunner = new SqlFilterRunner<>(new EventToRelationAdapter());
+        }
+        checksum += filterRunner.applyFilter(events, SQL_FILTER).size();
+      }
+      stopTimer();
+    }
+    logResults(name, checksum);
+  }
+
+  private void startTimer() {
+    this.tStart = System.nanoTime();
+  }
+
+  private void stopTimer() {
+    this.times.add(System.nanoTime() - this.tStart);
+  }
+
+  private void logResults(final String name, final long checksum) {
+    Collections.sort(this.times);
+    final long tMid = this.times.get(this.times.size() / 2);
+    final long tMin = Collections.min(this.times);
+    final long tMax = Collections.max(this.times);
+    LOG.info("{}: min/mid/max = {}ms {}ms {}ms [chk={}, cnt={}]", name, tMin / 1000000,
+        tMid / 1000000, tMax / 1000000, checksum % 1000, this.times.size());
+
+    // reset timer stats
+    this.times = new ArrayList<>();
+  }
+
+  public static void main(final String[] args) throws Exception {
+    LOG.info("Press Enter key to start.");
+    System.in.read();
+
+    LOG.info("Running SqlFilterRunner benchmark ...");
+    final SqlFilterRunnerBenchmark b = new SqlFilterRunnerBenchmark();
+    // warm up both paths before measuring
+    b.benchmark("warmupNoCache", false);
+    b.benchmark("warmupCache", true);
+
+    b.benchmark("noCache", false);
+    b.benchmark("cache", true);
+    LOG.info("done.");
+  }
+}
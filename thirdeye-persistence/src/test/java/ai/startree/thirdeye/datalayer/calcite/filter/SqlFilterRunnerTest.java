@@ -17,7 +17,9 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import ai.startree.thirdeye.datalayer.calcite.object.adapter.EventToRelationAdapter;
+import ai.startree.thirdeye.spi.ThirdEyeException;
 import ai.startree.thirdeye.spi.datalayer.dto.EventDTO;
+import com.codahale.metrics.MetricRegistry;
 import java.util.List;
 import java.util.Map;
 import org.testng.annotations.Ignore;
@@ -149,6 +151,48 @@ public class SqlFilterRunnerTest {
         sqlFiler)).isEqualTo(List.of(DEV_ENV_ONLY_EVENT));
   }
 
+  @Test
+  public void testCompiledFilterIsReusedOnOtherElements() {
+    final MetricRegistry metricRegistry = new MetricRegistry();
+    final SqlFilterRunner<EventDTO> filterRunner = new SqlFilterRunner<>(
+        new EventToRelationAdapter(), metricRegistry);
+    final String sqlFiler = "type = 'CUSTOM' and 'prod' member of dimensionMap['environment']";
+
+    assertThat(filterRunner.applyFilter(EVENT_LIST, sqlFiler)).isEqualTo(List.of(FR_ONLY_EVENT));
+    assertThat(filterRunner.applyFilter(List.of(CHRISTMAS_EVENT, DEV_ENV_ONLY_EVENT),
+        "AND " + sqlFiler)).isEqualTo(List.of());
+    assertThat(filterRunner.applyFilter(List.of(FR_ONLY_EVENT, EASTER_EVENT),
+        sqlFiler)).isEqualTo(List.of(FR_ONLY_EVENT));
+
+    assertThat(metricRegistry.counter("sqlFilterCacheMissCounter").getCount()).isEqualTo(1);
+    assertThat(metricRegistry.counter("sqlFilterCacheHitCounter").getCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void testApplyFilterWithTimeFunctions() {
+    final String sqlFiler = "type = 'HOLIDAY'"
+        + " AND CURRENT_TIMESTAMP > TIMESTAMP '2000-01-01 00:00:00'"
+        + " AND LOCALTIMESTAMP > TIMESTAMP '2000-01-01 00:00:00'";
+    assertThat(FILTER_RUNNER.applyFilter(EVENT_LIST, sqlFiler)).isEqualTo(List.of(CHRISTMAS_EVENT,
+        EASTER_EVENT));
+    assertThat(FILTER_RUNNER.applyFilter(EVENT_LIST,
+        "CURRENT_TIMESTAMP < TIMESTAMP '2000-01-01 00:00:00'")).isEqualTo(List.of());
+  }
+
+  @Test
+  public void testInvalidFilterIsNotCached() {
+    final MetricRegistry metricRegistry = new MetricRegistry();
+    final SqlFilterRunner<EventDTO> filterRunner = new SqlFilterRunner<>(
+        new EventToRelationAdapter(), metricRegistry);
+
+    assertThatThrownBy(() -> filterRunner.applyFilter(EVENT_LIST, "type = ")).isInstanceOf(
+        ThirdEyeException.class);
+    assertThatThrownBy(() -> filterRunner.applyFilter(EVENT_LIST, "type = ")).isInstanceOf(
+        ThirdEyeException.class);
+
+    assertThat(metricRegistry.counter("sqlFilterCacheMissCounter").getCount()).isEqualTo(2);
+  }
+
   @Test()
   @Ignore
   // fixme cyril breaks if the left MULTISET contains strings with different length - looks like a Calcite issue
@@ -19,12 +19,15 @@ import static ai.startree.thirdeye.spi.ThirdEyeStatus.ERR_OFFSET_WITHOUT_LIMIT;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
+import ai.startree.thirdeye.datalayer.DatabaseTransactionService;
 import ai.startree.thirdeye.datalayer.MySqlTestDatabase;
 import ai.startree.thirdeye.spi.datalayer.DaoFilter;
 import ai.startree.thirdeye.spi.datalayer.Predicate;
 import ai.startree.thirdeye.spi.datalayer.dto.AnomalyDTO;
 import ai.startree.thirdeye.spi.datalayer.dto.DataSourceDTO;
+import java.sql.SQLException;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
@@ -41,6 +44,7 @@ public class TestGenericPojoDao {
   private static final int TOTAL_ANOMALIES = 100;
 
   private GenericPojoDao dao;
+  private DatabaseTransactionService transactionService;
 
   private static long getRandomLimit() {
     // avoid limit as 0
@@ -54,6 +58,8 @@ public class TestGenericPojoDao {
   @BeforeClass
   void beforeClass() {
     dao = MySqlTestDatabase.sharedInjector().getInstance(GenericPojoDao.class);
+    transactionService = MySqlTestDatabase.sharedInjector()
+        .getInstance(DatabaseTransactionService.class);
     for (int i = 0; i < TOTAL_ANOMALIES; i++) {
       dao.create(anomaly());
     }
@@ -124,6 +130,76 @@ public class TestGenericPojoDao {
     assertThat(dao.getAll(DataSourceDTO.class).size()).isEqualTo(0);
   }
 
+  @Test
+  public void updatePartialTest() {
+    final AnomalyDTO anomaly = anomaly().setMetric("partial").setEndTime(2000L);
+    final Long id = dao.create(anomaly);
+    final int version = dao.get(id, AnomalyDTO.class).getVersion();
+
+    // notified is an index column, endTime is in the index and in the json
+    assertThat(dao.updatePartial(AnomalyDTO.class, id, Map.of("notified", true), version))
+        .isEqualTo(1);
+    final AnomalyDTO updated = dao.get(id, AnomalyDTO.class);
+    assertThat(updated.isNotified()).isTrue();
+    assertThat(updated.getMetric()).isEqualTo("partial");
+    assertThat(updated.getEndTime()).isEqualTo(2000L);
+    assertThat(updated.getVersion()).isEqualTo(version + 1);
+    assertThat(dao.get(new DaoFilter()
+        .setPredicate(Predicate.AND(Predicate.EQ(BASE_ID, id), Predicate.EQ("notified", true)))
+        .setBeanClass(AnomalyDTO.class))).hasSize(1);
+
+    // stale version: not updated
+    assertThat(dao.updatePartial(AnomalyDTO.class, id, Map.of("endTime", 3000L), version))
+        .isEqualTo(0);
+    assertThat(dao.get(id, AnomalyDTO.class).getEndTime()).isEqualTo(2000L);
+  }
+
+  @Test
+  public void updatePartialOfJsonOnlyFieldDoesNotUpdateIndexTest() {
+    final Long id = dao.create(anomaly().setMetric("partialJsonOnly"));
+    final int version = dao.get(id, AnomalyDTO.class).getVersion();
+
+    // score is not an index column
+    assertThat(dao.updatePartial(AnomalyDTO.class, id, Map.of("score", 0.5), version))
+        .isEqualTo(1);
+    final AnomalyDTO updated = dao.get(id, AnomalyDTO.class);
+    assertThat(updated.getScore()).isEqualTo(0.5);
+    assertThat(updated.getVersion()).isEqualTo(version + 1);
+    // the version of the index entity is unchanged
+    assertThat(dao.get(new DaoFilter()
+        .setPredicate(Predicate.AND(Predicate.EQ(BASE_ID, id), Predicate.EQ(VERSION, 1)))
+        .setBeanClass(AnomalyDTO.class))).hasSize(1);
+  }
+
+  @Test
+  public void updatePartialOfManyInTransactionTest() throws SQLException {
+    final Long id1 = dao.create(anomaly().setMetric("partialMany").setScore(0.1));
+    final Long id2 = dao.create(anomaly().setMetric("partialMany").setScore(0.1));
+
+    final int updated = transactionService.executeTransaction(connection -> dao.updatePartial(
+        AnomalyDTO.class,
+        List.of(id1, id2),
+        Map.of("notified", true),
+        connection), 0);
+    assertThat(updated).isEqualTo(2);
+    for (final Long id : List.of(id1, id2)) {
+      assertThat(dao.get(id, AnomalyDTO.class).isNotified()).isTrue();
+      assertThat(dao.get(new DaoFilter()
+          .setPredicate(Predicate.AND(Predicate.EQ(BASE_ID, id), Predicate.EQ("notified", true)))
+          .setBeanClass(AnomalyDTO.class))).hasSize(1);
+    }
+
+    // a failure after the first update rolls back both updates
+    final boolean success = transactionService.executeTransaction(connection -> {
+      dao.updatePartial(AnomalyDTO.class, List.of(id1), Map.of("score", 0.5), connection);
+      dao.updatePartial(AnomalyDTO.class, List.of(id2), Map.of("score", 0.5), connection);
+      throw new IllegalStateException("failure after the updates");
+    }, false);
+    assertThat(success).isFalse();
+    assertThat(dao.get(id1, AnomalyDTO.class).getScore()).isEqualTo(0.1);
+    assertThat(dao.get(id2, AnomalyDTO.class).getScore()).isEqualTo(0.1);
+  }
+
   @Test
   public void filterWithLimitTest() {
     final long limit = getRandomLimit();
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.datalayer.util;
+
+import static ai.startree.thirdeye.datalayer.util.GenericResultSetMapperTest.anomalyIndexMappingHolder;
+import static ai.startree.thirdeye.datalayer.util.GenericResultSetMapperTest.anomalyIndexRows;
+
+import ai.startree.thirdeye.datalayer.entity.AbstractEntity;
+import ai.startree.thirdeye.datalayer.entity.MergedAnomalyResultIndex;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.lang.reflect.Field;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import javax.sql.rowset.CachedRowSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Measures the cost of mapping the rows of merged_anomaly_result_index to entities with
+ * {@link GenericResultSetMapper}, compared to the former mapping through a Jackson tree. Rows are
+ * served from memory so that only the mapping is measured. Run the main method manually.
+ */
+public class GenericResultSetMapperBenchmark {
+
+  private static final Logger LOG = LoggerFactory.getLogger(GenericResultSetMapperBenchmark.class);
+
+  private static final int N_ROUNDS = 15;
+  private static final int N_ROWS = 100_000;
+
+  private final EntityMappingHolder entityMappingHolder;
+  private final CachedRowSet rows;
+
+  private long tStart;
+  private List<Long> times = new ArrayList<>();
+
+  public GenericResultSetMapperBenchmark() throws Exception {
+    entityMappingHolder = anomalyIndexMappingHolder();
+    rows = anomalyIndexRows(N_ROWS);
+  }
+
+  private void benchmarkJacksonTree() throws Exception {
+    final Map<String, ColumnInfo> columnInfoMap = entityMappingHolder.columnInfoPerTable.get(
+        "merged_anomaly_result_index");
+    long checksum = 0;
+    for (int r = 0; r < N_ROUNDS; r++) {
+      rows.beforeFirst();
+      startTimer();
+      final List<MergedAnomalyResultIndex> entities = jacksonTreeMapAll(rows, columnInfoMap);
+      stopTimer();
+      checksum += entities.get(entities.size() - 1).getStartTime();
+    }
+    logResults("jacksonTree", checksum);
+  }
+
+  private void benchmarkRowMapper() throws Exception {
+    final GenericResultSetMapper mapper = new GenericResultSetMapper(entityMappingHolder);
+    long checksum = 0;
+    for (int r = 0; r < N_ROUNDS; r++) {
+      rows.beforeFirst();
+      startTimer();
+      final List<MergedAnomalyResultIndex> entities = mapper.mapAll(rows,
+          MergedAnomalyResultIndex.class);
+      stopTimer();
+      checksum += entities.get(entities.size() - 1).getStartTime();
+    }
+    logResults("rowMapper", checksum);
+  }
+
+  /**
+   * The former implementation of {@link GenericResultSetMapper#mapAll}: each row is converted to
+   * a json tree of strings, then bound to the entity by Jackson.
+   */
+  @SuppressWarnings("unchecked")
+  private static <E extends AbstractEntity> List<E> jacksonTreeMapAll(final ResultSet rs,
+      final Map<String, ColumnInfo> columnInfoMap) throws Exception {
+    final List<E> entityList = new ArrayList<>();
+    final ObjectMapper mapper = new ObjectMapper();
+    while (rs.next()) {
+      final ResultSetMetaData resultSetMetaData = rs.getMetaData();
+      final int numColumns = resultSetMetaData.getColumnCount();
+      final ObjectNode objectNode = mapper.createObjectNode();
+      for (int i = 1; i <= numColumns; i++) {
+        final String dbColumnName = resultSetMetaData.getColumnLabel(i).toLowerCase();
+        final Field field = columnInfoMap.get(dbColumnName).getField();
+        final Object val = rs.getObject(i);
+        if (val == null) {
+          continue;
+        }
+        if (field.getType().isAssignableFrom(Timestamp.class)) {
+          objectNode.put(field.getName(), ((Timestamp) val).getTime());
+        } else {
+          objectNode.put(field.getName(), val.toString());
+        }
+      }
+      entityList.add((E) mapper.treeToValue(objectNode, MergedAnomalyResultIndex.class));
+    }
+    return entityList;
+  }
+
+  private void startTimer() {
+    this.tStart = System.nanoTime();
+  }
+
+  private void stopTimer() {
+    this.times.add(System.nanoTime() - this.tStart);
+  }
+
+  private void logResults(final String name, final long checksum) {
+    Collections.sort(this.times);
+    final long tMid = this.times.get(this.times.size() / 2);
+    final long tMin = Collections.min(this.times);
+    final long tMax = Collections.max(this.times);
+    LOG.info("{}: min/mid/max = {}ms {}ms {}ms [chk={}, cnt={}]", name, tMin / 1000000,
+        tMid / 1000000, tMax / 1000000, checksum % 1000, this.times.size());
+
+    // reset timer stats
+    this.times = new ArrayList<>();
+  }
+
+  public static void main(final String[] args) throws Exception {
+    LOG.info("Press Enter key to start.");
+    System.in.read();
+
+    LOG.info("Running GenericResultSetMapper benchmark ...");
+    final GenericResultSetMapperBenchmark b = new GenericResultSetMapperBenchmark();
+    // warm up both paths before measuring
+    b.benchmarkJacksonTree();
+    b.benchmarkRowMapper();
+
+    b.benchmarkJacksonTree();
+    b.benchmarkRowMapper();
+    LOG.info("done.");
+  }
+}
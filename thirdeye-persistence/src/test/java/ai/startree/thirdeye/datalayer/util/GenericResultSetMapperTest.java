@@ -0,0 +1,156 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.datalayer.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import ai.startree.thirdeye.datalayer.entity.MergedAnomalyResultIndex;
+import ai.startree.thirdeye.spi.detection.dimension.DimensionMap;
+import java.lang.reflect.Field;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetMetaDataImpl;
+import javax.sql.rowset.RowSetProvider;
+import org.testng.annotations.Test;
+
+public class GenericResultSetMapperTest {
+
+  private static final String ANOMALY_INDEX_TABLE = "merged_anomaly_result_index";
+  // column name in db -> [field name in entity, sql type]
+  private static final Map<String, Object[]> ANOMALY_INDEX_COLUMNS = new LinkedHashMap<>();
+
+  static {
+    ANOMALY_INDEX_COLUMNS.put("id", new Object[]{"id", Types.BIGINT});
+    ANOMALY_INDEX_COLUMNS.put("base_id", new Object[]{"baseId", Types.BIGINT});
+    ANOMALY_INDEX_COLUMNS.put("detection_config_id",
+        new Object[]{"detectionConfigId", Types.BIGINT});
+    ANOMALY_INDEX_COLUMNS.put("start_time", new Object[]{"startTime", Types.BIGINT});
+    ANOMALY_INDEX_COLUMNS.put("end_time", new Object[]{"endTime", Types.BIGINT});
+    ANOMALY_INDEX_COLUMNS.put("metric", new Object[]{"metric", Types.VARCHAR});
+    ANOMALY_INDEX_COLUMNS.put("dimensions", new Object[]{"dimensions", Types.VARCHAR});
+    ANOMALY_INDEX_COLUMNS.put("notified", new Object[]{"notified", Types.BOOLEAN});
+    ANOMALY_INDEX_COLUMNS.put("enumeration_item_id",
+        new Object[]{"enumerationItemId", Types.BIGINT});
+    ANOMALY_INDEX_COLUMNS.put("create_time", new Object[]{"createTime", Types.TIMESTAMP});
+    ANOMALY_INDEX_COLUMNS.put("version", new Object[]{"version", Types.INTEGER});
+  }
+
+  static EntityMappingHolder anomalyIndexMappingHolder() throws NoSuchFieldException {
+    final EntityMappingHolder holder = new EntityMappingHolder();
+    final LinkedHashMap<String, ColumnInfo> columnInfoMap = new LinkedHashMap<>();
+    for (final Map.Entry<String, Object[]> e : ANOMALY_INDEX_COLUMNS.entrySet()) {
+      final String fieldName = (String) e.getValue()[0];
+      columnInfoMap.put(e.getKey(), new ColumnInfo()
+          .setColumnNameInDB(e.getKey())
+          .setColumnNameInEntity(fieldName)
+          .setSqlType((Integer) e.getValue()[1])
+          .setField(findField(MergedAnomalyResultIndex.class, fieldName)));
+    }
+    holder.tableToEntityNameMap.put(ANOMALY_INDEX_TABLE,
+        MergedAnomalyResultIndex.class.getSimpleName());
+    holder.columnInfoPerTable.put(ANOMALY_INDEX_TABLE, columnInfoMap);
+    return holder;
+  }
+
+  private static Field findField(final Class<?> clazz, final String name)
+      throws NoSuchFieldException {
+    for (Class<?> c = clazz; c != null; c = c.getSuperclass()) {
+      try {
+        final Field field = c.getDeclaredField(name);
+        field.setAccessible(true);
+        return field;
+      } catch (final NoSuchFieldException e) {
+        // look in the superclass
+      }
+    }
+    throw new NoSuchFieldException(name);
+  }
+
+  /**
+   * Rows of the anomaly index table, in memory. Row i has id i. enumeration_item_id is null for
+   * odd rows.
+   */
+  static CachedRowSet anomalyIndexRows(final int numRows) throws SQLException {
+    final RowSetMetaDataImpl metaData = new RowSetMetaDataImpl();
+    metaData.setColumnCount(ANOMALY_INDEX_COLUMNS.size());
+    int c = 1;
+    for (final Map.Entry<String, Object[]> e : ANOMALY_INDEX_COLUMNS.entrySet()) {
+      metaData.setColumnName(c, e.getKey());
+      metaData.setColumnLabel(c, e.getKey());
+      metaData.setColumnType(c, (Integer) e.getValue()[1]);
+      metaData.setNullable(c, ResultSetMetaData.columnNullable);
+      c++;
+    }
+    final CachedRowSet rows = RowSetProvider.newFactory().createCachedRowSet();
+    rows.setMetaData(metaData);
+    for (int i = 0; i < numRows; i++) {
+      rows.moveToInsertRow();
+      rows.updateLong(1, i);
+      rows.updateLong(2, 1000L + i);
+      rows.updateLong(3, i % 50);
+      rows.updateLong(4, 1_600_000_000_000L + i);
+      rows.updateLong(5, 1_600_000_060_000L + i);
+      rows.updateString(6, "metric" + (i % 10));
+      rows.updateString(7, "{\"country\":\"us\",\"browser\":\"b" + (i % 5) + "\"}");
+      rows.updateBoolean(8, i % 3 == 0);
+      if (i % 2 == 0) {
+        rows.updateLong(9, 7L);
+      } else {
+        rows.updateNull(9);
+      }
+      rows.updateTimestamp(10, new Timestamp(1_600_000_000_000L + i));
+      rows.updateInt(11, 1 + i % 4);
+      rows.insertRow();
+      rows.moveToCurrentRow();
+    }
+    rows.beforeFirst();
+    return rows;
+  }
+
+  @Test
+  public void testMapAll() throws Exception {
+    final GenericResultSetMapper mapper = new GenericResultSetMapper(anomalyIndexMappingHolder());
+
+    final List<MergedAnomalyResultIndex> entities = mapper.mapAll(anomalyIndexRows(2),
+        MergedAnomalyResultIndex.class);
+
+    assertThat(entities).hasSize(2);
+    final MergedAnomalyResultIndex first = entities.get(0);
+    assertThat(first.getId()).isEqualTo(0L);
+    assertThat(first.getBaseId()).isEqualTo(1000L);
+    assertThat(first.getStartTime()).isEqualTo(1_600_000_000_000L);
+    assertThat(first.getEndTime()).isEqualTo(1_600_000_060_000L);
+    assertThat(first.getMetric()).isEqualTo("metric0");
+    final DimensionMap expectedDimensions = new DimensionMap();
+    expectedDimensions.put("country", "us");
+    expectedDimensions.put("browser", "b0");
+    assertThat(first.getDimensions()).isEqualTo(expectedDimensions);
+    assertThat(first.isNotified()).isTrue();
+    assertThat(first.getEnumerationItemId()).isEqualTo(7L);
+    assertThat(first.getCreateTime()).isEqualTo(new Timestamp(1_600_000_000_000L));
+    assertThat(first.getVersion()).isEqualTo(1);
+
+    final MergedAnomalyResultIndex second = entities.get(1);
+    assertThat(second.getId()).isEqualTo(1L);
+    assertThat(second.isNotified()).isFalse();
+    assertThat(second.getEnumerationItemId()).isNull();
+    assertThat(second.getVersion()).isEqualTo(2);
+  }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.plugins.rca.contributors.cube;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.Arrays;
+
+/**
+ * Aggregation of the cells of a dimension combination. Open addressing hash table on primitive
+ * arrays, keyed by the non-negative long encoding of the dimension values of a cell.
+ *
+ * The capacity is fixed at construction, at twice the maximum number of cells: the table never
+ * resizes and its memory footprint is known before it is allocated.
+ */
+class CellTable {
+
+  private static final long EMPTY = -1L;
+  private static final int MAX_CAPACITY = 1 << 30;
+  // key, current value, baseline value, volume, explorable flag
+  private static final int BYTES_PER_SLOT = 8 + 8 + 8 + 8 + 1;
+
+  private final long[] keys;
+  private final double[] currentValues;
+  private final double[] baselineValues;
+  private final double[] volumes;
+  private final boolean[] explorable;
+  private final int mask;
+  private int size = 0;
+  private int explorableCount = 0;
+
+  CellTable(final long maxCells) {
+    final int capacity = capacityFor(maxCells);
+    keys = new long[capacity];
+    Arrays.fill(keys, EMPTY);
+    currentValues = new double[capacity];
+    baselineValues = new double[capacity];
+    volumes = new double[capacity];
+    explorable = new boolean[capacity];
+    mask = capacity - 1;
+  }
+
+  static long bytesFor(final long maxCells) {
+    return (long) capacityFor(maxCells) * BYTES_PER_SLOT;
+  }
+
+  private static int capacityFor(final long maxCells) {
+    checkArgument(maxCells >= 0 && maxCells <= MAX_CAPACITY / 2,
+        "Too many cells for a cell table: %s",
+        maxCells);
+    return Integer.highestOneBit((int) Math.max(2, maxCells * 2 - 1)) << 1;
+  }
+
+  /**
+   * Adds the values of a row to its cell.
+   */
+  void add(final long key, final double current, final double baseline) {
+    int slot = slotOf(key);
+    if (keys[slot] == EMPTY) {
+      checkArgument(size < keys.length / 2, "Cell table is full");
+      keys[slot] = key;
+      size++;
+    }
+    currentValues[slot] += current;
+    baselineValues[slot] += baseline;
+    volumes[slot] += Math.abs(current) + Math.abs(baseline);
+  }
+
+  /**
+   * Returns the slot of the cell, or -1 if the cell does not exist.
+   */
+  int indexOf(final long key) {
+    final int slot = slotOf(key);
+    return keys[slot] == EMPTY ? -1 : slot;
+  }
+
+  private int slotOf(final long key) {
+    int slot = mix(key) & mask;
+    while (keys[slot] != EMPTY && keys[slot] != key) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  private static int mix(final long key) {
+    final long h = key * 0x9E3779B97F4A7C15L;
+    return (int) (h ^ (h >>> 32));
+  }
+
+  /**
+   * Marks the cells with a volume of at least minVolume as explorable.
+   *
+   * @return the number of explorable cells
+   */
+  int markExplorable(final double minVolume) {
+    explorableCount = 0;
+    for (int slot = 0; slot < keys.length; slot++) {
+      explorable[slot] = keys[slot] != EMPTY && volumes[slot] > 0 && volumes[slot] >= minVolume;
+      if (explorable[slot]) {
+        explorableCount++;
+      }
+    }
+    return explorableCount;
+  }
+
+  int explorableCount() {
+    return explorableCount;
+  }
+
+  int capacity() {
+    return keys.length;
+  }
+
+  int size() {
+    return size;
+  }
+
+  boolean isUsed(final int slot) {
+    return keys[slot] != EMPTY;
+  }
+
+  boolean isExplorable(final int slot) {
+    return explorable[slot];
+  }
+
+  long key(final int slot) {
+    return keys[slot];
+  }
+
+  double current(final int slot) {
+    return currentValues[slot];
+  }
+
+  double baseline(final int slot) {
+    return baselineValues[slot];
+  }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.plugins.rca.contributors.cube;
+
+import static ai.startree.thirdeye.spi.rca.Cost.BAlANCED_SIMPLE;
+
+import ai.startree.thirdeye.spi.rca.Cost;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class CubeConfiguration {
+
+  private Cost costFunction = BAlANCED_SIMPLE;
+
+  /**
+   * Maximum number of dimensions in a combination. Used when the search does not set a depth.
+   */
+  private int depth = 3;
+
+  /**
+   * Maximum number of dimensions of the cube. If the dataset has more dimensions, the dimensions
+   * with the largest single-dimension changes are selected.
+   */
+  private int maxDimensions = 10;
+
+  /**
+   * Row limit of the current and baseline queries grouped by all the dimensions of the cube.
+   */
+  private int maxRows = 100_000;
+
+  /**
+   * Memory available for the aggregation tables of the search. When the budget is exhausted, the
+   * search stops going deeper.
+   */
+  private int memoryBudgetMb = 64;
+
+  /**
+   * A combination is only explored further if its current plus baseline value is at least this
+   * percentage of the overall change. Children of smaller combinations cannot contribute more.
+   */
+  private double minContributionPercentage = Cost.MINIMUM_CONTRIBUTION_OF_INTEREST_PERCENTAGE;
+
+  /**
+   * Maximum time to wait for the current and baseline queries.
+   */
+  private long timeoutMs = 600_000;
+
+  public Cost getCostFunction() {
+    return costFunction;
+  }
+
+  public CubeConfiguration setCostFunction(final Cost costFunction) {
+    this.costFunction = costFunction;
+    return this;
+  }
+
+  public int getDepth() {
+    return depth;
+  }
+
+  public CubeConfiguration setDepth(final int depth) {
+    this.depth = depth;
+    return this;
+  }
+
+  public int getMaxDimensions() {
+    return maxDimensions;
+  }
+
+  public CubeConfiguration setMaxDimensions(final int maxDimensions) {
+    this.maxDimensions = maxDimensions;
+    return this;
+  }
+
+  public int getMaxRows() {
+    return maxRows;
+  }
+
+  public CubeConfiguration setMaxRows(final int maxRows) {
+    this.maxRows = maxRows;
+    return this;
+  }
+
+  public int getMemoryBudgetMb() {
+    return memoryBudgetMb;
+  }
+
+  public CubeConfiguration setMemoryBudgetMb(final int memoryBudgetMb) {
+    this.memoryBudgetMb = memoryBudgetMb;
+    return this;
+  }
+
+  public double getMinContributionPercentage() {
+    return minContributionPercentage;
+  }
+
+  public CubeConfiguration setMinContributionPercentage(
+      final double minContributionPercentage) {
+    this.minContributionPercentage = minContributionPercentage;
+    return this;
+  }
+
+  public long getTimeoutMs() {
+    return timeoutMs;
+  }
+
+  public CubeConfiguration setTimeoutMs(final long timeoutMs) {
+    this.timeoutMs = timeoutMs;
+    return this;
+  }
+}
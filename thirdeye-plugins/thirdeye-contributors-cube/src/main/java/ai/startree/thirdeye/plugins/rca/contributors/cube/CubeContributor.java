@@ -0,0 +1,88 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.plugins.rca.contributors.cube;
+
+import java.util.List;
+
+/**
+ * A combination of dimension values, for instance (country=US, browser=chrome), and its stats.
+ */
+public class CubeContributor {
+
+  private final List<String> dimensions;
+  private final List<String> values;
+  private final double baselineValue;
+  private final double currentValue;
+  private final double cost;
+  private final double valueChangePercentage;
+  private final double contributionChangePercentage;
+  private final double contributionToOverallChangePercentage;
+
+  public CubeContributor(final List<String> dimensions, final List<String> values,
+      final double baselineValue, final double currentValue, final double cost,
+      final double valueChangePercentage, final double contributionChangePercentage,
+      final double contributionToOverallChangePercentage) {
+    this.dimensions = dimensions;
+    this.values = values;
+    this.baselineValue = baselineValue;
+    this.currentValue = currentValue;
+    this.cost = cost;
+    this.valueChangePercentage = valueChangePercentage;
+    this.contributionChangePercentage = contributionChangePercentage;
+    this.contributionToOverallChangePercentage = contributionToOverallChangePercentage;
+  }
+
+  public List<String> getDimensions() {
+    return dimensions;
+  }
+
+  public List<String> getValues() {
+    return values;
+  }
+
+  public double getBaselineValue() {
+    return baselineValue;
+  }
+
+  public double getCurrentValue() {
+    return currentValue;
+  }
+
+  public double getCost() {
+    return cost;
+  }
+
+  public double getValueChangePercentage() {
+    return valueChangePercentage;
+  }
+
+  public double getContributionChangePercentage() {
+    return contributionChangePercentage;
+  }
+
+  public double getContributionToOverallChangePercentage() {
+    return contributionToOverallChangePercentage;
+  }
+
+  @Override
+  public String toString() {
+    return "CubeContributor{" +
+        "dimensions=" + dimensions +
+        ", values=" + values +
+        ", baselineValue=" + baselineValue +
+        ", currentValue=" + currentValue +
+        ", cost=" + cost +
+        '}';
+  }
+}
@@ -0,0 +1,288 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.plugins.rca.contributors.cube;
+
+import static ai.startree.thirdeye.spi.Constants.COL_VALUE;
+import static ai.startree.thirdeye.spi.Constants.DEFAULT_LOCALE;
+import static ai.startree.thirdeye.spi.datasource.loader.AggregationLoader.COL_DIMENSION_NAME;
+import static ai.startree.thirdeye.spi.datasource.loader.AggregationLoader.COL_DIMENSION_VALUE;
+import static ai.startree.thirdeye.spi.rca.Stats.computeContributionChangePercentage;
+import static ai.startree.thirdeye.spi.rca.Stats.computeContributionToOverallChangePercentage;
+import static ai.startree.thirdeye.spi.rca.Stats.computeValueChangePercentage;
+import static ai.startree.thirdeye.spi.util.SpiUtils.optional;
+
+import ai.startree.thirdeye.spi.api.AnalysisRunInfo;
+import ai.startree.thirdeye.spi.api.DimensionAnalysisResultApi;
+import ai.startree.thirdeye.spi.dataframe.DataFrame;
+import ai.startree.thirdeye.spi.datalayer.Predicate;
+import ai.startree.thirdeye.spi.datalayer.Templatable;
+import ai.startree.thirdeye.spi.datalayer.dto.DatasetConfigDTO;
+import ai.startree.thirdeye.spi.datasource.loader.AggregationLoader;
+import ai.startree.thirdeye.spi.metric.MetricAggFunction;
+import ai.startree.thirdeye.spi.metric.MetricSlice;
+import ai.startree.thirdeye.spi.rca.ContributorsFinder;
+import ai.startree.thirdeye.spi.rca.ContributorsFinderResult;
+import ai.startree.thirdeye.spi.rca.ContributorsSearchConfiguration;
+import ai.startree.thirdeye.spi.util.Pair;
+import com.google.common.annotations.VisibleForTesting;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Searches the top contributors among the combinations of up to depth dimensions, for instance
+ * (country=US, browser=chrome). The current and baseline values are fetched once, grouped by all
+ * the dimensions of the cube. The combinations are then aggregated locally with a pruned top-down
+ * search, see {@link CubeSearch}. Only additive metrics are supported: SUM and COUNT.
+ */
+public class CubeContributorsFinder implements ContributorsFinder {
+
+  private static final Logger LOG = LoggerFactory.getLogger(CubeContributorsFinder.class);
+  private static final int BREAKDOWN_LIMIT = 100;
+  private static final Set<String> ADDITIVE_AGG_FUNCTIONS = Set.of(MetricAggFunction.SUM.name(),
+      MetricAggFunction.COUNT.name());
+
+  private final AggregationLoader aggregationLoader;
+  private final CubeConfiguration cubeConfiguration;
+
+  public CubeContributorsFinder(final AggregationLoader aggregationLoader,
+      final CubeConfiguration cubeConfiguration) {
+    this.aggregationLoader = aggregationLoader;
+    this.cubeConfiguration = cubeConfiguration;
+  }
+
+  @Override
+  public @NonNull ContributorsFinderResult search(
+      final ContributorsSearchConfiguration searchConfiguration) throws Exception {
+    final String aggFunction = optional(
+        searchConfiguration.getMetricConfigDTO().getDefaultAggFunction())
+        .map(f -> f.toUpperCase(DEFAULT_LOCALE))
+        .orElse("");
+    if (!ADDITIVE_AGG_FUNCTIONS.contains(aggFunction)) {
+      return cannotComputeResult(String.format(
+          "The cube contributors finder only supports SUM and COUNT metrics. Got: %s.",
+          aggFunction));
+    }
+    final MetricSlice baselineSlice = MetricSlice.from(searchConfiguration.getMetricConfigDTO(),
+        searchConfiguration.getBaselineInterval(),
+        searchConfiguration.getFilters(),
+        searchConfiguration.getDatasetConfigDTO());
+    final MetricSlice currentSlice = MetricSlice.from(searchConfiguration.getMetricConfigDTO(),
+        searchConfiguration.getCurrentInterval(),
+        searchConfiguration.getFilters(),
+        searchConfiguration.getDatasetConfigDTO());
+
+    final List<String> dimensions = cubeDimensions(currentSlice, baselineSlice);
+    if (dimensions.isEmpty()) {
+      return cannotComputeResult("No dimension to analyze.");
+    }
+
+    // both aggregates are loaded concurrently
+    final int maxRows = cubeConfiguration.getMaxRows();
+    final Future<DataFrame> currentFuture = aggregationLoader.loadAggregateAsync(currentSlice,
+        dimensions,
+        maxRows);
+    final Future<DataFrame> baselineFuture = aggregationLoader.loadAggregateAsync(baselineSlice,
+        dimensions,
+        maxRows);
+    final long deadline = System.currentTimeMillis() + cubeConfiguration.getTimeoutMs();
+    final DataFrame baseline;
+    final DataFrame current;
+    try {
+      baseline = baselineFuture.get(cubeConfiguration.getTimeoutMs(), TimeUnit.MILLISECONDS);
+      if (baseline.size() <= 0) {
+        return cannotComputeResult(
+            "No data in the baseline timeframe. Cannot compute top contributors. You may try with a different baseline offset.");
+      }
+      current = currentFuture.get(Math.max(deadline - System.currentTimeMillis(), 0),
+          TimeUnit.MILLISECONDS);
+      if (current.size() <= 0) {
+        return cannotComputeResult(
+            "No data in the current timeframe. Cannot compute top contributors. Data collect is stopped or broken for this metric.");
+      }
+    } finally {
+      // no-op for completed futures - stops the remaining query on timeout, failure or early return
+      currentFuture.cancel(true);
+      baselineFuture.cancel(true);
+    }
+
+    final CubeSearch cubeSearch = new CubeSearch(dimensions,
+        current,
+        baseline,
+        optional(searchConfiguration.getHierarchies()).orElse(List.of()));
+    final List<CubeContributor> contributors = findTopContributors(cubeSearch,
+        searchConfiguration);
+
+    final List<String> warnings = new ArrayList<>();
+    if (current.size() >= maxRows || baseline.size() >= maxRows) {
+      LOG.warn("Cube of {} reached the row limit {}.", currentSlice, maxRows);
+      warnings.add(String.format("The data has more than %s dimension combinations. "
+          + "Contributors are computed on a subset of the data.", maxRows));
+    }
+    if (cubeSearch.isTruncated()) {
+      warnings.add("The memory budget of the search was reached. Deep combinations were not "
+          + "explored.");
+    }
+
+    return new CubeContributorsFinderResult(contributors,
+        dimensions,
+        cubeSearch.getBaselineTotal(),
+        cubeSearch.getCurrentTotal(),
+        String.join(" ", warnings),
+        searchConfiguration.getMetricConfigDTO().getName(),
+        searchConfiguration.getDatasetConfigDTO().getDataset());
+  }
+
+  private List<CubeContributor> findTopContributors(final CubeSearch cubeSearch,
+      final ContributorsSearchConfiguration searchConfiguration) {
+    final double baselineTotal = cubeSearch.getBaselineTotal();
+    final double currentTotal = cubeSearch.getCurrentTotal();
+    final boolean changeIsUp = currentTotal >= baselineTotal;
+    final int summarySize = searchConfiguration.getSummarySize();
+    final int depth = searchConfiguration.getDepth() > 0
+        ? searchConfiguration.getDepth()
+        : cubeConfiguration.getDepth();
+    final double minVolume = cubeConfiguration.getMinContributionPercentage() / 100
+        * Math.abs(currentTotal - baselineTotal);
+    final long memoryBudgetBytes = cubeConfiguration.getMemoryBudgetMb() * 1024L * 1024L;
+
+    // min heap on the cost: contains the top contributors
+    final PriorityQueue<CubeContributor> topContributors = new PriorityQueue<>(
+        Comparator.comparingDouble(CubeContributor::getCost));
+    cubeSearch.search(depth, minVolume, memoryBudgetBytes, (combination, key, current,
+        baseline) -> {
+      if (searchConfiguration.isDoOneSideError() && (current >= baseline) != changeIsUp) {
+        return;
+      }
+      final double valueChangePercentage = computeValueChangePercentage(baseline, current);
+      final double contributionChangePercentage = computeContributionChangePercentage(baseline,
+          current,
+          baselineTotal,
+          currentTotal);
+      final double contributionToOverallChangePercentage =
+          computeContributionToOverallChangePercentage(baseline,
+              current,
+              baselineTotal,
+              currentTotal);
+      final double cost = cubeConfiguration.getCostFunction()
+          .compute(valueChangePercentage,
+              contributionChangePercentage,
+              contributionToOverallChangePercentage);
+      if (topContributors.size() >= summarySize) {
+        if (topContributors.isEmpty() || cost <= topContributors.peek().getCost()) {
+          return;
+        }
+        topContributors.poll();
+      }
+      topContributors.add(new CubeContributor(combinationDimensions(cubeSearch, combination),
+          cubeSearch.values(combination, key),
+          baseline,
+          current,
+          cost,
+          valueChangePercentage,
+          contributionChangePercentage,
+          contributionToOverallChangePercentage));
+    });
+
+    final List<CubeContributor> contributors = new ArrayList<>(topContributors);
+    contributors.sort(Comparator.comparingDouble(CubeContributor::getCost).reversed());
+    return contributors;
+  }
+
+  private static List<String> combinationDimensions(final CubeSearch cubeSearch,
+      final int[] combination) {
+    final List<String> dimensions = new ArrayList<>(combination.length);
+    for (final int d : combination) {
+      dimensions.add(cubeSearch.getDimensions().get(d));
+    }
+    return dimensions;
+  }
+
+  /**
+   * Returns the dimensions of the dataset that are not filtered. If there are more than
+   * maxDimensions, keeps the dimensions whose values changed the most, based on single-dimension
+   * breakdowns.
+   */
+  @VisibleForTesting
+  protected List<String> cubeDimensions(final MetricSlice currentSlice,
+      final MetricSlice baselineSlice) throws Exception {
+    final DatasetConfigDTO datasetConfigDTO = currentSlice.getDatasetConfigDTO();
+    final List<String> dimensions = new ArrayList<>(optional(datasetConfigDTO.getDimensions()).map(
+        Templatable::getValue).orElse(List.of()));
+    dimensions.removeAll(currentSlice.getPredicates()
+        .stream()
+        .map(Predicate::getLhs)
+        .collect(Collectors.toList()));
+    dimensions.remove(datasetConfigDTO.getTimeColumn());
+    if (dimensions.size() <= cubeConfiguration.getMaxDimensions()) {
+      return dimensions;
+    }
+
+    final Pair<DataFrame, DataFrame> breakdowns = aggregationLoader.loadBreakdowns(currentSlice,
+        baselineSlice,
+        BREAKDOWN_LIMIT);
+    final Map<String, Double> dimensionChanges = dimensionChanges(breakdowns.getFirst(),
+        breakdowns.getSecond());
+    final List<String> selected = dimensions.stream()
+        .sorted(Comparator.comparingDouble(
+            (String dimension) -> dimensionChanges.getOrDefault(dimension, 0d)).reversed())
+        .limit(cubeConfiguration.getMaxDimensions())
+        .collect(Collectors.toList());
+    // keep the order of the dataset
+    dimensions.retainAll(selected);
+    LOG.info("Cube dimensions of {}: {}", currentSlice, dimensions);
+    return dimensions;
+  }
+
+  /**
+   * Returns, for each dimension, the sum of the absolute changes of its values.
+   */
+  private static Map<String, Double> dimensionChanges(final DataFrame current,
+      final DataFrame baseline) {
+    // (dimension, value) -> change
+    final Map<Pair<String, String>, Double> changes = new HashMap<>();
+    addValues(changes, current, 1);
+    addValues(changes, baseline, -1);
+    final Map<String, Double> dimensionChanges = new HashMap<>();
+    for (final Map.Entry<Pair<String, String>, Double> entry : changes.entrySet()) {
+      dimensionChanges.merge(entry.getKey().getFirst(), Math.abs(entry.getValue()), Double::sum);
+    }
+    return dimensionChanges;
+  }
+
+  private static void addValues(final Map<Pair<String, String>, Double> changes,
+      final DataFrame breakdown, final int sign) {
+    for (int i = 0; i < breakdown.size(); i++) {
+      changes.merge(Pair.pair(breakdown.getString(COL_DIMENSION_NAME, i),
+              breakdown.getString(COL_DIMENSION_VALUE, i)),
+          sign * breakdown.getDouble(COL_VALUE, i),
+          Double::sum);
+    }
+  }
+
+  private ContributorsFinderResult cannotComputeResult(final @NonNull String message) {
+    return () -> new DimensionAnalysisResultApi()
+        .setAnalysisRunInfo(AnalysisRunInfo.failure(message));
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.plugins.rca.contributors.cube;
+
+import static ai.startree.thirdeye.spi.api.DimensionAnalysisResultApi.ALL;
+
+import ai.startree.thirdeye.spi.api.AnalysisRunInfo;
+import ai.startree.thirdeye.spi.api.DatasetApi;
+import ai.startree.thirdeye.spi.api.DimensionAnalysisResultApi;
+import ai.startree.thirdeye.spi.api.MetricApi;
+import ai.startree.thirdeye.spi.api.cube.SummaryResponseRow;
+import ai.startree.thirdeye.spi.rca.ContributorsFinderResult;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class CubeContributorsFinderResult implements ContributorsFinderResult {
+
+  private final List<CubeContributor> contributors;
+  private final List<String> dimensions;
+  private final double baselineTotal;
+  private final double currentTotal;
+  private final String message;
+  private final String metricName;
+  private final String datasetName;
+
+  public CubeContributorsFinderResult(final List<CubeContributor> contributors,
+      final List<String> dimensions, final double baselineTotal, final double currentTotal,
+      final String message, final String metricName, final String datasetName) {
+    this.contributors = contributors;
+    this.dimensions = dimensions;
+    this.baselineTotal = baselineTotal;
+    this.currentTotal = currentTotal;
+    this.message = message;
+    this.metricName = metricName;
+    this.datasetName = datasetName;
+  }
+
+  public List<CubeContributor> getContributors() {
+    return contributors;
+  }
+
+  @Override
+  public DimensionAnalysisResultApi getDimensionAnalysisResult() {
+    final List<SummaryResponseRow> responseRows = new ArrayList<>();
+    for (final CubeContributor contributor : contributors) {
+      // dimensions not in the combination are set to (ALL)
+      final List<String> names = new ArrayList<>(Collections.nCopies(dimensions.size(), ALL));
+      for (int i = 0; i < contributor.getDimensions().size(); i++) {
+        names.set(dimensions.indexOf(contributor.getDimensions().get(i)),
+            contributor.getValues().get(i));
+      }
+      final SummaryResponseRow row = new SummaryResponseRow();
+      row.setNames(names)
+          .setCost(contributor.getCost())
+          .setBaselineValue(contributor.getBaselineValue())
+          .setCurrentValue(contributor.getCurrentValue())
+          .setChangePercentage(contributor.getValueChangePercentage())
+          .setContributionChangePercentage(contributor.getContributionChangePercentage())
+          .setContributionToOverallChangePercentage(
+              contributor.getContributionToOverallChangePercentage());
+      responseRows.add(row);
+    }
+
+    return new DimensionAnalysisResultApi()
+        .setDimensions(dimensions)
+        .setResponseRows(responseRows)
+        .setBaselineTotal(baselineTotal)
+        .setCurrentTotal(currentTotal)
+        .setAnalysisRunInfo(AnalysisRunInfo.success().setMessage(message))
+        .setMetric(new MetricApi().setDataset(new DatasetApi().setName(datasetName))
+            .setName(metricName));
+  }
+}
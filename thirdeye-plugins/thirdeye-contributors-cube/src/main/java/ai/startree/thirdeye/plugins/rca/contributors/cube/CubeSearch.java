@@ -0,0 +1,338 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.plugins.rca.contributors.cube;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import ai.startree.thirdeye.spi.Constants;
+import ai.startree.thirdeye.spi.dataframe.DataFrame;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Top-down search of the dimension combinations of a cube, built from the current and baseline
+ * values of a metric grouped by all the dimensions of the cube. The metric must be additive.
+ *
+ * Dimension values are encoded with one dictionary per dimension. The cells of a combination are
+ * aggregated in a {@link CellTable}. A combination of depth k is only aggregated from the rows
+ * whose cells are explorable in all the combinations of depth k-1 it contains. A cell is
+ * explorable if its volume - the sum of the absolute current and baseline values - reaches the
+ * minimum volume: the change of any sub-cell is bounded by this volume.
+ */
+class CubeSearch {
+
+  private static final Logger LOG = LoggerFactory.getLogger(CubeSearch.class);
+  private static final int MAX_DIMENSIONS = 63;
+
+  private final List<String> dimensions;
+  private final List<List<String>> dictionaries;
+  private final int[] cardinalities;
+  // codes[dimension][row]
+  private final int[][] codes;
+  private final double[] currentValues;
+  private final double[] baselineValues;
+  private final int rowCount;
+  // for each hierarchy, the masks of the dimension and of its parents in the hierarchy
+  private final List<long[][]> hierarchyMasks;
+  private double currentTotal = 0;
+  private double baselineTotal = 0;
+  private boolean truncated = false;
+
+  /**
+   * Receives the cells of the search.
+   */
+  interface CellVisitor {
+
+    void visit(int[] combination, long key, double current, double baseline);
+  }
+
+  CubeSearch(final List<String> dimensions, final DataFrame current, final DataFrame baseline,
+      final List<List<String>> hierarchies) {
+    checkArgument(dimensions.size() <= MAX_DIMENSIONS, "Too many dimensions: %s",
+        dimensions.size());
+    this.dimensions = List.copyOf(dimensions);
+    rowCount = current.size() + baseline.size();
+    codes = new int[dimensions.size()][rowCount];
+    currentValues = new double[rowCount];
+    baselineValues = new double[rowCount];
+    dictionaries = new ArrayList<>();
+    cardinalities = new int[dimensions.size()];
+    for (int d = 0; d < dimensions.size(); d++) {
+      final Map<String, Integer> dictionary = new LinkedHashMap<>();
+      encode(current, dimensions.get(d), dictionary, codes[d], 0);
+      encode(baseline, dimensions.get(d), dictionary, codes[d], current.size());
+      dictionaries.add(new ArrayList<>(dictionary.keySet()));
+      cardinalities[d] = dictionary.size();
+    }
+    for (int i = 0; i < current.size(); i++) {
+      currentValues[i] = valueOrZero(current, i);
+      currentTotal += currentValues[i];
+    }
+    for (int i = 0; i < baseline.size(); i++) {
+      baselineValues[current.size() + i] = valueOrZero(baseline, i);
+      baselineTotal += baselineValues[current.size() + i];
+    }
+    hierarchyMasks = hierarchyMasks(hierarchies);
+  }
+
+  private static void encode(final DataFrame df, final String dimension,
+      final Map<String, Integer> dictionary, final int[] dimensionCodes, final int offset) {
+    for (int i = 0; i < df.size(); i++) {
+      // null is a value of its own, distinct from the string "null"
+      final String value = df.getString(dimension, i);
+      dimensionCodes[offset + i] = dictionary.computeIfAbsent(value, k -> dictionary.size());
+    }
+  }
+
+  private static double valueOrZero(final DataFrame df, final int row) {
+    final double value = df.getDouble(Constants.COL_VALUE, row);
+    return Double.isNaN(value) ? 0 : value;
+  }
+
+  private List<long[][]> hierarchyMasks(final List<List<String>> hierarchies) {
+    final List<long[][]> masks = new ArrayList<>();
+    for (final List<String> hierarchy : hierarchies) {
+      final List<Long> dimensionMasks = new ArrayList<>();
+      final List<Long> parentMasks = new ArrayList<>();
+      long parentMask = 0;
+      for (final String dimension : hierarchy) {
+        final int d = dimensions.indexOf(dimension);
+        if (d < 0) {
+          // not in the cube: the next dimensions of the hierarchy are attached to its parent
+          continue;
+        }
+        dimensionMasks.add(1L << d);
+        parentMasks.add(parentMask);
+        parentMask |= 1L << d;
+      }
+      final long[][] hierarchyMask = new long[dimensionMasks.size()][];
+      for (int i = 0; i < hierarchyMask.length; i++) {
+        hierarchyMask[i] = new long[]{dimensionMasks.get(i), parentMasks.get(i)};
+      }
+      masks.add(hierarchyMask);
+    }
+    return masks;
+  }
+
+  /**
+   * A combination that contains a dimension of a hierarchy must contain its parents.
+   */
+  private boolean respectsHierarchies(final long combinationMask) {
+    for (final long[][] hierarchyMask : hierarchyMasks) {
+      for (final long[] dimensionAndParents : hierarchyMask) {
+        if ((combinationMask & dimensionAndParents[0]) != 0
+            && (combinationMask & dimensionAndParents[1]) != dimensionAndParents[1]) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Visits the cells of all the combinations of up to maxDepth dimensions that are not pruned.
+   */
+  void search(final int maxDepth, final double minVolume, final long memoryBudgetBytes,
+      final CellVisitor visitor) {
+    Map<Long, CellTable> previousLevel = new HashMap<>();
+    long usedBytes = 0;
+    for (int depth = 1; depth <= Math.min(maxDepth, dimensions.size()); depth++) {
+      final Map<Long, CellTable> level = new HashMap<>();
+      long levelBytes = 0;
+      for (final long combinationMask : combinations(depth, previousLevel)) {
+        final int[] combination = toCombination(combinationMask);
+        final long maxCells = maxCells(combination, combinationMask, previousLevel);
+        if (maxCells < 0) {
+          continue;
+        }
+        final long bytes = CellTable.bytesFor(maxCells);
+        if (usedBytes + levelBytes + bytes > memoryBudgetBytes) {
+          LOG.warn("Memory budget of the cube search reached at depth {}. Stopping the search.",
+              depth);
+          truncated = true;
+          return;
+        }
+        levelBytes += bytes;
+        final CellTable table = aggregate(combination, combinationMask, maxCells, previousLevel);
+        for (int slot = 0; slot < table.capacity(); slot++) {
+          if (table.isUsed(slot)) {
+            visitor.visit(combination, table.key(slot), table.current(slot),
+                table.baseline(slot));
+          }
+        }
+        if (table.markExplorable(minVolume) > 0) {
+          level.put(combinationMask, table);
+        }
+      }
+      // only the previous level is used to prune the next one
+      previousLevel = level;
+      usedBytes = levelBytes;
+      if (previousLevel.isEmpty()) {
+        return;
+      }
+    }
+  }
+
+  private Set<Long> combinations(final int depth, final Map<Long, CellTable> previousLevel) {
+    final Set<Long> combinations = new LinkedHashSet<>();
+    if (depth == 1) {
+      for (int d = 0; d < dimensions.size(); d++) {
+        if (respectsHierarchies(1L << d)) {
+          combinations.add(1L << d);
+        }
+      }
+      return combinations;
+    }
+    for (final long parentMask : previousLevel.keySet()) {
+      for (int d = 0; d < dimensions.size(); d++) {
+        final long combinationMask = parentMask | (1L << d);
+        if (combinationMask != parentMask
+            && respectsHierarchies(combinationMask)
+            && allSubsetsExplorable(combinationMask, previousLevel)) {
+          combinations.add(combinationMask);
+        }
+      }
+    }
+    return combinations;
+  }
+
+  /**
+   * The sub-combinations that respect the hierarchies must have explorable cells.
+   */
+  private boolean allSubsetsExplorable(final long combinationMask,
+      final Map<Long, CellTable> previousLevel) {
+    for (long remaining = combinationMask; remaining != 0; remaining &= remaining - 1) {
+      final long subsetMask = combinationMask & ~Long.lowestOneBit(remaining);
+      if (respectsHierarchies(subsetMask) && !previousLevel.containsKey(subsetMask)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns an upper bound of the number of cells of the combination, or -1 if the cell keys do
+   * not fit in a long.
+   */
+  private long maxCells(final int[] combination, final long combinationMask,
+      final Map<Long, CellTable> previousLevel) {
+    long keySpace = 1;
+    try {
+      for (final int d : combination) {
+        keySpace = Math.multiplyExact(keySpace, cardinalities[d]);
+      }
+    } catch (final ArithmeticException e) {
+      LOG.debug("Too many cells for combination {}. Skipping.", Arrays.toString(combination));
+      return -1;
+    }
+    long maxCells = Math.min(keySpace, rowCount);
+    // a cell is made of an explorable cell of each sub-combination and of a value of the
+    // remaining dimension
+    for (final int d : combination) {
+      final CellTable subsetTable = previousLevel.get(combinationMask & ~(1L << d));
+      if (subsetTable != null) {
+        maxCells = Math.min(maxCells, (long) subsetTable.explorableCount() * cardinalities[d]);
+      }
+    }
+    return maxCells;
+  }
+
+  private CellTable aggregate(final int[] combination, final long combinationMask,
+      final long maxCells, final Map<Long, CellTable> previousLevel) {
+    final List<int[]> subsets = new ArrayList<>();
+    final List<CellTable> subsetTables = new ArrayList<>();
+    for (final int d : combination) {
+      final CellTable subsetTable = previousLevel.get(combinationMask & ~(1L << d));
+      if (subsetTable != null) {
+        subsets.add(toCombination(combinationMask & ~(1L << d)));
+        subsetTables.add(subsetTable);
+      }
+    }
+
+    final CellTable table = new CellTable(maxCells);
+    rows:
+    for (int row = 0; row < rowCount; row++) {
+      for (int s = 0; s < subsets.size(); s++) {
+        final int slot = subsetTables.get(s).indexOf(key(subsets.get(s), row));
+        if (slot < 0 || !subsetTables.get(s).isExplorable(slot)) {
+          continue rows;
+        }
+      }
+      table.add(key(combination, row), currentValues[row], baselineValues[row]);
+    }
+    return table;
+  }
+
+  private long key(final int[] combination, final int row) {
+    long key = 0;
+    for (final int d : combination) {
+      key = key * cardinalities[d] + codes[d][row];
+    }
+    return key;
+  }
+
+  private int[] toCombination(final long combinationMask) {
+    final int[] combination = new int[Long.bitCount(combinationMask)];
+    int i = 0;
+    for (int d = 0; d < dimensions.size(); d++) {
+      if ((combinationMask & (1L << d)) != 0) {
+        combination[i++] = d;
+      }
+    }
+    return combination;
+  }
+
+  /**
+   * Returns the values of the dimensions of the combination of a cell.
+   */
+  List<String> values(final int[] combination, final long key) {
+    final String[] values = new String[combination.length];
+    long remaining = key;
+    for (int i = combination.length - 1; i >= 0; i--) {
+      final int d = combination[i];
+      values[i] = dictionaries.get(d).get((int) (remaining % cardinalities[d]));
+      remaining /= cardinalities[d];
+    }
+    // a value can be null
+    return Collections.unmodifiableList(Arrays.asList(values));
+  }
+
+  List<String> getDimensions() {
+    return dimensions;
+  }
+
+  double getCurrentTotal() {
+    return currentTotal;
+  }
+
+  double getBaselineTotal() {
+    return baselineTotal;
+  }
+
+  /**
+   * Returns true if the search stopped before the maximum depth because of the memory budget.
+   */
+  boolean isTruncated() {
+    return truncated;
+  }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.plugins.rca.contributors.cube;
+
+import static ai.startree.thirdeye.spi.Constants.COL_VALUE;
+import static ai.startree.thirdeye.spi.api.DimensionAnalysisResultApi.ALL;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import ai.startree.thirdeye.spi.api.DimensionAnalysisResultApi;
+import ai.startree.thirdeye.spi.api.cube.SummaryResponseRow;
+import ai.startree.thirdeye.spi.dataframe.DataFrame;
+import ai.startree.thirdeye.spi.dataframe.DoubleSeries;
+import ai.startree.thirdeye.spi.dataframe.StringSeries;
+import ai.startree.thirdeye.spi.datalayer.Predicate;
+import ai.startree.thirdeye.spi.datalayer.Templatable;
+import ai.startree.thirdeye.spi.datalayer.dto.DatasetConfigDTO;
+import ai.startree.thirdeye.spi.datalayer.dto.MetricConfigDTO;
+import ai.startree.thirdeye.spi.datasource.loader.AggregationLoader;
+import ai.startree.thirdeye.spi.metric.MetricSlice;
+import ai.startree.thirdeye.spi.rca.ContributorsSearchConfiguration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.joda.time.Interval;
+import org.testng.annotations.Test;
+
+public class CubeContributorsFinderTest {
+
+  private static final Interval BASELINE_INTERVAL = new Interval(
+      new DateTime(2022, 1, 1, 0, 0, 0, DateTimeZone.UTC),
+      new DateTime(2022, 1, 2, 0, 0, 0, DateTimeZone.UTC));
+  private static final Interval CURRENT_INTERVAL = new Interval(
+      new DateTime(2022, 1, 8, 0, 0, 0, DateTimeZone.UTC),
+      new DateTime(2022, 1, 9, 0, 0, 0, DateTimeZone.UTC));
+  private static final List<Predicate> FILTERS = List.of();
+  private static final DatasetConfigDTO DATASET_CONFIG_DTO = new DatasetConfigDTO()
+      .setDataset("pageviews")
+      .setDimensions(Templatable.of(List.of("country", "browser")));
+
+  // the change is concentrated in (US, chrome)
+  private static final DataFrame BASELINE_DATAFRAME = new DataFrame()
+      .addSeries("country", StringSeries.buildFrom("US", "US", "FR", "FR"))
+      .addSeries("browser", StringSeries.buildFrom("chrome", "firefox", "chrome", "firefox"))
+      .addSeries(COL_VALUE, DoubleSeries.buildFrom(100, 100, 100, 100));
+  private static final DataFrame CURRENT_DATAFRAME = new DataFrame()
+      .addSeries("country", StringSeries.buildFrom("US", "US", "FR", "FR"))
+      .addSeries("browser", StringSeries.buildFrom("chrome", "firefox", "chrome", "firefox"))
+      .addSeries(COL_VALUE, DoubleSeries.buildFrom(300, 100, 100, 100));
+
+  private static MetricConfigDTO metric(final String aggFunction) {
+    return new MetricConfigDTO().setName("views").setDefaultAggFunction(aggFunction);
+  }
+
+  private static AggregationLoader aggregationLoader(final MetricConfigDTO metricConfigDTO)
+      throws Exception {
+    return aggregationLoader(metricConfigDTO,
+        CompletableFuture.completedFuture(BASELINE_DATAFRAME.copy()),
+        CompletableFuture.completedFuture(CURRENT_DATAFRAME.copy()));
+  }
+
+  private static AggregationLoader aggregationLoader(final MetricConfigDTO metricConfigDTO,
+      final CompletableFuture<DataFrame> baselineFuture,
+      final CompletableFuture<DataFrame> currentFuture) throws Exception {
+    final AggregationLoader aggregationLoader = mock(AggregationLoader.class);
+    final MetricSlice baselineSlice = MetricSlice.from(metricConfigDTO,
+        BASELINE_INTERVAL,
+        FILTERS,
+        DATASET_CONFIG_DTO);
+    final MetricSlice currentSlice = MetricSlice.from(metricConfigDTO,
+        CURRENT_INTERVAL,
+        FILTERS,
+        DATASET_CONFIG_DTO);
+    when(aggregationLoader.loadAggregateAsync(eq(baselineSlice), anyList(), anyInt()))
+        .thenReturn(baselineFuture);
+    when(aggregationLoader.loadAggregateAsync(eq(currentSlice), anyList(), anyInt()))
+        .thenReturn(currentFuture);
+    return aggregationLoader;
+  }
+
+  private static DimensionAnalysisResultApi search(final MetricConfigDTO metricConfigDTO,
+      final int summarySize, final List<List<String>> hierarchies) throws Exception {
+    final CubeContributorsFinder contributorsFinder = new CubeContributorsFinder(
+        aggregationLoader(metricConfigDTO),
+        new CubeConfiguration());
+    return contributorsFinder.search(searchConfiguration(metricConfigDTO,
+        summarySize,
+        hierarchies)).getDimensionAnalysisResult();
+  }
+
+  private static ContributorsSearchConfiguration searchConfiguration(
+      final MetricConfigDTO metricConfigDTO, final int summarySize,
+      final List<List<String>> hierarchies) {
+    return new ContributorsSearchConfiguration(metricConfigDTO,
+        DATASET_CONFIG_DTO,
+        CURRENT_INTERVAL,
+        BASELINE_INTERVAL,
+        summarySize,
+        2,
+        false,
+        FILTERS,
+        hierarchies);
+  }
+
+  @Test
+  public void testSearchFindsMultiDimensionContributor() throws Exception {
+    final DimensionAnalysisResultApi result = search(metric("SUM"), 3, List.of());
+
+    assertThat(result.getAnalysisRunInfo().isSuccess()).isTrue();
+    assertThat(result.getDimensions()).containsExactly("country", "browser");
+    assertThat(result.getBaselineTotal()).isEqualTo(400);
+    assertThat(result.getCurrentTotal()).isEqualTo(600);
+
+    final List<SummaryResponseRow> rows = result.getResponseRows();
+    assertThat(rows).hasSize(3);
+    // (US, chrome) explains all the change and its contribution changed the most
+    assertThat(rows.get(0).getNames()).containsExactly("US", "chrome");
+    assertThat(rows.get(0).getBaselineValue()).isEqualTo(100);
+    assertThat(rows.get(0).getCurrentValue()).isEqualTo(300);
+    assertThat(rows.get(1).getNames()).containsAnyOf(ALL);
+    assertThat(rows.get(2).getNames()).containsAnyOf(ALL);
+  }
+
+  @Test
+  public void testSearchRespectsHierarchies() throws Exception {
+    final DimensionAnalysisResultApi result = search(metric("SUM"),
+        10,
+        List.of(List.of("country", "browser")));
+
+    // browser is only analyzed within a country
+    assertThat(result.getResponseRows()).isNotEmpty();
+    assertThat(result.getResponseRows())
+        .noneMatch(row -> row.getNames().get(0).equals(ALL));
+  }
+
+  @Test
+  public void testSearchWithNonAdditiveMetric() throws Exception {
+    final DimensionAnalysisResultApi result = search(metric("AVG"), 3, List.of());
+
+    assertThat(result.getAnalysisRunInfo().isSuccess()).isFalse();
+  }
+
+  @Test
+  public void testSearchKeepsNullDimensionValuesApartFromNullString() throws Exception {
+    final MetricConfigDTO metricConfigDTO = metric("SUM");
+    final DataFrame baseline = new DataFrame()
+        .addSeries("country", StringSeries.buildFrom(null, "null", "FR", "FR"))
+        .addSeries("browser", StringSeries.buildFrom("chrome", "chrome", "chrome", "firefox"))
+        .addSeries(COL_VALUE, DoubleSeries.buildFrom(100, 100, 100, 100));
+    final DataFrame current = new DataFrame()
+        .addSeries("country", StringSeries.buildFrom(null, "null", "FR", "FR"))
+        .addSeries("browser", StringSeries.buildFrom("chrome", "chrome", "chrome", "firefox"))
+        .addSeries(COL_VALUE, DoubleSeries.buildFrom(300, 100, 100, 100));
+    final CubeContributorsFinder contributorsFinder = new CubeContributorsFinder(
+        aggregationLoader(metricConfigDTO,
+            CompletableFuture.completedFuture(baseline),
+            CompletableFuture.completedFuture(current)),
+        new CubeConfiguration());
+
+    final DimensionAnalysisResultApi result = contributorsFinder.search(
+        searchConfiguration(metricConfigDTO, 3, List.of())).getDimensionAnalysisResult();
+
+    // the null country is not merged with the "null" country
+    final List<SummaryResponseRow> rows = result.getResponseRows();
+    assertThat(rows).anyMatch(row -> row.getNames().get(0) == null
+        && row.getBaselineValue() == 100
+        && row.getCurrentValue() == 300);
+    assertThat(rows).noneMatch(row -> "null".equals(row.getNames().get(0))
+        && row.getCurrentValue() != 100);
+  }
+
+  @Test
+  public void testSearchTimesOutAndCancelsQueries() throws Exception {
+    final MetricConfigDTO metricConfigDTO = metric("SUM");
+    final CompletableFuture<DataFrame> currentFuture = new CompletableFuture<>();
+    final CubeContributorsFinder contributorsFinder = new CubeContributorsFinder(
+        aggregationLoader(metricConfigDTO,
+            CompletableFuture.completedFuture(BASELINE_DATAFRAME.copy()),
+            currentFuture),
+        new CubeConfiguration().setTimeoutMs(10));
+
+    assertThatThrownBy(() -> contributorsFinder.search(
+        searchConfiguration(metricConfigDTO, 3, List.of())))
+        .isInstanceOf(TimeoutException.class);
+    assertThat(currentFuture.isCancelled()).isTrue();
+  }
+}
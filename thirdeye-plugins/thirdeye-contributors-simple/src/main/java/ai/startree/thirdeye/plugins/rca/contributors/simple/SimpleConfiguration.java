@@ -13,8 +13,9 @@
  */
 package ai.startree.thirdeye.plugins.rca.contributors.simple;
 
-import static ai.startree.thirdeye.plugins.rca.contributors.simple.Cost.BAlANCED_SIMPLE;
+import static ai.startree.thirdeye.spi.rca.Cost.BAlANCED_SIMPLE;
 
+import ai.startree.thirdeye.spi.rca.Cost;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
 @JsonIgnoreProperties(ignoreUnknown = true)
@@ -31,6 +31,8 @@ import ai.startree.thirdeye.spi.metric.MetricSlice;
 import ai.startree.thirdeye.spi.rca.ContributorsFinder;
 import ai.startree.thirdeye.spi.rca.ContributorsFinderResult;
 import ai.startree.thirdeye.spi.rca.ContributorsSearchConfiguration;
+import ai.startree.thirdeye.spi.rca.Cost;
+import ai.startree.thirdeye.spi.util.Pair;
 import com.google.common.annotations.VisibleForTesting;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.slf4j.Logger;
@@ -74,7 +76,12 @@ public class SimpleContributorsFinder implements ContributorsFinder {
         searchConfiguration.getFilters(),
         searchConfiguration.getDatasetConfigDTO());
 
-    final DataFrame baseline = aggregationLoader.loadBreakdown(baselineSlice, LIMIT_DEFAULT);
+    // both breakdowns are loaded concurrently
+    final Pair<DataFrame, DataFrame> breakdowns = aggregationLoader.loadBreakdowns(currentSlice,
+        baselineSlice,
+        LIMIT_DEFAULT);
+
+    final DataFrame baseline = breakdowns.getSecond();
     if (baseline.size() <= 0) {
       return cannotComputeResult(
           "No data in the baseline timeframe. Cannot compute top contributors. You may try with a different baseline offset.");
@@ -82,7 +89,7 @@ public class SimpleContributorsFinder implements ContributorsFinder {
     baseline.dropSeries(COL_TIME);
     final double baselineTotal = getTotalFromBreakdown(baseline);
 
-    final DataFrame current = aggregationLoader.loadBreakdown(currentSlice, LIMIT_DEFAULT);
+    final DataFrame current = breakdowns.getFirst();
     if (current.size() <= 0) {
       return cannotComputeResult(
           "No data in the current timeframe. Cannot compute top contributors. Data collect is stopped or broken for this metric.");
@@ -21,6 +21,7 @@ import static ai.startree.thirdeye.spi.api.DimensionAnalysisResultApi.ALL;
 import static ai.startree.thirdeye.spi.datasource.loader.AggregationLoader.COL_DIMENSION_NAME;
 import static ai.startree.thirdeye.spi.datasource.loader.AggregationLoader.COL_DIMENSION_VALUE;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -98,6 +99,7 @@ public class SimpleContributorsFinderTest {
   @Test
   public void testSearchNominalCase() throws Exception {
     final AggregationLoader aggregationLoader = mock(AggregationLoader.class);
+    when(aggregationLoader.loadBreakdowns(any(), any(), anyInt())).thenCallRealMethod();
 
     when(aggregationLoader.loadBreakdown(ArgumentMatchers.eq(BASELINE_SLICE), anyInt())).thenReturn(
         BASELINE_DATAFRAME.get());
@@ -136,6 +138,7 @@ public class SimpleContributorsFinderTest {
   @Test
   public void testSearchThrowsErrorIfEmptyDataForBaselineTimeframe() throws Exception {
     final AggregationLoader aggregationLoader = mock(AggregationLoader.class);
+    when(aggregationLoader.loadBreakdowns(any(), any(), anyInt())).thenCallRealMethod();
 
     when(aggregationLoader.loadBreakdown(ArgumentMatchers.eq(BASELINE_SLICE), anyInt())).thenReturn(
         EMPTY_DATA_FRAME);
@@ -160,6 +163,7 @@ public class SimpleContributorsFinderTest {
   @Test
   public void testSearchThrowsErrorIfEmptyDataForCurrentTimeFrame() throws Exception {
     final AggregationLoader aggregationLoader = mock(AggregationLoader.class);
+    when(aggregationLoader.loadBreakdowns(any(), any(), anyInt())).thenCallRealMethod();
     when(aggregationLoader.loadBreakdown(ArgumentMatchers.eq(BASELINE_SLICE), anyInt())).thenReturn(
         BASELINE_DATAFRAME.get());
     when(aggregationLoader.loadBreakdown(ArgumentMatchers.eq(CURRENT_SLICE), anyInt())).thenReturn(
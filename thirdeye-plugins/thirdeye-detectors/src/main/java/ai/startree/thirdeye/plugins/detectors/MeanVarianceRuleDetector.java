@@ -30,17 +30,15 @@ import static java.util.Objects.requireNonNull;
 import ai.startree.thirdeye.spi.dataframe.BooleanSeries;
 import ai.startree.thirdeye.spi.dataframe.DataFrame;
 import ai.startree.thirdeye.spi.dataframe.DoubleSeries;
-import ai.startree.thirdeye.spi.dataframe.LongSeries;
 import ai.startree.thirdeye.spi.detection.AnomalyDetector;
 import ai.startree.thirdeye.spi.detection.AnomalyDetectorResult;
 import ai.startree.thirdeye.spi.detection.Pattern;
 import ai.startree.thirdeye.spi.detection.v2.DataTable;
 import com.google.common.annotations.VisibleForTesting;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
-import org.joda.time.DateTime;
-import org.joda.time.DateTimeZone;
 import org.joda.time.Interval;
 import org.joda.time.Period;
 import org.joda.time.ReadableInterval;
@@ -64,7 +62,7 @@ public class MeanVarianceRuleDetector implements AnomalyDetector<MeanVarianceRul
   private double sensitivity;
   private int lookback;
   private MeanVarianceRuleDetectorSpec spec;
-  private Period seasonality = Period.ZERO; // PT0S: special period for no seasonality
+  private long seasonalityMillis = 0; // 0: special value for no seasonality
 
   /**
    * Mapping of sensitivity to sigma on range of 0.5 - 1.5
@@ -131,7 +129,7 @@ public class MeanVarianceRuleDetector implements AnomalyDetector<MeanVarianceRul
               spec.getSeasonalityPeriod(),
               minimumLookbackRequired));
 
-      this.seasonality = seasonality;
+      this.seasonalityMillis = seasonality.toStandardDuration().getMillis();
     }
 
     checkArgument(lookback >= 5, "Lookback is %s points. Lookback should be greater than 5 points.",
@@ -168,7 +166,8 @@ public class MeanVarianceRuleDetector implements AnomalyDetector<MeanVarianceRul
     return new SimpleAnomalyDetectorResult(inputDf);
   }
 
-  private DataFrame computeBaseline(final DataFrame inputDF, final long windowStartTime) {
+  @VisibleForTesting
+  DataFrame computeBaseline(final DataFrame inputDF, final long windowStartTime) {
 
     final DataFrame resultDF = new DataFrame();
     final int firstDetectionIndex = inputDF.getLongs(COL_TIME).find(windowStartTime);
@@ -183,25 +182,36 @@ public class MeanVarianceRuleDetector implements AnomalyDetector<MeanVarianceRul
     final double[] lowerBoundArray = new double[size];
     Arrays.fill(lowerBoundArray, DoubleSeries.NULL);
 
-    // todo cyril compute mean and std in a single pass
-    // https://nestedsoftware.com/2018/03/20/calculating-a-moving-average-on-streaming-data-5a7k.22879.html
-    // https://en.wikipedia.org/wiki/Algorithms_for_calculating_variance#Welford's_online_algorithm
-    final boolean applyMask = inputDF.contains(COL_MASK);
+    // the lookback window [k - lookback, k) is maintained incrementally, with one accumulator per
+    // seasonality phase. Adding or removing a point is O(1).
+    final long[] times = inputDF.getLongs(COL_TIME).values();
+    final double[] values = inputDF.getDoubles(COL_VALUE).values();
+    final boolean[] masked = masked(inputDF);
+    final Map<Long, RollingMoments> phaseMoments = new HashMap<>();
+    int windowStart = Math.max(0, firstDetectionIndex - lookback);
+    int windowEnd = windowStart;
     for (int k = firstDetectionIndex; k < size; k++) {
-      if (applyMask && BooleanSeries.isTrue(inputDF.getBoolean(COL_MASK, k))) {
+      for (; windowEnd < k; windowEnd++) {
+        if (isTrainingPoint(values, masked, windowEnd)) {
+          phaseMoments.computeIfAbsent(phase(times[windowEnd]), p -> new RollingMoments())
+              .add(values[windowEnd]);
+        }
+      }
+      for (; windowStart < k - lookback; windowStart++) {
+        if (isTrainingPoint(values, masked, windowStart)) {
+          phaseMoments.get(phase(times[windowStart])).remove(values[windowStart]);
+        }
+      }
+      if (masked[k]) {
         // this point is masked - skip it
         continue;
       }
-      final long forecastTime = inputDF.getLong(COL_TIME, k);
-      final DataFrame lookbackDf = getLookbackDf(inputDF, forecastTime);
-      final DoubleSeries periodMask = buildPeriodMask(lookbackDf, forecastTime);
-      DoubleSeries maskedValues = lookbackDf.getDoubles(COL_VALUE).multiply(periodMask);
-      if (applyMask) {
-        // todo cyril perf - COL_MASK.fillNull().not() can be computed once outside of the loop
-        maskedValues = maskedValues.filter(lookbackDf.getBooleans(COL_MASK).fillNull().not());
-      }
-      double mean = maskedValues.mean().value();
-      double std = maskedValues.std().value();
+      checkArgument(k - lookback >= 0,
+          "Invalid index. Insufficient data to compute mean/variance on lookback. index: "
+              + (k - lookback));
+      final RollingMoments moments = phaseMoments.get(phase(times[k]));
+      double mean = moments == null ? DoubleSeries.NULL : moments.mean();
+      double std = moments == null ? DoubleSeries.NULL : moments.std();
       if (Double.isNaN(mean)) {
         // mean and std can be null if all values are masked or null
         mean = 0.0;
@@ -226,44 +236,71 @@ public class MeanVarianceRuleDetector implements AnomalyDetector<MeanVarianceRul
     return resultDF;
   }
 
-  private DoubleSeries buildPeriodMask(final DataFrame lookbackDf, final long forecastTime) {
-    if (seasonality.equals(Period.ZERO)) {
-      // no seasonality --> no mask
-      return DoubleSeries.fillValues(lookbackDf.size(), 1);
-    }
-    // fixme cyril this implem does not not fail at DST - but datetimeZone is hardcoded to UTC so not DST
-    DateTime forecastDateTime = new DateTime(forecastTime, DateTimeZone.UTC);
-    DoubleSeries.Builder mask = DoubleSeries.builder();
-    LongSeries lookbackEpochs = lookbackDf.get(COL_TIME).getLongs();
-    for (int idx = 0; idx < lookbackEpochs.size(); idx++) {
-      DateTime lookbackDateTime = new DateTime(lookbackEpochs.get(idx), DateTimeZone.UTC);
-      mask.addValues(isSeasonalityMatch(forecastDateTime, lookbackDateTime) ? 1. : null);
+  private static boolean[] masked(final DataFrame inputDF) {
+    final boolean[] masked = new boolean[inputDF.size()];
+    if (inputDF.contains(COL_MASK)) {
+      final BooleanSeries mask = inputDF.getBooleans(COL_MASK);
+      for (int i = 0; i < masked.length; i++) {
+        masked[i] = BooleanSeries.isTrue(mask.getBoolean(i));
+      }
     }
-    return mask.build();
+    return masked;
   }
 
-  private boolean isSeasonalityMatch(final DateTime dt1, final DateTime dt2) {
-    final boolean isSameTimeInDay =
-        dt1.getHourOfDay() == dt2.getHourOfDay() && dt1.getMinuteOfHour() == dt2.getMinuteOfHour()
-            && dt1.getSecondOfMinute() == dt2.getSecondOfMinute()
-            && dt1.getMillisOfSecond() == dt2.getMillisOfSecond();
-    if (seasonality.equals(Period.days(7))) {
-      return isSameTimeInDay && dt1.getDayOfWeek() == dt2.getDayOfWeek();
-    } else if (seasonality.equals(Period.days(1))) {
-      return isSameTimeInDay;
-    } else {
-      throw new UnsupportedOperationException();
-    }
+  private static boolean isTrainingPoint(final double[] values, final boolean[] masked,
+      final int index) {
+    return !masked[index] && !DoubleSeries.isNull(values[index]);
+  }
+
+  /**
+   * Points with the same phase have the same time of day (daily seasonality) or the same time of
+   * week (weekly seasonality). Times are in UTC.
+   */
+  private long phase(final long time) {
+    return seasonalityMillis == 0 ? 0 : Math.floorMod(time, seasonalityMillis);
   }
 
-  private DataFrame getLookbackDf(final DataFrame inputDF, final long endTimeMillis) {
-    final int indexEnd = inputDF.getLongs(COL_TIME).find(endTimeMillis);
-    checkArgument(indexEnd != -1,
-        "Could not find index of endTime. endTime should exist in inputDf. This should not happen.");
-    final int indexStart = indexEnd - lookback;
-    checkArgument(indexStart >= 0,
-        "Invalid index. Insufficient data to compute mean/variance on lookback. index: "
-            + indexStart);
-    return inputDF.slice(indexStart, indexEnd);
+  /**
+   * Count, mean and sample standard deviation of a multiset of values, with additions and removals
+   * in O(1). Sums are computed on values shifted by the first value added, for numerical
+   * stability.
+   */
+  private static class RollingMoments {
+
+    private int count = 0;
+    private double shift;
+    private double sum;
+    private double sumOfSquares;
+
+    private void add(final double value) {
+      if (count == 0) {
+        shift = value;
+        sum = 0;
+        sumOfSquares = 0;
+      }
+      final double shifted = value - shift;
+      count++;
+      sum += shifted;
+      sumOfSquares += shifted * shifted;
+    }
+
+    private void remove(final double value) {
+      final double shifted = value - shift;
+      count--;
+      sum -= shifted;
+      sumOfSquares -= shifted * shifted;
+    }
+
+    private double mean() {
+      return count == 0 ? DoubleSeries.NULL : shift + sum / count;
+    }
+
+    private double std() {
+      if (count <= 1) {
+        return DoubleSeries.NULL;
+      }
+      final double variance = (sumOfSquares - sum * sum / count) / (count - 1);
+      return Math.sqrt(Math.max(variance, 0));
+    }
   }
 }
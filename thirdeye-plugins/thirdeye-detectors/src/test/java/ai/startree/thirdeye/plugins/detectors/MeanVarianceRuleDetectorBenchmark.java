@@ -0,0 +1,106 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.plugins.detectors;
+
+import static ai.startree.thirdeye.spi.Constants.COL_TIME;
+import static ai.startree.thirdeye.spi.Constants.COL_VALUE;
+
+import ai.startree.thirdeye.spi.dataframe.DataFrame;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compares the rolling baseline computation of the {@link MeanVarianceRuleDetector} with a direct
+ * computation that slices the lookback window for each point. Run the main method manually.
+ */
+public class MeanVarianceRuleDetectorBenchmark {
+
+  private static final Logger LOG = LoggerFactory.getLogger(
+      MeanVarianceRuleDetectorBenchmark.class);
+
+  private static final int N_ROUNDS = 7;
+  private static final long GRANULARITY_MILLIS = 300_000L;
+  private static final int N_POINTS = 365 * 288; // 1 year at 5 minutes granularity
+
+  private long tStart;
+  private List<Long> times = new ArrayList<>();
+
+  private static MeanVarianceRuleDetector detector(final String seasonalityPeriod) {
+    final MeanVarianceRuleDetectorSpec spec = new MeanVarianceRuleDetectorSpec();
+    spec.setMonitoringGranularity("PT5M");
+    spec.setLookbackPeriod("P28D");
+    spec.setSeasonalityPeriod(seasonalityPeriod);
+    spec.setSensitivity(5);
+    final MeanVarianceRuleDetector detector = new MeanVarianceRuleDetector();
+    detector.init(spec);
+    return detector;
+  }
+
+  private void benchmark(final String name, final Supplier<DataFrame> computation) {
+    long checksum = 0;
+    for (int r = 0; r < N_ROUNDS; r++) {
+      startTimer();
+      final DataFrame result = computation.get();
+      stopTimer();
+      checksum ^= Double.hashCode(result.getDoubles(COL_VALUE).sum().value());
+    }
+    logResults(name, checksum);
+  }
+
+  private void startTimer() {
+    this.tStart = System.nanoTime();
+  }
+
+  private void stopTimer() {
+    this.times.add(System.nanoTime() - this.tStart);
+  }
+
+  private void logResults(final String name, final long checksum) {
+    Collections.sort(this.times);
+    final long tMid = this.times.get(this.times.size() / 2);
+    final long tMin = Collections.min(this.times);
+    final long tMax = Collections.max(this.times);
+    LOG.info("{}: min/mid/max = {}ms {}ms {}ms [chk={}, cnt={}]", name, tMin / 1000000,
+        tMid / 1000000, tMax / 1000000, checksum % 1000, this.times.size());
+
+    // reset timer stats
+    this.times = new ArrayList<>();
+  }
+
+  public static void main(final String[] args) throws Exception {
+    LOG.info("Press Enter key to start.");
+    System.in.read();
+
+    LOG.info("Running mean variance baseline benchmark ...");
+    final DataFrame df = MeanVarianceRuleDetectorTest.generateTimeseries(N_POINTS,
+        GRANULARITY_MILLIS);
+    final int lookback = MeanVarianceRuleDetector.computeSteps("P28D", "PT5M");
+    final long windowStart = df.getLong(COL_TIME, lookback);
+    final MeanVarianceRuleDetectorBenchmark b = new MeanVarianceRuleDetectorBenchmark();
+    for (final String seasonality : new String[]{"PT0S", "P1D", "P7D"}) {
+      final MeanVarianceRuleDetector detector = detector(seasonality);
+      final long seasonalityMillis = MeanVarianceRuleDetector.computeSteps(seasonality, "PT5M")
+          * GRANULARITY_MILLIS;
+      b.benchmark("direct" + seasonality,
+          () -> MeanVarianceRuleDetectorTest.directBaseline(df, windowStart, lookback,
+              seasonalityMillis, 1.));
+      b.benchmark("rolling" + seasonality, () -> detector.computeBaseline(df, windowStart));
+    }
+    LOG.info("done.");
+  }
+}
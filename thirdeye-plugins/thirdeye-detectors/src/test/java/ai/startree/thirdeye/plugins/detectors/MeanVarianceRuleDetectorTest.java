@@ -26,8 +26,10 @@ import ai.startree.thirdeye.spi.detection.AnomalyDetectorResult;
 import ai.startree.thirdeye.spi.detection.Pattern;
 import ai.startree.thirdeye.spi.detection.v2.DataTable;
 import ai.startree.thirdeye.spi.detection.v2.SimpleDataTable;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Random;
 import org.assertj.core.data.Offset;
 import org.joda.time.DateTimeZone;
 import org.joda.time.Interval;
@@ -35,6 +37,8 @@ import org.testng.annotations.Test;
 
 public class MeanVarianceRuleDetectorTest {
 
+  private static final long START_TIME = 1609459200000L; // 2021-01-01 UTC
+
   private static final long DECEMBER_18_2020 = 1608249600000L;
   private static final long DECEMBER_19_2020 = 1608336000000L;
   private static final long DECEMBER_20_2020 = 1608422400000L;
@@ -552,4 +556,131 @@ public class MeanVarianceRuleDetectorTest {
     int output = computeSteps(period, monitoringGranularity);
     assertThat(output).isEqualTo(365);
   }
+
+  /**
+   * Returns a seeded random timeseries with a daily cycle, null values and masked values.
+   */
+  static DataFrame generateTimeseries(final int size, final long granularityMillis) {
+    final Random random = new Random(size);
+    final long[] times = new long[size];
+    final double[] values = new double[size];
+    final boolean[] mask = new boolean[size];
+    for (int i = 0; i < size; i++) {
+      times[i] = START_TIME + i * granularityMillis;
+      final double dailyCycle = Math.sin(2 * Math.PI * (i % 288) / 288.);
+      values[i] = random.nextInt(50) == 0 ? DoubleSeries.NULL
+          : 10_000 + 2_000 * dailyCycle + random.nextGaussian() * 300;
+      mask[i] = random.nextInt(100) == 0;
+    }
+    return new DataFrame()
+        .addSeries(Constants.COL_TIME, times)
+        .addSeries(Constants.COL_VALUE, values)
+        .addSeries(Constants.COL_MASK, mask)
+        .setIndex(Constants.COL_TIME);
+  }
+
+  /**
+   * Baseline computed by slicing and filtering the lookback window of each point. Same semantics
+   * as {@link MeanVarianceRuleDetector}, in O(n * lookback).
+   */
+  static DataFrame directBaseline(final DataFrame inputDf, final long windowStartTime,
+      final int lookback, final long seasonalityMillis, final double sigma) {
+    final int size = inputDf.size();
+    final double[] baseline = new double[size];
+    Arrays.fill(baseline, DoubleSeries.NULL);
+    final double[] upperBound = new double[size];
+    Arrays.fill(upperBound, DoubleSeries.NULL);
+    final double[] lowerBound = new double[size];
+    Arrays.fill(lowerBound, DoubleSeries.NULL);
+    final long[] times = inputDf.getLongs(Constants.COL_TIME).values();
+    final BooleanSeries mask = inputDf.contains(Constants.COL_MASK)
+        ? inputDf.getBooleans(Constants.COL_MASK).fillNull()
+        : BooleanSeries.fillValues(size, false);
+    for (int k = inputDf.getLongs(Constants.COL_TIME).find(windowStartTime); k < size; k++) {
+      if (BooleanSeries.isTrue(mask.getBoolean(k))) {
+        continue;
+      }
+      final DoubleSeries.Builder builder = DoubleSeries.builder();
+      for (int i = k - lookback; i < k; i++) {
+        final boolean samePhase = seasonalityMillis == 0
+            || Math.floorMod(times[i], seasonalityMillis) == Math.floorMod(times[k],
+            seasonalityMillis);
+        if (samePhase && !BooleanSeries.isTrue(mask.getBoolean(i))) {
+          builder.addValues(inputDf.getDouble(Constants.COL_VALUE, i));
+        }
+      }
+      final DoubleSeries lookbackValues = builder.build();
+      double mean = lookbackValues.mean().value();
+      double std = lookbackValues.std().value();
+      if (Double.isNaN(mean)) {
+        mean = 0.0;
+        std = 0.0;
+      }
+      baseline[k] = mean;
+      upperBound[k] = mean + sigma * std;
+      lowerBound[k] = mean - sigma * std;
+    }
+    return new DataFrame()
+        .addSeries(Constants.COL_TIME, times)
+        .setIndex(Constants.COL_TIME)
+        .addSeries(Constants.COL_VALUE, baseline)
+        .addSeries(Constants.COL_UPPER_BOUND, upperBound)
+        .addSeries(Constants.COL_LOWER_BOUND, lowerBound);
+  }
+
+  @Test
+  public void testDirectBaselineExpectedValues() {
+    // pins the reference implementation: lookback of 2 points, no seasonality
+    final DataFrame inputDf = new DataFrame()
+        .addSeries(Constants.COL_TIME, 0L, 1L, 2L, 3L, 4L)
+        .addSeries(Constants.COL_VALUE, 1., 2., 4., 8., 16.)
+        .setIndex(Constants.COL_TIME);
+
+    final DataFrame directDf = directBaseline(inputDf, 2L, 2, 0L, 1.);
+
+    assertThat(directDf.getDoubles(Constants.COL_VALUE).values())
+        .containsExactly(DoubleSeries.NULL, DoubleSeries.NULL, 1.5, 3., 6.);
+    final double[] upperBound = directDf.getDoubles(Constants.COL_UPPER_BOUND).values();
+    assertThat(upperBound[0]).isNaN();
+    assertThat(upperBound[1]).isNaN();
+    assertThat(upperBound[2]).isCloseTo(1.5 + Math.sqrt(0.5), Offset.offset(1e-9));
+    assertThat(upperBound[3]).isCloseTo(3. + Math.sqrt(2), Offset.offset(1e-9));
+    assertThat(upperBound[4]).isCloseTo(6. + Math.sqrt(8), Offset.offset(1e-9));
+  }
+
+  @Test
+  public void testRollingBaselineMatchesDirectComputation() {
+    // 3 weeks at 5 minutes granularity, with null and masked values
+    final DataFrame inputDf = generateTimeseries(3 * 7 * 288,
+        300_000L);
+    final int lookback = computeSteps("P14D", "PT5M");
+    final long windowStart = inputDf.getLong(Constants.COL_TIME, lookback);
+    for (final String seasonality : new String[]{"PT0S", "P1D", "P7D"}) {
+      final MeanVarianceRuleDetectorSpec spec = new MeanVarianceRuleDetectorSpec();
+      spec.setMonitoringGranularity("PT5M");
+      spec.setLookbackPeriod("P14D");
+      spec.setSeasonalityPeriod(seasonality);
+      spec.setSensitivity(5);
+      final MeanVarianceRuleDetector detector = new MeanVarianceRuleDetector();
+      detector.init(spec);
+
+      final DataFrame rollingDf = detector.computeBaseline(inputDf, windowStart);
+      final DataFrame directDf = directBaseline(inputDf,
+          windowStart, lookback, computeSteps(seasonality, "PT5M") * 300_000L, 1.);
+
+      for (final String col : new String[]{Constants.COL_VALUE, Constants.COL_UPPER_BOUND,
+          Constants.COL_LOWER_BOUND}) {
+        final double[] rolling = rollingDf.getDoubles(col).values();
+        final double[] direct = directDf.getDoubles(col).values();
+        assertThat(rolling.length).isEqualTo(direct.length);
+        for (int i = 0; i < rolling.length; i++) {
+          if (DoubleSeries.isNull(direct[i])) {
+            assertThat(rolling[i]).isNaN();
+          } else {
+            assertThat(rolling[i]).isCloseTo(direct[i], Offset.offset(1e-6));
+          }
+        }
+      }
+    }
+  }
 }
@@ -0,0 +1,265 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.plugins.datasource.pinot;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.Striped;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps values in local files, one file per key, read with memory mapping. Values survive
+ * restarts. A writer reserves the size of its file before writing it. When the reservation does
+ * not fit in maxSizeBytes, the least recently written files are deleted. If the space is still
+ * missing, the value is not stored.
+ *
+ * File layout: expiration millis (long), key length (int), key (UTF-8), value.
+ */
+public class MappedFileResultCacheStore implements PinotResultCacheStore {
+
+  private static final Logger LOG = LoggerFactory.getLogger(MappedFileResultCacheStore.class);
+  private static final String FILE_SUFFIX = ".bin";
+  private static final String TMP_FILE_SUFFIX = ".tmp";
+  private static final double EVICTION_TARGET_RATIO = 0.9;
+
+  private final Path directory;
+  private final long maxSizeBytes;
+  // size of the files and of the reservations of the writers in progress
+  private final AtomicLong sizeBytes = new AtomicLong();
+  // guards the replacement and the deletion of a file, with the update of sizeBytes
+  private final Striped<Lock> fileLocks = Striped.lock(64);
+
+  public MappedFileResultCacheStore(final Path directory, final long maxSizeBytes) {
+    this.directory = directory;
+    this.maxSizeBytes = maxSizeBytes;
+    try {
+      Files.createDirectories(directory);
+    } catch (final IOException e) {
+      throw new UncheckedIOException("Could not create result cache directory " + directory, e);
+    }
+    cleanUp();
+  }
+
+  @Override
+  public @Nullable ByteBuffer get(final String key) {
+    final Path file = fileOf(key);
+    if (!Files.exists(file)) {
+      return null;
+    }
+    try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      final ByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+      if (buffer.getLong() <= System.currentTimeMillis()) {
+        delete(file);
+        return null;
+      }
+      final byte[] storedKey = new byte[buffer.getInt()];
+      buffer.get(storedKey);
+      if (!Arrays.equals(storedKey, key.getBytes(UTF_8))) {
+        // hash collision
+        return null;
+      }
+      return buffer.slice().asReadOnlyBuffer();
+    } catch (final IOException | RuntimeException e) {
+      // the file may have been evicted or replaced concurrently
+      LOG.debug("Could not read result cache file {}", file, e);
+      return null;
+    }
+  }
+
+  @Override
+  public void put(final String key, final byte[] value, final long expirationMillis) {
+    final Path file = fileOf(key);
+    final Path tmpFile = directory.resolve(file.getFileName() + "." + Thread.currentThread().getId()
+        + TMP_FILE_SUFFIX);
+    final byte[] keyBytes = key.getBytes(UTF_8);
+    final ByteBuffer header = ByteBuffer.allocate(Long.BYTES + Integer.BYTES + keyBytes.length);
+    header.putLong(expirationMillis).putInt(keyBytes.length).put(keyBytes).flip();
+    final long fileSize = header.limit() + value.length;
+    if (!reserve(fileSize)) {
+      LOG.debug("Result cache is full. Not storing {}", file);
+      return;
+    }
+    try {
+      try (final FileChannel channel = FileChannel.open(tmpFile, StandardOpenOption.CREATE,
+          StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+        final ByteBuffer[] buffers = new ByteBuffer[]{header, ByteBuffer.wrap(value)};
+        while (buffers[1].hasRemaining()) {
+          channel.write(buffers);
+        }
+      }
+      final Lock lock = fileLocks.get(file);
+      lock.lock();
+      try {
+        final long previousSize = sizeOf(file);
+        Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+        // the reservation is now the size of the file
+        sizeBytes.addAndGet(-previousSize);
+      } finally {
+        lock.unlock();
+      }
+    } catch (final IOException e) {
+      LOG.warn("Could not write result cache file {}", file, e);
+      sizeBytes.addAndGet(-fileSize);
+      deleteUntracked(tmpFile);
+    }
+  }
+
+  /**
+   * Adds bytes to sizeBytes if the total stays within maxSizeBytes, evicting files if necessary.
+   *
+   * @return false if the bytes do not fit
+   */
+  private boolean reserve(final long bytes) {
+    if (bytes > maxSizeBytes) {
+      return false;
+    }
+    while (true) {
+      final long current = sizeBytes.get();
+      if (current + bytes <= maxSizeBytes) {
+        if (sizeBytes.compareAndSet(current, current + bytes)) {
+          return true;
+        }
+      } else if (!evict(bytes)) {
+        // the space is used by the reservations of other writers
+        return false;
+      }
+    }
+  }
+
+  @Override
+  public long sizeBytes() {
+    return sizeBytes.get();
+  }
+
+  private Path fileOf(final String key) {
+    return directory.resolve(Hashing.sha256().hashString(key, UTF_8) + FILE_SUFFIX);
+  }
+
+  private void cleanUp() {
+    final long now = System.currentTimeMillis();
+    for (final Path file : listFiles()) {
+      if (!file.toString().endsWith(FILE_SUFFIX) || expirationOf(file) <= now) {
+        deleteUntracked(file);
+      } else {
+        sizeBytes.addAndGet(sizeOf(file));
+      }
+    }
+  }
+
+  /**
+   * Deletes the least recently written files until the reservation of the given bytes fits.
+   *
+   * @return true if a file was deleted
+   */
+  private synchronized boolean evict(final long reservedBytes) {
+    final long target = Math.min((long) (maxSizeBytes * EVICTION_TARGET_RATIO),
+        maxSizeBytes - reservedBytes);
+    final List<Path> files = listFiles().stream()
+        .filter(f -> f.toString().endsWith(FILE_SUFFIX))
+        .sorted(Comparator.comparingLong(MappedFileResultCacheStore::lastModifiedOf))
+        .collect(Collectors.toList());
+    boolean deleted = false;
+    for (final Path file : files) {
+      if (sizeBytes.get() <= target) {
+        break;
+      }
+      deleted |= delete(file);
+    }
+    return deleted;
+  }
+
+  private boolean delete(final Path file) {
+    final Lock lock = fileLocks.get(file);
+    lock.lock();
+    try {
+      final long size = sizeOf(file);
+      if (deleteUntracked(file)) {
+        sizeBytes.addAndGet(-size);
+        return true;
+      }
+      return false;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Deletes a file whose size is not counted in sizeBytes.
+   */
+  private static boolean deleteUntracked(final Path file) {
+    try {
+      return Files.deleteIfExists(file);
+    } catch (final IOException e) {
+      LOG.warn("Could not delete result cache file {}", file, e);
+      return false;
+    }
+  }
+
+  private List<Path> listFiles() {
+    try (final Stream<Path> files = Files.list(directory)) {
+      return files.collect(Collectors.toList());
+    } catch (final IOException e) {
+      LOG.warn("Could not list result cache directory {}", directory, e);
+      return List.of();
+    }
+  }
+
+  private static long expirationOf(final Path file) {
+    try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      final ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+      if (channel.read(buffer) < Long.BYTES) {
+        return 0;
+      }
+      return buffer.flip().getLong();
+    } catch (final IOException e) {
+      return 0;
+    }
+  }
+
+  private static long sizeOf(final Path file) {
+    try {
+      return Files.size(file);
+    } catch (final IOException e) {
+      return 0;
+    }
+  }
+
+  private static long lastModifiedOf(final Path file) {
+    try {
+      return Files.getLastModifiedTime(file).toMillis();
+    } catch (final IOException e) {
+      return 0;
+    }
+  }
+}
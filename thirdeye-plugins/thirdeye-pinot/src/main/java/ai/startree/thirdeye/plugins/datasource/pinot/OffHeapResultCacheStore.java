@@ -0,0 +1,71 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.plugins.datasource.pinot;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.nio.ByteBuffer;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Keeps values in direct buffers, outside of the heap. Values are evicted when the total size
+ * exceeds maxSizeBytes or when they expire.
+ */
+public class OffHeapResultCacheStore implements PinotResultCacheStore {
+
+  private final Cache<String, Entry> cache;
+
+  public OffHeapResultCacheStore(final long maxSizeBytes) {
+    cache = CacheBuilder.newBuilder()
+        .maximumWeight(maxSizeBytes)
+        .weigher((String key, Entry entry) -> entry.buffer.capacity())
+        .build();
+  }
+
+  @Override
+  public @Nullable ByteBuffer get(final String key) {
+    final Entry entry = cache.getIfPresent(key);
+    if (entry == null) {
+      return null;
+    }
+    if (entry.expirationMillis <= System.currentTimeMillis()) {
+      cache.asMap().remove(key, entry);
+      return null;
+    }
+    return entry.buffer.asReadOnlyBuffer();
+  }
+
+  @Override
+  public void put(final String key, final byte[] value, final long expirationMillis) {
+    final ByteBuffer buffer = ByteBuffer.allocateDirect(value.length);
+    buffer.put(value).flip();
+    cache.put(key, new Entry(buffer, expirationMillis));
+  }
+
+  @Override
+  public long sizeBytes() {
+    return cache.asMap().values().stream().mapToLong(e -> e.buffer.capacity()).sum();
+  }
+
+  private static class Entry {
+
+    private final ByteBuffer buffer;
+    private final long expirationMillis;
+
+    private Entry(final ByteBuffer buffer, final long expirationMillis) {
+      this.buffer = buffer;
+      this.expirationMillis = expirationMillis;
+    }
+  }
+}
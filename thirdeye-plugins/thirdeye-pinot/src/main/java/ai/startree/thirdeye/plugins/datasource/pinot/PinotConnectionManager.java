@@ -15,46 +15,137 @@ package ai.startree.thirdeye.plugins.datasource.pinot;
 
 import static ai.startree.thirdeye.plugins.datasource.pinot.PinotThirdEyeDataSourceUtils.cloneConfig;
 import static ai.startree.thirdeye.spi.util.SpiUtils.optional;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
 import static java.util.Objects.requireNonNull;
 
-import ai.startree.thirdeye.spi.util.Pair;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
 import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import org.apache.http.HttpHeaders;
 import org.apache.pinot.client.Connection;
+import org.apache.pinot.client.PinotClientException;
 import org.apache.pinot.client.PinotConnectionBuilder;
+import org.apache.pinot.client.Request;
+import org.apache.pinot.client.ResultSetGroup;
+import org.apache.pinot.client.ThirdEyePinotConnection;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Thread-safe pool of Pinot connections.
+ *
+ * Connections are created with the current oauth token, if any. When the token changes, a single
+ * thread creates the new connections while the other threads keep using the current ones. Old
+ * connections are closed asynchronously.
+ *
+ * The number of in-flight requests can be limited. Requests waiting for a permit are served in
+ * FIFO order. Non-blocking requests wait for their permit without blocking the calling thread.
+ *
+ * Once closed, the manager does not create connections anymore: {@link #get()} throws.
+ */
 @Singleton
 public class PinotConnectionManager {
 
   private static final Logger LOG = LoggerFactory.getLogger(PinotConnectionManager.class);
 
   private final ExecutorService executorService = Executors.newSingleThreadExecutor();
+  private final ReentrantLock refreshLock = new ReentrantLock();
+  private final AtomicInteger inFlightRequests = new AtomicInteger();
 
   private final PinotThirdEyeDataSourceConfig config;
   private final Supplier<String> tokenSupplier;
   private final PinotConnectionBuilder pinotConnectionBuilder;
-  private Connection connection;
-  private String prevToken;
+  private final int poolSize;
+  private final Executor asyncExecutor;
+  /* permits are limited if maxInFlightRequests > 0. Guarded by permitLock */
+  private final boolean permitsLimited;
+  private final Object permitLock = new Object();
+  private final Deque<CompletableFuture<Void>> permitWaiters = new ArrayDeque<>();
+  private int availablePermits;
+  private volatile ConnectionPool pool;
+  /* set once, before the connections are closed */
+  private volatile boolean closed;
+  private final Gauge inFlightRequestsGauge;
+  private final Gauge queueDepthGauge;
 
-  @Inject
   public PinotConnectionManager(final PinotConnectionBuilder pinotConnectionBuilder,
       final PinotThirdEyeDataSourceConfig config,
       final PinotOauthTokenSupplier pinotOauthTokenSupplier) {
+    this(pinotConnectionBuilder, config, pinotOauthTokenSupplier, ForkJoinPool.commonPool());
+  }
+
+  @Inject
+  public PinotConnectionManager(final PinotConnectionBuilder pinotConnectionBuilder,
+      final PinotThirdEyeDataSourceConfig config,
+      final PinotOauthTokenSupplier pinotOauthTokenSupplier,
+      final Executor asyncExecutor) {
     this.config = config;
     tokenSupplier = pinotOauthTokenSupplier.getTokenSupplier();
     this.pinotConnectionBuilder = pinotConnectionBuilder;
+    this.asyncExecutor = asyncExecutor;
+
+    final PinotConnectionPoolConfiguration poolConfiguration = optional(config.getConnectionPool())
+        .orElse(new PinotConnectionPoolConfiguration());
+    poolSize = poolConfiguration.getSize();
+    checkArgument(poolSize > 0, "connectionPool.size must be positive");
+    permitsLimited = poolConfiguration.getMaxInFlightRequests() > 0;
+    availablePermits = poolConfiguration.getMaxInFlightRequests();
+
+    final Tags tags = Tags.of("datasource", optional(config.getName()).orElse("pinot"));
+    inFlightRequestsGauge = registerGauge("pinotConnectionInFlightRequests",
+        tags,
+        inFlightRequests,
+        AtomicInteger::get);
+    queueDepthGauge = registerGauge("pinotConnectionQueueDepth",
+        tags,
+        this,
+        PinotConnectionManager::queueDepth);
+  }
+
+  /**
+   * Registers a gauge that reads the given object. The gauge of a previous instance for the same
+   * datasource is replaced: the registry would otherwise keep it and keep reading the previous
+   * instance.
+   */
+  private static <T> Gauge registerGauge(final String name, final Tags tags, final T obj,
+      final ToDoubleFunction<T> f) {
+    Metrics.globalRegistry.find(name).tags(tags).meters()
+        .forEach(Metrics.globalRegistry::remove);
+    return Gauge.builder(name, obj, f).tags(tags).register(Metrics.globalRegistry);
+  }
+
+  private static void removeGauge(final Gauge gauge) {
+    // the gauge may already be replaced by the gauge of a new instance
+    final Gauge registered = Metrics.globalRegistry.find(gauge.getId().getName())
+        .tags(gauge.getId().getTagsAsIterable())
+        .gauge();
+    if (registered == gauge) {
+      Metrics.globalRegistry.remove(gauge);
+    }
   }
 
-  private boolean isNewConnectionReqd() {
-    if (connection == null) {
+  private boolean isNewConnectionReqd(final @Nullable ConnectionPool pool) {
+    if (pool == null) {
       return true;
     }
     if (tokenSupplier == null) {
@@ -63,31 +154,177 @@ public class PinotConnectionManager {
     }
 
     /* oauth case */
-    if (prevToken == null) {
+    if (pool.token == null) {
       /* no existing token to compare*/
       return true;
     }
     final String newToken = requireNonNull(tokenSupplier.get(), "token supplied is null");
-    return !prevToken.equals(newToken);
+    return !pool.token.equals(newToken);
   }
 
   public Connection get() {
-    if (isNewConnectionReqd()) {
-      /* Closing old connection is a lower priority. do it async */
-      closeConnectionAsync(connection);
+    checkState(!closed, "Pinot connection manager is closed");
+    ConnectionPool current = pool;
+    if (isNewConnectionReqd(current)) {
+      current = refresh(current);
+    }
+    return current.next();
+  }
+
+  /**
+   * Runs the request on a connection of the pool. Waits for a permit if the number of in-flight
+   * requests is limited.
+   */
+  public ResultSetGroup execute(final String tableName, final Request request) {
+    acquirePermit();
+    inFlightRequests.incrementAndGet();
+    try {
+      return get().execute(tableName, request);
+    } finally {
+      inFlightRequests.decrementAndGet();
+      releasePermit();
+    }
+  }
+
+  /**
+   * Non-blocking version of {@link #execute(String, Request)}. If the number of in-flight
+   * requests is limited, the request is sent once a permit is released by another request.
+   */
+  public CompletableFuture<ResultSetGroup> executeAsync(final String tableName,
+      final Request request) {
+    return acquirePermitAsync().thenCompose(permit -> {
+      inFlightRequests.incrementAndGet();
+      CompletableFuture<ResultSetGroup> future;
+      try {
+        final Connection connection = get();
+        future = connection instanceof ThirdEyePinotConnection
+            ? ((ThirdEyePinotConnection) connection).executeCompletableAsync(tableName,
+            request,
+            asyncExecutor)
+            : CompletableFuture.completedFuture(connection.execute(tableName, request));
+      } catch (final RuntimeException e) {
+        future = CompletableFuture.failedFuture(e);
+      }
+      return future.whenComplete((result, throwable) -> {
+        inFlightRequests.decrementAndGet();
+        releasePermit();
+      });
+    });
+  }
+
+  public int getInFlightRequests() {
+    return inFlightRequests.get();
+  }
+
+  public int queueDepth() {
+    synchronized (permitLock) {
+      return permitWaiters.size();
+    }
+  }
+
+  /**
+   * Returns a future completed when a permit is obtained. The permit must be released with
+   * {@link #releasePermit()}.
+   */
+  private CompletableFuture<Void> acquirePermitAsync() {
+    if (!permitsLimited) {
+      return CompletableFuture.completedFuture(null);
+    }
+    synchronized (permitLock) {
+      if (availablePermits > 0) {
+        availablePermits--;
+        return CompletableFuture.completedFuture(null);
+      }
+      final CompletableFuture<Void> waiter = new CompletableFuture<>();
+      permitWaiters.add(waiter);
+      return waiter;
+    }
+  }
+
+  private void acquirePermit() {
+    final CompletableFuture<Void> permit = acquirePermitAsync();
+    try {
+      permit.get();
+    } catch (final InterruptedException e) {
+      if (!permit.cancel(false)) {
+        // the permit was handed over in the meantime
+        releasePermit();
+      }
+      Thread.currentThread().interrupt();
+      throw new PinotClientException("Interrupted while waiting for a Pinot connection", e);
+    } catch (final ExecutionException e) {
+      throw new IllegalStateException("Permit futures are not completed exceptionally", e);
+    }
+  }
+
+  /**
+   * Hands the permit over to the next waiter, if any. Waiters are completed on the async
+   * executor: their continuation sends a request and must not run on the releasing thread, which
+   * can be an I/O thread of the http client.
+   */
+  private void releasePermit() {
+    if (!permitsLimited) {
+      return;
+    }
+    final CompletableFuture<Void> next;
+    synchronized (permitLock) {
+      next = permitWaiters.poll();
+      if (next == null) {
+        availablePermits++;
+        return;
+      }
+    }
+    try {
+      asyncExecutor.execute(() -> handOver(next));
+    } catch (final RejectedExecutionException e) {
+      // the executor is shut down: do not lose the permit
+      handOver(next);
+    }
+  }
+
+  private void handOver(final CompletableFuture<Void> waiter) {
+    if (!waiter.complete(null)) {
+      // the waiter was cancelled: give the permit to the next one
+      releasePermit();
+    }
+  }
 
-      final var p = createConnection();
-      connection = p.getSecond();
-      prevToken = optional(p.getFirst().getHeaders())
-          .map(headers -> headers.get(HttpHeaders.AUTHORIZATION))
-          .orElse(null);
+  private ConnectionPool refresh(final @Nullable ConnectionPool stale) {
+    if (stale == null) {
+      /* no connection to use in the meantime */
+      refreshLock.lock();
+    } else if (!refreshLock.tryLock()) {
+      /* another thread is creating the new connections. Keep using the current ones */
+      return stale;
+    }
+    try {
+      /* closed while waiting for the lock */
+      checkState(!closed, "Pinot connection manager is closed");
+      final ConnectionPool current = pool;
+      if (current != stale && current != null) {
+        /* refreshed by another thread */
+        return current;
+      }
+      final ConnectionPool newPool = createPool();
+      pool = newPool;
+      /* Closing old connections is a lower priority. do it async */
+      closePoolAsync(stale);
+      return newPool;
+    } finally {
+      refreshLock.unlock();
     }
-    return connection;
   }
 
-  private Pair<PinotThirdEyeDataSourceConfig, Connection> createConnection() {
+  private ConnectionPool createPool() {
     final var c = newConfig();
-    return new Pair<>(c, pinotConnectionBuilder.createConnection(c));
+    final List<Connection> connections = new ArrayList<>(poolSize);
+    for (int i = 0; i < poolSize; i++) {
+      connections.add(pinotConnectionBuilder.createConnection(c));
+    }
+    final String token = optional(c.getHeaders())
+        .map(headers -> headers.get(HttpHeaders.AUTHORIZATION))
+        .orElse(null);
+    return new ConnectionPool(connections, token);
   }
 
   private PinotThirdEyeDataSourceConfig newConfig() {
@@ -113,15 +350,32 @@ public class PinotConnectionManager {
   }
 
   public void close() {
-    closeConnection(connection);
-    connection = null;
+    refreshLock.lock();
+    try {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      removeGauge(inFlightRequestsGauge);
+      removeGauge(queueDepthGauge);
+      final ConnectionPool current = pool;
+      pool = null;
+      if (current != null) {
+        current.connections.forEach(this::closeConnection);
+      }
+    } finally {
+      refreshLock.unlock();
+    }
+    /* connections of previous pools that are being closed asynchronously are still closed */
+    executorService.shutdown();
   }
 
-  private void closeConnectionAsync(@Nullable final Connection connection) {
-    if (connection != null) {
-      executorService.submit(() -> closeConnection(connection));
+  private void closePoolAsync(@Nullable final ConnectionPool pool) {
+    if (pool != null) {
+      executorService.submit(() -> pool.connections.forEach(this::closeConnection));
     }
   }
+
   private void closeConnection(@Nullable final Connection connection) {
     try {
       final long start = System.nanoTime();
@@ -134,4 +388,26 @@ public class PinotConnectionManager {
       LOG.error("Exception closing connection", e);
     }
   }
+
+  /**
+   * Immutable set of connections created with the same token.
+   */
+  private static class ConnectionPool {
+
+    private final List<Connection> connections;
+    private final @Nullable String token;
+    private final AtomicInteger nextIndex = new AtomicInteger();
+
+    private ConnectionPool(final List<Connection> connections, final @Nullable String token) {
+      this.connections = List.copyOf(connections);
+      this.token = token;
+    }
+
+    private Connection next() {
+      if (connections.size() == 1) {
+        return connections.get(0);
+      }
+      return connections.get(Math.floorMod(nextIndex.getAndIncrement(), connections.size()));
+    }
+  }
 }
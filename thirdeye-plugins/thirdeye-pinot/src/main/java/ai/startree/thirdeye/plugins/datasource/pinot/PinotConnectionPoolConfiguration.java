@@ -0,0 +1,45 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.plugins.datasource.pinot;
+
+/**
+ * Connections of {@link PinotConnectionManager}. Each connection has its own transport to the
+ * brokers. Queries are spread over the connections in round-robin.
+ *
+ * If maxInFlightRequests is positive, queries above this limit wait for a running query to
+ * finish. 0 means no limit.
+ */
+public class PinotConnectionPoolConfiguration {
+
+  private int size = 1;
+  private int maxInFlightRequests = 0;
+
+  public int getSize() {
+    return size;
+  }
+
+  public PinotConnectionPoolConfiguration setSize(final int size) {
+    this.size = size;
+    return this;
+  }
+
+  public int getMaxInFlightRequests() {
+    return maxInFlightRequests;
+  }
+
+  public PinotConnectionPoolConfiguration setMaxInFlightRequests(final int maxInFlightRequests) {
+    this.maxInFlightRequests = maxInFlightRequests;
+    return this;
+  }
+}
@@ -15,6 +15,8 @@ package ai.startree.thirdeye.plugins.datasource.pinot;
 
 import ai.startree.thirdeye.spi.datasource.RelationalQuery;
 import java.util.Map;
+import java.util.Objects;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 // TODO CYRIL - remove ? duplication of the DataSourceRequest
 public class PinotQuery extends RelationalQuery {
@@ -23,13 +25,25 @@ public class PinotQuery extends RelationalQuery {
 
   private final Map<String, String> options;
 
+  /**
+   * Upper bound of the time filter of the query, if known. Not part of the query identity: it is
+   * derived from the query text.
+   */
+  private final @Nullable Long endTimeMillis;
+
   @Deprecated // TODO CYRIL always true - to remove
   private final boolean useSql = true;
 
   public PinotQuery(final String query, final String tableName, final Map<String, String> options) {
+    this(query, tableName, options, null);
+  }
+
+  public PinotQuery(final String query, final String tableName, final Map<String, String> options,
+      final @Nullable Long endTimeMillis) {
     super(query);
     this.tableName = tableName;
     this.options = options;
+    this.endTimeMillis = endTimeMillis;
   }
 
   public String getTableName() {
@@ -44,11 +58,35 @@ public class PinotQuery extends RelationalQuery {
     return options;
   }
 
+  public @Nullable Long getEndTimeMillis() {
+    return endTimeMillis;
+  }
+
+  @Override
+  public boolean equals(final Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    final PinotQuery that = (PinotQuery) o;
+    return Objects.equals(query, that.query)
+        && Objects.equals(tableName, that.tableName)
+        && Objects.equals(options, that.options);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(query, tableName, options);
+  }
+
   @Override
   public String toString() {
     final StringBuilder sb = new StringBuilder("PinotQuery{");
     sb.append("query='").append(query).append('\'');
     sb.append(", tableName='").append(tableName).append('\'');
+    sb.append(", options=").append(options);
     sb.append(", useSql='").append(useSql).append('\'');
     sb.append('}');
     return sb.toString();
@@ -14,6 +14,11 @@
 package ai.startree.thirdeye.plugins.datasource.pinot;
 
 import ai.startree.thirdeye.spi.dataframe.DataFrame;
+import ai.startree.thirdeye.spi.dataframe.DoubleSeries;
+import ai.startree.thirdeye.spi.dataframe.LongSeries;
+import ai.startree.thirdeye.spi.dataframe.ObjectSeries;
+import ai.startree.thirdeye.spi.dataframe.Series;
+import ai.startree.thirdeye.spi.dataframe.StringSeries;
 import ai.startree.thirdeye.spi.datasource.resultset.ThirdEyeDataFrameResultSet;
 import ai.startree.thirdeye.spi.datasource.resultset.ThirdEyeResultSet;
 import ai.startree.thirdeye.spi.datasource.resultset.ThirdEyeResultSetGroup;
@@ -26,11 +31,13 @@ import com.google.common.cache.CacheLoader;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import javax.inject.Inject;
 import javax.inject.Singleton;
-import org.apache.pinot.client.Connection;
 import org.apache.pinot.client.PinotClientException;
 import org.apache.pinot.client.Request;
 import org.apache.pinot.client.ResultSet;
@@ -46,10 +53,13 @@ public class PinotQueryExecutor extends CacheLoader<PinotQuery, ThirdEyeResultSe
   private static final String SQL_QUERY_FORMAT = "sql";
   private static final String PQL_QUERY_FORMAT = "pql";
   private final PinotConnectionManager pinotConnectionManager;
+  private final Executor asyncExecutor;
 
   @Inject
-  public PinotQueryExecutor(final PinotConnectionManager pinotConnectionManager) {
+  public PinotQueryExecutor(final PinotConnectionManager pinotConnectionManager,
+      final Executor asyncExecutor) {
     this.pinotConnectionManager = pinotConnectionManager;
+    this.asyncExecutor = asyncExecutor;
   }
 
   /**
@@ -98,13 +108,10 @@ public class PinotQueryExecutor extends CacheLoader<PinotQuery, ThirdEyeResultSe
   }
 
   /**
-   * Constructs a {@link ThirdEyeDataFrameResultSet} from any Pinot's {@link ResultSet}.
-   *
-   * @param resultSet A result set from Pinot.
-   * @return an unified {@link ThirdEyeDataFrameResultSet}.
+   * Builds the meta data of a Pinot's {@link ResultSet}.
    */
-  private static ThirdEyeDataFrameResultSet fromPinotResultSet(final ResultSet resultSet) {
-    // Build the meta data of this result set
+  @VisibleForTesting
+  static ThirdEyeResultSetMetaData toMetaData(final ResultSet resultSet) {
     final List<String> groupKeyColumnNames = new ArrayList<>();
     final List<ColumnType> groupKeyColumnTypes = new ArrayList<>();
     int groupByColumnCount = 0;
@@ -135,51 +142,115 @@ public class PinotQueryExecutor extends CacheLoader<PinotQuery, ThirdEyeResultSe
       metricColumnNames.add(columnName);
       metricColumnTypes.add(getColumnTypeFromPinotResultSet(resultSet, columnName));
     }
-    final ThirdEyeResultSetMetaData thirdEyeResultSetMetaData =
-        new ThirdEyeResultSetMetaData(groupKeyColumnNames,
-            metricColumnNames,
-            groupKeyColumnTypes,
-            metricColumnTypes);
+    return new ThirdEyeResultSetMetaData(groupKeyColumnNames,
+        metricColumnNames,
+        groupKeyColumnTypes,
+        metricColumnTypes);
+  }
+
+  /**
+   * Constructs a {@link ThirdEyeDataFrameResultSet} from any Pinot's {@link ResultSet}.
+   *
+   * The DataFrame is built column by column. Columns with a numeric Pinot type are read directly
+   * into primitive arrays allocated once. Other columns keep the type inference of
+   * {@link DataFrame.Builder}.
+   *
+   * @param resultSet A result set from Pinot.
+   * @return an unified {@link ThirdEyeDataFrameResultSet}.
+   */
+  @VisibleForTesting
+  static ThirdEyeDataFrameResultSet fromPinotResultSet(final ResultSet resultSet) {
+    final ThirdEyeResultSetMetaData thirdEyeResultSetMetaData = toMetaData(resultSet);
+    final int rowCount = resultSet.getRowCount();
 
-    // Build the DataFrame
-    final List<String> columnNameWithDataType = new ArrayList<>();
+    final DataFrame dataFrame = new DataFrame();
     //   Always cast dimension values to STRING type
-    for (final String groupColumnName : thirdEyeResultSetMetaData.getGroupKeyColumnNames()) {
-      columnNameWithDataType.add(groupColumnName + ":STRING");
+    final List<String> groupKeyColumnNames = thirdEyeResultSetMetaData.getGroupKeyColumnNames();
+    for (int groupByColumnIdx = 0; groupByColumnIdx < groupKeyColumnNames.size(); groupByColumnIdx++) {
+      dataFrame.addSeries(groupKeyColumnNames.get(groupByColumnIdx),
+          groupKeySeries(resultSet, groupByColumnIdx, rowCount));
     }
-    columnNameWithDataType.addAll(thirdEyeResultSetMetaData.getMetricColumnNames());
-    final DataFrame.Builder dfBuilder = DataFrame.builder(columnNameWithDataType);
-    final int rowCount = resultSet.getRowCount();
-    final int metricColumnCount = resultSet.getColumnCount();
-    final int totalColumnCount = groupByColumnCount + metricColumnCount;
-    // Dump the values in ResultSet to the DataFrame
+    final List<String> metricColumnNames = thirdEyeResultSetMetaData.getMetricColumnNames();
+    final List<ColumnType> metricColumnTypes = thirdEyeResultSetMetaData.getMetricColumnTypes();
+    for (int metricColumnIdx = 0; metricColumnIdx < metricColumnNames.size(); metricColumnIdx++) {
+      dataFrame.addSeries(metricColumnNames.get(metricColumnIdx),
+          metricSeries(resultSet,
+              metricColumnIdx,
+              metricColumnTypes.get(metricColumnIdx).getType(),
+              rowCount));
+    }
+    // Build ThirdEye's result set
+    return new ThirdEyeDataFrameResultSet(thirdEyeResultSetMetaData, dataFrame);
+  }
+
+  private static Series groupKeySeries(final ResultSet resultSet, final int groupByColumnIdx,
+      final int rowCount) {
+    final String[] values = new String[rowCount];
     for (int rowIdx = 0; rowIdx < rowCount; rowIdx++) {
-      final String[] columnsOfTheRow = new String[totalColumnCount];
-      // GroupBy column value(i.e., dimension values)
-      for (int groupByColumnIdx = 0; groupByColumnIdx < groupByColumnCount; groupByColumnIdx++) {
-        String valueString = null;
-        try {
-          valueString = resultSet.getGroupKeyString(rowIdx, groupByColumnIdx);
-        } catch (final Exception e) {
-          // Do nothing and subsequently insert a null value to the current series.
-        }
-        columnsOfTheRow[groupByColumnIdx] = valueString;
+      try {
+        values[rowIdx] = resultSet.getGroupKeyString(rowIdx, groupByColumnIdx);
+      } catch (final Exception e) {
+        // Do nothing and subsequently insert a null value to the current series.
       }
-      // Metric column's value
-      for (int metricColumnIdx = 0; metricColumnIdx < metricColumnCount; metricColumnIdx++) {
-        String valueString = null;
-        try {
-          valueString = resultSet.getString(rowIdx, metricColumnIdx);
-        } catch (final Exception e) {
-          // Do nothing and subsequently insert a null value to the current series.
-        }
-        columnsOfTheRow[metricColumnIdx + groupByColumnCount] = valueString;
+    }
+    return StringSeries.buildFrom(values);
+  }
+
+  private static Series metricSeries(final ResultSet resultSet, final int metricColumnIdx,
+      final ColumnDataType columnDataType, final int rowCount) {
+    // empty results are not typed, for consistency with DataFrame.Builder
+    if (rowCount > 0) {
+      switch (columnDataType) {
+        case INT:
+        case LONG:
+          return longSeries(resultSet, metricColumnIdx, rowCount);
+        case FLOAT:
+        case DOUBLE:
+          return doubleSeries(resultSet, metricColumnIdx, rowCount);
+        default:
       }
-      dfBuilder.append(columnsOfTheRow);
     }
-    final DataFrame dataFrame = dfBuilder.build();
-    // Build ThirdEye's result set
-    return new ThirdEyeDataFrameResultSet(thirdEyeResultSetMetaData, dataFrame);
+    return inferredSeries(resultSet, metricColumnIdx, rowCount);
+  }
+
+  private static LongSeries longSeries(final ResultSet resultSet, final int metricColumnIdx,
+      final int rowCount) {
+    final long[] values = new long[rowCount];
+    for (int rowIdx = 0; rowIdx < rowCount; rowIdx++) {
+      try {
+        values[rowIdx] = resultSet.getLong(rowIdx, metricColumnIdx);
+      } catch (final Exception e) {
+        values[rowIdx] = LongSeries.NULL;
+      }
+    }
+    return LongSeries.buildFrom(values);
+  }
+
+  private static DoubleSeries doubleSeries(final ResultSet resultSet, final int metricColumnIdx,
+      final int rowCount) {
+    final double[] values = new double[rowCount];
+    for (int rowIdx = 0; rowIdx < rowCount; rowIdx++) {
+      try {
+        values[rowIdx] = resultSet.getDouble(rowIdx, metricColumnIdx);
+      } catch (final Exception e) {
+        values[rowIdx] = DoubleSeries.NULL;
+      }
+    }
+    return DoubleSeries.buildFrom(values);
+  }
+
+  private static Series inferredSeries(final ResultSet resultSet, final int metricColumnIdx,
+      final int rowCount) {
+    final Object[] values = new Object[rowCount];
+    for (int rowIdx = 0; rowIdx < rowCount; rowIdx++) {
+      try {
+        values[rowIdx] = resultSet.getString(rowIdx, metricColumnIdx);
+      } catch (final Exception e) {
+        // Do nothing and subsequently insert a null value to the current series.
+      }
+    }
+    final ObjectSeries series = ObjectSeries.buildFrom(values);
+    return series.get(series.inferType());
   }
 
   private static List<Pair<Integer, Integer>> rowColCounts(final ResultSetGroup resultSetGroup) {
@@ -202,28 +273,56 @@ public class PinotQueryExecutor extends CacheLoader<PinotQuery, ThirdEyeResultSe
   public ThirdEyeResultSetGroup load(final PinotQuery pinotQuery) {
     final String queryWithOptions = buildQueryWithOptions(pinotQuery);
     try {
-      final Connection connection = pinotConnectionManager.get();
       final long start = System.nanoTime();
-      final String queryFormat = pinotQuery.isUseSql() ? SQL_QUERY_FORMAT : PQL_QUERY_FORMAT;
-      final ResultSetGroup resultSetGroup = connection.execute(
+      final ResultSetGroup resultSetGroup = pinotConnectionManager.execute(
           pinotQuery.getTableName(),
-          new Request(queryFormat, queryWithOptions)
+          new Request(queryFormat(pinotQuery), queryWithOptions)
       );
 
-      final long end = System.nanoTime();
-      final long durationMillis = (end - start) / TimeUnit.MILLISECONDS.toNanos(1);
-      LOG.info("Query:{} time:{}ms result stats(rows, cols): {}",
-          queryWithOptions.replace('\n', ' '),
-          durationMillis,
-          toString(rowColCounts(resultSetGroup)));
-
-      return toThirdEyeResultSetGroup(resultSetGroup);
+      return toThirdEyeResultSetGroup(resultSetGroup, queryWithOptions, start);
     } catch (final PinotClientException cause) {
       LOG.error("Error when running SQL:" + queryWithOptions, cause);
       throw new PinotClientException("Error when running SQL:" + queryWithOptions, cause);
     }
   }
 
+  /**
+   * Non-blocking version of {@link #load(PinotQuery)}. The conversion of the result runs on the
+   * async executor.
+   */
+  public CompletableFuture<ThirdEyeResultSetGroup> loadAsync(final PinotQuery pinotQuery) {
+    final String queryWithOptions = buildQueryWithOptions(pinotQuery);
+    final long start = System.nanoTime();
+    return pinotConnectionManager.executeAsync(
+            pinotQuery.getTableName(),
+            new Request(queryFormat(pinotQuery), queryWithOptions))
+        .handleAsync((resultSetGroup, throwable) -> {
+          if (throwable != null) {
+            final Throwable cause = throwable instanceof CompletionException
+                && throwable.getCause() != null ? throwable.getCause() : throwable;
+            LOG.error("Error when running SQL:" + queryWithOptions, cause);
+            throw new PinotClientException("Error when running SQL:" + queryWithOptions, cause);
+          }
+          return toThirdEyeResultSetGroup(resultSetGroup, queryWithOptions, start);
+        }, asyncExecutor);
+  }
+
+  private static String queryFormat(final PinotQuery pinotQuery) {
+    return pinotQuery.isUseSql() ? SQL_QUERY_FORMAT : PQL_QUERY_FORMAT;
+  }
+
+  private static ThirdEyeResultSetGroup toThirdEyeResultSetGroup(
+      final ResultSetGroup resultSetGroup, final String queryWithOptions, final long startNanos) {
+    final long end = System.nanoTime();
+    final long durationMillis = (end - startNanos) / TimeUnit.MILLISECONDS.toNanos(1);
+    LOG.info("Query:{} time:{}ms result stats(rows, cols): {}",
+        queryWithOptions.replace('\n', ' '),
+        durationMillis,
+        toString(rowColCounts(resultSetGroup)));
+
+    return toThirdEyeResultSetGroup(resultSetGroup);
+  }
+
   @VisibleForTesting
   protected static String buildQueryWithOptions(final PinotQuery pinotQuery) {
     final StringBuilder optionsStatements = new StringBuilder();
@@ -0,0 +1,237 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.plugins.datasource.pinot;
+
+import static ai.startree.thirdeye.spi.util.SpiUtils.optional;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import ai.startree.thirdeye.spi.datasource.resultset.ThirdEyeResultSetGroup;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.CacheLoader;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Second level cache of Pinot query results, see {@link PinotResultCacheConfiguration}.
+ *
+ * Stores are shared by all datasources of the process: one store per directory, and one off-heap
+ * store. The first configuration that creates a store decides its maximum size. Keys contain the
+ * datasource name and a hash of its connection configuration: a datasource recreated with the
+ * same name on another cluster does not read the results of the previous one.
+ */
+public class PinotResultCache {
+
+  private static final Logger LOG = LoggerFactory.getLogger(PinotResultCache.class);
+  private static final String OFF_HEAP_STORE_NAME = "offHeap";
+  private static final Map<String, PinotResultCacheStore> STORES = new ConcurrentHashMap<>();
+
+  private final String dataSourceName;
+  private final String connectionHash;
+  private final PinotResultCacheConfiguration configuration;
+  private final PinotResultCacheStore store;
+  private final Executor asyncExecutor;
+
+  private final Counter hitCounter;
+  private final Counter missCounter;
+  private final Counter readBytesCounter;
+  private final Counter writtenBytesCounter;
+
+  /**
+   * @param asyncExecutor runs the encoding and storage of the results of non-blocking queries
+   */
+  public PinotResultCache(final String dataSourceName,
+      final PinotThirdEyeDataSourceConfig dataSourceConfig, final Executor asyncExecutor) {
+    this(dataSourceName,
+        connectionHash(dataSourceConfig),
+        dataSourceConfig.getResultCache(),
+        STORES.computeIfAbsent(
+            optional(dataSourceConfig.getResultCache().getDirectory()).orElse(OFF_HEAP_STORE_NAME),
+            storeName -> newStore(storeName, dataSourceConfig.getResultCache())),
+        asyncExecutor);
+  }
+
+  @VisibleForTesting
+  PinotResultCache(final String dataSourceName, final String connectionHash,
+      final PinotResultCacheConfiguration configuration, final PinotResultCacheStore store,
+      final Executor asyncExecutor) {
+    this.dataSourceName = dataSourceName;
+    this.connectionHash = connectionHash;
+    this.configuration = configuration;
+    this.store = store;
+    this.asyncExecutor = asyncExecutor;
+
+    hitCounter = Metrics.counter("pinotResultCacheHitCounter", "datasource", dataSourceName);
+    missCounter = Metrics.counter("pinotResultCacheMissCounter", "datasource", dataSourceName);
+    readBytesCounter = Metrics.counter("pinotResultCacheReadBytes", "datasource", dataSourceName);
+    writtenBytesCounter = Metrics.counter("pinotResultCacheWrittenBytes",
+        "datasource",
+        dataSourceName);
+  }
+
+  private static PinotResultCacheStore newStore(final String storeName,
+      final PinotResultCacheConfiguration configuration) {
+    final PinotResultCacheStore store = configuration.getDirectory() == null
+        ? new OffHeapResultCacheStore(configuration.getMaxSizeBytes())
+        : new MappedFileResultCacheStore(Path.of(configuration.getDirectory()),
+            configuration.getMaxSizeBytes());
+    Metrics.gauge("pinotResultCacheSizeBytes",
+        Tags.of("store", storeName),
+        store,
+        PinotResultCacheStore::sizeBytes);
+    return store;
+  }
+
+  /**
+   * Returns a hash of the fields of the configuration that identify the Pinot cluster.
+   */
+  @VisibleForTesting
+  static String connectionHash(final PinotThirdEyeDataSourceConfig config) {
+    final Hasher hasher = Hashing.sha256().newHasher();
+    for (final Object field : Arrays.asList(config.getBrokerUrl(),
+        config.getControllerConnectionScheme(),
+        config.getControllerHost(),
+        config.getControllerPort(),
+        config.getClusterName(),
+        config.getZookeeperUrl(),
+        config.getTag())) {
+      // null is hashed apart from any string
+      hasher.putBoolean(field != null);
+      if (field != null) {
+        final String value = field.toString();
+        hasher.putInt(value.length()).putString(value, UTF_8);
+      }
+    }
+    return hasher.hash().toString();
+  }
+
+  /**
+   * Returns a loader that looks up this cache before calling the given loader.
+   */
+  public CacheLoader<PinotQuery, ThirdEyeResultSetGroup> wrap(
+      final CacheLoader<PinotQuery, ThirdEyeResultSetGroup> loader) {
+    return new CacheLoader<>() {
+      @Override
+      public ThirdEyeResultSetGroup load(final PinotQuery pinotQuery) throws Exception {
+        return PinotResultCache.this.load(pinotQuery, loader);
+      }
+    };
+  }
+
+  public ThirdEyeResultSetGroup load(final PinotQuery pinotQuery,
+      final CacheLoader<PinotQuery, ThirdEyeResultSetGroup> loader) throws Exception {
+    final long now = System.currentTimeMillis();
+    final long ttlMillis = ttlMillis(pinotQuery, now);
+    if (ttlMillis <= 0) {
+      return loader.load(pinotQuery);
+    }
+
+    final String key = cacheKey(pinotQuery);
+    final ThirdEyeResultSetGroup cached = lookup(key, pinotQuery);
+    if (cached != null) {
+      return cached;
+    }
+
+    final ThirdEyeResultSetGroup resultSetGroup = loader.load(pinotQuery);
+    store(key, resultSetGroup, now + ttlMillis);
+    return resultSetGroup;
+  }
+
+  /**
+   * Non-blocking version of {@link #load(PinotQuery, CacheLoader)}.
+   */
+  public CompletableFuture<ThirdEyeResultSetGroup> loadAsync(final PinotQuery pinotQuery,
+      final Function<PinotQuery, CompletableFuture<ThirdEyeResultSetGroup>> loader) {
+    final long now = System.currentTimeMillis();
+    final long ttlMillis = ttlMillis(pinotQuery, now);
+    if (ttlMillis <= 0) {
+      return loader.apply(pinotQuery);
+    }
+
+    final String key = cacheKey(pinotQuery);
+    final ThirdEyeResultSetGroup cached = lookup(key, pinotQuery);
+    if (cached != null) {
+      return CompletableFuture.completedFuture(cached);
+    }
+
+    return loader.apply(pinotQuery).thenApplyAsync(resultSetGroup -> {
+      store(key, resultSetGroup, now + ttlMillis);
+      return resultSetGroup;
+    }, asyncExecutor);
+  }
+
+  private @Nullable ThirdEyeResultSetGroup lookup(final String key, final PinotQuery pinotQuery) {
+    final ByteBuffer cached = store.get(key);
+    if (cached != null) {
+      final int size = cached.remaining();
+      try {
+        final ThirdEyeResultSetGroup resultSetGroup = PinotResultSetGroupCodec.decode(cached);
+        hitCounter.increment();
+        readBytesCounter.increment(size);
+        return resultSetGroup;
+      } catch (final RuntimeException e) {
+        LOG.warn("Could not decode cached result of {}. Reloading.", pinotQuery, e);
+      }
+    }
+    missCounter.increment();
+    return null;
+  }
+
+  private void store(final String key, final ThirdEyeResultSetGroup resultSetGroup,
+      final long expiryMillis) {
+    final byte[] bytes = PinotResultSetGroupCodec.encode(resultSetGroup);
+    if (bytes != null) {
+      store.put(key, bytes, expiryMillis);
+      writtenBytesCounter.increment(bytes.length);
+    }
+  }
+
+  /**
+   * Returns how long the result of the query can be cached. Queries without a known time range
+   * are not cached: their result can change at any time.
+   */
+  @VisibleForTesting
+  long ttlMillis(final PinotQuery pinotQuery, final long now) {
+    final Long endTimeMillis = pinotQuery.getEndTimeMillis();
+    if (endTimeMillis == null) {
+      return 0;
+    }
+    return endTimeMillis <= now - configuration.getImmutableDelayMs()
+        ? configuration.getImmutableTtlMs()
+        : configuration.getMutableTtlMs();
+  }
+
+  @VisibleForTesting
+  String cacheKey(final PinotQuery pinotQuery) {
+    return dataSourceName
+        + '\n' + connectionHash
+        + '\n' + pinotQuery.getTableName()
+        + '\n' + pinotQuery.getQuery().trim()
+        + '\n' + new TreeMap<>(optional(pinotQuery.getOptions()).orElse(Map.of()));
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.plugins.datasource.pinot;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Second level query result cache. Unlike the heap cache of {@link PinotThirdEyeDataSource}, this
+ * cache is shared by all the Pinot datasource instances of the process. When a directory is
+ * set, results are written to local files and survive restarts. Otherwise they are kept off-heap.
+ *
+ * Only queries with a known time range are cached. A query whose time range ends before
+ * now - immutableDelayMs is considered immutable and is cached for immutableTtlMs, other queries
+ * are cached for mutableTtlMs.
+ */
+public class PinotResultCacheConfiguration {
+
+  private boolean enabled = false;
+  private String directory;
+  private long maxSizeBytes = 256L * 1024 * 1024;
+  private long immutableDelayMs = TimeUnit.HOURS.toMillis(1);
+  private long immutableTtlMs = TimeUnit.DAYS.toMillis(7);
+  private long mutableTtlMs = TimeUnit.MINUTES.toMillis(5);
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public PinotResultCacheConfiguration setEnabled(final boolean enabled) {
+    this.enabled = enabled;
+    return this;
+  }
+
+  public String getDirectory() {
+    return directory;
+  }
+
+  public PinotResultCacheConfiguration setDirectory(final String directory) {
+    this.directory = directory;
+    return this;
+  }
+
+  public long getMaxSizeBytes() {
+    return maxSizeBytes;
+  }
+
+  public PinotResultCacheConfiguration setMaxSizeBytes(final long maxSizeBytes) {
+    this.maxSizeBytes = maxSizeBytes;
+    return this;
+  }
+
+  public long getImmutableDelayMs() {
+    return immutableDelayMs;
+  }
+
+  public PinotResultCacheConfiguration setImmutableDelayMs(final long immutableDelayMs) {
+    this.immutableDelayMs = immutableDelayMs;
+    return this;
+  }
+
+  public long getImmutableTtlMs() {
+    return immutableTtlMs;
+  }
+
+  public PinotResultCacheConfiguration setImmutableTtlMs(final long immutableTtlMs) {
+    this.immutableTtlMs = immutableTtlMs;
+    return this;
+  }
+
+  public long getMutableTtlMs() {
+    return mutableTtlMs;
+  }
+
+  public PinotResultCacheConfiguration setMutableTtlMs(final long mutableTtlMs) {
+    this.mutableTtlMs = mutableTtlMs;
+    return this;
+  }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.plugins.datasource.pinot;
+
+import java.nio.ByteBuffer;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Storage of the serialized results of {@link PinotResultCache}. Implementations are thread-safe
+ * and bounded in size.
+ */
+public interface PinotResultCacheStore {
+
+  /**
+   * Returns the value stored for the key, or null if there is no value or if it has expired.
+   * The returned buffer is read-only and positioned at the start of the value.
+   */
+  @Nullable ByteBuffer get(String key);
+
+  void put(String key, byte[] value, long expirationMillis);
+
+  long sizeBytes();
+}
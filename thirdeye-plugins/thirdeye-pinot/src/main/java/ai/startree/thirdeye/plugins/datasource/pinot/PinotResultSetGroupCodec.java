@@ -0,0 +1,228 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.plugins.datasource.pinot;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import ai.startree.thirdeye.spi.dataframe.BooleanSeries;
+import ai.startree.thirdeye.spi.dataframe.DataFrame;
+import ai.startree.thirdeye.spi.dataframe.DoubleSeries;
+import ai.startree.thirdeye.spi.dataframe.LongSeries;
+import ai.startree.thirdeye.spi.dataframe.Series;
+import ai.startree.thirdeye.spi.dataframe.Series.SeriesType;
+import ai.startree.thirdeye.spi.dataframe.StringSeries;
+import ai.startree.thirdeye.spi.datasource.resultset.ThirdEyeDataFrameResultSet;
+import ai.startree.thirdeye.spi.datasource.resultset.ThirdEyeResultSet;
+import ai.startree.thirdeye.spi.datasource.resultset.ThirdEyeResultSetGroup;
+import ai.startree.thirdeye.spi.datasource.resultset.ThirdEyeResultSetMetaData;
+import ai.startree.thirdeye.spi.detection.v2.ColumnType;
+import ai.startree.thirdeye.spi.detection.v2.ColumnType.ColumnDataType;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Binary serialization of the {@link ThirdEyeResultSetGroup} built by {@link PinotQueryExecutor},
+ * used by {@link PinotResultCache}. Series are written as primitive arrays.
+ */
+public class PinotResultSetGroupCodec {
+
+  private static final byte VERSION = 1;
+  private static final int NULL_LENGTH = -1;
+
+  /**
+   * Returns the serialized group, or null if the group contains a result set or a series type that
+   * is not supported.
+   */
+  public static byte @Nullable [] encode(final ThirdEyeResultSetGroup resultSetGroup) {
+    for (final ThirdEyeResultSet resultSet : resultSetGroup.getResultSets()) {
+      if (!(resultSet instanceof ThirdEyeDataFrameResultSet)
+          || ((ThirdEyeDataFrameResultSet) resultSet).getDataFrame().getSeriesTypes()
+          .contains(SeriesType.OBJECT)) {
+        return null;
+      }
+    }
+    try {
+      final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      final DataOutputStream out = new DataOutputStream(bytes);
+      out.writeByte(VERSION);
+      out.writeInt(resultSetGroup.size());
+      for (final ThirdEyeResultSet resultSet : resultSetGroup.getResultSets()) {
+        encode((ThirdEyeDataFrameResultSet) resultSet, out);
+      }
+      out.flush();
+      return bytes.toByteArray();
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static void encode(final ThirdEyeDataFrameResultSet resultSet,
+      final DataOutputStream out) throws IOException {
+    final ThirdEyeResultSetMetaData metaData = resultSet.getMetaData();
+    writeStrings(metaData.getGroupKeyColumnNames(), out);
+    writeTypes(metaData.getGroupKeyColumnTypes(), out);
+    writeStrings(metaData.getMetricColumnNames(), out);
+    writeTypes(metaData.getMetricColumnTypes(), out);
+
+    final DataFrame dataFrame = resultSet.getDataFrame();
+    out.writeInt(dataFrame.size());
+    for (final String columnName : metaData.getAllColumnNames()) {
+      final Series series = dataFrame.get(columnName);
+      out.writeByte(series.type().ordinal());
+      switch (series.type()) {
+        case LONG:
+          for (final long value : ((LongSeries) series).values()) {
+            out.writeLong(value);
+          }
+          break;
+        case DOUBLE:
+          for (final double value : ((DoubleSeries) series).values()) {
+            out.writeDouble(value);
+          }
+          break;
+        case BOOLEAN:
+          out.write(((BooleanSeries) series).values());
+          break;
+        case STRING:
+          for (final String value : ((StringSeries) series).values()) {
+            writeString(value, out);
+          }
+          break;
+        default:
+          throw new IllegalArgumentException("Unsupported series type: " + series.type());
+      }
+    }
+  }
+
+  public static ThirdEyeResultSetGroup decode(final ByteBuffer buffer) {
+    final byte version = buffer.get();
+    if (version != VERSION) {
+      throw new IllegalArgumentException("Unsupported result cache version: " + version);
+    }
+    final int resultSetCount = buffer.getInt();
+    final List<ThirdEyeResultSet> resultSets = new ArrayList<>(resultSetCount);
+    for (int i = 0; i < resultSetCount; i++) {
+      resultSets.add(decodeResultSet(buffer));
+    }
+    return new ThirdEyeResultSetGroup(resultSets);
+  }
+
+  private static ThirdEyeDataFrameResultSet decodeResultSet(final ByteBuffer buffer) {
+    final List<String> groupKeyColumnNames = readStrings(buffer);
+    final List<ColumnType> groupKeyColumnTypes = readTypes(buffer);
+    final List<String> metricColumnNames = readStrings(buffer);
+    final List<ColumnType> metricColumnTypes = readTypes(buffer);
+    final ThirdEyeResultSetMetaData metaData = new ThirdEyeResultSetMetaData(groupKeyColumnNames,
+        metricColumnNames,
+        groupKeyColumnTypes,
+        metricColumnTypes);
+
+    final int rowCount = buffer.getInt();
+    final DataFrame dataFrame = new DataFrame();
+    for (final String columnName : metaData.getAllColumnNames()) {
+      dataFrame.addSeries(columnName, readSeries(buffer, rowCount));
+    }
+    return new ThirdEyeDataFrameResultSet(metaData, dataFrame);
+  }
+
+  private static Series readSeries(final ByteBuffer buffer, final int rowCount) {
+    final SeriesType type = SeriesType.values()[buffer.get()];
+    switch (type) {
+      case LONG:
+        final long[] longs = new long[rowCount];
+        buffer.asLongBuffer().get(longs);
+        buffer.position(buffer.position() + rowCount * Long.BYTES);
+        return LongSeries.buildFrom(longs);
+      case DOUBLE:
+        final double[] doubles = new double[rowCount];
+        buffer.asDoubleBuffer().get(doubles);
+        buffer.position(buffer.position() + rowCount * Double.BYTES);
+        return DoubleSeries.buildFrom(doubles);
+      case BOOLEAN:
+        final byte[] booleans = new byte[rowCount];
+        buffer.get(booleans);
+        return BooleanSeries.buildFrom(booleans);
+      case STRING:
+        final String[] strings = new String[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+          strings[i] = readString(buffer);
+        }
+        return StringSeries.buildFrom(strings);
+      default:
+        throw new IllegalArgumentException("Unsupported series type: " + type);
+    }
+  }
+
+  private static void writeStrings(final List<String> values, final DataOutputStream out)
+      throws IOException {
+    out.writeInt(values.size());
+    for (final String value : values) {
+      writeString(value, out);
+    }
+  }
+
+  private static void writeTypes(final List<ColumnType> types, final DataOutputStream out)
+      throws IOException {
+    out.writeInt(types.size());
+    for (final ColumnType type : types) {
+      writeString(type == null ? null : type.getType().name(), out);
+    }
+  }
+
+  private static void writeString(final @Nullable String value, final DataOutputStream out)
+      throws IOException {
+    if (value == null) {
+      out.writeInt(NULL_LENGTH);
+      return;
+    }
+    final byte[] bytes = value.getBytes(UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static List<String> readStrings(final ByteBuffer buffer) {
+    final int size = buffer.getInt();
+    final List<String> values = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      values.add(readString(buffer));
+    }
+    return values;
+  }
+
+  private static List<ColumnType> readTypes(final ByteBuffer buffer) {
+    final int size = buffer.getInt();
+    final List<ColumnType> types = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      final String type = readString(buffer);
+      types.add(type == null ? null : new ColumnType(ColumnDataType.valueOf(type)));
+    }
+    return types;
+  }
+
+  private static @Nullable String readString(final ByteBuffer buffer) {
+    final int length = buffer.getInt();
+    if (length == NULL_LENGTH) {
+      return null;
+    }
+    final byte[] bytes = new byte[length];
+    buffer.get(bytes);
+    return new String(bytes, UTF_8);
+  }
+}
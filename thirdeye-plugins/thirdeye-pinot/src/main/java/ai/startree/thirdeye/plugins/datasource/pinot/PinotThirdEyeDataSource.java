@@ -19,10 +19,12 @@ import static java.util.Objects.requireNonNull;
 import ai.startree.thirdeye.spi.Constants;
 import ai.startree.thirdeye.spi.datalayer.dto.DataSourceDTO;
 import ai.startree.thirdeye.spi.datalayer.dto.DatasetConfigDTO;
+import ai.startree.thirdeye.spi.datasource.BreakdownStrategy;
 import ai.startree.thirdeye.spi.datasource.DataSourceRequest;
 import ai.startree.thirdeye.spi.datasource.RelationalQuery;
 import ai.startree.thirdeye.spi.datasource.ThirdEyeDataSource;
 import ai.startree.thirdeye.spi.datasource.ThirdEyeDataSourceContext;
+import ai.startree.thirdeye.spi.datasource.macro.MacroMetadataKeys;
 import ai.startree.thirdeye.spi.datasource.macro.SqlExpressionBuilder;
 import ai.startree.thirdeye.spi.datasource.macro.SqlLanguage;
 import ai.startree.thirdeye.spi.datasource.resultset.ThirdEyeResultSet;
@@ -37,7 +39,10 @@ import java.time.Duration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -61,6 +66,12 @@ public class PinotThirdEyeDataSource implements ThirdEyeDataSource {
   private final LoadingCache<PinotQuery, ThirdEyeResultSetGroup> queryCache;
   private final PinotThirdEyeDataSourceConfig config;
   private final PinotConnectionManager connectionManager;
+  private final PinotQueryExecutor queryExecutor;
+  private final @Nullable PinotResultCache resultCache;
+  private final BreakdownStrategy breakdownStrategy;
+  /* Async queries being executed - identical concurrent queries are sent once */
+  private final Map<PinotQuery, CompletableFuture<ThirdEyeResultSetGroup>> inFlightQueries =
+      new ConcurrentHashMap<>();
 
   /* Use case: Log Query Cache stats few min */
   private long queryCacheTs = 0;
@@ -73,7 +84,8 @@ public class PinotThirdEyeDataSource implements ThirdEyeDataSource {
       final PinotDatasetReader datasetReader,
       final PinotConnectionManager connectionManager,
       final PinotQueryExecutor queryExecutor,
-      final PinotThirdEyeDataSourceConfig config) {
+      final PinotThirdEyeDataSourceConfig config,
+      final Executor asyncExecutor) {
     this.sqlExpressionBuilder = sqlExpressionBuilder;
     this.sqlLanguage = sqlLanguage;
     this.datasetReader = datasetReader;
@@ -81,11 +93,34 @@ public class PinotThirdEyeDataSource implements ThirdEyeDataSource {
     this.dataSourceDTO = context.getDataSourceDTO();
     name = context.getDataSourceDTO().getName();
     this.connectionManager = connectionManager;
+    this.config = config;
 
-    /* Uses LoadingCache to cache queries */
-    queryCache = requireNonNull(buildQueryCache(queryExecutor),
+    /* Uses LoadingCache to cache queries, backed by the shared result cache if enabled */
+    this.queryExecutor = queryExecutor;
+    final PinotResultCacheConfiguration resultCacheConfiguration = config.getResultCache();
+    resultCache = resultCacheConfiguration != null && resultCacheConfiguration.isEnabled()
+        ? new PinotResultCache(name, config, asyncExecutor)
+        : null;
+    final CacheLoader<PinotQuery, ThirdEyeResultSetGroup> cacheLoader = resultCache != null
+        ? resultCache.wrap(queryExecutor)
+        : queryExecutor;
+    queryCache = requireNonNull(buildQueryCache(cacheLoader),
         String.format("%s doesn't connect to Pinot or cache is not initialized.", getName()));
-    this.config = config;
+    breakdownStrategy = toSupportedBreakdownStrategy(config.getBreakdownStrategy());
+  }
+
+  private BreakdownStrategy toSupportedBreakdownStrategy(
+      final @Nullable BreakdownStrategy breakdownStrategy) {
+    if (breakdownStrategy == null) {
+      return BreakdownStrategy.PER_DIMENSION;
+    }
+    if (breakdownStrategy == BreakdownStrategy.GROUPING_SETS) {
+      LOG.warn("GROUPING SETS are not supported by Pinot. Using breakdown strategy {} for {}",
+          BreakdownStrategy.SINGLE_GROUP_BY,
+          name);
+      return BreakdownStrategy.SINGLE_GROUP_BY;
+    }
+    return breakdownStrategy;
   }
 
   public static LoadingCache<PinotQuery, ThirdEyeResultSetGroup> buildQueryCache(
@@ -175,13 +210,70 @@ public class PinotThirdEyeDataSource implements ThirdEyeDataSource {
 
   @Override
   public DataTable fetchDataTable(final DataSourceRequest request) throws Exception {
+    final ThirdEyeResultSet thirdEyeResultSet = executeSQL(toPinotQuery(request)).get(0);
+    return new ThirdEyeResultSetDataTable(thirdEyeResultSet);
+  }
+
+  /**
+   * Sends the query without blocking the calling thread. Results are shared with the query cache
+   * used by {@link #fetchDataTable(DataSourceRequest)}.
+   */
+  @Override
+  public CompletableFuture<DataTable> fetchDataTableAsync(final DataSourceRequest request) {
+    final PinotQuery pinotQuery = toPinotQuery(request);
+    final ThirdEyeResultSetGroup cached = queryCache.getIfPresent(pinotQuery);
+    if (cached != null) {
+      return CompletableFuture.completedFuture(new ThirdEyeResultSetDataTable(cached.get(0)));
+    }
+    final CompletableFuture<ThirdEyeResultSetGroup> future = new CompletableFuture<>();
+    final CompletableFuture<ThirdEyeResultSetGroup> inFlight = inFlightQueries.putIfAbsent(
+        pinotQuery,
+        future);
+    if (inFlight == null) {
+      executeSQLAsync(pinotQuery).whenComplete((resultSetGroup, throwable) -> {
+        inFlightQueries.remove(pinotQuery, future);
+        if (throwable == null) {
+          future.complete(resultSetGroup);
+        } else {
+          future.completeExceptionally(throwable);
+        }
+      });
+    }
+    return (inFlight == null ? future : inFlight)
+        .thenApply(resultSetGroup -> new ThirdEyeResultSetDataTable(resultSetGroup.get(0)));
+  }
+
+  private CompletableFuture<ThirdEyeResultSetGroup> executeSQLAsync(final PinotQuery pinotQuery) {
+    final CompletableFuture<ThirdEyeResultSetGroup> future;
+    try {
+      future = resultCache != null
+          ? resultCache.loadAsync(pinotQuery, queryExecutor::loadAsync)
+          : queryExecutor.loadAsync(pinotQuery);
+    } catch (final RuntimeException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+    return future.whenComplete((resultSetGroup, throwable) -> {
+      if (throwable == null) {
+        queryCache.put(pinotQuery, resultSetGroup);
+      } else {
+        LOG.error("Failed to execute SQL: {} with options {}", pinotQuery.getQuery(),
+            pinotQuery.getOptions());
+      }
+    });
+  }
+
+  private PinotQuery toPinotQuery(final DataSourceRequest request) {
     final Map<String, String> options = new HashMap<>(dataSourceDTO.getDefaultQueryOptions());
     options.putAll(request.getOptions());
-    final ThirdEyeResultSet thirdEyeResultSet = executeSQL(new PinotQuery(
+    final Long endTimeMillis = optional(request.getProperties())
+        .map(properties -> properties.get(MacroMetadataKeys.MAX_TIME_MILLIS.toString()))
+        .map(Long::valueOf)
+        .orElse(null);
+    return new PinotQuery(
         request.getQuery(),
         request.getTable(),
-        options)).get(0);
-    return new ThirdEyeResultSetDataTable(thirdEyeResultSet);
+        options,
+        endTimeMillis);
   }
 
   @Override
@@ -262,4 +354,9 @@ public class PinotThirdEyeDataSource implements ThirdEyeDataSource {
   public SqlExpressionBuilder getSqlExpressionBuilder() {
     return sqlExpressionBuilder;
   }
+
+  @Override
+  public BreakdownStrategy getBreakdownStrategy() {
+    return breakdownStrategy;
+  }
 }
@@ -13,6 +13,7 @@
  */
 package ai.startree.thirdeye.plugins.datasource.pinot;
 
+import ai.startree.thirdeye.spi.datasource.BreakdownStrategy;
 import java.util.Map;
 import java.util.Objects;
 
@@ -23,6 +24,10 @@ public class PinotThirdEyeDataSourceConfig {
 
   private PinotOauthConfiguration oauth;
   private PinotHealthCheckConfiguration healthCheck = new PinotHealthCheckConfiguration();
+  private PinotResultCacheConfiguration resultCache = new PinotResultCacheConfiguration();
+  private PinotConnectionPoolConfiguration connectionPool = new PinotConnectionPoolConfiguration();
+  // Pinot does not support GROUPING SETS: PER_DIMENSION or SINGLE_GROUP_BY
+  private BreakdownStrategy breakdownStrategy = BreakdownStrategy.PER_DIMENSION;
   private String zookeeperUrl;
   private String controllerHost;
   private int controllerPort;
@@ -57,6 +62,36 @@ public class PinotThirdEyeDataSourceConfig {
     return this;
   }
 
+  public PinotResultCacheConfiguration getResultCache() {
+    return resultCache;
+  }
+
+  public PinotThirdEyeDataSourceConfig setResultCache(
+      final PinotResultCacheConfiguration resultCache) {
+    this.resultCache = resultCache;
+    return this;
+  }
+
+  public PinotConnectionPoolConfiguration getConnectionPool() {
+    return connectionPool;
+  }
+
+  public PinotThirdEyeDataSourceConfig setConnectionPool(
+      final PinotConnectionPoolConfiguration connectionPool) {
+    this.connectionPool = connectionPool;
+    return this;
+  }
+
+  public BreakdownStrategy getBreakdownStrategy() {
+    return breakdownStrategy;
+  }
+
+  public PinotThirdEyeDataSourceConfig setBreakdownStrategy(
+      final BreakdownStrategy breakdownStrategy) {
+    this.breakdownStrategy = breakdownStrategy;
+    return this;
+  }
+
   public String getZookeeperUrl() {
     return zookeeperUrl;
   }
@@ -14,6 +14,7 @@
 package ai.startree.thirdeye.plugins.datasource.pinot;
 
 import static ai.startree.thirdeye.plugins.datasource.pinot.PinotThirdEyeDataSourceUtils.buildConfig;
+import static ai.startree.thirdeye.spi.util.SpiUtils.optional;
 import static java.util.Objects.requireNonNull;
 
 import ai.startree.thirdeye.spi.datalayer.dto.DataSourceDTO;
@@ -23,6 +24,8 @@ import ai.startree.thirdeye.spi.datasource.macro.SqlLanguage;
 import com.google.inject.AbstractModule;
 import com.google.inject.Provides;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import javax.inject.Singleton;
 
 public class PinotThirdEyeDataSourceModule extends AbstractModule {
@@ -54,4 +57,13 @@ public class PinotThirdEyeDataSourceModule extends AbstractModule {
     /* Create config class */
     return buildConfig(properties);
   }
+
+  /**
+   * Runs the continuations of non-blocking queries, off the I/O threads of the http client.
+   */
+  @Singleton
+  @Provides
+  public Executor getAsyncExecutor(final ThirdEyeDataSourceContext context) {
+    return optional(context.getExecutor()).orElse(ForkJoinPool.commonPool());
+  }
 }
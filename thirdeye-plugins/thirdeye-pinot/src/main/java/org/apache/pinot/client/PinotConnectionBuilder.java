@@ -32,19 +32,20 @@ public class PinotConnectionBuilder {
 
   public Connection createConnection(final PinotThirdEyeDataSourceConfig config) {
     final String brokerUrl = config.getBrokerUrl();
-    final PinotClientTransport transport = buildTransport(config);
+    final ForkedJsonAsyncHttpPinotClientTransport transport = buildTransport(config);
 
     final Connection connection;
     if (brokerUrl != null && brokerUrl.trim().length() > 0) {
-      connection = ConnectionFactory.fromHostList(singletonList(brokerUrl), transport);
+      connection = new ThirdEyePinotConnection(new SimpleBrokerSelector(singletonList(brokerUrl)),
+          transport);
       LOG.info("Created pinot transport with brokers [{}]", brokerUrl);
     } else {
       final String zookeeperUrl = requireNonNull(config.getZookeeperUrl(),
           "zookeeperUrl is required if brokerUrl is not provided").trim();
       checkArgument(zookeeperUrl.length() > 0, "if provided, zookeeperUrl cannot be empty");
-      connection = ConnectionFactory.fromZookeeper(String.format("%s/%s",
+      connection = new ThirdEyePinotConnection(new DynamicBrokerSelector(String.format("%s/%s",
           zookeeperUrl,
-          config.getClusterName()), transport);
+          config.getClusterName())), transport);
       LOG.info("Created pinot transport with controller {}:{}",
           config.getControllerHost(),
           config.getControllerPort());
@@ -52,7 +53,7 @@ public class PinotConnectionBuilder {
     return connection;
   }
 
-  private PinotClientTransport buildTransport(
+  private ForkedJsonAsyncHttpPinotClientTransport buildTransport(
       final PinotThirdEyeDataSourceConfig config) {
     final ThirdEyeJsonAsyncHttpPinotClientTransportFactory factory =
         new ThirdEyeJsonAsyncHttpPinotClientTransportFactory();
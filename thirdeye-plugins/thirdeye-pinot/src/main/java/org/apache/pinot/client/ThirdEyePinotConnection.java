@@ -0,0 +1,60 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.pinot.client;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import javax.annotation.Nullable;
+
+/**
+ * Pinot connection with a non-blocking execution method.
+ *
+ * Lives in the pinot client package to access the package-private constructors of
+ * {@link Connection} and {@link ResultSetGroup}.
+ */
+public class ThirdEyePinotConnection extends Connection {
+
+  private final BrokerSelector brokerSelector;
+  private final ForkedJsonAsyncHttpPinotClientTransport transport;
+
+  ThirdEyePinotConnection(final BrokerSelector brokerSelector,
+      final ForkedJsonAsyncHttpPinotClientTransport transport) {
+    super(brokerSelector, transport);
+    this.brokerSelector = brokerSelector;
+    this.transport = transport;
+  }
+
+  /**
+   * Executes the request without blocking the calling thread. Same semantics as
+   * {@link #execute(String, Request)}.
+   *
+   * @param executor runs the parsing of the response and the construction of the result
+   */
+  public CompletableFuture<ResultSetGroup> executeCompletableAsync(@Nullable final String tableName,
+      final Request request, final Executor executor) {
+    final String brokerHostPort = brokerSelector.selectBroker(tableName);
+    if (brokerHostPort == null) {
+      return CompletableFuture.failedFuture(new PinotClientException(
+          "Could not find broker to query for statement: " + request.getQuery()));
+    }
+    return transport.executeQueryCompletableAsync(brokerHostPort, request, executor)
+        .thenApplyAsync(response -> {
+          if (response.hasExceptions()) {
+            throw new PinotClientException(
+                "Query had processing exceptions: \n" + response.getExceptions());
+          }
+          return new ResultSetGroup(response);
+        }, executor);
+  }
+}
@@ -13,6 +13,7 @@
  */
 package ai.startree.thirdeye.plugins.datasource.pinot;
 
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
@@ -21,12 +22,27 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.apache.pinot.client.Connection;
 import org.apache.pinot.client.PinotConnectionBuilder;
+import org.apache.pinot.client.Request;
+import org.apache.pinot.client.ResultSetGroup;
+import org.apache.pinot.client.ThirdEyePinotConnection;
 import org.testng.annotations.Test;
 
 public class PinotConnectionManagerTest {
@@ -52,6 +68,58 @@ public class PinotConnectionManagerTest {
         .createConnection(any(PinotThirdEyeDataSourceConfig.class));
   }
 
+  @Test
+  public void testGaugesReadTheLastManagerOfADataSource() {
+    final PinotThirdEyeDataSourceConfig config = new PinotThirdEyeDataSourceConfig()
+        .setName("gaugeDataSource");
+    final PinotConnectionManager first = new PinotConnectionManager(
+        mock(PinotConnectionBuilder.class), config, new PinotOauthTokenSupplier(config));
+    final Gauge firstGauge = queueDepthGauge("gaugeDataSource");
+
+    // the data source is recreated, then the previous manager is closed
+    final PinotConnectionManager second = new PinotConnectionManager(
+        mock(PinotConnectionBuilder.class), config, new PinotOauthTokenSupplier(config));
+    final Gauge secondGauge = queueDepthGauge("gaugeDataSource");
+    assertThat(secondGauge).isNotNull().isNotSameAs(firstGauge);
+    first.close();
+    assertThat(queueDepthGauge("gaugeDataSource")).isSameAs(secondGauge);
+
+    second.close();
+    assertThat(queueDepthGauge("gaugeDataSource")).isNull();
+  }
+
+  @Test
+  public void testGetThrowsAfterClose() {
+    final PinotConnectionBuilder pinotConnectionBuilder = mock(PinotConnectionBuilder.class);
+    final PinotThirdEyeDataSourceConfig config = new PinotThirdEyeDataSourceConfig()
+        .setName("closedDataSource");
+    final PinotConnectionManager pinotConnectionManager = new PinotConnectionManager(
+        pinotConnectionBuilder, config, new PinotOauthTokenSupplier(config));
+    final Connection connection = mock(Connection.class);
+    when(pinotConnectionBuilder.createConnection(any(PinotThirdEyeDataSourceConfig.class)))
+        .thenReturn(connection);
+    assertThat(pinotConnectionManager.get()).isEqualTo(connection);
+
+    pinotConnectionManager.close();
+    verify(connection, times(1)).close();
+    assertThatThrownBy(pinotConnectionManager::get).isInstanceOf(IllegalStateException.class);
+    assertThatThrownBy(() -> pinotConnectionManager.executeAsync("table",
+        new Request("sql", "SELECT 1")).join()).hasCauseInstanceOf(IllegalStateException.class);
+
+    /* no connection nor gauge is created again, closing twice is a no-op */
+    verify(pinotConnectionBuilder, times(1))
+        .createConnection(any(PinotThirdEyeDataSourceConfig.class));
+    assertThat(queueDepthGauge("closedDataSource")).isNull();
+    pinotConnectionManager.close();
+    verify(connection, times(1)).close();
+  }
+
+  private static Gauge queueDepthGauge(final String dataSourceName) {
+    return Metrics.globalRegistry.find("pinotConnectionQueueDepth")
+        .tag("datasource", dataSourceName)
+        .gauge();
+  }
+
   @Test
   public void testGetWithOauthWithRenew() throws IOException {
     final File file = createTemporaryTokenFile("sampleToken");
@@ -99,6 +167,114 @@ public class PinotConnectionManagerTest {
     verify(connection, timeout(1000)).close();
   }
 
+  @Test
+  public void testConcurrentGetCreatesConnectionsOnce() throws Exception {
+    final PinotConnectionBuilder pinotConnectionBuilder = mock(PinotConnectionBuilder.class);
+    final PinotThirdEyeDataSourceConfig config = new PinotThirdEyeDataSourceConfig();
+    final PinotConnectionManager pinotConnectionManager = new PinotConnectionManager(
+        pinotConnectionBuilder, config, new PinotOauthTokenSupplier(config));
+    final Connection connection = mock(Connection.class);
+    when(pinotConnectionBuilder.createConnection(any(PinotThirdEyeDataSourceConfig.class)))
+        .thenReturn(connection);
+
+    final int nThreads = 16;
+    final ExecutorService executor = Executors.newFixedThreadPool(nThreads);
+    final CountDownLatch start = new CountDownLatch(1);
+    final List<Future<Connection>> futures = new ArrayList<>();
+    for (int i = 0; i < nThreads; i++) {
+      futures.add(executor.submit(() -> {
+        start.await();
+        return pinotConnectionManager.get();
+      }));
+    }
+    start.countDown();
+    for (final Future<Connection> future : futures) {
+      assertThat(future.get()).isEqualTo(connection);
+    }
+    executor.shutdown();
+
+    verify(pinotConnectionBuilder, times(1))
+        .createConnection(any(PinotThirdEyeDataSourceConfig.class));
+  }
+
+  @Test
+  public void testGetWithPoolRoundRobin() {
+    final PinotConnectionBuilder pinotConnectionBuilder = mock(PinotConnectionBuilder.class);
+    final PinotThirdEyeDataSourceConfig config = new PinotThirdEyeDataSourceConfig()
+        .setConnectionPool(new PinotConnectionPoolConfiguration().setSize(3));
+    final PinotConnectionManager pinotConnectionManager = new PinotConnectionManager(
+        pinotConnectionBuilder, config, new PinotOauthTokenSupplier(config));
+    when(pinotConnectionBuilder.createConnection(any(PinotThirdEyeDataSourceConfig.class)))
+        .thenReturn(mock(Connection.class), mock(Connection.class), mock(Connection.class));
+
+    final Set<Connection> connections = new HashSet<>();
+    for (int i = 0; i < 6; i++) {
+      connections.add(pinotConnectionManager.get());
+    }
+
+    assertThat(connections.size()).isEqualTo(3);
+    verify(pinotConnectionBuilder, times(3))
+        .createConnection(any(PinotThirdEyeDataSourceConfig.class));
+    assertThat(pinotConnectionManager.getInFlightRequests()).isEqualTo(0);
+    assertThat(pinotConnectionManager.queueDepth()).isEqualTo(0);
+  }
+
+  @Test
+  public void testExecuteAsyncReleasesPermit() throws Exception {
+    final PinotConnectionBuilder pinotConnectionBuilder = mock(PinotConnectionBuilder.class);
+    final PinotThirdEyeDataSourceConfig config = new PinotThirdEyeDataSourceConfig()
+        .setConnectionPool(new PinotConnectionPoolConfiguration().setMaxInFlightRequests(1));
+    final PinotConnectionManager pinotConnectionManager = new PinotConnectionManager(
+        pinotConnectionBuilder, config, new PinotOauthTokenSupplier(config));
+    final Connection connection = mock(Connection.class);
+    final ResultSetGroup resultSetGroup = mock(ResultSetGroup.class);
+    when(pinotConnectionBuilder.createConnection(any(PinotThirdEyeDataSourceConfig.class)))
+        .thenReturn(connection);
+    when(connection.execute(any(), any(Request.class))).thenReturn(resultSetGroup);
+
+    final Request request = new Request("sql", "SELECT 1");
+    /* the second call would block forever if the permit of the first call was not released */
+    assertThat(pinotConnectionManager.executeAsync("table", request).get())
+        .isEqualTo(resultSetGroup);
+    assertThat(pinotConnectionManager.executeAsync("table", request).get())
+        .isEqualTo(resultSetGroup);
+    assertThat(pinotConnectionManager.getInFlightRequests()).isEqualTo(0);
+  }
+
+  @Test
+  public void testExecuteAsyncDoesNotBlockWithoutPermit() throws Exception {
+    final PinotConnectionBuilder pinotConnectionBuilder = mock(PinotConnectionBuilder.class);
+    final PinotThirdEyeDataSourceConfig config = new PinotThirdEyeDataSourceConfig()
+        .setConnectionPool(new PinotConnectionPoolConfiguration().setMaxInFlightRequests(1));
+    final PinotConnectionManager pinotConnectionManager = new PinotConnectionManager(
+        pinotConnectionBuilder, config, new PinotOauthTokenSupplier(config), Runnable::run);
+    final ThirdEyePinotConnection connection = mock(ThirdEyePinotConnection.class);
+    final CompletableFuture<ResultSetGroup> firstResponse = new CompletableFuture<>();
+    final ResultSetGroup resultSetGroup = mock(ResultSetGroup.class);
+    when(pinotConnectionBuilder.createConnection(any(PinotThirdEyeDataSourceConfig.class)))
+        .thenReturn(connection);
+    when(connection.executeCompletableAsync(any(), any(Request.class), any(Executor.class)))
+        .thenReturn(firstResponse, CompletableFuture.completedFuture(resultSetGroup));
+
+    final Request request = new Request("sql", "SELECT 1");
+    final CompletableFuture<ResultSetGroup> first = pinotConnectionManager.executeAsync("table",
+        request);
+    /* no permit available: returns immediately, the request is queued */
+    final CompletableFuture<ResultSetGroup> second = pinotConnectionManager.executeAsync("table",
+        request);
+    assertThat(second.isDone()).isFalse();
+    assertThat(pinotConnectionManager.queueDepth()).isEqualTo(1);
+    verify(connection, times(1)).executeCompletableAsync(any(), any(Request.class),
+        any(Executor.class));
+
+    /* the first response releases the permit: the second request is sent */
+    firstResponse.complete(resultSetGroup);
+    assertThat(first.get()).isEqualTo(resultSetGroup);
+    assertThat(second.get()).isEqualTo(resultSetGroup);
+    assertThat(pinotConnectionManager.queueDepth()).isEqualTo(0);
+    assertThat(pinotConnectionManager.getInFlightRequests()).isEqualTo(0);
+  }
+
   private static File createTemporaryTokenFile(final String token) throws IOException {
     final File file = File.createTempFile("tokenFilePath", "txt");
     writeToken(file, token);
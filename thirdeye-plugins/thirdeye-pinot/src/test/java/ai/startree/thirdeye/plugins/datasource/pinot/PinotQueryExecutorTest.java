@@ -15,8 +15,13 @@ package ai.startree.thirdeye.plugins.datasource.pinot;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import ai.startree.thirdeye.spi.datasource.resultset.ThirdEyeDataFrameResultSet;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import org.apache.pinot.client.ResultSet;
+import org.apache.pinot.client.ResultTableResultSet;
 import org.testng.annotations.Test;
 
 public class PinotQueryExecutorTest {
@@ -56,4 +61,42 @@ public class PinotQueryExecutorTest {
     assertThat(output).isEqualTo(expectedOptionString+BASE_QUERY);
 
   }
+
+  @Test
+  public void testFromPinotResultSetMatchesRowByRow() throws Exception {
+    final ResultSet resultSet = resultTableResultSet("{"
+        + "\"dataSchema\":{"
+        + "\"columnNames\":[\"country\",\"ts\",\"views\",\"ratio\",\"label\"],"
+        + "\"columnDataTypes\":[\"STRING\",\"LONG\",\"INT\",\"DOUBLE\",\"STRING\"]},"
+        + "\"rows\":["
+        + "[\"us\",1640995200000,12,0.5,\"a\"],"
+        + "[\"fr\",1641081600000,7,1.25,\"b\"],"
+        + "[\"de\",1641168000000,0,-3.0,\"c\"]]}");
+
+    final ThirdEyeDataFrameResultSet columnar = PinotQueryExecutor.fromPinotResultSet(resultSet);
+    final ThirdEyeDataFrameResultSet rowByRow = PinotResultSetRowByRowConverter.fromPinotResultSet(
+        resultSet);
+
+    assertThat(columnar).isEqualTo(rowByRow);
+    assertThat(columnar.getRowCount()).isEqualTo(3);
+    assertThat(columnar.getString(1, 1)).isEqualTo("1641081600000");
+    assertThat(columnar.getString(2, 3)).isEqualTo("-3.0");
+  }
+
+  @Test
+  public void testFromPinotResultSetEmptyMatchesRowByRow() throws Exception {
+    final ResultSet resultSet = resultTableResultSet("{"
+        + "\"dataSchema\":{"
+        + "\"columnNames\":[\"ts\",\"views\"],"
+        + "\"columnDataTypes\":[\"LONG\",\"DOUBLE\"]},"
+        + "\"rows\":[]}");
+
+    assertThat(PinotQueryExecutor.fromPinotResultSet(resultSet))
+        .isEqualTo(PinotResultSetRowByRowConverter.fromPinotResultSet(resultSet));
+  }
+
+  private static ResultSet resultTableResultSet(final String json) throws Exception {
+    final JsonNode resultTable = new ObjectMapper().readTree(json);
+    return new ResultTableResultSet(resultTable);
+  }
 }
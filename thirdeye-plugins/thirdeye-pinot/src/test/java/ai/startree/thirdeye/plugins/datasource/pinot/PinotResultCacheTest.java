@@ -0,0 +1,206 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.plugins.datasource.pinot;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import ai.startree.thirdeye.spi.datasource.resultset.ThirdEyeResultSetGroup;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.CacheLoader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import org.apache.commons.io.FileUtils;
+import org.apache.pinot.client.ResultTableResultSet;
+import org.testng.annotations.Test;
+
+public class PinotResultCacheTest {
+
+  private static final long NOW = 1_700_000_000_000L;
+
+  private static ThirdEyeResultSetGroup resultSetGroup() throws Exception {
+    final String json = "{"
+        + "\"dataSchema\":{"
+        + "\"columnNames\":[\"country\",\"ts\",\"views\"],"
+        + "\"columnDataTypes\":[\"STRING\",\"LONG\",\"DOUBLE\"]},"
+        + "\"rows\":["
+        + "[\"us\",1640995200000,12.5],"
+        + "[null,1641081600000,7.0]]}";
+    final ResultTableResultSet resultSet = new ResultTableResultSet(
+        new ObjectMapper().readTree(json));
+    return new ThirdEyeResultSetGroup(List.of(PinotQueryExecutor.fromPinotResultSet(resultSet)));
+  }
+
+  @Test
+  public void testCodecRoundTrip() throws Exception {
+    final ThirdEyeResultSetGroup resultSetGroup = resultSetGroup();
+
+    final byte[] bytes = PinotResultSetGroupCodec.encode(resultSetGroup);
+    final ThirdEyeResultSetGroup decoded = PinotResultSetGroupCodec.decode(ByteBuffer.wrap(bytes));
+
+    assertThat(decoded.getResultSets()).isEqualTo(resultSetGroup.getResultSets());
+  }
+
+  @Test
+  public void testTtlDependsOnTimeRange() {
+    final PinotResultCacheConfiguration configuration = new PinotResultCacheConfiguration()
+        .setImmutableDelayMs(TimeUnit.HOURS.toMillis(1))
+        .setImmutableTtlMs(1000)
+        .setMutableTtlMs(10);
+    final PinotResultCache cache = new PinotResultCache("ds", "hash", configuration,
+        new OffHeapResultCacheStore(1024), Runnable::run);
+
+    final long past = NOW - TimeUnit.HOURS.toMillis(2);
+    final long recent = NOW - TimeUnit.MINUTES.toMillis(10);
+    assertThat(cache.ttlMillis(new PinotQuery("q", "t", Map.of(), past), NOW)).isEqualTo(1000);
+    assertThat(cache.ttlMillis(new PinotQuery("q", "t", Map.of(), recent), NOW)).isEqualTo(10);
+    assertThat(cache.ttlMillis(new PinotQuery("q", "t", Map.of()), NOW)).isEqualTo(0);
+  }
+
+  @Test
+  public void testCacheKeyIsNormalized() {
+    final PinotResultCache cache = new PinotResultCache("ds", "hash",
+        new PinotResultCacheConfiguration(), new OffHeapResultCacheStore(1024), Runnable::run);
+
+    assertThat(cache.cacheKey(new PinotQuery(" SELECT 1 ", "t", Map.of("a", "1", "b", "2"))))
+        .isEqualTo(cache.cacheKey(new PinotQuery("SELECT 1", "t", Map.of("b", "2", "a", "1"))));
+    assertThat(cache.cacheKey(new PinotQuery("SELECT 1", "t", Map.of("a", "1"))))
+        .isNotEqualTo(cache.cacheKey(new PinotQuery("SELECT 1", "t", Map.of("a", "2"))));
+  }
+
+  @Test
+  public void testCacheKeyDependsOnConnection() {
+    final PinotQuery query = new PinotQuery("SELECT 1", "t", Map.of());
+    final String hash = PinotResultCache.connectionHash(
+        new PinotThirdEyeDataSourceConfig().setBrokerUrl("b1:8099"));
+    final String otherBrokerHash = PinotResultCache.connectionHash(
+        new PinotThirdEyeDataSourceConfig().setBrokerUrl("b2:8099"));
+    final String key = new PinotResultCache("ds", hash, new PinotResultCacheConfiguration(),
+        new OffHeapResultCacheStore(1024), Runnable::run).cacheKey(query);
+    final String otherBrokerKey = new PinotResultCache("ds", otherBrokerHash,
+        new PinotResultCacheConfiguration(), new OffHeapResultCacheStore(1024), Runnable::run)
+        .cacheKey(query);
+
+    assertThat(key).isNotEqualTo(otherBrokerKey);
+    assertThat(PinotResultCache.connectionHash(new PinotThirdEyeDataSourceConfig()))
+        .isNotEqualTo(PinotResultCache.connectionHash(
+            new PinotThirdEyeDataSourceConfig().setBrokerUrl("null")));
+  }
+
+  @Test
+  public void testLoadHitsStoreAcrossInstances() throws Exception {
+    final ThirdEyeResultSetGroup resultSetGroup = resultSetGroup();
+    final AtomicInteger loadCount = new AtomicInteger();
+    final CacheLoader<PinotQuery, ThirdEyeResultSetGroup> loader = CacheLoader.from(q -> {
+      loadCount.incrementAndGet();
+      return resultSetGroup;
+    });
+    final PinotResultCacheStore store = new OffHeapResultCacheStore(1024 * 1024);
+    final PinotQuery query = new PinotQuery("SELECT 1", "t", Map.of(), 0L);
+
+    final ThirdEyeResultSetGroup first = new PinotResultCache("ds", "hash",
+        new PinotResultCacheConfiguration(), store, Runnable::run).load(query, loader);
+    final ThirdEyeResultSetGroup second = new PinotResultCache("ds", "hash",
+        new PinotResultCacheConfiguration(), store, Runnable::run).load(query, loader);
+
+    assertThat(loadCount.get()).isEqualTo(1);
+    assertThat(first).isSameAs(resultSetGroup);
+    assertThat(second.getResultSets()).isEqualTo(resultSetGroup.getResultSets());
+  }
+
+  @Test
+  public void testMappedFileStoreSurvivesRestart() throws Exception {
+    final Path directory = Files.createTempDirectory("pinot-result-cache");
+    try {
+      final byte[] value = "value".getBytes(StandardCharsets.UTF_8);
+      final long future = System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1);
+      final MappedFileResultCacheStore store = new MappedFileResultCacheStore(directory, 1024);
+      store.put("key", value, future);
+      store.put("expired", value, System.currentTimeMillis() - 1);
+
+      final MappedFileResultCacheStore restarted = new MappedFileResultCacheStore(directory, 1024);
+      final ByteBuffer cached = restarted.get("key");
+      assertThat(cached).isNotNull();
+      final byte[] read = new byte[cached.remaining()];
+      cached.get(read);
+      assertThat(read).isEqualTo(value);
+      assertThat(restarted.get("expired")).isNull();
+      assertThat(restarted.get("missing")).isNull();
+      assertThat(directory.toFile().list()).hasSize(1);
+      // the expired file is deleted: expiration (8) + key length (4) + key (7) + value (5)
+      assertThat(restarted.sizeBytes()).isEqualTo(store.sizeBytes() - 24);
+    } finally {
+      FileUtils.deleteDirectory(directory.toFile());
+    }
+  }
+
+  @Test
+  public void testMappedFileStoreEvictsOldestFiles() throws Exception {
+    final Path directory = Files.createTempDirectory("pinot-result-cache");
+    try {
+      final long future = System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1);
+      final MappedFileResultCacheStore store = new MappedFileResultCacheStore(directory, 250);
+      for (int i = 0; i < 5; i++) {
+        store.put("key" + i, new byte[80], future);
+      }
+
+      assertThat(store.sizeBytes()).isLessThanOrEqualTo(250);
+      assertThat(store.get("key4")).isNotNull();
+    } finally {
+      FileUtils.deleteDirectory(directory.toFile());
+    }
+  }
+
+  @Test
+  public void testMappedFileStoreConcurrentWritesStayWithinMaxSize() throws Exception {
+    final Path directory = Files.createTempDirectory("pinot-result-cache");
+    final ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      final long future = System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1);
+      // each file is about 100 bytes: 50 keys do not fit
+      final MappedFileResultCacheStore store = new MappedFileResultCacheStore(directory, 1000);
+      final List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < 200; i++) {
+        // keys are written several times
+        final String key = "key" + i % 50;
+        futures.add(executor.submit(() -> {
+          store.put(key, new byte[80], future);
+          assertThat(store.sizeBytes()).isLessThanOrEqualTo(1000);
+        }));
+      }
+      for (final Future<?> f : futures) {
+        f.get();
+      }
+
+      final long filesSize;
+      try (final Stream<Path> files = Files.list(directory)) {
+        filesSize = files.mapToLong(f -> f.toFile().length()).sum();
+      }
+      assertThat(store.sizeBytes()).isEqualTo(filesSize);
+    } finally {
+      executor.shutdownNow();
+      FileUtils.deleteDirectory(directory.toFile());
+    }
+  }
+}
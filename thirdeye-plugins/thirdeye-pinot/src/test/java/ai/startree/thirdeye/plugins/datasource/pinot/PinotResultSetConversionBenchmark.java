@@ -0,0 +1,111 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.plugins.datasource.pinot;
+
+import ai.startree.thirdeye.spi.datasource.resultset.ThirdEyeDataFrameResultSet;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+import org.apache.pinot.client.ResultSet;
+import org.apache.pinot.client.ResultTableResultSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compares the columnar and the row by row conversion of a Pinot {@link ResultSet} to a
+ * DataFrame. Run the main method manually.
+ */
+public class PinotResultSetConversionBenchmark {
+
+  private static final Logger LOG = LoggerFactory.getLogger(
+      PinotResultSetConversionBenchmark.class);
+
+  private static final int N_ROUNDS = 15;
+  private static final int N_ROWS = 500_000;
+  private static final String[] DIMENSIONS = new String[]{"us", "fr", "de", "in", "jp", "br"};
+
+  private long tStart;
+  private List<Long> times = new ArrayList<>();
+
+  private static ResultSet generateResultSet(final int rowCount) {
+    final Random random = new Random(rowCount);
+    final ObjectMapper mapper = new ObjectMapper();
+    final ObjectNode resultTable = mapper.createObjectNode();
+    final ObjectNode dataSchema = resultTable.putObject("dataSchema");
+    dataSchema.putArray("columnNames").add("ts").add("country").add("views").add("revenue");
+    dataSchema.putArray("columnDataTypes").add("LONG").add("STRING").add("LONG").add("DOUBLE");
+    final ArrayNode rows = resultTable.putArray("rows");
+    for (int i = 0; i < rowCount; i++) {
+      rows.addArray()
+          .add(1640995200000L + i * 60_000L)
+          .add(DIMENSIONS[random.nextInt(DIMENSIONS.length)])
+          .add(random.nextInt(100_000))
+          .add(random.nextDouble() * 1000);
+    }
+    return new ResultTableResultSet(resultTable);
+  }
+
+  private void benchmark(final String name, final ResultSet resultSet,
+      final Function<ResultSet, ThirdEyeDataFrameResultSet> conversion) {
+    long checksum = 0;
+    for (int r = 0; r < N_ROUNDS; r++) {
+      startTimer();
+      final ThirdEyeDataFrameResultSet result = conversion.apply(resultSet);
+      stopTimer();
+      checksum ^= result.getRowCount() + result.getString(r, 2).hashCode();
+    }
+    logResults(name, checksum);
+  }
+
+  private void startTimer() {
+    this.tStart = System.nanoTime();
+  }
+
+  private void stopTimer() {
+    this.times.add(System.nanoTime() - this.tStart);
+  }
+
+  private void logResults(final String name, final long checksum) {
+    Collections.sort(this.times);
+    final long tMid = this.times.get(this.times.size() / 2);
+    final long tMin = Collections.min(this.times);
+    final long tMax = Collections.max(this.times);
+    LOG.info("{}: min/mid/max = {}ms {}ms {}ms [chk={}, cnt={}]", name, tMin / 1000000,
+        tMid / 1000000, tMax / 1000000, checksum % 1000, this.times.size());
+
+    // reset timer stats
+    this.times = new ArrayList<>();
+  }
+
+  public static void main(final String[] args) throws Exception {
+    LOG.info("Press Enter key to start.");
+    System.in.read();
+
+    LOG.info("Running Pinot ResultSet conversion benchmark ...");
+    final ResultSet resultSet = generateResultSet(N_ROWS);
+    final PinotResultSetConversionBenchmark b = new PinotResultSetConversionBenchmark();
+    // warm up both paths before measuring
+    b.benchmark("warmupRowByRow", resultSet, PinotResultSetRowByRowConverter::fromPinotResultSet);
+    b.benchmark("warmupColumnar", resultSet, PinotQueryExecutor::fromPinotResultSet);
+
+    b.benchmark("rowByRow", resultSet, PinotResultSetRowByRowConverter::fromPinotResultSet);
+    b.benchmark("columnar", resultSet, PinotQueryExecutor::fromPinotResultSet);
+    LOG.info("done.");
+  }
+}
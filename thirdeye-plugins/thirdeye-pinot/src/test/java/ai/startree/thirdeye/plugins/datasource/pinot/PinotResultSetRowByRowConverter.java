@@ -0,0 +1,75 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.plugins.datasource.pinot;
+
+import ai.startree.thirdeye.spi.dataframe.DataFrame;
+import ai.startree.thirdeye.spi.datasource.resultset.ThirdEyeDataFrameResultSet;
+import ai.startree.thirdeye.spi.datasource.resultset.ThirdEyeResultSetMetaData;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.pinot.client.ResultSet;
+
+/**
+ * Row by row conversion of a Pinot's {@link ResultSet}: every cell is appended as a String to a
+ * {@link DataFrame.Builder} and converted when the DataFrame is built.
+ * Reference for {@link PinotQueryExecutor#fromPinotResultSet(ResultSet)} in tests and benchmarks.
+ */
+public class PinotResultSetRowByRowConverter {
+
+  static ThirdEyeDataFrameResultSet fromPinotResultSet(final ResultSet resultSet) {
+    final ThirdEyeResultSetMetaData thirdEyeResultSetMetaData = PinotQueryExecutor.toMetaData(
+        resultSet);
+
+    // Build the DataFrame
+    final List<String> columnNameWithDataType = new ArrayList<>();
+    //   Always cast dimension values to STRING type
+    for (final String groupColumnName : thirdEyeResultSetMetaData.getGroupKeyColumnNames()) {
+      columnNameWithDataType.add(groupColumnName + ":STRING");
+    }
+    columnNameWithDataType.addAll(thirdEyeResultSetMetaData.getMetricColumnNames());
+    final DataFrame.Builder dfBuilder = DataFrame.builder(columnNameWithDataType);
+    final int groupByColumnCount = thirdEyeResultSetMetaData.getGroupKeyColumnNames().size();
+    final int rowCount = resultSet.getRowCount();
+    final int metricColumnCount = resultSet.getColumnCount();
+    final int totalColumnCount = groupByColumnCount + metricColumnCount;
+    // Dump the values in ResultSet to the DataFrame
+    for (int rowIdx = 0; rowIdx < rowCount; rowIdx++) {
+      final String[] columnsOfTheRow = new String[totalColumnCount];
+      // GroupBy column value(i.e., dimension values)
+      for (int groupByColumnIdx = 0; groupByColumnIdx < groupByColumnCount; groupByColumnIdx++) {
+        String valueString = null;
+        try {
+          valueString = resultSet.getGroupKeyString(rowIdx, groupByColumnIdx);
+        } catch (final Exception e) {
+          // Do nothing and subsequently insert a null value to the current series.
+        }
+        columnsOfTheRow[groupByColumnIdx] = valueString;
+      }
+      // Metric column's value
+      for (int metricColumnIdx = 0; metricColumnIdx < metricColumnCount; metricColumnIdx++) {
+        String valueString = null;
+        try {
+          valueString = resultSet.getString(rowIdx, metricColumnIdx);
+        } catch (final Exception e) {
+          // Do nothing and subsequently insert a null value to the current series.
+        }
+        columnsOfTheRow[metricColumnIdx + groupByColumnCount] = valueString;
+      }
+      dfBuilder.append(columnsOfTheRow);
+    }
+    final DataFrame dataFrame = dfBuilder.build();
+    // Build ThirdEye's result set
+    return new ThirdEyeDataFrameResultSet(thirdEyeResultSetMetaData, dataFrame);
+  }
+}
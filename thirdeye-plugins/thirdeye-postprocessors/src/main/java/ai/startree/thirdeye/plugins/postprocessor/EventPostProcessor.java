@@ -23,19 +23,20 @@ import static ai.startree.thirdeye.spi.util.TimeUtils.isoPeriod;
 import static com.google.common.base.Preconditions.checkArgument;
 
 import ai.startree.thirdeye.spi.dataframe.DataFrame;
+import ai.startree.thirdeye.spi.dataframe.LongSeries;
 import ai.startree.thirdeye.spi.datalayer.dto.AnomalyDTO;
 import ai.startree.thirdeye.spi.datalayer.dto.AnomalyLabelDTO;
-import ai.startree.thirdeye.spi.datastructures.Interval1D;
-import ai.startree.thirdeye.spi.datastructures.IntervalSearchTree;
+import ai.startree.thirdeye.spi.datastructures.StaticIntervalSearchTree;
 import ai.startree.thirdeye.spi.detection.postprocessing.AnomalyPostProcessor;
 import ai.startree.thirdeye.spi.detection.postprocessing.AnomalyPostProcessorFactory;
 import ai.startree.thirdeye.spi.detection.postprocessing.PostProcessingContext;
 import ai.startree.thirdeye.spi.detection.v2.DataTable;
 import ai.startree.thirdeye.spi.detection.v2.OperatorResult;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
 import org.joda.time.Chronology;
 import org.joda.time.DateTime;
@@ -79,7 +80,7 @@ public class EventPostProcessor implements AnomalyPostProcessor {
     }
 
     final Chronology chronology = detectionInterval.getChronology();
-    final IntervalSearchTree<String> eventsSearchTree = buildIntervalSearchTree(eventsDf,
+    final StaticIntervalSearchTree<String> eventsSearchTree = buildIntervalSearchTree(eventsDf,
         chronology);
 
     for (final OperatorResult operatorResult : resultMap.values()) {
@@ -90,22 +91,26 @@ public class EventPostProcessor implements AnomalyPostProcessor {
   }
 
   private void postProcessResult(final OperatorResult operatorResult,
-      final IntervalSearchTree<String> eventsSearchTree) {
+      final StaticIntervalSearchTree<String> eventsSearchTree) {
     final List<AnomalyDTO> anomalies = operatorResult.getAnomalies();
-    if (anomalies == null) {
+    if (anomalies == null || anomalies.isEmpty()) {
       return;
     }
 
-    for (final AnomalyDTO anomalyResultDTO : anomalies) {
-      final Interval1D searchInterval = Interval1D.of(anomalyResultDTO.getStartTime(),
-          anomalyResultDTO.getEndTime());
-      final Entry<Interval1D, Set<String>> match = eventsSearchTree.search(searchInterval);
-      if (match != null) {
-        final Set<String> eventNames = match.getValue();
+    final long[] anomalyStarts = new long[anomalies.size()];
+    final long[] anomalyEnds = new long[anomalies.size()];
+    for (int i = 0; i < anomalies.size(); i++) {
+      anomalyStarts[i] = anomalies.get(i).getStartTime();
+      anomalyEnds[i] = anomalies.get(i).getEndTime();
+    }
+    final List<List<String>> matches = eventsSearchTree.searchAll(anomalyStarts, anomalyEnds);
+    for (int i = 0; i < anomalies.size(); i++) {
+      if (!matches.get(i).isEmpty()) {
+        final Set<String> eventNames = new LinkedHashSet<>(matches.get(i));
         final String labelName = labelName(eventNames);
         final AnomalyLabelDTO newLabel = new AnomalyLabelDTO().setIgnore(ignore)
             .setName(labelName);
-        addLabel(anomalyResultDTO, newLabel);
+        addLabel(anomalies.get(i), newLabel);
       }
     }
   }
@@ -122,19 +127,29 @@ public class EventPostProcessor implements AnomalyPostProcessor {
    * {@value ai.startree.thirdeye.spi.Constants#COL_EVENT_START},
    * {@value ai.startree.thirdeye.spi.Constants#COL_EVENT_END}.
    */
-  private IntervalSearchTree<String> buildIntervalSearchTree(final DataFrame eventsDf,
+  private StaticIntervalSearchTree<String> buildIntervalSearchTree(final DataFrame eventsDf,
       final Chronology chronology) {
-    final IntervalSearchTree<String> searchTree = new IntervalSearchTree<>();
+    final LongSeries eventStarts = eventsDf.getLongs(COL_EVENT_START);
+    final LongSeries eventEnds = eventsDf.getLongs(COL_EVENT_END);
+    final List<String> eventNames = new ArrayList<>(eventsDf.size());
     for (int i = 0; i < eventsDf.size(); i++) {
-      final DateTime startWithMargin = new DateTime(eventsDf.getLong(COL_EVENT_START, i),
-          chronology).minus(beforeMargin);
-      final DateTime endWithMargin = new DateTime(eventsDf.getLong(COL_EVENT_END, i),
-          chronology).plus(afterMargin);
-      searchTree.put(Interval1D.of(startWithMargin.getMillis(), endWithMargin.getMillis()),
-          eventsDf.getString(COL_EVENT_NAME, i));
+      eventNames.add(eventsDf.getString(COL_EVENT_NAME, i));
+    }
+    if (beforeMargin.equals(Period.ZERO) && afterMargin.equals(Period.ZERO)) {
+      return StaticIntervalSearchTree.of(eventStarts, eventEnds, eventNames);
     }
 
-    return searchTree;
+    final long[] startsWithMargin = new long[eventsDf.size()];
+    final long[] endsWithMargin = new long[eventsDf.size()];
+    for (int i = 0; i < eventsDf.size(); i++) {
+      startsWithMargin[i] = new DateTime(eventStarts.getLong(i), chronology)
+          .minus(beforeMargin)
+          .getMillis();
+      endsWithMargin[i] = new DateTime(eventEnds.getLong(i), chronology)
+          .plus(afterMargin)
+          .getMillis();
+    }
+    return StaticIntervalSearchTree.of(startsWithMargin, endsWithMargin, eventNames);
   }
 
   public static class Factory implements AnomalyPostProcessorFactory {
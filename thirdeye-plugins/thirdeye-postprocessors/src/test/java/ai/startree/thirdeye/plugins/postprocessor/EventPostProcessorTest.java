@@ -191,4 +191,43 @@ public class EventPostProcessorTest {
       }
     }
   }
+
+  @Test
+  public void testPostProcessWithSeveralEventsOnAnAnomaly() throws Exception {
+    final EventPostProcessor postProcessor = new EventPostProcessor(new EventPostProcessorSpec());
+    final List<AnomalyDTO> inputAnomalies = List.of(this.january1Anomaly,
+        january2Anomaly, january4Anomaly);
+    final OperatorResult res1 = AnomalyDetectorOperatorResult.builder()
+        .setAnomalies(inputAnomalies)
+        .build();
+
+    // the 3 events overlap the january 1 anomaly, only EVENT_B overlaps the january 2 anomaly
+    final DataFrame eventsDataFrame = new DataFrame()
+        .addSeries(COL_EVENT_START, JANUARY_1_2022, JANUARY_1_2022 + HALF_DAY_MILLIS,
+            JANUARY_1_2022)
+        .addSeries(COL_EVENT_END, JANUARY_1_2022 + HALF_DAY_MILLIS,
+            JANUARY_3_2022 - HALF_DAY_MILLIS, JANUARY_2_2022)
+        .addSeries(COL_EVENT_NAME, "EVENT_A", "EVENT_B", "EVENT_C");
+    final Map<String, OperatorResult> resultMap = new HashMap<>(
+        Map.of(RES_1_KEY, res1,
+            KEY_CURRENT_EVENTS, SimpleDataTable.fromDataFrame(eventsDataFrame)));
+    final List<AnomalyDTO> res1Anomalies = postProcessor.postProcess(UTC_DETECTION_INTERVAL,
+        resultMap).get(RES_1_KEY).getAnomalies();
+
+    final List<AnomalyLabelDTO> january1Labels = res1Anomalies.get(0).getAnomalyLabels();
+    assertThat(january1Labels).hasSize(1);
+    final String january1LabelName = january1Labels.get(0).getName();
+    final String prefix = "Anomaly happens during ";
+    final String suffix = " events";
+    assertThat(january1LabelName).startsWith(prefix).endsWith(suffix);
+    assertThat(january1LabelName.substring(prefix.length(),
+        january1LabelName.length() - suffix.length()).split(","))
+        .containsExactlyInAnyOrder("EVENT_A", "EVENT_B", "EVENT_C");
+
+    final List<AnomalyLabelDTO> january2Labels = res1Anomalies.get(1).getAnomalyLabels();
+    assertThat(january2Labels).hasSize(1);
+    assertThat(january2Labels.get(0).getName()).isEqualTo("Anomaly happens during EVENT_B event");
+
+    assertThat(res1Anomalies.get(2).getAnomalyLabels()).isNull();
+  }
 }
@@ -17,6 +17,7 @@ import static ai.startree.thirdeye.datalayer.util.PersistenceUtils.shutdownExecu
 import static ai.startree.thirdeye.scheduler.JobSchedulerService.getIdFromJobKey;
 import static ai.startree.thirdeye.spi.Constants.CRON_TIMEZONE;
 
+import ai.startree.thirdeye.scheduler.EntityChangeTracker.Changes;
 import ai.startree.thirdeye.scheduler.job.DetectionPipelineJob;
 import ai.startree.thirdeye.spi.datalayer.bao.AlertManager;
 import ai.startree.thirdeye.spi.datalayer.dto.AbstractDTO;
@@ -31,6 +32,7 @@ import java.util.TimeZone;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 import org.quartz.CronScheduleBuilder;
 import org.quartz.CronTrigger;
 import org.quartz.JobBuilder;
@@ -53,14 +55,14 @@ public class DetectionCronScheduler implements Runnable {
 
   private static final Logger LOG = LoggerFactory.getLogger(DetectionCronScheduler.class);
 
-  private final AlertManager alertManager;
+  private final EntityChangeTracker<AlertDTO> alertChangeTracker;
   private final Scheduler scheduler;
   private final ScheduledExecutorService executorService;
   private final int alertDelay;
 
   @Inject
   public DetectionCronScheduler(final ThirdEyeSchedulerConfiguration thirdEyeSchedulerConfiguration, final AlertManager alertManager) {
-    this.alertManager = alertManager;
+    alertChangeTracker = new EntityChangeTracker<>(alertManager);
     alertDelay = thirdEyeSchedulerConfiguration.getAlertUpdateDelay();
     executorService = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setNameFormat("detection-cron-%d").build());
     try {
@@ -87,8 +89,13 @@ public class DetectionCronScheduler implements Runnable {
   @Override
   public void run() {
     try {
-      alertManager.findAll().forEach(this::processAlert);
-      processScheduledJobs();
+      // only the alerts updated since the previous run are read, except on full syncs
+      final Changes<AlertDTO> changes = alertChangeTracker.fetchChanges();
+      changes.getUpdated().forEach(this::processAlert);
+      changes.getDeletedIds().forEach(this::stopJobIfScheduled);
+      if (changes.isFullSync()) {
+        processScheduledJobs(changes.getUpdated());
+      }
     } catch (final SchedulerException e) {
       LOG.error("Error while scheduling detection pipeline", e);
     }
@@ -97,6 +104,7 @@ public class DetectionCronScheduler implements Runnable {
   private void processAlert(final AlertDTO alert) {
     if (!alert.isActive()) {
       LOG.debug("Alert: " + alert.getId() + " is inactive. Skipping.");
+      stopJobIfScheduled(alert.getId());
       return;
     }
 
@@ -123,18 +131,35 @@ public class DetectionCronScheduler implements Runnable {
     }
   }
 
-  private void processScheduledJobs() throws SchedulerException {
+  private void stopJobIfScheduled(final Long id) {
+    final JobKey jobKey = new JobKey(getJobKey(id, TaskType.DETECTION), QUARTZ_DETECTION_GROUPER);
+    try {
+      if (scheduler.checkExists(jobKey)) {
+        LOG.info("Found a scheduled detection config task, but has been deactivated {}", id);
+        stopJob(jobKey);
+      }
+    } catch (final Exception e) {
+      LOG.error("Error removing job key {}", jobKey);
+    }
+  }
+
+  /**
+   * Stops the scheduled jobs of alerts that were deleted or deactivated.
+   *
+   * @param alerts all the alerts in the database
+   */
+  private void processScheduledJobs(final List<AlertDTO> alerts) throws SchedulerException {
+    final Set<Long> activeIds = alerts.stream()
+        .filter(AlertDTO::isActive)
+        .map(AbstractDTO::getId)
+        .collect(Collectors.toSet());
     final Set<JobKey> scheduledJobs = getScheduledJobs();
     for (final JobKey jobKey : scheduledJobs) {
       try {
         final Long id = getIdFromJobKey(jobKey.getName());
-        final AlertDTO detectionDTO = alertManager.findById(id);
-        if (detectionDTO == null) {
-          LOG.info("Found a scheduled detection config task, but not found in the database {}",
-              id);
-          stopJob(jobKey);
-        } else if (!detectionDTO.isActive()) {
-          LOG.info("Found a scheduled detection config task, but has been deactivated {}", id);
+        if (!activeIds.contains(id)) {
+          LOG.info("Found a scheduled detection config task, but not found in the database "
+              + "or deactivated {}", id);
           stopJob(jobKey);
         }
       } catch (final Exception e) {
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.scheduler;
+
+import static java.util.Objects.requireNonNull;
+
+import ai.startree.thirdeye.spi.datalayer.Predicate;
+import ai.startree.thirdeye.spi.datalayer.bao.AbstractManager;
+import ai.startree.thirdeye.spi.datalayer.dto.AbstractDTO;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Tracks the entities of a manager between two scheduler ticks.
+ *
+ * The first call and periodic full syncs read all the entities. Other calls only read the
+ * entities whose update_time changed since the previous call, and the ids of all the entities,
+ * from the index table. The ids detect the deleted entities, even if entities were created in
+ * the meantime, and the created entities missed by the update_time filter.
+ *
+ * Runtime state written on every run, like the last timestamp of an alert, is updated partially
+ * and does not touch the update_time of the index table: it is not read as a change.
+ *
+ * Not thread safe: each scheduler runs its ticks on a single thread.
+ */
+class EntityChangeTracker<E extends AbstractDTO> {
+
+  private static final Logger LOG = LoggerFactory.getLogger(EntityChangeTracker.class);
+
+  /**
+   * update_time is set by the clock of the instance that writes the entity. The margin covers
+   * clock skew between instances and transactions committing after the previous call.
+   */
+  private static final Duration CLOCK_SKEW_MARGIN = Duration.ofMinutes(5);
+  /**
+   * Safety net: anything missed by the incremental reads is picked up by the next full sync.
+   */
+  private static final Duration FULL_SYNC_INTERVAL = Duration.ofHours(1);
+
+  private final AbstractManager<E> manager;
+  private final LongSupplier clock;
+  private final Set<Long> knownIds = new HashSet<>();
+  private long lastSyncTime = -1;
+  private long lastFullSyncTime = -1;
+
+  EntityChangeTracker(final AbstractManager<E> manager) {
+    this(manager, System::currentTimeMillis);
+  }
+
+  EntityChangeTracker(final AbstractManager<E> manager, final LongSupplier clock) {
+    this.manager = requireNonNull(manager);
+    this.clock = requireNonNull(clock);
+  }
+
+  public Changes<E> fetchChanges() {
+    final long now = clock.getAsLong();
+    if (lastFullSyncTime < 0 || now - lastFullSyncTime >= FULL_SYNC_INTERVAL.toMillis()) {
+      return fullSync(now);
+    }
+    final Timestamp updatedSince = new Timestamp(lastSyncTime - CLOCK_SKEW_MARGIN.toMillis());
+    final List<E> updated = new ArrayList<>(
+        manager.findByPredicate(Predicate.GE("updateTime", updatedSince)));
+    final List<Long> idList = manager.findIds();
+    if (idList == null) {
+      // the id query failed: retry from the same point on the next call
+      return new Changes<>(false, updated, Set.of());
+    }
+    final Set<Long> ids = new HashSet<>(idList);
+    final Set<Long> updatedIds = updated.stream()
+        .map(AbstractDTO::getId)
+        .collect(Collectors.toSet());
+    final List<Long> createdIds = ids.stream()
+        .filter(id -> !knownIds.contains(id) && !updatedIds.contains(id))
+        .collect(Collectors.toList());
+    if (!createdIds.isEmpty()) {
+      updated.addAll(manager.findByIds(createdIds));
+    }
+    // entities deleted after the update_time query
+    updated.removeIf(entity -> !ids.contains(entity.getId()));
+    final Set<Long> deletedIds = deletedIds(ids);
+    knownIds.clear();
+    knownIds.addAll(ids);
+    lastSyncTime = now;
+    return new Changes<>(false, updated, deletedIds);
+  }
+
+  private Changes<E> fullSync(final long now) {
+    final List<E> all = manager.findAll();
+    final Set<Long> ids = all.stream()
+        .map(AbstractDTO::getId)
+        .collect(Collectors.toSet());
+    final Set<Long> deletedIds = deletedIds(ids);
+    knownIds.clear();
+    knownIds.addAll(ids);
+    lastSyncTime = now;
+    lastFullSyncTime = now;
+    LOG.debug("Full sync of {} entities", all.size());
+    return new Changes<>(true, all, deletedIds);
+  }
+
+  private Set<Long> deletedIds(final Set<Long> ids) {
+    return knownIds.stream()
+        .filter(id -> !ids.contains(id))
+        .collect(Collectors.toSet());
+  }
+
+  public static class Changes<E extends AbstractDTO> {
+
+    private final boolean fullSync;
+    private final List<E> updated;
+    private final Set<Long> deletedIds;
+
+    private Changes(final boolean fullSync, final List<E> updated, final Set<Long> deletedIds) {
+      this.fullSync = fullSync;
+      this.updated = updated;
+      this.deletedIds = deletedIds;
+    }
+
+    /**
+     * @return true if {@link #getUpdated()} contains all the entities
+     */
+    public boolean isFullSync() {
+      return fullSync;
+    }
+
+    public List<E> getUpdated() {
+      return updated;
+    }
+
+    /**
+     * @return the ids of the entities deleted since the previous call
+     */
+    public Set<Long> getDeletedIds() {
+      return deletedIds;
+    }
+  }
+}
@@ -17,6 +17,7 @@ import static ai.startree.thirdeye.datalayer.util.PersistenceUtils.shutdownExecu
 import static ai.startree.thirdeye.scheduler.JobSchedulerService.getIdFromJobKey;
 import static ai.startree.thirdeye.spi.Constants.CRON_TIMEZONE;
 
+import ai.startree.thirdeye.scheduler.EntityChangeTracker.Changes;
 import ai.startree.thirdeye.scheduler.job.DetectionAlertJob;
 import ai.startree.thirdeye.spi.datalayer.bao.SubscriptionGroupManager;
 import ai.startree.thirdeye.spi.datalayer.dto.AbstractDTO;
@@ -63,11 +64,11 @@ public class SubscriptionCronScheduler implements Runnable {
 
   private final Scheduler scheduler;
   private final ScheduledExecutorService scheduledExecutorService;
-  private final SubscriptionGroupManager subscriptionGroupManager;
+  private final EntityChangeTracker<SubscriptionGroupDTO> subscriptionGroupChangeTracker;
 
   @Inject
   public SubscriptionCronScheduler(final SubscriptionGroupManager subscriptionGroupManager) {
-    this.subscriptionGroupManager = subscriptionGroupManager;
+    subscriptionGroupChangeTracker = new EntityChangeTracker<>(subscriptionGroupManager);
     scheduledExecutorService = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setNameFormat(
         "subscription-scheduler-%d").build());
     try {
@@ -94,9 +95,10 @@ public class SubscriptionCronScheduler implements Runnable {
   @Override
   public void run() {
     try {
-      // read all alert configs
-      LOG.info("Scheduling all the subscription configs");
-      final List<SubscriptionGroupDTO> alertConfigs = subscriptionGroupManager.findAll();
+      // read the alert configs updated since the previous run, or all of them on full syncs
+      final Changes<SubscriptionGroupDTO> changes = subscriptionGroupChangeTracker.fetchChanges();
+      final List<SubscriptionGroupDTO> alertConfigs = changes.getUpdated();
+      LOG.info("Scheduling {} subscription configs", alertConfigs.size());
 
       // get active jobs
       final Set<JobKey> scheduledJobs = getScheduledJobs();
@@ -112,11 +114,24 @@ public class SubscriptionCronScheduler implements Runnable {
         }
       }
 
+      if (!changes.isFullSync()) {
+        for (final Long deletedId : changes.getDeletedIds()) {
+          try {
+            deleteAlertJob(deletedId, scheduledJobs);
+          } catch (final Exception e) {
+            LOG.error("Could not delete alert job of config {}. Skipping.", deletedId, e);
+          }
+        }
+        return;
+      }
       // for any scheduled jobs, not having a function in the database,
       // stop the schedule, as function has been deleted
+      final Set<Long> configIds = alertConfigs.stream()
+          .map(AbstractDTO::getId)
+          .collect(Collectors.toSet());
       for (final JobKey scheduledJobKey : scheduledJobs) {
         try {
-          deleteAlertJob(scheduledJobKey);
+          deleteAlertJob(configIds, scheduledJobKey);
         } catch (final Exception e) {
           LOG.error("Could not delete alert job '{}'. Skipping.", scheduledJobKey, e);
         }
@@ -157,15 +172,25 @@ public class SubscriptionCronScheduler implements Runnable {
     return String.format("%s_%d", taskType, id);
   }
 
-  private void deleteAlertJob(final JobKey scheduledJobKey) throws SchedulerException {
+  private void deleteAlertJob(final Set<Long> configIds, final JobKey scheduledJobKey)
+      throws SchedulerException {
     final Long configId = getIdFromJobKey(scheduledJobKey.getName());
-    final SubscriptionGroupDTO alertConfigSpec = subscriptionGroupManager.findById(configId);
-    if (alertConfigSpec == null) {
+    if (!configIds.contains(configId)) {
       LOG.info("Found scheduled, but not in database {}", configId);
       stopJob(scheduledJobKey);
     }
   }
 
+  private void deleteAlertJob(final Long configId, final Set<JobKey> scheduledJobs)
+      throws SchedulerException {
+    final JobKey key = new JobKey(getJobKey(configId, TaskType.NOTIFICATION),
+        QUARTZ_SUBSCRIPTION_GROUPER);
+    if (scheduledJobs.contains(key)) {
+      LOG.info("Found scheduled, but deleted from database {}", configId);
+      stopJob(key);
+    }
+  }
+
   private void createOrUpdateAlertJob(final Set<JobKey> scheduledJobs,
       final SubscriptionGroupDTO subscriptionGroupDTO)
       throws SchedulerException {
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.scheduler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import ai.startree.thirdeye.spi.datalayer.Predicate;
+import ai.startree.thirdeye.spi.datalayer.bao.AlertManager;
+import ai.startree.thirdeye.spi.datalayer.dto.AlertDTO;
+import java.util.List;
+import org.quartz.SchedulerException;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class DetectionCronSchedulerTest {
+
+  private static final String CRON = "0 0 0 * * ? *";
+
+  private AlertManager alertManager;
+  private DetectionCronScheduler detectionCronScheduler;
+
+  private static AlertDTO alert(final long id, final boolean active) {
+    final AlertDTO alert = new AlertDTO();
+    alert.setId(id);
+    alert.setActive(active);
+    alert.setCron(CRON);
+    return alert;
+  }
+
+  @BeforeMethod
+  public void setUp() {
+    alertManager = mock(AlertManager.class);
+    detectionCronScheduler = new DetectionCronScheduler(new ThirdEyeSchedulerConfiguration(),
+        alertManager);
+  }
+
+  @AfterMethod(alwaysRun = true)
+  public void tearDown() throws SchedulerException {
+    detectionCronScheduler.shutdown();
+  }
+
+  @Test
+  public void testIncrementalTickStopsJobOfDeactivatedAlert() throws SchedulerException {
+    when(alertManager.findAll()).thenReturn(List.of(alert(1, true)));
+    detectionCronScheduler.run();
+    assertThat(detectionCronScheduler.getScheduledJobs()).hasSize(1);
+
+    when(alertManager.findByPredicate(any(Predicate.class))).thenReturn(List.of(alert(1, false)));
+    when(alertManager.findIds()).thenReturn(List.of(1L));
+    detectionCronScheduler.run();
+
+    assertThat(detectionCronScheduler.getScheduledJobs()).isEmpty();
+    // the second tick is incremental
+    verify(alertManager, times(1)).findAll();
+  }
+
+  @Test
+  public void testIncrementalTickStopsJobOfDeletedAlert() throws SchedulerException {
+    when(alertManager.findAll()).thenReturn(List.of(alert(1, true), alert(2, true)));
+    detectionCronScheduler.run();
+    assertThat(detectionCronScheduler.getScheduledJobs()).hasSize(2);
+
+    // 2 is deleted and 3 is created between the ticks
+    when(alertManager.findByPredicate(any(Predicate.class))).thenReturn(List.of(alert(3, true)));
+    when(alertManager.findIds()).thenReturn(List.of(1L, 3L));
+    detectionCronScheduler.run();
+
+    assertThat(detectionCronScheduler.getScheduledJobs())
+        .extracting(jobKey -> JobSchedulerService.getIdFromJobKey(jobKey.getName()))
+        .containsExactlyInAnyOrder(1L, 3L);
+    verify(alertManager, times(1)).findAll();
+  }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.scheduler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import ai.startree.thirdeye.scheduler.EntityChangeTracker.Changes;
+import ai.startree.thirdeye.spi.datalayer.Predicate;
+import ai.startree.thirdeye.spi.datalayer.bao.AlertManager;
+import ai.startree.thirdeye.spi.datalayer.dto.AlertDTO;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class EntityChangeTrackerTest {
+
+  private AlertManager alertManager;
+  private AtomicLong clock;
+  private EntityChangeTracker<AlertDTO> tracker;
+
+  private static AlertDTO alert(final long id) {
+    final AlertDTO alert = new AlertDTO();
+    alert.setId(id);
+    return alert;
+  }
+
+  @BeforeMethod
+  public void setUp() {
+    alertManager = mock(AlertManager.class);
+    clock = new AtomicLong(Duration.ofDays(1).toMillis());
+    tracker = new EntityChangeTracker<>(alertManager, clock::get);
+  }
+
+  @Test
+  public void testFirstCallIsFullSync() {
+    when(alertManager.findAll()).thenReturn(List.of(alert(1), alert(2)));
+
+    final Changes<AlertDTO> changes = tracker.fetchChanges();
+
+    assertThat(changes.isFullSync()).isTrue();
+    assertThat(changes.getUpdated()).extracting(AlertDTO::getId).containsExactly(1L, 2L);
+  }
+
+  @Test
+  public void testIncrementalCallOnlyReadsUpdatedEntities() {
+    when(alertManager.findAll()).thenReturn(List.of(alert(1), alert(2)));
+    tracker.fetchChanges();
+
+    when(alertManager.findByPredicate(any(Predicate.class))).thenReturn(List.of(alert(3)));
+    when(alertManager.findIds()).thenReturn(List.of(1L, 2L, 3L));
+    clock.addAndGet(Duration.ofMinutes(1).toMillis());
+    final Changes<AlertDTO> changes = tracker.fetchChanges();
+
+    assertThat(changes.isFullSync()).isFalse();
+    assertThat(changes.getUpdated()).extracting(AlertDTO::getId).containsExactly(3L);
+    assertThat(changes.getDeletedIds()).isEmpty();
+    verify(alertManager, times(1)).findAll();
+  }
+
+  @Test
+  public void testDeletionIsDetected() {
+    when(alertManager.findAll()).thenReturn(List.of(alert(1), alert(2)));
+    tracker.fetchChanges();
+
+    when(alertManager.findByPredicate(any(Predicate.class))).thenReturn(List.of());
+    when(alertManager.findIds()).thenReturn(List.of(1L));
+    clock.addAndGet(Duration.ofMinutes(1).toMillis());
+    final Changes<AlertDTO> changes = tracker.fetchChanges();
+
+    assertThat(changes.isFullSync()).isFalse();
+    assertThat(changes.getUpdated()).isEmpty();
+    assertThat(changes.getDeletedIds()).containsExactly(2L);
+    verify(alertManager, times(1)).findAll();
+  }
+
+  @Test
+  public void testDeletionAndCreationBetweenCallsAreDetected() {
+    when(alertManager.findAll()).thenReturn(List.of(alert(1), alert(2)));
+    tracker.fetchChanges();
+
+    // 2 is deleted and 3 is created: the number of entities does not change
+    when(alertManager.findByPredicate(any(Predicate.class))).thenReturn(List.of(alert(3)));
+    when(alertManager.findIds()).thenReturn(List.of(1L, 3L));
+    clock.addAndGet(Duration.ofMinutes(1).toMillis());
+    final Changes<AlertDTO> changes = tracker.fetchChanges();
+
+    assertThat(changes.getUpdated()).extracting(AlertDTO::getId).containsExactly(3L);
+    assertThat(changes.getDeletedIds()).containsExactly(2L);
+  }
+
+  @Test
+  public void testCreationMissedByUpdateTimeIsRead() {
+    when(alertManager.findAll()).thenReturn(List.of(alert(1)));
+    tracker.fetchChanges();
+
+    when(alertManager.findByPredicate(any(Predicate.class))).thenReturn(List.of());
+    when(alertManager.findIds()).thenReturn(List.of(1L, 2L));
+    when(alertManager.findByIds(List.of(2L))).thenReturn(List.of(alert(2)));
+    clock.addAndGet(Duration.ofMinutes(1).toMillis());
+    final Changes<AlertDTO> changes = tracker.fetchChanges();
+
+    assertThat(changes.getUpdated()).extracting(AlertDTO::getId).containsExactly(2L);
+    assertThat(changes.getDeletedIds()).isEmpty();
+  }
+
+  @Test
+  public void testFailedIdQueryDoesNotTriggerFullSync() {
+    when(alertManager.findAll()).thenReturn(List.of(alert(1)));
+    tracker.fetchChanges();
+
+    when(alertManager.findByPredicate(any(Predicate.class))).thenReturn(List.of());
+    when(alertManager.findIds()).thenReturn(null);
+    clock.addAndGet(Duration.ofMinutes(1).toMillis());
+    final Changes<AlertDTO> changes = tracker.fetchChanges();
+
+    assertThat(changes.isFullSync()).isFalse();
+    assertThat(changes.getDeletedIds()).isEmpty();
+    verify(alertManager, times(1)).findAll();
+  }
+
+  @Test
+  public void testPeriodicFullSync() {
+    when(alertManager.findAll()).thenReturn(List.of(alert(1)));
+    tracker.fetchChanges();
+
+    clock.addAndGet(Duration.ofHours(1).toMillis());
+    final Changes<AlertDTO> changes = tracker.fetchChanges();
+
+    assertThat(changes.isFullSync()).isTrue();
+    verify(alertManager, never()).findByPredicate(any(Predicate.class));
+  }
+}
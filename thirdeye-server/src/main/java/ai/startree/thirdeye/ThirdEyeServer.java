@@ -24,6 +24,7 @@ import ai.startree.thirdeye.auth.ThirdEyeServerPrincipal;
 import ai.startree.thirdeye.config.ThirdEyeServerConfiguration;
 import ai.startree.thirdeye.datalayer.DataSourceBuilder;
 import ai.startree.thirdeye.datalayer.core.EnumerationItemMaintainer;
+import ai.startree.thirdeye.datasource.cache.DataSourceCache;
 import ai.startree.thirdeye.detectionpipeline.PlanExecutor;
 import ai.startree.thirdeye.healthcheck.DatabaseHealthCheck;
 import ai.startree.thirdeye.json.ThirdEyeJsonProcessingExceptionMapper;
@@ -195,6 +196,9 @@ public class ThirdEyeServer extends Application<ThirdEyeServerConfiguration> {
 
         /* Shutdown Enumeration Item Maintainer thread */
         injector.getInstance(EnumerationItemMaintainer.class).close();
+
+        /* Shutdown the data source cache refresh thread and close the data sources */
+        injector.getInstance(DataSourceCache.class).close();
       }
     };
   }
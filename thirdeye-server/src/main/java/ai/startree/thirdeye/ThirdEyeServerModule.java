@@ -17,6 +17,7 @@ import ai.startree.thirdeye.auth.AuthConfiguration;
 import ai.startree.thirdeye.auth.ThirdEyeAuthModule;
 import ai.startree.thirdeye.auth.ThirdEyeAuthorizerProvider;
 import ai.startree.thirdeye.config.ThirdEyeServerConfiguration;
+import ai.startree.thirdeye.detectionpipeline.PlanExecutorConfiguration;
 import ai.startree.thirdeye.detectionpipeline.ThirdEyeDetectionPipelineModule;
 import ai.startree.thirdeye.notification.ThirdEyeNotificationModule;
 import ai.startree.thirdeye.scheduler.ThirdEyeSchedulerModule;
@@ -57,8 +58,18 @@ public class ThirdEyeServerModule extends AbstractModule {
         configuration.getCacheConfig(),
         configuration.getRcaConfiguration(),
         configuration.getUiConfiguration(),
-        configuration.getTimeConfiguration()));
+        configuration.getTimeConfiguration(),
+        configuration.getDataSourceCacheConfiguration(),
+        configuration.getExecutorsConfiguration()));
     install(new ThirdEyeNotificationModule(configuration.getNotificationConfiguration()));
+    final PlanExecutorConfiguration planExecutorConfiguration = configuration
+        .getDetectionPipelineConfiguration()
+        .getPlanExecutor();
+    if (planExecutorConfiguration.getMaxConcurrentRuns() == null) {
+      // the worker runs at most maxParallelTasks pipelines at the same time
+      planExecutorConfiguration.setMaxConcurrentRuns(configuration.getTaskDriverConfiguration()
+          .getMaxParallelTasks());
+    }
     install(new ThirdEyeDetectionPipelineModule(configuration.getDetectionPipelineConfiguration()));
     install(new ThirdEyeWorkerModule(configuration.getTaskDriverConfiguration()));
     install(new ThirdEyeSchedulerModule(configuration.getSchedulerConfiguration()));
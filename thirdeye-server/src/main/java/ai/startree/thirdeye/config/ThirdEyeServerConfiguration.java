@@ -53,6 +53,12 @@ public class ThirdEyeServerConfiguration extends Configuration {
   @JsonProperty("cache")
   private CacheConfig cacheConfig = new CacheConfig();
 
+  @JsonProperty("dataSourceCache")
+  private DataSourceCacheConfiguration dataSourceCacheConfiguration = new DataSourceCacheConfiguration();
+
+  @JsonProperty("executors")
+  private ExecutorsConfiguration executorsConfiguration = new ExecutorsConfiguration();
+
   @JsonProperty("rca")
   private RcaConfiguration rcaConfiguration = new RcaConfiguration();
 
@@ -260,4 +266,24 @@ public class ThirdEyeServerConfiguration extends Configuration {
     this.accessControlConfiguration = config;
     return this;
   }
+
+  public DataSourceCacheConfiguration getDataSourceCacheConfiguration() {
+    return dataSourceCacheConfiguration;
+  }
+
+  public ThirdEyeServerConfiguration setDataSourceCacheConfiguration(
+      final DataSourceCacheConfiguration dataSourceCacheConfiguration) {
+    this.dataSourceCacheConfiguration = dataSourceCacheConfiguration;
+    return this;
+  }
+
+  public ExecutorsConfiguration getExecutorsConfiguration() {
+    return executorsConfiguration;
+  }
+
+  public ThirdEyeServerConfiguration setExecutorsConfiguration(
+      final ExecutorsConfiguration executorsConfiguration) {
+    this.executorsConfiguration = executorsConfiguration;
+    return this;
+  }
 }
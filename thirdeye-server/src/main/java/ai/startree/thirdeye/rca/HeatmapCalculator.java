@@ -13,11 +13,11 @@
  */
 package ai.startree.thirdeye.rca;
 
+import static ai.startree.thirdeye.datasource.loader.DefaultAggregationLoader.makeBreakdownMap;
 import static ai.startree.thirdeye.rca.RcaDimensionFilterHelper.getRcaDimensions;
 import static ai.startree.thirdeye.spi.datalayer.Predicate.parseAndCombinePredicates;
 import static ai.startree.thirdeye.spi.util.TimeUtils.isoPeriod;
 
-import ai.startree.thirdeye.datasource.loader.DefaultAggregationLoader;
 import ai.startree.thirdeye.spi.Constants;
 import ai.startree.thirdeye.spi.api.DatasetApi;
 import ai.startree.thirdeye.spi.api.HeatMapResponseApi;
@@ -31,6 +31,7 @@ import ai.startree.thirdeye.spi.datalayer.dto.DatasetConfigDTO;
 import ai.startree.thirdeye.spi.datalayer.dto.MetricConfigDTO;
 import ai.startree.thirdeye.spi.datasource.loader.AggregationLoader;
 import ai.startree.thirdeye.spi.metric.MetricSlice;
+import ai.startree.thirdeye.spi.util.Pair;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -86,19 +87,36 @@ public class HeatmapCalculator {
         datasetConfigDTO);
     datasetConfigDTO.setDimensions(Templatable.of(rcaDimensions));
 
-    final Map<String, Map<String, Double>> anomalyBreakdown = computeBreakdown(
-        rcaInfo.getMetric(),
-        parseAndCombinePredicates(filters),
+    final List<Predicate> predicates = parseAndCombinePredicates(filters);
+    final MetricSlice currentSlice = MetricSlice.from(rcaInfo.getMetric(),
         currentInterval,
-        limit,
+        predicates,
         datasetConfigDTO);
-
-    final Map<String, Map<String, Double>> baselineBreakdown = computeBreakdown(
-        rcaInfo.getMetric(),
-        parseAndCombinePredicates(filters),
+    final MetricSlice baselineSlice = MetricSlice.from(rcaInfo.getMetric(),
         baselineInterval,
-        limit,
+        predicates,
         datasetConfigDTO);
+    LOG.info("RCA metric analysis - current: {} - baseline: {}",
+        printInterval(currentInterval),
+        printInterval(baselineInterval));
+
+    // all the queries of both intervals are submitted before waiting for any result
+    final Future<DataFrame> currentAggregate = aggregationLoader.loadAggregateAsync(currentSlice,
+        Collections.emptyList(),
+        2);
+    final Future<DataFrame> baselineAggregate = aggregationLoader.loadAggregateAsync(baselineSlice,
+        Collections.emptyList(),
+        2);
+    final Pair<DataFrame, DataFrame> breakdowns = aggregationLoader.loadBreakdowns(currentSlice,
+        baselineSlice,
+        limit);
+
+    final Map<String, Map<String, Double>> anomalyBreakdown = makeBreakdownMap(
+        breakdowns.getFirst(),
+        toAggregate(currentAggregate, currentSlice));
+    final Map<String, Map<String, Double>> baselineBreakdown = makeBreakdownMap(
+        breakdowns.getSecond(),
+        toAggregate(baselineAggregate, baselineSlice));
 
     // if a dimension value is not observed in a breakdown but observed in the other, add it with a count of 0
     fillMissingKeysWithZeroes(baselineBreakdown, anomalyBreakdown);
@@ -145,27 +163,32 @@ public class HeatmapCalculator {
         predicates,
         datasetConfigDTO);
 
-    LOG.info("RCA metric analysis - Slice: {} - {}",
-        DATE_TIME_FORMATTER.print(baseSlice.getInterval().getStartMillis()),
-        DATE_TIME_FORMATTER.print(baseSlice.getInterval().getStartMillis()));
+    LOG.info("RCA metric analysis - Slice: {}", printInterval(baseSlice.getInterval()));
 
+    final Future<DataFrame> aggregate = aggregationLoader.loadAggregateAsync(baseSlice,
+        Collections.emptyList(),
+        2);
     final DataFrame dataBreakdown = aggregationLoader.loadBreakdown(baseSlice, limit);
-    final DataFrame dataAggregate = fetchAggregate(baseSlice);
+    final DataFrame dataAggregate = toAggregate(aggregate, baseSlice);
 
-    return DefaultAggregationLoader.makeBreakdownMap(dataBreakdown, dataAggregate);
+    return makeBreakdownMap(dataBreakdown, dataAggregate);
+  }
+
+  private static String printInterval(final Interval interval) {
+    return DATE_TIME_FORMATTER.print(interval.getStartMillis()) + " - "
+        + DATE_TIME_FORMATTER.print(interval.getEndMillis());
   }
 
   /**
-   * Returns aggregates for the given set of metric slices.
+   * Returns the aggregate of a metric slice.
    *
+   * @param future pending aggregate query of the slice
    * @param slice metric slice
-   * @return map of dataframes (keyed by metric slice, columns: [COL_TIME(1), COL_VALUE])
+   * @return dataframe with columns: [COL_TIME(1), COL_VALUE]
    * @throws Exception on catch-all execution failure
    */
-  private DataFrame fetchAggregate(final MetricSlice slice) throws Exception {
-    final Future<DataFrame> future = aggregationLoader.loadAggregateAsync(slice,
-        Collections.emptyList(),
-        2);
+  private static DataFrame toAggregate(final Future<DataFrame> future, final MetricSlice slice)
+      throws Exception {
     DataFrame df = future.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
     if (df.isEmpty()) {
       df = new DataFrame().addSeries(Constants.COL_VALUE, Double.NaN);
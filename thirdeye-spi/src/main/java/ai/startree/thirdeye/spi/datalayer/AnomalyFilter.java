@@ -14,12 +14,15 @@
 
 package ai.startree.thirdeye.spi.datalayer;
 
+import java.util.Collection;
 import org.joda.time.Interval;
 
 public class AnomalyFilter {
 
   private Interval createTimeWindow;
   private Long alertId;
+  /**Will match any anomaly of one of the alerts*/
+  private Collection<Long> alertIds;
   private Long enumerationItemId;
   private Boolean isIgnored;
   private Boolean hasFeedback;
@@ -45,6 +48,15 @@ public class AnomalyFilter {
     return this;
   }
 
+  public Collection<Long> getAlertIds() {
+    return alertIds;
+  }
+
+  public AnomalyFilter setAlertIds(final Collection<Long> alertIds) {
+    this.alertIds = alertIds;
+    return this;
+  }
+
   public Long getEnumerationItemId() {
     return enumerationItemId;
   }
@@ -17,6 +17,7 @@ import ai.startree.thirdeye.spi.datalayer.DaoFilter;
 import ai.startree.thirdeye.spi.datalayer.Predicate;
 import ai.startree.thirdeye.spi.datalayer.dto.AbstractDTO;
 import java.util.List;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 public interface AbstractManager<E extends AbstractDTO> {
 
@@ -75,4 +76,13 @@ public interface AbstractManager<E extends AbstractDTO> {
   default long count(final Predicate predicate) {
     throw new UnsupportedOperationException();
   }
+
+  /**
+   * Find the ids of all the entities. Only reads the index table.
+   *
+   * @return the ids of all the entities, or null if the query failed
+   */
+  default @Nullable List<Long> findIds() {
+    throw new UnsupportedOperationException();
+  }
 }
@@ -21,4 +21,11 @@ public interface AlertManager extends AbstractManager<AlertDTO> {
   List<AlertDTO> findAllActive();
 
   Long countActive();
+
+  /**
+   * Set the lastTimestamp of the alert, without reading and rewriting the whole alert.
+   *
+   * @return 1 if the alert was updated, 0 otherwise
+   */
+  int updateLastTimestamp(Long id, long lastTimestamp);
 }
@@ -22,6 +22,13 @@ public interface AnomalyManager extends AbstractManager<AnomalyDTO> {
 
   AnomalyDTO findById(Long id);
 
+  /**
+   * Save the anomalies and their children, like {@link #save}, with batch inserts and updates.
+   *
+   * @param batchSize the maximum number of anomalies written in a single transaction
+   */
+  void saveAll(List<AnomalyDTO> anomalies, int batchSize);
+
   AnomalyDTO findParent(AnomalyDTO entity);
 
   void updateAnomalyFeedback(AnomalyDTO entity);
@@ -30,8 +37,21 @@ public interface AnomalyManager extends AbstractManager<AnomalyDTO> {
 
   List<AnomalyDTO> decorate(List<AnomalyDTO> anomalyDTOList);
 
+  /**
+   * Same as {@link #decorate(List)} but only loads the children. The feedback already set on the
+   * anomalies, for instance by {@link #filterWithFeedback(AnomalyFilter)}, is kept.
+   */
+  List<AnomalyDTO> decorateWithChildren(List<AnomalyDTO> anomalies);
+
   long countParentAnomalies(Predicate predicate);
 
   List<AnomalyDTO> filter(AnomalyFilter anomalyFilter);
+
+  /**
+   * Same as {@link #filter(AnomalyFilter)} but only decorates with feedback, in a single query.
+   * Children are not loaded. Use {@link #decorate(List)} on the anomalies that need them.
+   */
+  List<AnomalyDTO> filterWithFeedback(AnomalyFilter anomalyFilter);
+
   List<AnomalyDTO> findParentAnomaliesWithFeedback(Predicate filter);
 }
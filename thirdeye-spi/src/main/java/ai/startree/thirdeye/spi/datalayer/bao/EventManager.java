@@ -31,6 +31,10 @@ public interface EventManager extends AbstractManager<EventDTO> {
 
   List<EventDTO> findEventsBetweenTimeRange(long startTime, long endTime, @Nullable final List<@NonNull String> eventTypes);
 
+  /**
+   * Read path for detection and RCA. Events are served from an in-memory index refreshed
+   * periodically: they must not be modified. Use the other methods to read events to update.
+   */
   List<EventDTO> findEventsBetweenTimeRange(final long startTime, final long endTime,
       @Nullable final List<@NonNull String> eventTypes, @Nullable final String freeTextSqlFilter);
 
@@ -41,6 +41,12 @@ public interface TaskManager extends AbstractManager<TaskDTO> {
   boolean updateStatusAndWorkerId(Long workerId, Long id, Set<TaskStatus> allowedOldStatus,
       int expectedVersion);
 
+  /**
+   * Atomically claim up to limit WAITING tasks for the worker: claimed tasks are returned with
+   * status RUNNING and the worker id set. Tasks locked by a concurrent claim are skipped.
+   */
+  List<TaskDTO> acquireTasks(Long workerId, int limit);
+
   void updateStatusAndTaskEndTime(Long id, TaskStatus oldStatus, TaskStatus newStatus,
       Long taskEndTime, String message);
 
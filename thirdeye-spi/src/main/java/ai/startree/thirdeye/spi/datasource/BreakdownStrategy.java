@@ -0,0 +1,35 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.spi.datasource;
+
+/**
+ * How the root cause analysis fetches the breakdowns of a metric by each dimension of a dataset.
+ */
+public enum BreakdownStrategy {
+  /**
+   * One GROUP BY query per dimension. Works with any data source and any aggregation function.
+   */
+  PER_DIMENSION,
+  /**
+   * One query with GROUPING SETS, one grouping set per dimension. The data source must support
+   * GROUPING SETS. Null dimension values are dropped: they cannot be told apart from the rows of
+   * the other grouping sets.
+   */
+  GROUPING_SETS,
+  /**
+   * One GROUP BY query on all the dimensions, rolled up locally for each dimension. Only used for
+   * SUM, COUNT, MIN and MAX metrics. Other metrics fall back to {@link #PER_DIMENSION}.
+   */
+  SINGLE_GROUP_BY
+}
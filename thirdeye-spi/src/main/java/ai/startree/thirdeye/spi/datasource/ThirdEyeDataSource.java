@@ -18,6 +18,7 @@ import ai.startree.thirdeye.spi.datasource.macro.SqlExpressionBuilder;
 import ai.startree.thirdeye.spi.datasource.macro.SqlLanguage;
 import ai.startree.thirdeye.spi.detection.v2.DataTable;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public interface ThirdEyeDataSource {
 
@@ -54,6 +55,20 @@ public interface ThirdEyeDataSource {
 
   DataTable fetchDataTable(DataSourceRequest request) throws Exception;
 
+  /**
+   * Non-blocking version of {@link #fetchDataTable(DataSourceRequest)}.
+   *
+   * The default implementation blocks: it runs fetchDataTable in the calling thread. Data sources
+   * with an asynchronous client should override it.
+   */
+  default CompletableFuture<DataTable> fetchDataTableAsync(DataSourceRequest request) {
+    try {
+      return CompletableFuture.completedFuture(fetchDataTable(request));
+    } catch (Exception e) {
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
   /**
    * Returns boolean value to validate the health of data source
    *
@@ -79,4 +94,11 @@ public interface ThirdEyeDataSource {
   default SqlExpressionBuilder getSqlExpressionBuilder() {
     return null;
   }
+
+  /**
+   * Returns how root cause analysis breakdowns should be queried on this data source.
+   */
+  default BreakdownStrategy getBreakdownStrategy() {
+    return BreakdownStrategy.PER_DIMENSION;
+  }
 }
@@ -14,10 +14,16 @@
 package ai.startree.thirdeye.spi.datasource;
 
 import ai.startree.thirdeye.spi.datalayer.dto.DataSourceDTO;
+import java.util.concurrent.Executor;
 
 public class ThirdEyeDataSourceContext {
 
   private DataSourceDTO dataSourceDTO;
+  /**
+   * Executor for the continuations of non-blocking queries: parsing and conversion of responses
+   * must not run on the I/O threads of the network clients. Null if not provided by the caller.
+   */
+  private Executor executor;
 
   public DataSourceDTO getDataSourceDTO() {
     return dataSourceDTO;
@@ -28,4 +34,13 @@ public class ThirdEyeDataSourceContext {
     this.dataSourceDTO = dataSourceDTO;
     return this;
   }
+
+  public Executor getExecutor() {
+    return executor;
+  }
+
+  public ThirdEyeDataSourceContext setExecutor(final Executor executor) {
+    this.executor = executor;
+    return this;
+  }
 }
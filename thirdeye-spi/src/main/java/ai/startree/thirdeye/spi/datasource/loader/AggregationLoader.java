@@ -15,6 +15,7 @@ package ai.startree.thirdeye.spi.datasource.loader;
 
 import ai.startree.thirdeye.spi.dataframe.DataFrame;
 import ai.startree.thirdeye.spi.metric.MetricSlice;
+import ai.startree.thirdeye.spi.util.Pair;
 import java.util.List;
 import java.util.concurrent.Future;
 
@@ -35,6 +36,22 @@ public interface AggregationLoader {
    */
   DataFrame loadBreakdown(MetricSlice slice, int limit) throws Exception;
 
+  /**
+   * Returns the de-aggregation data frames of a current and a baseline slice, with the format of
+   * {@link #loadBreakdown(MetricSlice, int)}. The slices must only differ by their interval.
+   *
+   * Implementations should load both slices concurrently.
+   *
+   * @param currentSlice current metric slice
+   * @param baselineSlice baseline metric slice
+   * @param limit top k element limit per dimension name ({@code -1} for default)
+   * @return pair of (current de-aggregation data frame, baseline de-aggregation data frame)
+   */
+  default Pair<DataFrame, DataFrame> loadBreakdowns(final MetricSlice currentSlice,
+      final MetricSlice baselineSlice, final int limit) throws Exception {
+    return Pair.pair(loadBreakdown(currentSlice, limit), loadBreakdown(baselineSlice, limit));
+  }
+
   /**
    * Returns metric aggregates grouped by the given dimensions (or none).
    *
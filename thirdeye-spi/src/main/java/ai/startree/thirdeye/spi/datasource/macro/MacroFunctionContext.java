@@ -22,6 +22,11 @@ public class MacroFunctionContext {
 
   private SqlExpressionBuilder sqlExpressionBuilder;
   private Interval detectionInterval;
+  /**
+   * If set, used by the time filter macro as is, instead of the detection interval and lookbacks.
+   * Used to fetch a sub-range of the data of a query.
+   */
+  private Interval timeFilterInterval;
   private Map<String, String> properties;
   /**
    * Used by macro function to get the default timeColumn, timeUnit, TimeFormat.
@@ -56,6 +61,15 @@ public class MacroFunctionContext {
     return this;
   }
 
+  public Interval getTimeFilterInterval() {
+    return timeFilterInterval;
+  }
+
+  public MacroFunctionContext setTimeFilterInterval(final Interval timeFilterInterval) {
+    this.timeFilterInterval = timeFilterInterval;
+    return this;
+  }
+
   public Map<String, String> getProperties() {
     return properties;
   }
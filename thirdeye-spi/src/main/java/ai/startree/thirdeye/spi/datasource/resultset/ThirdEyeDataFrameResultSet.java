@@ -45,6 +45,14 @@ public class ThirdEyeDataFrameResultSet extends AbstractThirdEyeResultSet {
     return metaDataAllColumns.equals(dataFrame.getSeries().keySet());
   }
 
+  public ThirdEyeResultSetMetaData getMetaData() {
+    return thirdEyeResultSetMetaData;
+  }
+
+  public DataFrame getDataFrame() {
+    return dataFrame;
+  }
+
   @Override
   public int getRowCount() {
     return dataFrame.size();
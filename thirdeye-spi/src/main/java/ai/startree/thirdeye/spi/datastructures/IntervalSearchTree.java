@@ -96,6 +96,7 @@ public class IntervalSearchTree<V> {
     Set<V> existingValues = get(interval);
     if (existingValues != null) {
       existingValues.add(value);
+      return;
     }
     root = randomizedInsert(root, interval, value);
   }
@@ -198,7 +199,7 @@ public class IntervalSearchTree<V> {
         return Map.entry(x.interval, x.values);
       } else if (x.left == null) {
         x = x.right;
-      } else if (x.left.max < interval.getMin()) {
+      } else if (x.left.max <= interval.getMin()) {
         x = x.right;
       } else {
         x = x.left;
@@ -227,10 +228,11 @@ public class IntervalSearchTree<V> {
       matchingIntervals.put(x.interval, x.values);
       found1 = true;
     }
-    if (x.left != null && x.left.max >= interval.getMin()) {
+    // intervals are half-open: an interval ending at interval.getMin() does not intersect
+    if (x.left != null && x.left.max > interval.getMin()) {
       found2 = searchAll(x.left, interval, matchingIntervals);
     }
-    if (found2 || x.left == null || x.left.max < interval.getMin()) {
+    if (found2 || x.left == null || x.left.max <= interval.getMin()) {
       found3 = searchAll(x.right, interval, matchingIntervals);
     }
     return found1 || found2 || found3;
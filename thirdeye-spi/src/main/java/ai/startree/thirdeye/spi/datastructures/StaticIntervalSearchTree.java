@@ -0,0 +1,308 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.spi.datastructures;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import ai.startree.thirdeye.spi.dataframe.LongSeries;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Immutable interval search tree, built in bulk.
+ *
+ * Intervals are sorted by start and stored in arrays. The sorted arrays are an implicit balanced
+ * BST: the root of a range is its middle element. Each node stores the max end of its subtree.
+ * Intervals respect the ThirdEye start/end semantic of {@link Interval1D}: they are half-open.
+ *
+ * Prefer this class to {@link IntervalSearchTree} when all the intervals are known upfront.
+ */
+public class StaticIntervalSearchTree<V> {
+
+  private static final int[] EMPTY = new int[0];
+  // kinds of endpoint events of the sweep, in processing order at a given coordinate
+  private static final int END = 0;
+  private static final int POINT = 1;
+  private static final int START = 2;
+  private static final int KIND_MASK = 3;
+
+  // sorted by start, then end
+  private final long[] starts;
+  private final long[] ends;
+  private final List<V> values;
+  // max end of the subtree rooted at each index
+  private final long[] maxEnds;
+
+  private StaticIntervalSearchTree(final long[] starts, final long[] ends, final List<V> values) {
+    this.starts = starts;
+    this.ends = ends;
+    this.values = values;
+    this.maxEnds = new long[starts.length];
+    buildMaxEnds(0, starts.length - 1);
+  }
+
+  /**
+   * Builds a tree from the intervals [starts[i], ends[i]) with associated values.values(i).
+   */
+  public static <V> StaticIntervalSearchTree<V> of(final long[] starts, final long[] ends,
+      final List<V> values) {
+    checkArgument(starts.length == ends.length && starts.length == values.size(),
+        "starts, ends and values must have the same size");
+    final Integer[] order = new Integer[starts.length];
+    for (int i = 0; i < order.length; i++) {
+      order[i] = i;
+    }
+    Arrays.sort(order, Comparator.<Integer>comparingLong(i -> starts[i])
+        .thenComparingLong(i -> ends[i]));
+
+    final long[] sortedStarts = new long[order.length];
+    final long[] sortedEnds = new long[order.length];
+    final List<V> sortedValues = new ArrayList<>(order.length);
+    for (int i = 0; i < order.length; i++) {
+      sortedStarts[i] = starts[order[i]];
+      sortedEnds[i] = ends[order[i]];
+      sortedValues.add(values.get(order[i]));
+    }
+    return new StaticIntervalSearchTree<>(sortedStarts, sortedEnds, sortedValues);
+  }
+
+  /**
+   * Builds a tree from start and end series, for instance the columns of a DataFrame. Rows with a
+   * null start or end are skipped.
+   */
+  public static <V> StaticIntervalSearchTree<V> of(final LongSeries starts, final LongSeries ends,
+      final List<V> values) {
+    checkArgument(starts.size() == ends.size() && starts.size() == values.size(),
+        "starts, ends and values must have the same size");
+    if (!starts.hasNull() && !ends.hasNull()) {
+      return of(starts.values(), ends.values(), values);
+    }
+    final long[] nonNullStarts = new long[starts.size()];
+    final long[] nonNullEnds = new long[starts.size()];
+    final List<V> nonNullValues = new ArrayList<>(starts.size());
+    int size = 0;
+    for (int i = 0; i < starts.size(); i++) {
+      if (!starts.isNull(i) && !ends.isNull(i)) {
+        nonNullStarts[size] = starts.getLong(i);
+        nonNullEnds[size] = ends.getLong(i);
+        nonNullValues.add(values.get(i));
+        size++;
+      }
+    }
+    return of(Arrays.copyOf(nonNullStarts, size), Arrays.copyOf(nonNullEnds, size),
+        nonNullValues);
+  }
+
+  private long buildMaxEnds(final int lo, final int hi) {
+    if (lo > hi) {
+      return Long.MIN_VALUE;
+    }
+    final int mid = (lo + hi) >>> 1;
+    maxEnds[mid] = Math.max(ends[mid],
+        Math.max(buildMaxEnds(lo, mid - 1), buildMaxEnds(mid + 1, hi)));
+    return maxEnds[mid];
+  }
+
+  public int size() {
+    return starts.length;
+  }
+
+  /**
+   * Returns the values of all the intervals that intersect [min, max), ordered by interval start.
+   * Running time is proportional to log N + R, where R is the number of intersections.
+   */
+  public List<V> searchAll(final long min, final long max) {
+    final List<V> matches = new ArrayList<>();
+    searchAll(0, starts.length - 1, min, max, matches);
+    return matches;
+  }
+
+  public List<V> searchAll(final Interval1D interval) {
+    return searchAll(interval.getMin(), interval.getMax());
+  }
+
+  private void searchAll(final int lo, final int hi, final long min, final long max,
+      final List<V> matches) {
+    if (lo > hi) {
+      return;
+    }
+    final int mid = (lo + hi) >>> 1;
+    if (maxEnds[mid] <= min) {
+      // all intervals of the subtree end before min
+      return;
+    }
+    searchAll(lo, mid - 1, min, max, matches);
+    if (starts[mid] < max) {
+      if (min < ends[mid]) {
+        matches.add(values.get(mid));
+      }
+      searchAll(mid + 1, hi, min, max, matches);
+    }
+    // else all intervals on the right start after max
+  }
+
+  /**
+   * Returns, for each query interval [mins[i], maxs[i]), the values of all the intervals that
+   * intersect it, ordered by interval start.
+   *
+   * All the queries are answered in one sweep over the sorted endpoints of the intervals and the
+   * queries. Running time is proportional to (N + Q) log (N + Q) + R, where Q is the number of
+   * queries and R the total number of intersections.
+   */
+  public List<List<V>> searchAll(final long[] mins, final long[] maxs) {
+    checkArgument(mins.length == maxs.length, "mins and maxs must have the same size");
+    final int[][] matchIndices = sweep(mins, maxs);
+    final List<List<V>> matches = new ArrayList<>(mins.length);
+    for (final int[] indices : matchIndices) {
+      final List<V> queryMatches = new ArrayList<>(indices.length);
+      for (final int index : indices) {
+        queryMatches.add(values.get(index));
+      }
+      matches.add(queryMatches);
+    }
+    return matches;
+  }
+
+  /**
+   * Endpoint events are encoded as (position << 2 | kind), sorted by coordinate then kind. At a
+   * given coordinate, intervals ending there are removed before empty intervals are matched and
+   * before intervals starting there are added: half-open intervals touching at a coordinate do
+   * not intersect.
+   */
+  private int[][] sweep(final long[] mins, final long[] maxs) {
+    final int n = starts.length;
+    final int q = mins.length;
+    final int[] events = new int[2 * (n + q)];
+    final long[] coordinates = new long[2 * (n + q)];
+    int nEvents = 0;
+    // positions [0, n) are intervals, [n, n + q) are queries
+    for (int p = 0; p < n + q; p++) {
+      final long start = p < n ? starts[p] : mins[p - n];
+      final long end = p < n ? ends[p] : maxs[p - n];
+      if (start < end) {
+        coordinates[nEvents] = end;
+        events[nEvents++] = p << 2 | END;
+        coordinates[nEvents] = start;
+        events[nEvents++] = p << 2 | START;
+      } else if (start == end) {
+        coordinates[nEvents] = start;
+        events[nEvents++] = p << 2 | POINT;
+      }
+      // start > end: empty, never intersects
+    }
+    final Integer[] order = new Integer[nEvents];
+    for (int i = 0; i < nEvents; i++) {
+      order[i] = i;
+    }
+    Arrays.sort(order, Comparator.<Integer>comparingLong(i -> coordinates[i])
+        .thenComparingInt(i -> events[i] & KIND_MASK));
+
+    final ActiveSet activeIntervals = new ActiveSet(n + q);
+    final ActiveSet activeQueries = new ActiveSet(n + q);
+    final IntList[] matches = new IntList[q];
+    for (final Integer e : order) {
+      final int p = events[e] >>> 2;
+      final boolean isQuery = p >= n;
+      switch (events[e] & KIND_MASK) {
+        case END:
+          (isQuery ? activeQueries : activeIntervals).remove(p);
+          break;
+        case POINT:
+        case START:
+          if (isQuery) {
+            // the query intersects all active intervals
+            final IntList queryMatches = matchesOf(matches, p - n);
+            for (int i = 0; i < activeIntervals.size; i++) {
+              queryMatches.add(activeIntervals.elements[i]);
+            }
+          } else {
+            // the interval intersects all active queries
+            for (int i = 0; i < activeQueries.size; i++) {
+              matchesOf(matches, activeQueries.elements[i] - n).add(p);
+            }
+          }
+          if ((events[e] & KIND_MASK) == START) {
+            (isQuery ? activeQueries : activeIntervals).add(p);
+          }
+          break;
+        default:
+          throw new IllegalStateException();
+      }
+    }
+
+    final int[][] result = new int[q][];
+    for (int i = 0; i < q; i++) {
+      result[i] = matches[i] == null ? EMPTY : matches[i].sortedArray();
+    }
+    return result;
+  }
+
+  private static IntList matchesOf(final IntList[] matches, final int query) {
+    if (matches[query] == null) {
+      matches[query] = new IntList();
+    }
+    return matches[query];
+  }
+
+  /**
+   * Set of positions with constant time add and remove.
+   */
+  private static class ActiveSet {
+
+    private final int[] elements;
+    // index of each position in elements, -1 if absent
+    private final int[] indexOf;
+    private int size = 0;
+
+    private ActiveSet(final int capacity) {
+      elements = new int[capacity];
+      indexOf = new int[capacity];
+      Arrays.fill(indexOf, -1);
+    }
+
+    private void add(final int p) {
+      indexOf[p] = size;
+      elements[size++] = p;
+    }
+
+    private void remove(final int p) {
+      final int i = indexOf[p];
+      final int last = elements[--size];
+      elements[i] = last;
+      indexOf[last] = i;
+      indexOf[p] = -1;
+    }
+  }
+
+  private static class IntList {
+
+    private int[] elements = new int[4];
+    private int size = 0;
+
+    private void add(final int value) {
+      if (size == elements.length) {
+        elements = Arrays.copyOf(elements, 2 * size);
+      }
+      elements[size++] = value;
+    }
+
+    private int[] sortedArray() {
+      final int[] array = Arrays.copyOf(elements, size);
+      Arrays.sort(array);
+      return array;
+    }
+  }
+}
@@ -39,4 +39,23 @@ public interface DataTableToSqlAdapter {
       throws SQLException;
 
   void tearDown(final Connection connection) throws SQLException;
+
+  /**
+   * Whether a connection and its prepared statements can be reused by the next executions. If
+   * true, loadTables must replace the tables loaded by a previous execution, tearDown must remove
+   * the data and the tables the next execution must not read, and each call to
+   * {@link #jdbcConnection()} must return a new database: connections are pooled and used
+   * concurrently.
+   */
+  default boolean isConnectionReusable() {
+    return false;
+  }
+
+  /**
+   * Closes a pooled connection that is not reused anymore. Adapters of in-memory databases also
+   * release the database of the connection.
+   */
+  default void closeConnection(final Connection connection) throws SQLException {
+    connection.close();
+  }
 }
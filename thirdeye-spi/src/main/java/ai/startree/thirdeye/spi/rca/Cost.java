@@ -11,7 +11,7 @@
  * See the License for the specific language governing permissions and limitations under
  * the License.
  */
-package ai.startree.thirdeye.plugins.rca.contributors.simple;
+package ai.startree.thirdeye.spi.rca;
 
 public enum Cost {
   VALUE_CHANGE {
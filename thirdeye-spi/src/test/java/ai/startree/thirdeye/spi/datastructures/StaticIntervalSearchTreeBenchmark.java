@@ -0,0 +1,151 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.spi.datastructures;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compares {@link IntervalSearchTree} and {@link StaticIntervalSearchTree} on the event labeling
+ * workload: build a tree of events, then find the events intersecting each anomaly. Run the main
+ * method manually.
+ */
+public class StaticIntervalSearchTreeBenchmark {
+
+  private static final Logger LOG = LoggerFactory.getLogger(
+      StaticIntervalSearchTreeBenchmark.class);
+
+  private static final int N_ROUNDS = 15;
+  private static final int N_EVENTS = 10_000;
+  private static final int N_ANOMALIES = 10_000;
+  private static final long DAY_MILLIS = 86_400_000L;
+  private static final long HOUR_MILLIS = 3_600_000L;
+  // about 5 years
+  private static final long TIME_RANGE = 1_800 * DAY_MILLIS;
+
+  private final long[] eventStarts = new long[N_EVENTS];
+  private final long[] eventEnds = new long[N_EVENTS];
+  private final List<String> eventNames = new ArrayList<>();
+  private final long[] anomalyStarts = new long[N_ANOMALIES];
+  private final long[] anomalyEnds = new long[N_ANOMALIES];
+
+  private long tStart;
+  private List<Long> times = new ArrayList<>();
+
+  public StaticIntervalSearchTreeBenchmark() {
+    final Random random = new Random(42);
+    for (int i = 0; i < N_EVENTS; i++) {
+      eventStarts[i] = (long) (random.nextDouble() * TIME_RANGE);
+      eventEnds[i] = eventStarts[i] + (1 + random.nextInt(3)) * DAY_MILLIS;
+      eventNames.add("event" + i % 500);
+    }
+    for (int i = 0; i < N_ANOMALIES; i++) {
+      anomalyStarts[i] = (long) (random.nextDouble() * TIME_RANGE);
+      anomalyEnds[i] = anomalyStarts[i] + (1 + random.nextInt(24)) * HOUR_MILLIS;
+    }
+  }
+
+  private void benchmarkIntervalSearchTree() {
+    long checksum = 0;
+    for (int r = 0; r < N_ROUNDS; r++) {
+      startTimer();
+      final IntervalSearchTree<String> tree = new IntervalSearchTree<>();
+      for (int i = 0; i < N_EVENTS; i++) {
+        tree.put(Interval1D.of(eventStarts[i], eventEnds[i]), eventNames.get(i));
+      }
+      for (int i = 0; i < N_ANOMALIES; i++) {
+        final Map<Interval1D, Set<String>> matches = tree.searchAll(
+            Interval1D.of(anomalyStarts[i], anomalyEnds[i]));
+        for (final Set<String> names : matches.values()) {
+          checksum += names.size();
+        }
+      }
+      stopTimer();
+    }
+    logResults("intervalSearchTree", checksum);
+  }
+
+  private void benchmarkStaticTreeSingleQueries() {
+    long checksum = 0;
+    for (int r = 0; r < N_ROUNDS; r++) {
+      startTimer();
+      final StaticIntervalSearchTree<String> tree = StaticIntervalSearchTree.of(eventStarts,
+          eventEnds,
+          eventNames);
+      for (int i = 0; i < N_ANOMALIES; i++) {
+        checksum += tree.searchAll(anomalyStarts[i], anomalyEnds[i]).size();
+      }
+      stopTimer();
+    }
+    logResults("staticTreeSingleQueries", checksum);
+  }
+
+  private void benchmarkStaticTreeBatchQuery() {
+    long checksum = 0;
+    for (int r = 0; r < N_ROUNDS; r++) {
+      startTimer();
+      final StaticIntervalSearchTree<String> tree = StaticIntervalSearchTree.of(eventStarts,
+          eventEnds,
+          eventNames);
+      for (final List<String> matches : tree.searchAll(anomalyStarts, anomalyEnds)) {
+        checksum += matches.size();
+      }
+      stopTimer();
+    }
+    logResults("staticTreeBatchQuery", checksum);
+  }
+
+  private void startTimer() {
+    this.tStart = System.nanoTime();
+  }
+
+  private void stopTimer() {
+    this.times.add(System.nanoTime() - this.tStart);
+  }
+
+  private void logResults(final String name, final long checksum) {
+    Collections.sort(this.times);
+    final long tMid = this.times.get(this.times.size() / 2);
+    final long tMin = Collections.min(this.times);
+    final long tMax = Collections.max(this.times);
+    LOG.info("{}: min/mid/max = {}ms {}ms {}ms [chk={}, cnt={}]", name, tMin / 1000000,
+        tMid / 1000000, tMax / 1000000, checksum % 1000, this.times.size());
+
+    // reset timer stats
+    this.times = new ArrayList<>();
+  }
+
+  public static void main(final String[] args) throws Exception {
+    LOG.info("Press Enter key to start.");
+    System.in.read();
+
+    LOG.info("Running interval search tree benchmark ...");
+    final StaticIntervalSearchTreeBenchmark b = new StaticIntervalSearchTreeBenchmark();
+    // warm up all paths before measuring
+    b.benchmarkIntervalSearchTree();
+    b.benchmarkStaticTreeSingleQueries();
+    b.benchmarkStaticTreeBatchQuery();
+
+    b.benchmarkIntervalSearchTree();
+    b.benchmarkStaticTreeSingleQueries();
+    b.benchmarkStaticTreeBatchQuery();
+    LOG.info("done.");
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.spi.datastructures;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import ai.startree.thirdeye.spi.dataframe.LongSeries;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.testng.annotations.Test;
+
+public class StaticIntervalSearchTreeTest {
+
+  private static final StaticIntervalSearchTree<String> TREE = StaticIntervalSearchTree.of(
+      new long[]{10, 0, 20, 5, 15},
+      new long[]{20, 10, 30, 5, 40},
+      List.of("b", "a", "c", "empty", "d"));
+
+  @Test
+  public void testSearchAll() {
+    assertThat(TREE.searchAll(0, 100)).containsExactly("a", "empty", "b", "d", "c");
+    assertThat(TREE.searchAll(12, 16)).containsExactly("b", "d");
+    assertThat(TREE.searchAll(45, 50)).isEmpty();
+  }
+
+  @Test
+  public void testSearchAllIntervalsAreHalfOpen() {
+    assertThat(TREE.searchAll(10, 15)).containsExactly("b");
+    assertThat(TREE.searchAll(30, 35)).containsExactly("d");
+    // an empty query intersects the intervals strictly containing it
+    assertThat(TREE.searchAll(12, 12)).containsExactly("b");
+    assertThat(TREE.searchAll(10, 10)).isEmpty();
+    // an empty interval intersects the queries strictly containing it
+    assertThat(TREE.searchAll(4, 6)).containsExactly("a", "empty");
+  }
+
+  @Test
+  public void testBatchSearchAll() {
+    final List<List<String>> matches = TREE.searchAll(new long[]{0, 12, 45, 10, 12, 10, 4},
+        new long[]{100, 16, 50, 15, 12, 10, 6});
+    assertThat(matches).containsExactly(List.of("a", "empty", "b", "d", "c"),
+        List.of("b", "d"),
+        List.of(),
+        List.of("b"),
+        List.of("b"),
+        List.of(),
+        List.of("a", "empty"));
+  }
+
+  @Test
+  public void testFromSeriesSkipsNulls() {
+    final StaticIntervalSearchTree<String> tree = StaticIntervalSearchTree.of(
+        LongSeries.buildFrom(0, LongSeries.NULL, 10),
+        LongSeries.buildFrom(10, 20, LongSeries.NULL),
+        List.of("a", "nullStart", "nullEnd"));
+    assertThat(tree.size()).isEqualTo(1);
+    assertThat(tree.searchAll(Interval1D.of(0, 100))).containsExactly("a");
+  }
+
+  @Test
+  public void testSearchAllMatchesBruteForce() {
+    final Random random = new Random(42);
+    final int n = 2_000;
+    final long[] starts = new long[n];
+    final long[] ends = new long[n];
+    final List<Integer> values = new ArrayList<>();
+    for (int i = 0; i < n; i++) {
+      starts[i] = random.nextInt(10_000);
+      ends[i] = starts[i] + random.nextInt(200);
+      values.add(i);
+    }
+    final StaticIntervalSearchTree<Integer> tree = StaticIntervalSearchTree.of(starts, ends,
+        values);
+
+    final int q = 500;
+    final long[] mins = new long[q];
+    final long[] maxs = new long[q];
+    for (int i = 0; i < q; i++) {
+      mins[i] = random.nextInt(10_000);
+      maxs[i] = mins[i] + random.nextInt(300);
+    }
+    final List<List<Integer>> batchMatches = tree.searchAll(mins, maxs);
+    for (int i = 0; i < q; i++) {
+      final Interval1D query = Interval1D.of(mins[i], maxs[i]);
+      final List<Integer> expected = new ArrayList<>();
+      for (int j = 0; j < n; j++) {
+        if (query.intersects(Interval1D.of(starts[j], ends[j]))) {
+          expected.add(j);
+        }
+      }
+      assertThat(tree.searchAll(query)).containsExactlyInAnyOrderElementsOf(expected);
+      assertThat(batchMatches.get(i)).containsExactlyInAnyOrderElementsOf(expected);
+    }
+  }
+}
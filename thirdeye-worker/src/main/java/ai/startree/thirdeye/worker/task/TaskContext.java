@@ -22,6 +22,7 @@ public class TaskContext {
   private long workerId;
 
   private TaskDriverThreadPoolManager taskDriverThreadPoolManager;
+  private TaskFetcher taskFetcher;
   private TaskManager taskManager;
   private TaskRunnerFactory taskRunnerFactory;
   private MetricRegistry metricRegistry;
@@ -54,6 +55,15 @@ public class TaskContext {
     return this;
   }
 
+  public TaskFetcher getTaskFetcher() {
+    return taskFetcher;
+  }
+
+  public TaskContext setTaskFetcher(final TaskFetcher taskFetcher) {
+    this.taskFetcher = taskFetcher;
+    return this;
+  }
+
   public TaskManager getTaskManager() {
     return taskManager;
   }
@@ -38,6 +38,7 @@ public class TaskDriver {
   private final TaskDriverConfiguration config;
   private final Long workerId;
   private final TaskDriverThreadPoolManager taskDriverThreadPoolManager;
+  private final TaskFetcher taskFetcher;
 
   @Inject
   public TaskDriver(final TaskManager taskManager,
@@ -49,10 +50,16 @@ public class TaskDriver {
     this.taskDriverThreadPoolManager = taskDriverThreadPoolManager;
     config = taskDriverConfiguration;
     workerId = fetchWorkerId(config);
+    taskFetcher = new TaskFetcher(taskManager,
+        taskDriverConfiguration,
+        workerId,
+        taskDriverThreadPoolManager,
+        metricRegistry);
 
     taskContext = new TaskContext()
         .setTaskManager(taskManager)
         .setTaskDriverThreadPoolManager(taskDriverThreadPoolManager)
+        .setTaskFetcher(taskFetcher)
         .setTaskRunnerFactory(taskRunnerFactory)
         .setMetricRegistry(metricRegistry)
         .setConfig(taskDriverConfiguration)
@@ -83,6 +90,7 @@ public class TaskDriver {
   }
 
   private void runTasksInParallel() {
+    taskDriverThreadPoolManager.getTaskFetcherExecutorService().submit(taskFetcher);
     for (int i = 0; i < config.getMaxParallelTasks(); i++) {
       taskDriverThreadPoolManager.getTaskWatcherExecutorService()
           .submit(new TaskDriverRunnable(taskContext));
@@ -29,7 +29,11 @@ public class TaskDriverConfiguration {
   private int activeThresholdMultiplier = 3;
 
   private int taskFetchSizeCap = 50;
+  // number of tasks claimed in advance of idle task threads
+  private int taskPrefetchDepth = 0;
   private int maxParallelTasks = 5;
+  // max number of anomalies saved in a single transaction at the end of a detection task
+  private int anomalySaveBatchSize = 100;
 
   public Long getId() {
     return id;
@@ -103,6 +107,15 @@ public class TaskDriverConfiguration {
     return this;
   }
 
+  public int getTaskPrefetchDepth() {
+    return taskPrefetchDepth;
+  }
+
+  public TaskDriverConfiguration setTaskPrefetchDepth(final int taskPrefetchDepth) {
+    this.taskPrefetchDepth = taskPrefetchDepth;
+    return this;
+  }
+
   public int getMaxParallelTasks() {
     return maxParallelTasks;
   }
@@ -129,4 +142,13 @@ public class TaskDriverConfiguration {
     this.activeThresholdMultiplier = activeThresholdMultiplier;
     return this;
   }
+
+  public int getAnomalySaveBatchSize() {
+    return anomalySaveBatchSize;
+  }
+
+  public TaskDriverConfiguration setAnomalySaveBatchSize(final int anomalySaveBatchSize) {
+    this.anomalySaveBatchSize = anomalySaveBatchSize;
+    return this;
+  }
 }
@@ -23,18 +23,13 @@ import ai.startree.thirdeye.spi.task.TaskType;
 import com.codahale.metrics.Counter;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.Timer;
-import com.google.common.collect.ImmutableSet;
 import com.google.inject.Singleton;
 import io.micrometer.core.instrument.Metrics;
 import java.io.IOException;
-import java.util.Collections;
 import java.util.List;
-import java.util.Random;
-import java.util.Set;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
-import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -44,16 +39,11 @@ import org.slf4j.MDC;
 public class TaskDriverRunnable implements Runnable {
 
   private static final Logger LOG = LoggerFactory.getLogger(TaskDriverRunnable.class);
-  private static final Random RANDOM = new Random();
-  private static final Set<TaskStatus> ALLOWED_OLD_TASK_STATUS = ImmutableSet.of(
-      TaskStatus.FAILED,
-      TaskStatus.WAITING
-  );
 
   private final TaskManager taskManager;
   private final TaskContext taskContext;
   private final TaskDriverConfiguration config;
-  private final long workerId;
+  private final TaskFetcher taskFetcher;
   private final TaskRunnerFactory taskRunnerFactory;
 
   // migration to micrometer. we start by verifying that old and new counters behave the same
@@ -76,7 +66,7 @@ public class TaskDriverRunnable implements Runnable {
 
     this.taskManager = taskContext.getTaskManager();
     this.config = taskContext.getConfig();
-    this.workerId = taskContext.getWorkerId();
+    this.taskFetcher = taskContext.getTaskFetcher();
     this.taskRunnerFactory = taskContext.getTaskRunnerFactory();
 
     final MetricRegistry metricRegistry = taskContext.getMetricRegistry();
@@ -202,81 +192,28 @@ public class TaskDriverRunnable implements Runnable {
    */
   private TaskDTO waitForTask() {
     while (!isShutdown()) {
-      final List<TaskDTO> anomalyTasks = findTasks();
-
-      final boolean tasksFound = CollectionUtils.isNotEmpty(anomalyTasks);
-      if (tasksFound) {
-        final TaskDTO taskDTO = acquireTask(anomalyTasks);
+      final long idleStart = System.currentTimeMillis();
+      try {
+        final TaskDTO taskDTO = taskFetcher.poll(config.getNoTaskDelay().toMillis(),
+            TimeUnit.MILLISECONDS);
         if (taskDTO != null) {
           taskFetchHitCounter.inc();
+          taskWaitingTimer.update(
+              System.currentTimeMillis() - taskDTO.getCreateTime().getTime(),
+              TimeUnit.MILLISECONDS);
           return taskDTO;
         }
-      }
-      taskFetchMissCounter.inc();
-      final long idleStart = System.currentTimeMillis();
-      sleep(!tasksFound);
-      workerIdleTimeInSeconds.inc((System.currentTimeMillis() - idleStart) / 1000);
-    }
-    return null;
-  }
-
-  private TaskDTO acquireTask(final List<TaskDTO> anomalyTasks) {
-    // shuffle candidate tasks to avoid synchronized patterns across threads (and hosts)
-    Collections.shuffle(anomalyTasks);
-
-    for (final TaskDTO taskDTO : anomalyTasks) {
-      try {
-        // Don't acquire a new task if shutting down.
+        taskFetchMissCounter.inc();
+      } catch (final InterruptedException e) {
         if (!isShutdown()) {
-          boolean success = taskManager.updateStatusAndWorkerId(workerId,
-              taskDTO.getId(),
-              ALLOWED_OLD_TASK_STATUS,
-              taskDTO.getVersion());
-          if (success) {
-            taskWaitingTimer.update(
-                System.currentTimeMillis() - taskDTO.getCreateTime().getTime(),
-                TimeUnit.MILLISECONDS);
-            return taskDTO;
-          }
+          LOG.warn(e.getMessage(), e);
         }
-      } catch (Exception e) {
-        LOG.warn("Got exception when acquiring task. (Worker Id: {})", workerId, e);
       }
+      workerIdleTimeInSeconds.inc((System.currentTimeMillis() - idleStart) / 1000);
     }
     return null;
   }
 
-  private List<TaskDTO> findTasks() {
-    try {
-      // randomize fetching head and tail to reduce synchronized patterns across threads (and hosts)
-      boolean orderAscending = System.currentTimeMillis() % 2 == 0;
-
-      // find by task type to separate online task from a normal task
-      return taskManager.findByStatusOrderByCreateTime(TaskStatus.WAITING,
-          config.getTaskFetchSizeCap(),
-          orderAscending);
-    } catch (Exception e) {
-      LOG.error("Exception found in fetching new tasks", e);
-    }
-    return null;
-  }
-
-  private void sleep(final boolean hasFetchError) {
-    final long sleepTime = hasFetchError
-        ? config.getTaskFailureDelay().toMillis()
-        : config.getNoTaskDelay().toMillis() + RANDOM
-            .nextInt((int) config.getRandomDelayCap().toMillis());
-    // sleep for few seconds if not tasks found - avoid cpu thrashing
-    // also add some extra random number of milli seconds to allow threads to start at different times
-    try {
-      Thread.sleep(sleepTime);
-    } catch (InterruptedException e) {
-      if (!isShutdown()) {
-        LOG.warn(e.getMessage(), e);
-      }
-    }
-  }
-
   private void updateTaskStatus(long taskId,
       TaskStatus newStatus,
       String message) {
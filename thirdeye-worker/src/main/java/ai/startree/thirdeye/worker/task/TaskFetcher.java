@@ -0,0 +1,214 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.worker.task;
+
+import ai.startree.thirdeye.spi.datalayer.bao.TaskManager;
+import ai.startree.thirdeye.spi.datalayer.dto.TaskDTO;
+import ai.startree.thirdeye.spi.task.TaskStatus;
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Single task fetcher per worker. Claims batches of WAITING tasks in one transaction and hands
+ * them to the {@link TaskDriverRunnable} threads through an in-memory queue.
+ *
+ * The fetcher claims as many tasks as there are idle runners, plus up to
+ * {@link TaskDriverConfiguration#getTaskPrefetchDepth()} tasks in advance. Claimed tasks are
+ * RUNNING in the database: the fetcher keeps their heartbeat alive while they are queued and
+ * releases them back to WAITING at shutdown.
+ */
+public class TaskFetcher implements Runnable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(TaskFetcher.class);
+  private static final Random RANDOM = new Random();
+
+  private final TaskManager taskManager;
+  private final TaskDriverConfiguration config;
+  private final long workerId;
+  private final TaskDriverThreadPoolManager taskDriverThreadPoolManager;
+
+  private final BlockingQueue<TaskDTO> queue = new LinkedBlockingQueue<>();
+  private final AtomicInteger idleRunners = new AtomicInteger();
+  private final Object demandMonitor = new Object();
+
+  private final Timer taskClaimTimer;
+  private final Histogram taskClaimBatchSize;
+  private final Counter taskClaimUnfilledCounter;
+  private final Counter taskClaimExceptionCounter;
+
+  public TaskFetcher(final TaskManager taskManager,
+      final TaskDriverConfiguration config,
+      final long workerId,
+      final TaskDriverThreadPoolManager taskDriverThreadPoolManager,
+      final MetricRegistry metricRegistry) {
+    this.taskManager = taskManager;
+    this.config = config;
+    this.workerId = workerId;
+    this.taskDriverThreadPoolManager = taskDriverThreadPoolManager;
+
+    taskClaimTimer = metricRegistry.timer("taskClaimTimer");
+    taskClaimBatchSize = metricRegistry.histogram("taskClaimBatchSize");
+    // number of tasks requested but not obtained: the backlog was smaller than the demand, or
+    // rows were locked by other workers. Compare with the WAITING backlog to detect contention.
+    taskClaimUnfilledCounter = metricRegistry.counter("taskClaimUnfilledCounter");
+    taskClaimExceptionCounter = metricRegistry.counter("taskClaimExceptionCounter");
+    metricRegistry.register("taskQueueSize", (Gauge<Integer>) queue::size);
+    metricRegistry.register("taskIdleRunners", (Gauge<Integer>) idleRunners::get);
+  }
+
+  /**
+   * Wait for a claimed task.
+   *
+   * @return a RUNNING task assigned to this worker, or null if none is available after timeout.
+   */
+  public TaskDTO poll(final long timeout, final TimeUnit unit) throws InterruptedException {
+    idleRunners.incrementAndGet();
+    try {
+      signalDemand();
+      return queue.poll(timeout, unit);
+    } finally {
+      idleRunners.decrementAndGet();
+    }
+  }
+
+  @Override
+  public void run() {
+    while (!isShutdown()) {
+      final int demand = demand();
+      if (demand <= 0) {
+        heartbeatQueuedTasks();
+        waitForDemand(config.getHeartbeatInterval().toMillis());
+        continue;
+      }
+      try {
+        final List<TaskDTO> tasks = claim(demand);
+        if (tasks.isEmpty()) {
+          // new idle runners do not change the outcome: wait for new tasks to be created
+          // add some random delay to avoid synchronized patterns across hosts
+          sleep(config.getNoTaskDelay().toMillis()
+              + RANDOM.nextInt((int) config.getRandomDelayCap().toMillis()));
+        }
+      } catch (final Exception e) {
+        taskClaimExceptionCounter.inc();
+        LOG.error("Exception found while claiming new tasks. (Worker Id: {})", workerId, e);
+        sleep(config.getTaskFailureDelay().toMillis());
+      }
+    }
+    releaseQueuedTasks();
+    LOG.info("TaskFetcher safely quitting. name: {}", Thread.currentThread().getName());
+  }
+
+  private int demand() {
+    final int wanted = idleRunners.get() + config.getTaskPrefetchDepth() - queue.size();
+    return Math.min(wanted, config.getTaskFetchSizeCap());
+  }
+
+  private List<TaskDTO> claim(final int demand) throws Exception {
+    final List<TaskDTO> tasks = taskClaimTimer.time(
+        () -> taskManager.acquireTasks(workerId, demand));
+    taskClaimBatchSize.update(tasks.size());
+    taskClaimUnfilledCounter.inc(demand - tasks.size());
+    queue.addAll(tasks);
+    return tasks;
+  }
+
+  private void heartbeatQueuedTasks() {
+    if (!config.isRandomWorkerIdEnabled()) {
+      return;
+    }
+    final long threshold = System.currentTimeMillis() - config.getHeartbeatInterval().toMillis();
+    for (final TaskDTO task : queue) {
+      final Timestamp lastActive = task.getLastActive();
+      if (lastActive == null || lastActive.getTime() < threshold) {
+        try {
+          taskManager.updateLastActive(task.getId());
+          task.setLastActive(new Timestamp(System.currentTimeMillis()));
+        } catch (final Exception e) {
+          LOG.warn("Could not update lastActive of queued task {}", task.getId(), e);
+        }
+      }
+    }
+  }
+
+  private void releaseQueuedTasks() {
+    final List<TaskDTO> queued = new ArrayList<>();
+    queue.drainTo(queued);
+    for (final TaskDTO task : queued) {
+      LOG.info("Releasing queued task {} from RUNNING to WAITING", task.getId());
+      try {
+        taskManager.updateStatusAndTaskEndTime(task.getId(),
+            TaskStatus.RUNNING,
+            TaskStatus.WAITING,
+            0L,
+            "WAITING status restored by the worker at shutdown");
+      } catch (final Exception e) {
+        LOG.error("Could not release queued task {}", task.getId(), e);
+      }
+    }
+  }
+
+  private void signalDemand() {
+    synchronized (demandMonitor) {
+      demandMonitor.notifyAll();
+    }
+  }
+
+  /**
+   * Waits until there is demand, or for maxWaitMillis. Demand is checked while holding the
+   * monitor: a runner becoming idle between the caller's check and the wait is not missed.
+   */
+  private void waitForDemand(final long maxWaitMillis) {
+    final long deadline = System.currentTimeMillis() + maxWaitMillis;
+    synchronized (demandMonitor) {
+      try {
+        long remaining = maxWaitMillis;
+        while (remaining > 0 && demand() <= 0 && !isShutdown()) {
+          demandMonitor.wait(remaining);
+          remaining = deadline - System.currentTimeMillis();
+        }
+      } catch (final InterruptedException e) {
+        if (!isShutdown()) {
+          LOG.warn(e.getMessage(), e);
+        }
+      }
+    }
+  }
+
+  private void sleep(final long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (final InterruptedException e) {
+      if (!isShutdown()) {
+        LOG.warn(e.getMessage(), e);
+      }
+    }
+  }
+
+  private boolean isShutdown() {
+    return taskDriverThreadPoolManager.isShutdown();
+  }
+}
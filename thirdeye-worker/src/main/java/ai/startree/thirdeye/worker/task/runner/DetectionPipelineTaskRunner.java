@@ -34,6 +34,7 @@ import ai.startree.thirdeye.spi.detection.DetectionPipelineUsage;
 import ai.startree.thirdeye.spi.detection.v2.OperatorResult;
 import ai.startree.thirdeye.spi.task.TaskInfo;
 import ai.startree.thirdeye.worker.task.TaskContext;
+import ai.startree.thirdeye.worker.task.TaskDriverConfiguration;
 import ai.startree.thirdeye.worker.task.TaskResult;
 import ai.startree.thirdeye.worker.task.TaskRunner;
 import com.codahale.metrics.Counter;
@@ -63,6 +64,7 @@ public class DetectionPipelineTaskRunner implements TaskRunner {
   private final AnomalyManager anomalyDao;
   private final PlanExecutor planExecutor;
   private final AlertTemplateRenderer alertTemplateRenderer;
+  private final int anomalySaveBatchSize;
 
   @Inject
   public DetectionPipelineTaskRunner(final AlertManager alertManager,
@@ -71,13 +73,15 @@ public class DetectionPipelineTaskRunner implements TaskRunner {
       final AlertDetectionIntervalCalculator alertDetectionIntervalCalculator,
       final AnomalyManager anomalyDao,
       final PlanExecutor planExecutor,
-      final AlertTemplateRenderer alertTemplateRenderer) {
+      final AlertTemplateRenderer alertTemplateRenderer,
+      final TaskDriverConfiguration taskDriverConfiguration) {
     this.alertManager = alertManager;
     this.anomalySubscriptionGroupNotificationManager = anomalySubscriptionGroupNotificationManager;
     this.alertDetectionIntervalCalculator = alertDetectionIntervalCalculator;
     this.anomalyDao = anomalyDao;
     this.planExecutor = planExecutor;
     this.alertTemplateRenderer = alertTemplateRenderer;
+    anomalySaveBatchSize = taskDriverConfiguration.getAnomalySaveBatchSize();
 
     detectionTaskExceptionCounter = metricRegistry.counter("detectionTaskExceptionCounter");
     detectionTaskSuccessCounter = metricRegistry.counter("detectionTaskSuccessCounter");
@@ -143,11 +147,10 @@ public class DetectionPipelineTaskRunner implements TaskRunner {
       final long newLastTimestamp = Math.max(detectionInterval.getEndMillis(),
           alert.getLastTimestamp());
       alert.setLastTimestamp(newLastTimestamp);
-      alertManager.update(alert);
+      alertManager.updateLastTimestamp(alert.getId(), newLastTimestamp);
 
-      optional(result.getAnomalies())
-          .orElse(Collections.emptyList())
-          .forEach(anomalyDao::save);
+      anomalyDao.saveAll(optional(result.getAnomalies()).orElse(Collections.emptyList()),
+          anomalySaveBatchSize);
 
       detectionTaskSuccessCounter.inc();
       LOG.info("Completed detection task for id {} between {} and {}. Detected {} anomalies.",
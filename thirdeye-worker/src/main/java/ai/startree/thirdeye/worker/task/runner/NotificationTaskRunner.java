@@ -20,9 +20,7 @@ import ai.startree.thirdeye.notification.NotificationPayloadBuilder;
 import ai.startree.thirdeye.notification.SubscriptionGroupFilter;
 import ai.startree.thirdeye.notification.SubscriptionGroupWatermarkManager;
 import ai.startree.thirdeye.spi.api.NotificationPayloadApi;
-import ai.startree.thirdeye.spi.datalayer.bao.AnomalyManager;
 import ai.startree.thirdeye.spi.datalayer.bao.SubscriptionGroupManager;
-import ai.startree.thirdeye.spi.datalayer.dto.AnomalyDTO;
 import ai.startree.thirdeye.spi.datalayer.dto.SubscriptionGroupDTO;
 import ai.startree.thirdeye.spi.task.TaskInfo;
 import ai.startree.thirdeye.worker.task.DetectionAlertTaskInfo;
@@ -49,7 +47,6 @@ public class NotificationTaskRunner implements TaskRunner {
   private static final Logger LOG = LoggerFactory.getLogger(NotificationTaskRunner.class);
 
   private final SubscriptionGroupManager subscriptionGroupManager;
-  private final AnomalyManager anomalyManager;
   private final NotificationDispatcher notificationDispatcher;
   private final NotificationPayloadBuilder notificationPayloadBuilder;
   private final SubscriptionGroupFilter subscriptionGroupFilter;
@@ -62,14 +59,12 @@ public class NotificationTaskRunner implements TaskRunner {
   @Inject
   public NotificationTaskRunner(
       final SubscriptionGroupManager subscriptionGroupManager,
-      final AnomalyManager anomalyManager,
       final MetricRegistry metricRegistry,
       final NotificationDispatcher notificationDispatcher,
       final NotificationPayloadBuilder notificationPayloadBuilder,
       final SubscriptionGroupFilter subscriptionGroupFilter,
       final SubscriptionGroupWatermarkManager subscriptionGroupWatermarkManager) {
     this.subscriptionGroupManager = subscriptionGroupManager;
-    this.anomalyManager = anomalyManager;
     this.notificationDispatcher = notificationDispatcher;
     this.notificationPayloadBuilder = notificationPayloadBuilder;
     this.subscriptionGroupFilter = subscriptionGroupFilter;
@@ -128,11 +123,7 @@ public class NotificationTaskRunner implements TaskRunner {
     /* fire notifications */
     notificationDispatcher.dispatch(subscriptionGroup, payload);
 
-    /* Update anomalies */
-    for (final AnomalyDTO anomaly : anomalies) {
-      anomalyManager.update(anomaly.setNotified(true));
-    }
-    /* Record watermarks */
-    subscriptionGroupWatermarkManager.updateWatermarks(subscriptionGroup, anomalies);
+    /* Update anomalies and record watermarks */
+    subscriptionGroupWatermarkManager.markNotifiedAndUpdateWatermarks(subscriptionGroup, anomalies);
   }
 }
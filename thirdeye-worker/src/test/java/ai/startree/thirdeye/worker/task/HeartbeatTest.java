@@ -16,10 +16,8 @@ package ai.startree.thirdeye.worker.task;
 import static java.util.Objects.requireNonNull;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
-import static org.mockito.ArgumentMatchers.anySet;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doAnswer;
@@ -75,9 +73,6 @@ public class HeartbeatTest {
         .setHeartbeatInterval(HEARTBEAT_INTERVAL);
 
     taskManager = Mockito.mock(TaskManager.class);
-    when(taskManager.updateStatusAndWorkerId(anyLong(), anyLong(), anySet(), anyInt()))
-        .thenReturn(true);
-
     doNothing().when(taskManager)
         .updateStatusAndTaskEndTime(anyLong(), any(), any(), anyLong(), any());
 
@@ -99,8 +94,8 @@ public class HeartbeatTest {
   public void heartbeatPulseCheck() {
     final Timestamp startTime = new Timestamp(System.currentTimeMillis());
     final TaskDTO taskDTO = newTask();
-    when(taskManager.findByStatusOrderByCreateTime(eq(TaskStatus.WAITING), anyInt(), anyBoolean()))
-        .thenAnswer(i -> pollingCount++ == 0? List.of(taskDTO) : List.of());
+    when(taskManager.acquireTasks(anyLong(), anyInt()))
+        .thenAnswer(i -> pollingCount++ == 0 ? List.of(taskDTO) : List.of());
 
     doAnswer(invocation -> {
       taskDTO.setStatus(TaskStatus.COMPLETED);
@@ -125,6 +120,8 @@ public class HeartbeatTest {
     }).when(taskManager).updateLastActive(anyLong());
 
     final TaskContext taskContext = newTaskContext();
+    taskDriverThreadPoolManager.getTaskFetcherExecutorService()
+        .submit(taskContext.getTaskFetcher());
     final TaskDriverRunnable taskDriverRunnable = new TaskDriverRunnable(taskContext);
     taskDriverRunnable.run();
 
@@ -137,13 +134,19 @@ public class HeartbeatTest {
   }
 
   private TaskContext newTaskContext() {
+    final MetricRegistry metricRegistry = new MetricRegistry();
     return new TaskContext()
         .setConfig(config)
         .setWorkerId(0)
         .setTaskManager(taskManager)
         .setTaskRunnerFactory(taskRunnerFactory)
-        .setMetricRegistry(new MetricRegistry())
-        .setTaskDriverThreadPoolManager(taskDriverThreadPoolManager);
+        .setMetricRegistry(metricRegistry)
+        .setTaskDriverThreadPoolManager(taskDriverThreadPoolManager)
+        .setTaskFetcher(new TaskFetcher(taskManager,
+            config,
+            0,
+            taskDriverThreadPoolManager,
+            metricRegistry));
   }
 
   private TaskDTO newTask() {